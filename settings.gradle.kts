@@ -10,3 +10,4 @@
 include("worldedit-libs:core:ap")
 
 include("worldedit-core:doctools")
+include("worldedit-core:benchmarks")
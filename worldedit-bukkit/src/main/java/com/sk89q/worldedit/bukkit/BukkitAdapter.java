@@ -29,6 +29,7 @@
 import com.sk89q.worldedit.extension.input.ParserContext;
 import com.sk89q.worldedit.extension.platform.Actor;
 import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
+import com.sk89q.worldedit.internal.block.NativeBlockStateCache;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
 import com.sk89q.worldedit.util.Direction;
@@ -62,6 +63,7 @@
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.OptionalInt;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -455,8 +457,15 @@ public static BlockState adapt(BlockData blockData) {
                 }
             });
         } else {
+            OptionalInt internalId = adapter.getInternalBlockStateId(blockData);
+            if (internalId.isPresent()) {
+                BlockState state = BlockStateIdAccess.getBlockStateById(internalId.getAsInt());
+                if (state != null) {
+                    return state;
+                }
+            }
             return blockStateCache.computeIfAbsent(
-                adapter.getInternalBlockStateId(blockData).orElseGet(
+                internalId.orElseGet(
                     () -> blockData.getAsString().hashCode()
                 ),
                 input -> {
@@ -470,7 +479,9 @@ public static BlockState adapt(BlockData blockData) {
         }
     }
 
-    private static final Int2ObjectMap<BlockData> blockDataCache = new Int2ObjectOpenHashMap<>();
+    private static final NativeBlockStateCache<BlockData> blockDataCache =
+        new NativeBlockStateCache<>(state -> Bukkit.createBlockData(state.getAsString()));
+    private static final Int2ObjectMap<BlockData> unknownBlockDataCache = new Int2ObjectOpenHashMap<>();
 
     /**
      * Create a Bukkit BlockData from a WorldEdit BlockStateHolder.
@@ -480,12 +491,13 @@ public static BlockState adapt(BlockData blockData) {
      */
     public static <B extends BlockStateHolder<B>> BlockData adapt(B block) {
         checkNotNull(block);
+        BlockState state = block.toImmutableState();
         // Should never not have an ID for this BlockState.
-        int cacheKey = BlockStateIdAccess.getBlockStateId(block.toImmutableState());
-        if (cacheKey == BlockStateIdAccess.invalidId()) {
-            cacheKey = block.hashCode();
+        if (!BlockStateIdAccess.isValidInternalId(BlockStateIdAccess.getBlockStateId(state))) {
+            return unknownBlockDataCache.computeIfAbsent(block.hashCode(),
+                input -> Bukkit.createBlockData(block.getAsString())).clone();
         }
-        return blockDataCache.computeIfAbsent(cacheKey, input -> Bukkit.createBlockData(block.getAsString())).clone();
+        return blockDataCache.toNative(state).clone();
     }
 
     /**
@@ -48,6 +48,7 @@
 import io.papermc.lib.PaperLib;
 import org.apache.logging.log4j.Logger;
 import org.bukkit.Effect;
+import org.bukkit.HeightMap;
 import org.bukkit.TreeType;
 import org.bukkit.World;
 import org.bukkit.block.Block;
@@ -76,6 +77,7 @@ public class BukkitWorld extends AbstractWorld {
     private static final Logger LOGGER = LogManagerCompat.getLogger();
 
     private static final boolean HAS_3D_BIOMES;
+    private static final boolean HAS_HEIGHTMAPS;
 
     private static final Map<Integer, Effect> effects = new HashMap<>();
 
@@ -94,6 +96,15 @@ public class BukkitWorld extends AbstractWorld {
             temp = false;
         }
         HAS_3D_BIOMES = temp;
+
+        // Heightmaps were added to the API in 1.15
+        try {
+            World.class.getMethod("getHighestBlockYAt", int.class, int.class, Class.forName("org.bukkit.HeightMap"));
+            temp = true;
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            temp = false;
+        }
+        HAS_HEIGHTMAPS = temp;
     }
 
     private final WeakReference<World> worldRef;
@@ -350,6 +361,21 @@ public int getMaxY() {
         return getWorld().getMaxHeight() - 1;
     }
 
+    @Override
+    public void getMovementBlockerHeights(int minX, int minZ, int width, int length, int[] heights) {
+        if (!HAS_HEIGHTMAPS) {
+            super.getMovementBlockerHeights(minX, minZ, width, length, heights);
+            return;
+        }
+        World world = getWorld();
+        // Motion-blocking heights also count fluids, so they are never below a movement blocker
+        for (int z = 0; z < length; z++) {
+            for (int x = 0; x < width; x++) {
+                heights[z * width + x] = world.getHighestBlockYAt(minX + x, minZ + z, HeightMap.MOTION_BLOCKING);
+            }
+        }
+    }
+
     @SuppressWarnings("deprecation")
     @Override
     public void fixAfterFastMode(Iterable<BlockVector2> chunks) {
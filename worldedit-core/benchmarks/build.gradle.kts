@@ -0,0 +1,45 @@
+plugins {
+    java
+}
+
+applyCommonConfiguration()
+
+tasks.withType<JavaCompile>().configureEach {
+    options.release.set(8)
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    "implementation"(project(":worldedit-core"))
+    "implementation"("com.google.guava:guava")
+    "implementation"("com.google.code.gson:gson")
+    "implementation"("org.openjdk.jmh:jmh-core:${Versions.JMH}")
+    "annotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:${Versions.JMH}")
+    "runtimeOnly"("org.apache.logging.log4j:log4j-core:2.8.1")
+}
+
+val jmhResults = layout.buildDirectory.file("results/jmh/results.json")
+
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks. Use -Pjmh.include=<regex> to run a subset."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val resultsFile = jmhResults.get().asFile
+    args(listOfNotNull(project.findProperty("jmh.include")?.toString()))
+    args("-rf", "json", "-rff", resultsFile.absolutePath)
+    doFirst {
+        resultsFile.parentFile.mkdirs()
+    }
+}
+
+tasks.register<JavaExec>("jmhCompare") {
+    group = "benchmark"
+    description = "Compares the last JMH results to a baseline given with -Pjmh.baseline=<file>."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.sk89q.worldedit.benchmark.BaselineComparison")
+    args(
+        project.findProperty("jmh.baseline")?.toString() ?: "",
+        jmhResults.get().asFile.absolutePath
+    )
+}
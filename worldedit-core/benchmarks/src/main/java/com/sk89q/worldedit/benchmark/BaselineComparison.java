@@ -0,0 +1,136 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH result files written with {@code -rf json}, printing the
+ * change in score of every benchmark that appears in both.
+ *
+ * <p>Usage: {@code BaselineComparison <baseline.json> <results.json>}</p>
+ */
+public final class BaselineComparison {
+
+    private BaselineComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 || args[0].isEmpty()) {
+            System.err.println("Usage: BaselineComparison <baseline.json> <results.json>");
+            System.exit(2);
+            return;
+        }
+        Map<String, Score> baseline = readScores(Paths.get(args[0]));
+        Map<String, Score> results = readScores(Paths.get(args[1]));
+
+        System.out.printf("%-80s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Score> entry : results.entrySet()) {
+            Score current = entry.getValue();
+            Score previous = baseline.get(entry.getKey());
+            if (previous == null) {
+                System.out.printf("%-80s %14s %14s %9s%n", entry.getKey(), "-", current, "new");
+                continue;
+            }
+            if (!previous.unit.equals(current.unit)) {
+                System.out.printf("%-80s %14s %14s %9s%n", entry.getKey(), previous, current, "unit?");
+                continue;
+            }
+            double change = (current.score - previous.score) / previous.score * 100;
+            boolean significant = Math.abs(current.score - previous.score) > previous.error + current.error;
+            System.out.printf("%-80s %14s %14s %+8.1f%%%s%n", entry.getKey(), previous, current, change,
+                significant ? "" : " (within error)");
+        }
+        for (String name : baseline.keySet()) {
+            if (!results.containsKey(name)) {
+                System.out.printf("%-80s %14s %14s %9s%n", name, baseline.get(name), "-", "missing");
+            }
+        }
+    }
+
+    private static Map<String, Score> readScores(Path file) throws IOException {
+        JsonArray runs;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            runs = new JsonParser().parse(reader).getAsJsonArray();
+        }
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonElement element : runs) {
+            JsonObject run = element.getAsJsonObject();
+            StringBuilder name = new StringBuilder(run.get("benchmark").getAsString());
+            if (run.has("params")) {
+                // Sort the parameters so the key does not depend on their order in the file
+                Map<String, String> params = new TreeMap<>();
+                for (Map.Entry<String, JsonElement> param : run.getAsJsonObject("params").entrySet()) {
+                    params.put(param.getKey(), param.getValue().getAsString());
+                }
+                name.append(params);
+            }
+            JsonObject metric = run.getAsJsonObject("primaryMetric");
+            JsonElement error = metric.get("scoreError");
+            scores.put(name.toString(), new Score(
+                metric.get("score").getAsDouble(),
+                error == null || !error.isJsonPrimitive() ? 0 : parseError(error),
+                metric.get("scoreUnit").getAsString()
+            ));
+        }
+        return scores;
+    }
+
+    private static double parseError(JsonElement error) {
+        // JMH writes "NaN" as a string when there are too few iterations
+        try {
+            double value = error.getAsDouble();
+            return Double.isNaN(value) ? 0 : value;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static final class Score {
+        final double score;
+        final double error;
+        final String unit;
+
+        Score(double score, double error, String unit) {
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.3f %s", score, unit);
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.entity.Player;
+import com.sk89q.worldedit.event.platform.PlatformsRegisteredEvent;
+import com.sk89q.worldedit.extension.platform.AbstractPlatform;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.util.SideEffect;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+import com.sk89q.worldedit.world.registry.Registries;
+import org.enginehub.piston.CommandManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * A headless platform that lets the benchmarks use WorldEdit without a game.
+ *
+ * <p>It only provides configuration, world editing and game hooks, backed
+ * by the bundled registries and a small set of block types.</p>
+ */
+public final class BenchmarkPlatform extends AbstractPlatform {
+
+    private static final String[] BLOCK_IDS = {
+        "minecraft:air", "minecraft:stone", "minecraft:dirt", "minecraft:grass_block",
+        "minecraft:cobblestone", "minecraft:oak_planks", "minecraft:glass", "minecraft:sand",
+        "minecraft:water", "minecraft:bedrock"
+    };
+
+    private static BenchmarkPlatform instance;
+
+    /**
+     * Register the platform with WorldEdit, if that has not happened yet.
+     *
+     * @return the platform
+     */
+    public static synchronized BenchmarkPlatform install() {
+        if (instance == null) {
+            instance = new BenchmarkPlatform();
+            WorldEdit.getInstance().getPlatformManager().register(instance);
+            WorldEdit.getInstance().getEventBus().post(new PlatformsRegisteredEvent());
+            for (String id : BLOCK_IDS) {
+                if (BlockType.REGISTRY.get(id) == null) {
+                    BlockType.REGISTRY.register(id, new BlockType(id));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Get one of the block types registered by the platform.
+     *
+     * @param id the block ID, such as {@code minecraft:stone}
+     * @return the block type
+     */
+    public static BlockType blockType(String id) {
+        install();
+        BlockType type = BlockType.REGISTRY.get(id);
+        if (type == null) {
+            throw new IllegalArgumentException("Block type not registered for benchmarks: " + id);
+        }
+        return type;
+    }
+
+    private final LocalConfiguration configuration;
+
+    private BenchmarkPlatform() {
+        Path workingDirectory;
+        try {
+            workingDirectory = Files.createTempDirectory("worldedit-benchmark");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.configuration = new LocalConfiguration() {
+            @Override
+            public void load() {
+            }
+
+            @Override
+            public Path getWorkingDirectoryPath() {
+                return workingDirectory;
+            }
+        };
+    }
+
+    @Override
+    public Registries getRegistries() {
+        return BundledRegistries.getInstance();
+    }
+
+    @Override
+    public int getDataVersion() {
+        // Minecraft 1.16.5
+        return 2586;
+    }
+
+    @Override
+    public boolean isValidMobType(String type) {
+        return false;
+    }
+
+    @Nullable
+    @Override
+    public Player matchPlayer(Player player) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public World matchWorld(World world) {
+        return null;
+    }
+
+    @Override
+    public void registerCommands(CommandManager commandManager) {
+    }
+
+    @Override
+    public void setGameHooksEnabled(boolean enabled) {
+    }
+
+    @Override
+    public LocalConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public String getVersion() {
+        return "benchmark";
+    }
+
+    @Override
+    public String getPlatformName() {
+        return "Benchmark";
+    }
+
+    @Override
+    public String getPlatformVersion() {
+        return getVersion();
+    }
+
+    @Override
+    public Map<Capability, Preference> getCapabilities() {
+        return ImmutableMap.of(
+            Capability.CONFIGURATION, Preference.PREFERRED,
+            Capability.GAME_HOOKS, Preference.PREFERRED,
+            Capability.WORLD_EDITING, Preference.PREFERRED
+        );
+    }
+
+    @Override
+    public Set<SideEffect> getSupportedSideEffects() {
+        return ImmutableSet.of();
+    }
+
+}
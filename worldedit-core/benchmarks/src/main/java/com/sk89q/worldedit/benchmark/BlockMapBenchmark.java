@@ -0,0 +1,100 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.BlockMap;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures filling, querying and iterating a {@link BlockMap}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BlockMapBenchmark {
+
+    @Param({ "32", "64" })
+    public int size;
+
+    private final List<BlockVector3> positions = new ArrayList<>();
+    private BaseBlock stone;
+    private BaseBlock dirt;
+    private BlockMap<BaseBlock> filled;
+
+    @Setup
+    public void setup() {
+        stone = BenchmarkPlatform.blockType("minecraft:stone").getDefaultState().toBaseBlock();
+        dirt = BenchmarkPlatform.blockType("minecraft:dirt").getDefaultState().toBaseBlock();
+        for (int y = 0; y < size; y++) {
+            for (int z = 0; z < size; z++) {
+                for (int x = 0; x < size; x++) {
+                    positions.add(BlockVector3.at(x - size / 2, y, z - size / 2));
+                }
+            }
+        }
+        filled = put();
+    }
+
+    @Benchmark
+    public BlockMap<BaseBlock> put() {
+        BlockMap<BaseBlock> map = BlockMap.createForBaseBlock();
+        for (int i = 0; i < positions.size(); i++) {
+            map.put(positions.get(i), (i & 1) == 0 ? stone : dirt);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        for (BlockVector3 position : positions) {
+            blackhole.consume(filled.get(position));
+        }
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        for (Map.Entry<BlockVector3, BaseBlock> entry : filled.entrySet()) {
+            blackhole.consume(entry.getKey());
+            blackhole.consume(entry.getValue());
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.function.mask.BlockTypeMask;
+import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.function.pattern.RandomPattern;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.NullWorld;
+import com.sk89q.worldedit.world.block.BlockType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the edit pipeline of an {@link EditSession}, from the pattern
+ * down to a {@link NullWorld} that discards every change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EditSessionBenchmark {
+
+    @Param({ "32", "64", "128" })
+    public int size;
+
+    private Region region;
+    private Pattern singlePattern;
+    private Pattern mixedPattern;
+    private BlockType airType;
+
+    @Setup
+    public void setup() {
+        BenchmarkPlatform.install();
+        region = new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(size - 1, size - 1, size - 1));
+        airType = BenchmarkPlatform.blockType("minecraft:air");
+        singlePattern = BenchmarkPlatform.blockType("minecraft:stone").getDefaultState();
+        RandomPattern random = new RandomPattern();
+        random.add(BenchmarkPlatform.blockType("minecraft:stone").getDefaultState(), 3);
+        random.add(BenchmarkPlatform.blockType("minecraft:dirt").getDefaultState(), 2);
+        random.add(BenchmarkPlatform.blockType("minecraft:cobblestone").getDefaultState(), 1);
+        mixedPattern = random;
+    }
+
+    private EditSession newEditSession() {
+        return WorldEdit.getInstance().newEditSessionBuilder()
+            .world(NullWorld.getInstance())
+            .maxBlocks(-1)
+            .build();
+    }
+
+    @Benchmark
+    public int setBlocks() throws MaxChangedBlocksException {
+        try (EditSession editSession = newEditSession()) {
+            return editSession.setBlocks(region, singlePattern);
+        }
+    }
+
+    @Benchmark
+    public int setBlocksRandomPattern() throws MaxChangedBlocksException {
+        try (EditSession editSession = newEditSession()) {
+            return editSession.setBlocks(region, mixedPattern);
+        }
+    }
+
+    @Benchmark
+    public int replaceBlocks() throws MaxChangedBlocksException {
+        try (EditSession editSession = newEditSession()) {
+            return editSession.replaceBlocks(region, new BlockTypeMask(editSession, airType), singlePattern);
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.worldedit.internal.expression.EvaluationException;
+import com.sk89q.worldedit.internal.expression.Expression;
+import com.sk89q.worldedit.internal.expression.ExpressionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single {@link Expression#evaluate(double[], int)} call, as
+ * done once per block by {@code //generate} and {@code //deform}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    private static final int TIMEOUT = 1000;
+
+    @Param({
+        "x * x + y * y + z * z < 0.8",
+        "(sqrt(x^2 + z^2) - 0.6)^2 + y^2 < 0.1",
+        "a = sin(x * 10) * cos(z * 10); y < a * 0.5"
+    })
+    public String source;
+
+    private Expression expression;
+    private final double[] values = new double[3];
+    private int step;
+
+    @Setup
+    public void setup() throws ExpressionException {
+        BenchmarkPlatform.install();
+        expression = Expression.compile(source, "x", "y", "z");
+    }
+
+    @Benchmark
+    public double evaluate() throws EvaluationException {
+        int i = step++;
+        values[0] = ((i & 63) - 32) / 32.0;
+        values[1] = (((i >> 6) & 63) - 32) / 32.0;
+        values[2] = (((i >> 12) & 63) - 32) / 32.0;
+        return expression.evaluate(values, TIMEOUT);
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.worldedit.internal.util.RegionOptimizedVectorSorter;
+import com.sk89q.worldedit.math.BlockVector3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link RegionOptimizedVectorSorter} on randomly placed vectors.
+ *
+ * <p>Each invocation sorts a fresh copy of the same shuffled list, so the
+ * copy is included in the score.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VectorSorterBenchmark {
+
+    @Param({ "100000", "1000000" })
+    public int count;
+
+    @Param({ "false", "true" })
+    public boolean parallel;
+
+    private final List<BlockVector3> vectors = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            vectors.add(BlockVector3.at(random.nextInt(4096) - 2048, random.nextInt(256), random.nextInt(4096) - 2048));
+        }
+    }
+
+    @Benchmark
+    public List<BlockVector3> sort() {
+        List<BlockVector3> copy = new ArrayList<>(vectors);
+        RegionOptimizedVectorSorter.sort(parallel, copy);
+        return copy;
+    }
+
+}
@@ -19,6 +19,8 @@
 
 package com.sk89q.jnbt;
 
+import com.google.common.io.ByteStreams;
+
 import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.IOException;
@@ -63,6 +65,64 @@ public NamedTag readNamedTag() throws IOException {
         return readNamedTag(0);
     }
 
+    /**
+     * Reads the type of the next tag in the stream.
+     *
+     * <p>Together with {@link #readTagName()}, {@link #readTagPayload(int)}
+     * and {@link #openByteArrayPayload()}, this allows a compound to be read
+     * one entry at a time, so that large entries do not need to be held in
+     * memory as a whole.</p>
+     *
+     * @return the type, such as {@link NBTConstants#TYPE_COMPOUND}
+     * @throws IOException if an I/O error occurs.
+     */
+    public int readTagType() throws IOException {
+        return is.readByte() & 0xFF;
+    }
+
+    /**
+     * Reads the name of a tag, after its type has been read.
+     *
+     * @return the name
+     * @throws IOException if an I/O error occurs.
+     */
+    public String readTagName() throws IOException {
+        int nameLength = is.readShort() & 0xFFFF;
+        byte[] nameBytes = new byte[nameLength];
+        is.readFully(nameBytes);
+        return new String(nameBytes, NBTConstants.CHARSET);
+    }
+
+    /**
+     * Reads the payload of a tag inside a compound, after its type and name
+     * have been read.
+     *
+     * @param type the type
+     * @return the tag
+     * @throws IOException if an I/O error occurs.
+     */
+    public Tag readTagPayload(int type) throws IOException {
+        return readTagPayload(type, 1);
+    }
+
+    /**
+     * Opens the payload of a {@code TAG_Byte_Array}, after its type and
+     * name have been read.
+     *
+     * <p>The returned stream must be read to its end before anything else
+     * is read from this stream, and should not be closed.</p>
+     *
+     * @return a stream over the bytes of the array
+     * @throws IOException if an I/O error occurs.
+     */
+    public InputStream openByteArrayPayload() throws IOException {
+        int length = is.readInt();
+        if (length < 0) {
+            throw new IOException("Negative byte array length: " + length);
+        }
+        return ByteStreams.limit(is, length);
+    }
+
     /**
      * Reads an NBT from the stream.
      *
@@ -75,10 +135,7 @@ private NamedTag readNamedTag(int depth) throws IOException {
 
         String name;
         if (type != NBTConstants.TYPE_END) {
-            int nameLength = is.readShort() & 0xFFFF;
-            byte[] nameBytes = new byte[nameLength];
-            is.readFully(nameBytes);
-            name = new String(nameBytes, NBTConstants.CHARSET);
+            name = readTagName();
         } else {
             name = "";
         }
@@ -70,18 +70,61 @@ public void writeNamedTag(String name, Tag tag) throws IOException {
         checkNotNull(name);
         checkNotNull(tag);
 
-        int type = NBTUtils.getTypeCode(tag.getClass());
+        writeNamedTagHeader(name, NBTUtils.getTypeCode(tag.getClass()));
+        writeTagPayload(tag);
+    }
+
+    /**
+     * Writes the type and name of a tag, without its payload.
+     *
+     * <p>This allows a compound to be written one entry at a time. The
+     * payload must be written next, such as with {@link #writeNamedTag} for
+     * the entries of a compound followed by {@link #writeEndTag()}, or with
+     * {@link #openByteArrayPayload(int)} for a byte array.</p>
+     *
+     * @param name the name of the tag
+     * @param type the type, such as {@link NBTConstants#TYPE_COMPOUND}
+     * @throws IOException if an I/O error occurs.
+     */
+    public void writeNamedTagHeader(String name, int type) throws IOException {
+        checkNotNull(name);
+        if (type == NBTConstants.TYPE_END) {
+            throw new IOException("Named TAG_End not permitted.");
+        }
         byte[] nameBytes = name.getBytes(NBTConstants.CHARSET);
 
         os.writeByte(type);
         os.writeShort(nameBytes.length);
         os.write(nameBytes);
+    }
 
-        if (type == NBTConstants.TYPE_END) {
-            throw new IOException("Named TAG_End not permitted.");
-        }
+    /**
+     * Writes the {@code TAG_End} that closes a compound started with
+     * {@link #writeNamedTagHeader(String, int)}.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void writeEndTag() throws IOException {
+        os.writeByte(NBTConstants.TYPE_END);
+    }
 
-        writeTagPayload(tag);
+    /**
+     * Opens the payload of a {@code TAG_Byte_Array} of a known length, after
+     * its header has been written with {@link #writeNamedTagHeader(String, int)}.
+     *
+     * <p>Exactly {@code length} bytes must be written to the returned stream,
+     * which must then be closed. Closing it does not close this stream.</p>
+     *
+     * @param length the number of bytes in the array
+     * @return a stream to write the bytes of the array to
+     * @throws IOException if an I/O error occurs.
+     */
+    public OutputStream openByteArrayPayload(int length) throws IOException {
+        if (length < 0) {
+            throw new IllegalArgumentException("Negative byte array length: " + length);
+        }
+        os.writeInt(length);
+        return new ByteArrayPayloadStream(length);
     }
 
     /**
@@ -304,4 +347,42 @@ public void close() throws IOException {
         os.close();
     }
 
+    /**
+     * Writes the bytes of an array straight through to the output stream,
+     * checking that the declared length is met.
+     */
+    private final class ByteArrayPayloadStream extends OutputStream {
+
+        private int remaining;
+
+        private ByteArrayPayloadStream(int length) {
+            this.remaining = length;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (remaining <= 0) {
+                throw new IOException("Byte array payload is longer than its declared length.");
+            }
+            os.write(b);
+            remaining--;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > remaining) {
+                throw new IOException("Byte array payload is longer than its declared length.");
+            }
+            os.write(b, off, len);
+            remaining -= len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (remaining != 0) {
+                throw new IOException("Byte array payload is " + remaining + " bytes shorter than its declared length.");
+            }
+        }
+    }
+
 }
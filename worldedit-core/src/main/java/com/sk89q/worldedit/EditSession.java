@@ -20,6 +20,8 @@
 package com.sk89q.worldedit;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.event.extent.EditSessionEvent;
@@ -50,6 +52,7 @@
 import com.sk89q.worldedit.function.block.BlockDistributionCounter;
 import com.sk89q.worldedit.function.block.BlockReplace;
 import com.sk89q.worldedit.function.block.Counter;
+import com.sk89q.worldedit.function.block.GravitySimulator;
 import com.sk89q.worldedit.function.block.Naturalizer;
 import com.sk89q.worldedit.function.block.SnowSimulator;
 import com.sk89q.worldedit.function.generator.ForestGenerator;
@@ -69,19 +72,24 @@
 import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.OperationQueue;
+import com.sk89q.worldedit.function.operation.OperationScheduler;
 import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.function.pattern.Pattern;
 import com.sk89q.worldedit.function.pattern.WaterloggedRemover;
 import com.sk89q.worldedit.function.util.RegionOffset;
 import com.sk89q.worldedit.function.visitor.DownwardVisitor;
+import com.sk89q.worldedit.function.visitor.FlatRegionVisitor;
 import com.sk89q.worldedit.function.visitor.LayerVisitor;
 import com.sk89q.worldedit.function.visitor.NonRisingVisitor;
+import com.sk89q.worldedit.function.visitor.ParallelRegionVisitor;
 import com.sk89q.worldedit.function.visitor.RecursiveVisitor;
 import com.sk89q.worldedit.function.visitor.RegionVisitor;
 import com.sk89q.worldedit.history.UndoContext;
 import com.sk89q.worldedit.history.changeset.BlockOptimizedHistory;
 import com.sk89q.worldedit.history.changeset.ChangeSet;
+import com.sk89q.worldedit.internal.expression.EvaluationException;
 import com.sk89q.worldedit.internal.expression.Expression;
+import com.sk89q.worldedit.internal.expression.ExpressionEvaluator;
 import com.sk89q.worldedit.internal.expression.ExpressionException;
 import com.sk89q.worldedit.internal.expression.ExpressionTimeoutException;
 import com.sk89q.worldedit.internal.expression.LocalSlot.Variable;
@@ -105,6 +113,7 @@
 import com.sk89q.worldedit.regions.shape.ArbitraryBiomeShape;
 import com.sk89q.worldedit.regions.shape.ArbitraryShape;
 import com.sk89q.worldedit.regions.shape.RegionShape;
+import com.sk89q.worldedit.regions.shape.ShapeRasterizer;
 import com.sk89q.worldedit.regions.shape.WorldEditExpressionEnvironment;
 import com.sk89q.worldedit.util.Countable;
 import com.sk89q.worldedit.util.Direction;
@@ -135,6 +144,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
@@ -158,6 +168,12 @@ public class EditSession implements Extent, AutoCloseable {
 
     private static final Logger LOGGER = LogManagerCompat.getLogger();
 
+    /**
+     * The number of positions a parallel deform evaluates before reading
+     * their source blocks.
+     */
+    private static final int DEFORM_BATCH_SIZE = 1 << 14;
+
     /**
      * Used by {@link EditSession#setBlock(BlockVector3, BlockStateHolder, Stage)} to
      * determine which {@link Extent}s should be bypassed.
@@ -214,6 +230,8 @@ public String getDisplayName() {
     private final @Nullable List<TracingExtent> tracingExtents;
 
     private ReorderMode reorderMode = ReorderMode.MULTI_STAGE;
+    private int parallelism = 1;
+    private volatile @Nullable Extent snapshotExtent;
 
     private Mask oldMask;
 
@@ -336,6 +354,15 @@ boolean commitRequired() {
         return false;
     }
 
+    /**
+     * Get whether any blocks set through this session are still buffered
+     * and have not reached the world yet.
+     */
+    private boolean hasBufferedBlocks() {
+        return (reorderExtent != null && reorderExtent.hasBufferedBlocks())
+            || (chunkBatchingExtent != null && chunkBatchingExtent.hasBufferedBlocks());
+    }
+
     /**
      * Get the current list of active tracing extents.
      */
@@ -402,6 +429,31 @@ public void setReorderMode(ReorderMode reorderMode) {
         }
     }
 
+    /**
+     * Set the number of threads used to test masks and apply patterns in
+     * {@link #setBlocks(Region, Pattern)} and
+     * {@link #replaceBlocks(Region, Mask, Pattern)}.
+     *
+     * <p>Regions smaller than the configured minimum volume, and masks or
+     * patterns that may not be used by several threads at once, are always
+     * done on the calling thread.</p>
+     *
+     * @param parallelism the number of threads, or 1 to only use the calling thread
+     */
+    public void setParallelism(int parallelism) {
+        checkArgument(parallelism > 0, "parallelism must be positive");
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Get the number of threads used to test masks and apply patterns.
+     *
+     * @return the number of threads
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
     /**
      * Get the reorder mode.
      *
@@ -668,7 +720,8 @@ public boolean fullySupports3DBiomes() {
 
     @Override
     public BiomeType getBiome(BlockVector3 position) {
-        return bypassNone.getBiome(position);
+        Extent snapshot = snapshotExtent;
+        return (snapshot != null ? snapshot : bypassNone).getBiome(position);
     }
 
     @Override
@@ -678,12 +731,14 @@ public boolean setBiome(BlockVector3 position, BiomeType biome) {
 
     @Override
     public BlockState getBlock(BlockVector3 position) {
-        return world.getBlock(position);
+        Extent snapshot = snapshotExtent;
+        return (snapshot != null ? snapshot : world).getBlock(position);
     }
 
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
-        return world.getFullBlock(position);
+        Extent snapshot = snapshotExtent;
+        return (snapshot != null ? snapshot : world).getFullBlock(position);
     }
 
     /**
@@ -722,6 +777,43 @@ public int getHighestTerrainBlock(int x, int z, int minY, int maxY, Mask filter)
         return minY;
     }
 
+    /**
+     * Returns the highest solid 'terrain' block of each column in a
+     * rectangle.
+     *
+     * <p>Unlike calling {@link #getHighestTerrainBlock(int, int, int, int, Mask)}
+     * for each column, columns are not scanned from 'maxY' when no filter
+     * is given. The scan starts below the heights known by the world instead,
+     * so the air above the terrain is not read.</p>
+     *
+     * @param minX the X coordinate of the first column
+     * @param minZ the Z coordinate of the first column
+     * @param width the number of columns along the X axis
+     * @param length the number of columns along the Z axis
+     * @param minY minimal height
+     * @param maxY maximal height
+     * @param filter a mask of blocks to consider, or null to consider any solid (movement-blocking) block
+     * @param heights the array to fill, indexed by {@code z * width + x} from the first column,
+     *     with the height of the highest block found or 'minY'
+     */
+    public void getHighestTerrainBlocks(int minX, int minZ, int width, int length, int minY, int maxY,
+                                        @Nullable Mask filter, int[] heights) {
+        checkArgument(heights.length >= width * length, "heights is too small");
+        // The world's heights do not know about a snapshot being read instead, blocks that are
+        // still buffered, or blocks a mask may match
+        boolean useWorldHeights = world != null && filter == null && snapshotExtent == null && !hasBufferedBlocks();
+        if (useWorldHeights) {
+            world.getMovementBlockerHeights(minX, minZ, width, length, heights);
+        }
+        for (int z = 0; z < length; ++z) {
+            for (int x = 0; x < width; ++x) {
+                int index = z * width + x;
+                int startY = useWorldHeights ? Math.min(maxY, heights[index]) : maxY;
+                heights[index] = getHighestTerrainBlock(x + minX, z + minZ, minY, startY, filter);
+            }
+        }
+    }
+
     /**
      * Set a block, bypassing both history and block re-ordering.
      *
@@ -826,10 +918,20 @@ public Entity createEntity(com.sk89q.worldedit.util.Location location, BaseEntit
      * @param editSession a new {@link EditSession} to perform the undo in
      */
     public void undo(EditSession editSession) {
+        editSession.undoChanges(changeSet);
+    }
+
+    /**
+     * Restores the blocks in a change set to their initial state, without
+     * recording history.
+     *
+     * @param changeSet the changes to undo
+     */
+    public void undoChanges(ChangeSet changeSet) {
         UndoContext context = new UndoContext();
-        context.setExtent(editSession.bypassHistory);
+        context.setExtent(bypassHistory);
         Operations.completeBlindly(ChangeSetExecutor.createUndo(changeSet, context));
-        editSession.internalFlushSession();
+        internalFlushSession();
     }
 
     /**
@@ -838,10 +940,20 @@ public void undo(EditSession editSession) {
      * @param editSession a new {@link EditSession} to perform the redo in
      */
     public void redo(EditSession editSession) {
+        editSession.redoChanges(changeSet);
+    }
+
+    /**
+     * Sets the blocks in a change set to their new state, without recording
+     * history.
+     *
+     * @param changeSet the changes to redo
+     */
+    public void redoChanges(ChangeSet changeSet) {
         UndoContext context = new UndoContext();
-        context.setExtent(editSession.bypassHistory);
+        context.setExtent(bypassHistory);
         Operations.completeBlindly(ChangeSetExecutor.createRedo(changeSet, context));
-        editSession.internalFlushSession();
+        internalFlushSession();
     }
 
     /**
@@ -883,6 +995,26 @@ public void close() {
         dumpTracingInformation();
     }
 
+    /**
+     * Closes this EditSession like {@link #close()}, but lets the given
+     * scheduler apply the buffered changes over several ticks if they take
+     * too long to apply at once.
+     *
+     * <p>Changes are applied after the earlier changes of the same owner.
+     * Sessions that trace their actions are always applied right away.</p>
+     *
+     * @param scheduler the scheduler
+     * @param owner the owner of the changes
+     * @return a future that completes once all changes are in the world
+     */
+    public ListenableFuture<Void> close(OperationScheduler scheduler, Object owner) {
+        if (tracingExtents != null) {
+            close();
+            return Futures.immediateFuture(null);
+        }
+        return scheduler.submit(owner, commit());
+    }
+
     private void dumpTracingInformation() {
         if (this.tracingExtents == null) {
             return;
@@ -1116,6 +1248,10 @@ public int setBlocks(Region region, Pattern pattern) throws MaxChangedBlocksExce
         checkNotNull(region);
         checkNotNull(pattern);
 
+        if (shouldRunParallel(region) && ParallelRegionVisitor.isThreadSafe(pattern)) {
+            return replaceBlocksParallel(region, null, pattern);
+        }
+
         BlockReplace replace = new BlockReplace(this, pattern);
         RegionVisitor visitor = new RegionVisitor(region, replace);
         Operations.completeLegacy(visitor);
@@ -1166,6 +1302,13 @@ public int replaceBlocks(Region region, Mask mask, Pattern pattern) throws MaxCh
         checkNotNull(mask);
         checkNotNull(pattern);
 
+        if (shouldRunParallel(region) && ParallelRegionVisitor.isThreadSafe(pattern)) {
+            Mask workerMask = ParallelRegionVisitor.bindForWorkers(mask, this);
+            if (workerMask != null) {
+                return replaceBlocksParallel(region, workerMask, pattern);
+            }
+        }
+
         BlockReplace replace = new BlockReplace(this, pattern);
         RegionMaskingFilter filter = new RegionMaskingFilter(mask, replace);
         RegionVisitor visitor = new RegionVisitor(region, filter);
@@ -1173,6 +1316,31 @@ public int replaceBlocks(Region region, Mask mask, Pattern pattern) throws MaxCh
         return visitor.getAffected();
     }
 
+    private boolean shouldRunParallel(Region region) {
+        return parallelism > 1
+            && region.getVolume() >= WorldEdit.getInstance().getConfiguration().parallelEditMinVolume;
+    }
+
+    /**
+     * Replace blocks on several threads. While the visitor runs, reads from
+     * this session are served by its snapshot, so that masks and patterns
+     * created against this session do not touch the world off-thread.
+     *
+     * <p>The snapshot is copied through the extent chain, so that blocks
+     * that this session still buffers are seen by the mask.</p>
+     */
+    private int replaceBlocksParallel(Region region, @Nullable Mask mask, Pattern pattern) throws MaxChangedBlocksException {
+        ParallelRegionVisitor visitor = new ParallelRegionVisitor(region, bypassNone, this, mask, pattern,
+            parallelism, WorldEdit.getInstance().getParallelEditExecutor());
+        snapshotExtent = visitor.getSnapshot();
+        try {
+            Operations.completeLegacy(visitor);
+        } finally {
+            snapshotExtent = null;
+        }
+        return visitor.getAffected();
+    }
+
     /**
      * Sets the blocks at the center of the given region to the given pattern.
      * If the center sits between two blocks on a certain axis, then two blocks
@@ -1372,6 +1540,27 @@ public int naturalizeCuboidBlocks(Region region) throws MaxChangedBlocksExceptio
         return naturalizer.getAffected();
     }
 
+    /**
+     * Makes the blocks in each column of a region fall down into the air
+     * below them, staying between the region's minimum and maximum Y.
+     * Only positions in the region are changed, and blocks fall past the
+     * positions of a column that are outside of it.
+     *
+     * @param region the region to affect
+     * @return number of blocks affected
+     * @throws MaxChangedBlocksException thrown if too many blocks are changed
+     */
+    public int simulateGravity(Region region) throws MaxChangedBlocksException {
+        checkNotNull(region);
+
+        // Every column of a flat region spans its whole height, so it needs no checks
+        GravitySimulator gravity = new GravitySimulator(this, minimumBlockY(region), maximumBlockY(region),
+            region instanceof FlatRegion ? null : region);
+        FlatRegionVisitor visitor = new FlatRegionVisitor(asFlatRegion(region), gravity);
+        Operations.completeLegacy(visitor);
+        return gravity.getAffected();
+    }
+
     /**
      * Stack a cuboid region. For compatibility, entities are copied by biomes are not.
      * Use {@link #stackCuboidRegion(Region, BlockVector3, int, boolean, boolean, Mask)} to fine tune.
@@ -1666,8 +1855,6 @@ public int makeCylinder(BlockVector3 pos, Pattern block, double radius, int heig
      * @throws MaxChangedBlocksException thrown if too many blocks are changed
      */
     public int makeCylinder(BlockVector3 pos, Pattern block, double radiusX, double radiusZ, int height, boolean filled) throws MaxChangedBlocksException {
-        int affected = 0;
-
         radiusX += 0.5;
         radiusZ += 0.5;
 
@@ -1684,53 +1871,11 @@ public int makeCylinder(BlockVector3 pos, Pattern block, double radiusX, double
             height = world.getMaxY() - pos.getBlockY() + 1;
         }
 
-        final double invRadiusX = 1 / radiusX;
-        final double invRadiusZ = 1 / radiusZ;
-
-        final int ceilRadiusX = (int) Math.ceil(radiusX);
-        final int ceilRadiusZ = (int) Math.ceil(radiusZ);
-
-        double nextXn = 0;
-        forX: for (int x = 0; x <= ceilRadiusX; ++x) {
-            final double xn = nextXn;
-            nextXn = (x + 1) * invRadiusX;
-            double nextZn = 0;
-            forZ: for (int z = 0; z <= ceilRadiusZ; ++z) {
-                final double zn = nextZn;
-                nextZn = (z + 1) * invRadiusZ;
-
-                double distanceSq = lengthSq(xn, zn);
-                if (distanceSq > 1) {
-                    if (z == 0) {
-                        break forX;
-                    }
-                    break forZ;
-                }
-
-                if (!filled) {
-                    if (lengthSq(nextXn, zn) <= 1 && lengthSq(xn, nextZn) <= 1) {
-                        continue;
-                    }
-                }
-
-                for (int y = 0; y < height; ++y) {
-                    if (setBlock(pos.add(x, y, z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(-x, y, z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(x, y, -z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(-x, y, -z), block)) {
-                        ++affected;
-                    }
-                }
-            }
+        if (height <= 0 || radiusX <= 0 || radiusZ <= 0) {
+            return 0;
         }
 
-        return affected;
+        return setShape(pos, ShapeRasterizer.cylinder(radiusX, radiusZ, height, filled), block);
     }
 
     /**
@@ -1760,79 +1905,15 @@ public int makeSphere(BlockVector3 pos, Pattern block, double radius, boolean fi
      * @throws MaxChangedBlocksException thrown if too many blocks are changed
      */
     public int makeSphere(BlockVector3 pos, Pattern block, double radiusX, double radiusY, double radiusZ, boolean filled) throws MaxChangedBlocksException {
-        int affected = 0;
-
         radiusX += 0.5;
         radiusY += 0.5;
         radiusZ += 0.5;
 
-        final double invRadiusX = 1 / radiusX;
-        final double invRadiusY = 1 / radiusY;
-        final double invRadiusZ = 1 / radiusZ;
-
-        final int ceilRadiusX = (int) Math.ceil(radiusX);
-        final int ceilRadiusY = (int) Math.ceil(radiusY);
-        final int ceilRadiusZ = (int) Math.ceil(radiusZ);
-
-        double nextXn = 0;
-        forX: for (int x = 0; x <= ceilRadiusX; ++x) {
-            final double xn = nextXn;
-            nextXn = (x + 1) * invRadiusX;
-            double nextYn = 0;
-            forY: for (int y = 0; y <= ceilRadiusY; ++y) {
-                final double yn = nextYn;
-                nextYn = (y + 1) * invRadiusY;
-                double nextZn = 0;
-                forZ: for (int z = 0; z <= ceilRadiusZ; ++z) {
-                    final double zn = nextZn;
-                    nextZn = (z + 1) * invRadiusZ;
-
-                    double distanceSq = lengthSq(xn, yn, zn);
-                    if (distanceSq > 1) {
-                        if (z == 0) {
-                            if (y == 0) {
-                                break forX;
-                            }
-                            break forY;
-                        }
-                        break forZ;
-                    }
-
-                    if (!filled) {
-                        if (lengthSq(nextXn, yn, zn) <= 1 && lengthSq(xn, nextYn, zn) <= 1 && lengthSq(xn, yn, nextZn) <= 1) {
-                            continue;
-                        }
-                    }
-
-                    if (setBlock(pos.add(x, y, z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(-x, y, z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(x, -y, z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(x, y, -z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(-x, -y, z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(x, -y, -z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(-x, y, -z), block)) {
-                        ++affected;
-                    }
-                    if (setBlock(pos.add(-x, -y, -z), block)) {
-                        ++affected;
-                    }
-                }
-            }
+        if (radiusX <= 0 || radiusY <= 0 || radiusZ <= 0) {
+            return 0;
         }
 
-        return affected;
+        return setShape(pos, ShapeRasterizer.ellipsoid(radiusX, radiusY, radiusZ, filled), block);
     }
 
     /**
@@ -1846,35 +1927,25 @@ public int makeSphere(BlockVector3 pos, Pattern block, double radiusX, double ra
      * @throws MaxChangedBlocksException thrown if too many blocks are changed
      */
     public int makePyramid(BlockVector3 position, Pattern block, int size, boolean filled) throws MaxChangedBlocksException {
-        int affected = 0;
-
-        int height = size;
-
-        for (int y = 0; y <= height; ++y) {
-            size--;
-            for (int x = 0; x <= size; ++x) {
-                for (int z = 0; z <= size; ++z) {
+        if (size <= 0) {
+            return 0;
+        }
 
-                    if ((filled && z <= size && x <= size) || z == size || x == size) {
+        return setShape(position, ShapeRasterizer.pyramid(size, filled), block);
+    }
 
-                        if (setBlock(position.add(x, y, z), block)) {
-                            ++affected;
-                        }
-                        if (setBlock(position.add(-x, y, z), block)) {
-                            ++affected;
-                        }
-                        if (setBlock(position.add(x, y, -z), block)) {
-                            ++affected;
-                        }
-                        if (setBlock(position.add(-x, y, -z), block)) {
-                            ++affected;
-                        }
-                    }
-                }
+    /**
+     * Sets every block of a rasterised shape once, row by row, so that
+     * consecutive blocks are next to each other in the world.
+     */
+    private int setShape(BlockVector3 center, ShapeRasterizer shape, Pattern pattern) throws MaxChangedBlocksException {
+        int[] affected = new int[1];
+        shape.forEachPosition(center, (x, y, z) -> {
+            if (setBlock(BlockVector3.at(x, y, z), pattern)) {
+                affected[0]++;
             }
-        }
-
-        return affected;
+        });
+        return affected[0];
     }
 
     /**
@@ -2207,6 +2278,7 @@ public int makeShape(final Region region, final Vector3 zero, final Vector3 unit
 
         final WorldEditExpressionEnvironment environment = new WorldEditExpressionEnvironment(this, unit, zero);
         expression.setEnvironment(environment);
+        final ExpressionEvaluator evaluator = expression.createEvaluator(timeout);
 
         final int[] timedOut = {0};
         final ArbitraryShape shape = new ArbitraryShape(region) {
@@ -2226,7 +2298,9 @@ protected BaseBlock getMaterial(int x, int y, int z, BaseBlock defaultMaterial)
                             dataVar = legacy[1];
                         }
                     }
-                    if (expression.evaluate(new double[]{scaled.getX(), scaled.getY(), scaled.getZ(), typeVar, dataVar}, timeout) <= 0) {
+                    typeVariable.setValue(typeVar);
+                    dataVariable.setValue(dataVar);
+                    if (evaluator.evaluate(scaled.getX(), scaled.getY(), scaled.getZ()) <= 0) {
                         return null;
                     }
                     int newType = (int) typeVariable.getValue();
@@ -2307,32 +2381,45 @@ public int deformRegion(final Region region, final Vector3 zero, final Vector3 u
      */
     public int deformRegion(final Region region, final Vector3 zero, final Vector3 unit, final Expression expression,
                             final int timeout) throws ExpressionException, MaxChangedBlocksException {
-        final Variable x = expression.getSlots().getVariable("x")
-            .orElseThrow(IllegalStateException::new);
-        final Variable y = expression.getSlots().getVariable("y")
-            .orElseThrow(IllegalStateException::new);
-        final Variable z = expression.getSlots().getVariable("z")
-            .orElseThrow(IllegalStateException::new);
-
         final WorldEditExpressionEnvironment environment = new WorldEditExpressionEnvironment(this, unit, zero);
         expression.setEnvironment(environment);
 
         final DoubleArrayList<BlockVector3, BaseBlock> queue = new DoubleArrayList<>(false);
 
-        for (BlockVector3 position : region) {
-            // offset, scale
-            final Vector3 scaled = position.toVector3().subtract(zero).divide(unit);
+        if (expression.isPure() && shouldRunParallel(region)) {
+            List<BlockVector3> batch = new ArrayList<>(DEFORM_BATCH_SIZE);
+            for (BlockVector3 position : region) {
+                batch.add(position);
+                if (batch.size() == DEFORM_BATCH_SIZE) {
+                    deformBatch(batch, zero, unit, expression, timeout, environment, queue);
+                    batch.clear();
+                }
+            }
+            deformBatch(batch, zero, unit, expression, timeout, environment, queue);
+        } else {
+            final ExpressionEvaluator evaluator = expression.createEvaluator(timeout);
+            final Variable x = evaluator.getSlots().getVariable("x")
+                .orElseThrow(IllegalStateException::new);
+            final Variable y = evaluator.getSlots().getVariable("y")
+                .orElseThrow(IllegalStateException::new);
+            final Variable z = evaluator.getSlots().getVariable("z")
+                .orElseThrow(IllegalStateException::new);
+
+            for (BlockVector3 position : region) {
+                // offset, scale
+                final Vector3 scaled = position.toVector3().subtract(zero).divide(unit);
 
-            // transform
-            expression.evaluate(new double[]{scaled.getX(), scaled.getY(), scaled.getZ()}, timeout);
+                // transform
+                evaluator.evaluate(scaled.getX(), scaled.getY(), scaled.getZ());
 
-            final BlockVector3 sourcePosition = environment.toWorld(x.getValue(), y.getValue(), z.getValue());
+                final BlockVector3 sourcePosition = environment.toWorld(x.getValue(), y.getValue(), z.getValue());
 
-            // read block from world
-            final BaseBlock material = world.getFullBlock(sourcePosition);
+                // read block from world
+                final BaseBlock material = world.getFullBlock(sourcePosition);
 
-            // queue operation
-            queue.put(position, material);
+                // queue operation
+                queue.put(position, material);
+            }
         }
 
         int affected = 0;
@@ -2349,6 +2436,50 @@ public int deformRegion(final Region region, final Vector3 zero, final Vector3 u
         return affected;
     }
 
+    /**
+     * Evaluate a pure deform expression for a batch of positions on several
+     * threads, each with its own copy of the variables, and then read the
+     * source blocks from the world on this thread.
+     */
+    private void deformBatch(List<BlockVector3> batch, Vector3 zero, Vector3 unit, Expression expression, int timeout,
+                             WorldEditExpressionEnvironment environment,
+                             DoubleArrayList<BlockVector3, BaseBlock> queue) throws EvaluationException {
+        BlockVector3[] sources = new BlockVector3[batch.size()];
+        int perTask = Math.max(1, (sources.length + parallelism - 1) / parallelism);
+        List<ForkJoinTask<Void>> tasks = new ArrayList<>();
+        for (int start = 0; start < sources.length; start += perTask) {
+            int taskStart = start;
+            int taskEnd = Math.min(sources.length, start + perTask);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                ExpressionEvaluator evaluator = expression.createIsolatedEvaluator(timeout);
+                Variable x = evaluator.getSlots().getVariable("x").orElseThrow(IllegalStateException::new);
+                Variable y = evaluator.getSlots().getVariable("y").orElseThrow(IllegalStateException::new);
+                Variable z = evaluator.getSlots().getVariable("z").orElseThrow(IllegalStateException::new);
+                for (int i = taskStart; i < taskEnd; i++) {
+                    Vector3 scaled = batch.get(i).toVector3().subtract(zero).divide(unit);
+                    evaluator.evaluate(scaled.getX(), scaled.getY(), scaled.getZ());
+                    sources[i] = environment.toWorld(x.getValue(), y.getValue(), z.getValue());
+                }
+                return null;
+            }));
+        }
+        try {
+            ForkJoinTask.invokeAll(tasks);
+        } catch (RuntimeException e) {
+            // Checked exceptions from the tasks arrive wrapped
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof EvaluationException) {
+                    throw (EvaluationException) cause;
+                }
+            }
+            throw e;
+        }
+
+        for (int i = 0; i < sources.length; i++) {
+            queue.put(batch.get(i), world.getFullBlock(sources[i]));
+        }
+    }
+
     /**
      * Hollows out the region (Semi-well-defined for non-cuboid selections).
      *
@@ -2654,6 +2785,7 @@ public int makeBiomeShape(final Region region, final Vector3 zero, final Vector3
         final EditSession editSession = this;
         final WorldEditExpressionEnvironment environment = new WorldEditExpressionEnvironment(editSession, unit, zero);
         expression.setEnvironment(environment);
+        final ExpressionEvaluator evaluator = expression.createEvaluator(timeout);
 
         AtomicInteger timedOut = new AtomicInteger();
         final ArbitraryBiomeShape shape = new ArbitraryBiomeShape(region) {
@@ -2664,7 +2796,7 @@ protected BiomeType getBiome(int x, int y, int z, BiomeType defaultBiomeType) {
                 final Vector3 scaled = current.subtract(zero).divide(unit);
 
                 try {
-                    if (expression.evaluate(new double[]{scaled.getX(), scaled.getY(), scaled.getZ()}, timeout) <= 0) {
+                    if (evaluator.evaluate(scaled.getX(), scaled.getY(), scaled.getZ()) <= 0) {
                         return null;
                     }
 
@@ -2697,12 +2829,4 @@ protected BiomeType getBiome(int x, int y, int z, BiomeType defaultBiomeType) {
             Direction.DOWN.toBlockVector(),
     };
 
-    private static double lengthSq(double x, double y, double z) {
-        return (x * x) + (y * y) + (z * z);
-    }
-
-    private static double lengthSq(double x, double z) {
-        return (x * x) + (z * z);
-    }
-
 }
@@ -20,6 +20,7 @@
 package com.sk89q.worldedit;
 
 import com.google.common.collect.Lists;
+import com.sk89q.worldedit.extent.clipboard.ClipboardStorage;
 import com.sk89q.worldedit.internal.util.LogManagerCompat;
 import com.sk89q.worldedit.util.formatting.component.TextUtils;
 import com.sk89q.worldedit.util.io.file.ArchiveNioSupports;
@@ -63,6 +64,8 @@ public abstract class LocalConfiguration {
     public boolean snapshotsConfigured = false;
     public SnapshotRepository snapshotRepo = null;
     public SnapshotDatabase snapshotDatabase = null;
+    public int snapshotRestoreThreads = 2;
+    public int snapshotRestoreBufferedChunks = 32;
     public int maxRadius = -1;
     public int maxSuperPickaxeSize = 5;
     public int maxBrushRadius = 6;
@@ -93,6 +96,16 @@ public abstract class LocalConfiguration {
     public boolean extendedYLimit = false;
     public String defaultLocaleName = "default";
     public Locale defaultLocale = Locale.getDefault();
+    public ClipboardStorage clipboardStorage = ClipboardStorage.ARRAY;
+    public int clipboardMappedThreshold = 64 * 1024 * 1024;
+    public int clipboardMappedCacheSize = 2048;
+    public boolean historyJournal = false;
+    public int historyHotSize = 3;
+    public int parallelEditThreads = 1;
+    public int parallelEditMinVolume = 1 << 20;
+    public int taskExecutorThreads = 2;
+    public int taskExecutorQueueSize = 20;
+    public int operationTickBudget = 0;
 
     protected String[] getDefaultDisallowedBlocks() {
         List<BlockType> blockTypes = Lists.newArrayList(
@@ -236,4 +249,13 @@ public void setDefaultLocaleName(String localeName) {
             this.defaultLocale = TextUtils.getLocaleByMinecraftTag(localeName);
         }
     }
+
+    public void setClipboardStorageName(String storageName) {
+        ClipboardStorage storage = ClipboardStorage.fromName(storageName);
+        if (storage == null) {
+            LOGGER.warn("Unknown clipboard storage '{}', using {}", storageName, clipboardStorage);
+        } else {
+            this.clipboardStorage = storage;
+        }
+    }
 }
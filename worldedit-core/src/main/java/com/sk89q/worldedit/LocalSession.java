@@ -19,6 +19,10 @@
 
 package com.sk89q.worldedit;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.sk89q.jchronic.Chronic;
 import com.sk89q.jchronic.Options;
 import com.sk89q.jchronic.utils.Span;
@@ -34,13 +38,16 @@
 import com.sk89q.worldedit.command.tool.Tool;
 import com.sk89q.worldedit.entity.Player;
 import com.sk89q.worldedit.extension.platform.Actor;
+import com.sk89q.worldedit.extension.platform.Capability;
 import com.sk89q.worldedit.extension.platform.Locatable;
 import com.sk89q.worldedit.extent.inventory.BlockBag;
 import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.history.changeset.JournalHistory;
 import com.sk89q.worldedit.internal.cui.CUIEvent;
 import com.sk89q.worldedit.internal.cui.CUIRegion;
 import com.sk89q.worldedit.internal.cui.SelectionShapeEvent;
 import com.sk89q.worldedit.internal.cui.ServerCUIHandler;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.regions.RegionSelector;
@@ -50,6 +57,8 @@
 import com.sk89q.worldedit.session.request.Request;
 import com.sk89q.worldedit.util.Countable;
 import com.sk89q.worldedit.util.SideEffectSet;
+import com.sk89q.worldedit.util.concurrency.EvenMoreExecutors;
+import com.sk89q.worldedit.util.formatting.text.TextComponent;
 import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.block.BaseBlock;
@@ -57,16 +66,28 @@
 import com.sk89q.worldedit.world.item.ItemType;
 import com.sk89q.worldedit.world.item.ItemTypes;
 import com.sk89q.worldedit.world.snapshot.experimental.Snapshot;
-
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.TimeZone;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import javax.annotation.Nullable;
@@ -78,7 +99,13 @@
  */
 public class LocalSession {
 
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
     private static final transient int CUI_VERSION_UNINITIALIZED = -1;
+    private static final String JOURNAL_EXTENSION = ".journal";
+    private static final String POSITION_FILE = "position";
+    private static final int JOURNAL_SHUTDOWN_TIMEOUT_SECONDS = 30;
+    @Nullable
+    private static ListeningExecutorService journalExecutor;
     public static transient int MAX_HISTORY_SIZE = 15;
 
     // Non-session related fields
@@ -93,8 +120,14 @@ public class LocalSession {
     // Session related
     private transient RegionSelector selector = new CuboidRegionSelector();
     private transient boolean placeAtPos1 = false;
-    private final transient LinkedList<EditSession> history = new LinkedList<>();
+    private final transient LinkedList<HistoryEntry> history = new LinkedList<>();
     private transient int historyPointer = 0;
+    @Nullable
+    private transient Path historyDirectory;
+    @Nullable
+    private transient ListenableFuture<LoadedHistory> pendingHistory;
+    // Only used on the journal executor
+    private transient long nextJournalId;
     private transient ClipboardHolder clipboard;
     private transient boolean superPickaxe = false;
     private transient BlockTool pickaxeMode = new SinglePickaxe();
@@ -211,8 +244,132 @@ public void setTimezone(ZoneId timezone) {
      * Clear history.
      */
     public void clearHistory() {
+        ListenableFuture<LoadedHistory> pending = pendingHistory;
+        pendingHistory = null;
+        if (pending != null) {
+            // The journal executor runs tasks in order, so the history is loaded by now
+            getJournalExecutor().execute(() -> {
+                LoadedHistory loaded = getIfLoaded(pending);
+                if (loaded != null) {
+                    loaded.entries.forEach(HistoryEntry::discard);
+                }
+            });
+        }
+        for (HistoryEntry entry : history) {
+            entry.discard();
+        }
         history.clear();
         historyPointer = 0;
+        saveHistoryPosition();
+    }
+
+    /**
+     * Set the directory that history is journaled to, loading any history
+     * that was journaled there before.
+     *
+     * <p>Once set, every remembered edit session is also written to a
+     * compressed journal in the background, and only the most recent
+     * edit sessions are kept in memory. Previous history is read in the
+     * background too, and becomes available once it has been loaded.</p>
+     *
+     * @param historyDirectory the directory, or {@code null} to keep history in memory only
+     */
+    public void setHistoryDirectory(@Nullable Path historyDirectory) {
+        this.historyDirectory = historyDirectory;
+        if (historyDirectory != null && history.isEmpty() && pendingHistory == null) {
+            pendingHistory = getJournalExecutor().submit(() -> loadJournals(historyDirectory));
+        }
+    }
+
+    /**
+     * Read the journals in a directory. This runs on the journal executor.
+     */
+    private LoadedHistory loadJournals(Path directory) {
+        LoadedHistory loaded = new LoadedHistory();
+        if (!Files.isDirectory(directory)) {
+            return loaded;
+        }
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + JOURNAL_EXTENSION)) {
+            for (Path file : stream) {
+                try {
+                    ids.add(getJournalId(file));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to list history journals in {}", directory, e);
+            return loaded;
+        }
+        Collections.sort(ids);
+
+        long redoFrom = Long.MAX_VALUE;
+        Path positionFile = directory.resolve(POSITION_FILE);
+        if (Files.exists(positionFile)) {
+            try {
+                redoFrom = Long.parseLong(new String(Files.readAllBytes(positionFile), StandardCharsets.UTF_8).trim());
+            } catch (IOException | NumberFormatException e) {
+                LOGGER.warn("Failed to read history position from {}", positionFile, e);
+            }
+        }
+
+        int skip = Math.max(0, ids.size() - MAX_HISTORY_SIZE);
+        for (int i = 0; i < ids.size(); i++) {
+            long id = ids.get(i);
+            Path file = directory.resolve(id + JOURNAL_EXTENSION);
+            nextJournalId = id + 1;
+            if (i < skip) {
+                deleteJournal(file);
+                continue;
+            }
+            try {
+                loaded.entries.add(new HistoryEntry(Futures.immediateFuture(JournalHistory.read(file))));
+                if (id < redoFrom) {
+                    loaded.pointer = loaded.entries.size();
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Failed to read history journal {}", file, e);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Add history that has finished loading in the background to the
+     * front of the history, if there is any.
+     */
+    private void addLoadedHistory() {
+        ListenableFuture<LoadedHistory> pending = pendingHistory;
+        if (pending == null || !pending.isDone()) {
+            return;
+        }
+        pendingHistory = null;
+        LoadedHistory loaded = getIfLoaded(pending);
+        if (loaded == null) {
+            return;
+        }
+        if (!history.isEmpty()) {
+            // Edits made since the session was loaded replace anything that could be redone
+            while (loaded.entries.size() > loaded.pointer) {
+                loaded.entries.remove(loaded.entries.size() - 1).discard();
+            }
+        }
+        history.addAll(0, loaded.entries);
+        historyPointer += loaded.pointer;
+        while (history.size() > MAX_HISTORY_SIZE) {
+            history.remove(0).discard();
+            historyPointer--;
+        }
+    }
+
+    @Nullable
+    private static LoadedHistory getIfLoaded(ListenableFuture<LoadedHistory> pending) {
+        try {
+            return Futures.getDone(pending);
+        } catch (ExecutionException | CancellationException e) {
+            LOGGER.warn("Failed to load history journals", e);
+            return null;
+        }
     }
 
     /**
@@ -229,15 +386,130 @@ public void remember(EditSession editSession) {
             return;
         }
 
+        addLoadedHistory();
         // Destroy any sessions after this undo point
         while (historyPointer < history.size()) {
-            history.remove(historyPointer);
+            history.remove(historyPointer).discard();
         }
-        history.add(editSession);
+        history.add(createEntry(editSession));
         while (history.size() > MAX_HISTORY_SIZE) {
-            history.remove(0);
+            history.remove(0).discard();
         }
         historyPointer = history.size();
+        evictJournaledHistory();
+        saveHistoryPosition();
+    }
+
+    private HistoryEntry createEntry(EditSession editSession) {
+        Path directory = historyDirectory;
+        World world = editSession.getWorld();
+        if (directory == null || world == null) {
+            return new HistoryEntry(editSession, null);
+        }
+        String worldName = world.getName();
+        ListenableFuture<JournalHistory> journal = getJournalExecutor().submit(() -> {
+            Path file = directory.resolve(nextJournalId++ + JOURNAL_EXTENSION);
+            try {
+                Files.createDirectories(directory);
+                return JournalHistory.write(file, worldName, editSession.getChangeSet());
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Failed to write history journal {}", file, e);
+                deleteJournal(file);
+                throw e;
+            }
+        });
+        return new HistoryEntry(editSession, journal);
+    }
+
+    /**
+     * Drop the edit sessions of journaled entries that are not among the
+     * most recent ones, so that they are read back from disk when needed.
+     */
+    private void evictJournaledHistory() {
+        int hotSize = config == null ? history.size() : config.historyHotSize;
+        int coldSize = history.size() - hotSize;
+        Iterator<HistoryEntry> it = history.iterator();
+        for (int i = 0; i < coldSize && it.hasNext(); i++) {
+            HistoryEntry entry = it.next();
+            if (entry.editSession != null && entry.getJournal() != null) {
+                entry.editSession = null;
+            }
+        }
+    }
+
+    private void saveHistoryPosition() {
+        Path directory = historyDirectory;
+        if (directory == null) {
+            return;
+        }
+        HistoryEntry redoFrom = historyPointer < history.size() ? history.get(historyPointer) : null;
+        // Runs after the journal of the entry has been written, as tasks run in order
+        getJournalExecutor().execute(() -> {
+            Path positionFile = directory.resolve(POSITION_FILE);
+            JournalHistory journal = redoFrom == null ? null : redoFrom.getJournal();
+            try {
+                if (journal != null) {
+                    Files.createDirectories(directory);
+                    Files.write(positionFile, Long.toString(getJournalId(journal.getFile())).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    Files.deleteIfExists(positionFile);
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Failed to save history position to {}", positionFile, e);
+            }
+        });
+    }
+
+    /**
+     * Get the executor that writes and reads history journals, starting it
+     * if needed. Tasks run one at a time, in the order they are submitted.
+     */
+    private static synchronized ListeningExecutorService getJournalExecutor() {
+        if (journalExecutor == null) {
+            journalExecutor = MoreExecutors.listeningDecorator(
+                    EvenMoreExecutors.newBoundedCachedThreadPool(0, 1, Integer.MAX_VALUE, "WorldEdit History Journal - %s"));
+        }
+        return journalExecutor;
+    }
+
+    /**
+     * Wait for the history journal tasks that were already submitted, and
+     * stop the thread that runs them. Called when WorldEdit is unloaded.
+     * Internal, not for API use.
+     *
+     * <p>The executor is started again if more journal tasks are submitted
+     * afterwards.</p>
+     */
+    public static void shutdownJournalExecutor() {
+        ListeningExecutorService executor;
+        synchronized (LocalSession.class) {
+            executor = journalExecutor;
+            journalExecutor = null;
+        }
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(JOURNAL_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("History journals were still being written after {} seconds", JOURNAL_SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long getJournalId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - JOURNAL_EXTENSION.length()));
+    }
+
+    private static void deleteJournal(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete history journal {}", file, e);
+        }
     }
 
     /**
@@ -249,16 +521,14 @@ public void remember(EditSession editSession) {
      */
     public EditSession undo(@Nullable BlockBag newBlockBag, Actor actor) {
         checkNotNull(actor);
+        addLoadedHistory();
         --historyPointer;
         if (historyPointer >= 0) {
-            EditSession editSession = history.get(historyPointer);
-            try (EditSession newEditSession =
-                     WorldEdit.getInstance().newEditSessionBuilder()
-                         .world(editSession.getWorld()).blockBag(newBlockBag).actor(actor)
-                         .build()) {
-                prepareEditingExtents(newEditSession, actor);
-                editSession.undo(newEditSession);
+            EditSession editSession = replay(history.get(historyPointer), newBlockBag, actor, true);
+            if (editSession == null) {
+                ++historyPointer;
             }
+            saveHistoryPosition();
             return editSession;
         } else {
             historyPointer = 0;
@@ -275,20 +545,76 @@ public EditSession undo(@Nullable BlockBag newBlockBag, Actor actor) {
      */
     public EditSession redo(@Nullable BlockBag newBlockBag, Actor actor) {
         checkNotNull(actor);
+        addLoadedHistory();
         if (historyPointer < history.size()) {
-            EditSession editSession = history.get(historyPointer);
+            EditSession editSession = replay(history.get(historyPointer), newBlockBag, actor, false);
+            if (editSession != null) {
+                ++historyPointer;
+                saveHistoryPosition();
+            }
+            return editSession;
+        }
+
+        return null;
+    }
+
+    /**
+     * Undo or redo a history entry, reading it back from its journal if its
+     * edit session is no longer in memory.
+     *
+     * @return the edit session that was replayed, or {@code null} if its journal or world is not available
+     */
+    @Nullable
+    private EditSession replay(HistoryEntry entry, @Nullable BlockBag newBlockBag, Actor actor, boolean undo) {
+        // The entry must not be replayed while its own changes are still being applied
+        WorldEdit.getInstance().getOperationScheduler().completeAll(actor.getUniqueId());
+        EditSession editSession = entry.editSession;
+        if (editSession != null) {
             try (EditSession newEditSession =
                      WorldEdit.getInstance().newEditSessionBuilder()
                          .world(editSession.getWorld()).blockBag(newBlockBag).actor(actor)
                          .build()) {
                 prepareEditingExtents(newEditSession, actor);
-                editSession.redo(newEditSession);
+                if (undo) {
+                    editSession.undo(newEditSession);
+                } else {
+                    editSession.redo(newEditSession);
+                }
             }
-            ++historyPointer;
             return editSession;
         }
 
-        return null;
+        // Only entries whose journal has been written are dropped from memory
+        JournalHistory journal = entry.getJournal();
+        if (journal == null) {
+            actor.printError(TranslatableComponent.of("worldedit.history.journal-unavailable"));
+            return null;
+        }
+        World world = null;
+        for (World candidate : WorldEdit.getInstance().getPlatformManager()
+                .queryCapability(Capability.GAME_HOOKS).getWorlds()) {
+            if (candidate.getName().equals(journal.getWorldName())) {
+                world = candidate;
+                break;
+            }
+        }
+        if (world == null) {
+            actor.printError(TranslatableComponent.of("worldedit.history.world-unavailable",
+                TextComponent.of(journal.getWorldName())));
+            return null;
+        }
+        try (EditSession newEditSession =
+                 WorldEdit.getInstance().newEditSessionBuilder()
+                     .world(world).blockBag(newBlockBag).actor(actor)
+                     .build()) {
+            prepareEditingExtents(newEditSession, actor);
+            if (undo) {
+                newEditSession.undoChanges(journal);
+            } else {
+                newEditSession.redoChanges(journal);
+            }
+            return newEditSession;
+        }
     }
 
     public boolean hasWorldOverride() {
@@ -450,12 +776,18 @@ public ClipboardHolder getClipboard() throws EmptyClipboardException {
     /**
      * Sets the clipboard.
      *
-     * <p>Pass {@code null} to clear the clipboard.</p>
+     * <p>Pass {@code null} to clear the clipboard. A clipboard that is
+     * replaced or cleared is closed, which releases it once no task or
+     * brush retains it any more.</p>
      *
      * @param clipboard the clipboard, or null if the clipboard is to be cleared
      */
     public void setClipboard(@Nullable ClipboardHolder clipboard) {
+        ClipboardHolder previous = this.clipboard;
         this.clipboard = clipboard;
+        if (previous != null && (clipboard == null || previous.getClipboard() != clipboard.getClipboard())) {
+            previous.getClipboard().close();
+        }
     }
 
     /**
@@ -722,20 +1054,38 @@ public void setTool(ItemType item, @Nullable Tool tool) throws InvalidToolBindEx
             }
         }
 
-        this.tools.put(item, tool);
+        Tool previous = this.tools.put(item, tool);
+        if (previous != tool) {
+            closeTool(previous);
+        }
     }
 
     private void setSingleItemTool(Consumer<String> setter, @Nullable String itemId, ItemType newItem) {
         if (itemId != null) {
             ItemType item = ItemTypes.get(itemId);
             if (item != null) {
-                this.tools.remove(item);
+                closeTool(this.tools.remove(item));
             }
         }
         setter.accept(newItem.getId());
         setDirty();
     }
 
+    /**
+     * Release what an unbound tool holds, such as the clipboard of a
+     * clipboard brush.
+     *
+     * @param tool the tool, which may be null
+     */
+    private static void closeTool(@Nullable Tool tool) {
+        if (tool instanceof Closeable) {
+            try {
+                ((Closeable) tool).close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
     /**
      * Returns whether inventory usage is enabled for this session.
      *
@@ -1028,6 +1378,8 @@ public Calendar detectDate(String input) {
      */
     public EditSession createEditSession(Actor actor) {
         checkNotNull(actor);
+        // The new session reads the world, so the actor's earlier changes must be in it
+        WorldEdit.getInstance().getOperationScheduler().completeAll(actor.getUniqueId());
 
         World world = null;
         if (hasWorldOverride()) {
@@ -1061,6 +1413,8 @@ private void prepareEditingExtents(EditSession editSession, Actor actor) {
             editSession.getSurvivalExtent().setStripNbt(!actor.hasPermission("worldedit.setnbt"));
         }
         editSession.setTickingWatchdog(tickingWatchdog);
+        int parallelEditThreads = WorldEdit.getInstance().getConfiguration().parallelEditThreads;
+        editSession.setParallelism(parallelEditThreads == 0 ? Runtime.getRuntime().availableProcessors() : parallelEditThreads);
     }
 
     /**
@@ -1205,4 +1559,66 @@ public void onIdle() {
         this.hasCUISupport = false;
         this.failedCuiAttempts = 0;
     }
+
+    /**
+     * An edit session in the history, which may only be available from its
+     * journal.
+     */
+    private static final class HistoryEntry {
+
+        @Nullable
+        private EditSession editSession;
+        @Nullable
+        private final ListenableFuture<JournalHistory> journal;
+
+        private HistoryEntry(ListenableFuture<JournalHistory> journal) {
+            this(null, journal);
+        }
+
+        private HistoryEntry(@Nullable EditSession editSession, @Nullable ListenableFuture<JournalHistory> journal) {
+            this.editSession = editSession;
+            this.journal = journal;
+        }
+
+        /**
+         * Get the journal if it has been written successfully, without
+         * waiting for it.
+         *
+         * @return the journal, or {@code null} if it is not available
+         */
+        @Nullable
+        private JournalHistory getJournal() {
+            if (journal == null || !journal.isDone()) {
+                return null;
+            }
+            try {
+                return Futures.getDone(journal);
+            } catch (ExecutionException | CancellationException e) {
+                return null;
+            }
+        }
+
+        private void discard() {
+            editSession = null;
+            if (journal != null) {
+                journal.addListener(() -> {
+                    JournalHistory written = getJournal();
+                    if (written != null) {
+                        deleteJournal(written.getFile());
+                    }
+                }, command -> getJournalExecutor().execute(command));
+            }
+        }
+
+    }
+
+    /**
+     * History read back from journals.
+     */
+    private static final class LoadedHistory {
+
+        private final List<HistoryEntry> entries = new ArrayList<>();
+        private int pointer;
+
+    }
 }
@@ -26,7 +26,6 @@
 import com.google.common.collect.Lists;
 import com.google.common.collect.SetMultimap;
 import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.MoreExecutors;
 import com.sk89q.worldedit.blocks.BaseItem;
 import com.sk89q.worldedit.entity.Player;
 import com.sk89q.worldedit.event.platform.BlockInteractEvent;
@@ -43,8 +42,10 @@
 import com.sk89q.worldedit.extension.platform.PlatformManager;
 import com.sk89q.worldedit.extent.inventory.BlockBag;
 import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.operation.OperationScheduler;
 import com.sk89q.worldedit.function.pattern.Pattern;
 import com.sk89q.worldedit.internal.SchematicsEventListener;
+import com.sk89q.worldedit.internal.TaskExecutorEventListener;
 import com.sk89q.worldedit.internal.expression.invoke.ReturnException;
 import com.sk89q.worldedit.internal.util.LogManagerCompat;
 import com.sk89q.worldedit.math.BlockVector3;
@@ -56,6 +57,7 @@
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.util.asset.AssetLoaders;
 import com.sk89q.worldedit.util.concurrency.EvenMoreExecutors;
+import com.sk89q.worldedit.util.concurrency.FairTaskExecutor;
 import com.sk89q.worldedit.util.eventbus.EventBus;
 import com.sk89q.worldedit.util.formatting.text.TextComponent;
 import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
@@ -88,6 +90,7 @@
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import javax.annotation.Nullable;
 import javax.script.ScriptException;
 
@@ -122,8 +125,11 @@ public final class WorldEdit {
     @Deprecated
     private final EditSessionFactory editSessionFactory = new EditSessionFactory.EditSessionFactoryImpl();
     private final SessionManager sessions = new SessionManager(this);
-    private final ListeningExecutorService executorService = MoreExecutors.listeningDecorator(
-            EvenMoreExecutors.newBoundedCachedThreadPool(0, 1, 20, "WorldEdit Task Executor - %s"));
+    private final OperationScheduler operationScheduler = new OperationScheduler(this);
+    private final FairTaskExecutor executorService = new FairTaskExecutor(2, 20, "WorldEdit Task Executor - %s");
+    private final ExecutorService parallelEditExecutor = EvenMoreExecutors.newBoundedCachedThreadPool(
+            Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors(),
+            Integer.MAX_VALUE, "WorldEdit Parallel Edit - %s");
     private final Supervisor supervisor = new SimpleSupervisor();
     private final AssetLoaders assetLoaders = new AssetLoaders(this);
 
@@ -138,6 +144,7 @@ public final class WorldEdit {
 
     private WorldEdit() {
         eventBus.register(new SchematicsEventListener());
+        eventBus.register(new TaskExecutorEventListener(executorService));
     }
 
     /**
@@ -184,6 +191,15 @@ public Supervisor getSupervisor() {
         return supervisor;
     }
 
+    /**
+     * Get the scheduler that applies large edits over several ticks.
+     *
+     * @return the operation scheduler
+     */
+    public OperationScheduler getOperationScheduler() {
+        return operationScheduler;
+    }
+
     /**
      * Get the executor service. Internal, not for API use.
      *
@@ -193,6 +209,16 @@ public ListeningExecutorService getExecutorService() {
         return executorService;
     }
 
+    /**
+     * Get the executor that edit sessions borrow extra threads from for
+     * parallel edits. Internal, not for API use.
+     *
+     * @return the parallel edit executor
+     */
+    public ExecutorService getParallelEditExecutor() {
+        return parallelEditExecutor;
+    }
+
     /**
      * Get the block factory from which new {@link BlockStateHolder}s can be
      * constructed.
@@ -30,6 +30,7 @@
 import com.sk89q.worldedit.entity.Player;
 import com.sk89q.worldedit.extension.platform.Actor;
 import com.sk89q.worldedit.internal.anvil.ChunkDeleter;
+import com.sk89q.worldedit.internal.anvil.ChunkDeletionEstimate;
 import com.sk89q.worldedit.internal.anvil.ChunkDeletionInfo;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.regions.CuboidRegion;
@@ -47,6 +48,7 @@
 import org.enginehub.piston.annotation.Command;
 import org.enginehub.piston.annotation.CommandContainer;
 import org.enginehub.piston.annotation.param.ArgFlag;
+import org.enginehub.piston.annotation.param.Switch;
 import org.enginehub.piston.exception.StopExecutionException;
 
 import java.io.IOException;
@@ -56,6 +58,7 @@
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.sk89q.worldedit.command.util.Logging.LogMode.REGION;
@@ -115,12 +118,22 @@ public void listChunks(Actor actor, World world, LocalSession session,
     @Logging(REGION)
     public void deleteChunks(Actor actor, World world, LocalSession session,
                                 @ArgFlag(name = 'o', desc = "Only delete chunks older than the specified time.")
-                                    ZonedDateTime beforeTime) throws WorldEditException {
+                                    ZonedDateTime beforeTime,
+                                @Switch(name = 'd', desc = "Only report how many chunks and bytes would be deleted")
+                                    boolean dryRun) throws WorldEditException {
         Path worldDir = world.getStoragePath();
         if (worldDir == null) {
             throw new StopExecutionException(TextComponent.of("Couldn't find world folder for this world."));
         }
 
+        ChunkDeletionInfo.ChunkBatch newBatch = createBatch(worldDir, session.getSelection(world), beforeTime);
+        if (dryRun) {
+            WorldEditAsyncCommandBuilder.createAndSendMessage(actor,
+                () -> describeEstimate(newBatch),
+                TextComponent.of("Reading region files..."));
+            return;
+        }
+
         Path chunkPath = worldEdit.getWorkingDirectoryPath(DELCHUNKS_FILE_NAME);
         ChunkDeletionInfo currentInfo = null;
         if (Files.exists(chunkPath)) {
@@ -135,10 +148,33 @@ public void deleteChunks(Actor actor, World world, LocalSession session,
             currentInfo.batches = new ArrayList<>();
         }
 
+        currentInfo.batches.add(newBatch);
+
+        try {
+            ChunkDeleter.writeInfo(currentInfo, chunkPath);
+        } catch (IOException | JsonIOException e) {
+            throw new StopExecutionException(TextComponent.of("Failed to write chunk list: " + e.getMessage()));
+        }
+
+        actor.print(TextComponent.of(
+            String.format("%d chunk(s) have been marked for deletion the next time the server starts.",
+                newBatch.getChunkCount())
+        ));
+        if (currentInfo.batches.size() > 1) {
+            actor.printDebug(TextComponent.of(
+                String.format("%d chunks total marked for deletion. (May have overlaps).",
+                    currentInfo.batches.stream().mapToInt(ChunkDeletionInfo.ChunkBatch::getChunkCount).sum())
+            ));
+        }
+        actor.print(TextComponent.of("You can mark more chunks for deletion, or to stop now, run: ", TextColor.LIGHT_PURPLE)
+                .append(TextComponent.of("/stop", TextColor.AQUA)
+                        .clickEvent(ClickEvent.of(ClickEvent.Action.SUGGEST_COMMAND, "/stop"))));
+    }
+
+    private static ChunkDeletionInfo.ChunkBatch createBatch(Path worldDir, Region selection, @Nullable ZonedDateTime beforeTime) {
         ChunkDeletionInfo.ChunkBatch newBatch = new ChunkDeletionInfo.ChunkBatch();
         newBatch.worldPath = worldDir.toAbsolutePath().normalize().toString();
         newBatch.backup = true;
-        final Region selection = session.getSelection(world);
         if (selection instanceof CuboidRegion) {
             newBatch.minChunk = selection.getMinimumPoint().shr(4).toBlockVector2();
             newBatch.maxChunk = selection.getMaximumPoint().shr(4).toBlockVector2();
@@ -155,27 +191,25 @@ public void deleteChunks(Actor actor, World world, LocalSession session,
             timePred.value = String.valueOf((int) beforeTime.toOffsetDateTime().toEpochSecond());
             newBatch.deletionPredicates.add(timePred);
         }
-        currentInfo.batches.add(newBatch);
+        return newBatch;
+    }
 
+    private static Component describeEstimate(ChunkDeletionInfo.ChunkBatch batch) {
+        ChunkDeletionEstimate estimate;
         try {
-            ChunkDeleter.writeInfo(currentInfo, chunkPath);
-        } catch (IOException | JsonIOException e) {
-            throw new StopExecutionException(TextComponent.of("Failed to write chunk list: " + e.getMessage()));
+            estimate = ChunkDeleter.estimate(batch, 0);
+        } catch (IOException e) {
+            throw new StopExecutionException(TextComponent.of("Failed to read region files: " + e.getMessage()));
         }
-
-        actor.print(TextComponent.of(
-            String.format("%d chunk(s) have been marked for deletion the next time the server starts.",
-                newBatch.getChunkCount())
-        ));
-        if (currentInfo.batches.size() > 1) {
-            actor.printDebug(TextComponent.of(
-                String.format("%d chunks total marked for deletion. (May have overlaps).",
-                    currentInfo.batches.stream().mapToInt(ChunkDeletionInfo.ChunkBatch::getChunkCount).sum())
-            ));
+        TextComponent.Builder message = TextComponent.builder(String.format(
+            "%d chunk(s) in %d region file(s) would be deleted, freeing %d KiB.",
+            estimate.getChunks(), estimate.getRegions(), estimate.getBytes() / 1024));
+        for (ChunkDeletionEstimate.PredicateEstimate predicate : estimate.getPredicates()) {
+            message.append(TextComponent.newline()).append(TextComponent.of(String.format(
+                "  %s: %d chunk(s), %d KiB", predicate.getDescription(), predicate.getChunks(), predicate.getBytes() / 1024),
+                TextColor.GRAY));
         }
-        actor.print(TextComponent.of("You can mark more chunks for deletion, or to stop now, run: ", TextColor.LIGHT_PURPLE)
-                .append(TextComponent.of("/stop", TextColor.AQUA)
-                        .clickEvent(ClickEvent.of(ClickEvent.Action.SUGGEST_COMMAND, "/stop"))));
+        return message.build();
     }
 
     private static class ChunkListPaginationBox extends PaginationBox {
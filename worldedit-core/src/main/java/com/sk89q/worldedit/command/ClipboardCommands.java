@@ -28,8 +28,8 @@
 import com.sk89q.worldedit.command.util.CommandPermissionsConditionGenerator;
 import com.sk89q.worldedit.command.util.Logging;
 import com.sk89q.worldedit.extension.platform.Actor;
-import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.ClipboardStorage;
 import com.sk89q.worldedit.function.block.BlockReplace;
 import com.sk89q.worldedit.function.mask.Mask;
 import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
@@ -95,7 +95,7 @@ public void copy(Actor actor, LocalSession session, EditSession editSession,
                      @ArgFlag(name = 'm', desc = "Set the include mask, non-matching blocks become air")
                          Mask mask) throws WorldEditException {
         checkRegionBounds(region, session);
-        BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
+        Clipboard clipboard = ClipboardStorage.createClipboard(region);
         clipboard.setOrigin(session.getPlacementPosition(actor));
         ForwardExtentCopy copy = new ForwardExtentCopy(editSession, region, clipboard, region.getMinimumPoint());
         copy.setCopyingEntities(copyEntities);
@@ -103,7 +103,12 @@ public void copy(Actor actor, LocalSession session, EditSession editSession,
         if (mask != null) {
             copy.setSourceMask(mask);
         }
-        Operations.completeLegacy(copy);
+        try {
+            Operations.completeLegacy(copy);
+        } catch (WorldEditException | RuntimeException e) {
+            clipboard.close();
+            throw e;
+        }
         session.setClipboard(new ClipboardHolder(clipboard));
 
         copy.getStatusMessages().forEach(actor::print);
@@ -126,7 +131,7 @@ public void cut(Actor actor, LocalSession session, EditSession editSession,
                     @ArgFlag(name = 'm', desc = "Set the exclude mask, non-matching blocks become air")
                         Mask mask) throws WorldEditException {
         checkRegionBounds(region, session);
-        BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
+        Clipboard clipboard = ClipboardStorage.createClipboard(region);
         clipboard.setOrigin(session.getPlacementPosition(actor));
         ForwardExtentCopy copy = new ForwardExtentCopy(editSession, region, clipboard, region.getMinimumPoint());
         copy.setSourceFunction(new BlockReplace(editSession, leavePattern));
@@ -136,7 +141,12 @@ public void cut(Actor actor, LocalSession session, EditSession editSession,
         if (mask != null) {
             copy.setSourceMask(mask);
         }
-        Operations.completeLegacy(copy);
+        try {
+            Operations.completeLegacy(copy);
+        } catch (WorldEditException | RuntimeException e) {
+            clipboard.close();
+            throw e;
+        }
         session.setClipboard(new ClipboardHolder(clipboard));
 
         copy.getStatusMessages().forEach(actor::print);
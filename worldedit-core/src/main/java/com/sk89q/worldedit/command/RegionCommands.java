@@ -243,6 +243,18 @@ public int naturalize(Actor actor, EditSession editSession, @Selection Region re
         return affected;
     }
 
+    @Command(
+        name = "/fall",
+        desc = "Make the blocks in the selection fall down"
+    )
+    @CommandPermissions("worldedit.region.fall")
+    @Logging(REGION)
+    public int fall(Actor actor, EditSession editSession, @Selection Region region) throws WorldEditException {
+        int affected = editSession.simulateGravity(region);
+        actor.printInfo(TranslatableComponent.of("worldedit.fall.changed", TextComponent.of(affected)));
+        return affected;
+    }
+
     @Command(
         name = "/walls",
         desc = "Build the four sides of the selection"
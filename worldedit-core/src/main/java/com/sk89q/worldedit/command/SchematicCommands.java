@@ -20,7 +20,10 @@
 package com.sk89q.worldedit.command;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.CountingInputStream;
 import com.google.common.io.MoreFiles;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.sk89q.worldedit.LocalConfiguration;
 import com.sk89q.worldedit.LocalSession;
 import com.sk89q.worldedit.WorldEdit;
@@ -31,8 +34,8 @@
 import com.sk89q.worldedit.command.util.WorldEditAsyncCommandBuilder;
 import com.sk89q.worldedit.extension.platform.Actor;
 import com.sk89q.worldedit.extension.platform.Capability;
-import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.ClipboardStorage;
 import com.sk89q.worldedit.extent.clipboard.io.BuiltInClipboardFormat;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
@@ -55,6 +58,8 @@
 import com.sk89q.worldedit.util.io.Closer;
 import com.sk89q.worldedit.util.io.file.FilenameException;
 import com.sk89q.worldedit.util.io.file.MorePaths;
+import com.sk89q.worldedit.util.task.progress.Progress;
+import com.sk89q.worldedit.util.task.progress.ProgressObservable;
 import org.apache.logging.log4j.Logger;
 import org.enginehub.piston.annotation.Command;
 import org.enginehub.piston.annotation.CommandContainer;
@@ -77,6 +82,8 @@
 import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -196,13 +203,21 @@ public void save(Actor actor, LocalSession session,
         ClipboardHolder holder = session.getClipboard();
 
         SchematicSaveTask task = new SchematicSaveTask(actor, f, format, holder, overwrite);
-        AsyncCommandBuilder.wrap(task, actor)
-                .registerWithSupervisor(worldEdit.getSupervisor(), "Saving schematic " + filename)
-                .setDelayMessage(TranslatableComponent.of("worldedit.schematic.save.saving"))
-                .setWorkingMessage(TranslatableComponent.of("worldedit.schematic.save.still-saving"))
-                .onSuccess(filename + " saved" + (overwrite ? " (overwriting previous file)." : "."), null)
-                .onFailure("Failed to save schematic", worldEdit.getPlatformManager().getPlatformCommandManager().getExceptionConverter())
-                .buildAndExec(worldEdit.getExecutorService());
+        ListenableFuture<Void> future;
+        try {
+            future = AsyncCommandBuilder.wrap(task, actor)
+                    .registerWithSupervisor(worldEdit.getSupervisor(), "Saving schematic " + filename)
+                    .setDelayMessage(TranslatableComponent.of("worldedit.schematic.save.saving"))
+                    .setWorkingMessage(TranslatableComponent.of("worldedit.schematic.save.still-saving"))
+                    .onSuccess(filename + " saved" + (overwrite ? " (overwriting previous file)." : "."), null)
+                    .onFailure("Failed to save schematic", worldEdit.getPlatformManager().getPlatformCommandManager().getExceptionConverter())
+                    .buildAndExec(worldEdit.getExecutorService());
+        } catch (RuntimeException e) {
+            task.releaseIfNotStarted();
+            throw e;
+        }
+        // A save that is cancelled while queued never runs, so it releases the clipboard here instead
+        future.addListener(task::releaseIfNotStarted, MoreExecutors.directExecutor());
     }
 
     @Command(
@@ -301,10 +316,13 @@ public void list(Actor actor,
                 SubtleFormat.wrap("(Please wait... gathering schematic list.)"));
     }
 
-    private static class SchematicLoadTask implements Callable<ClipboardHolder> {
+    private static class SchematicLoadTask implements Callable<ClipboardHolder>, ProgressObservable {
         private final Actor actor;
         private final File file;
         private final ClipboardFormat format;
+        @Nullable
+        private volatile CountingInputStream counter;
+        private volatile long fileLength;
 
         SchematicLoadTask(Actor actor, File file, ClipboardFormat format) {
             this.actor = actor;
@@ -316,7 +334,10 @@ private static class SchematicLoadTask implements Callable<ClipboardHolder> {
         public ClipboardHolder call() throws Exception {
             try (Closer closer = Closer.create()) {
                 FileInputStream fis = closer.register(new FileInputStream(file));
-                BufferedInputStream bis = closer.register(new BufferedInputStream(fis));
+                fileLength = file.length();
+                CountingInputStream cis = closer.register(new CountingInputStream(fis));
+                counter = cis;
+                BufferedInputStream bis = closer.register(new BufferedInputStream(cis));
                 ClipboardReader reader = closer.register(format.getReader(bis));
 
                 Clipboard clipboard = reader.read();
@@ -324,16 +345,34 @@ public ClipboardHolder call() throws Exception {
                 return new ClipboardHolder(clipboard);
             }
         }
+
+        @Override
+        public Progress getProgress() {
+            CountingInputStream cis = counter;
+            if (cis == null || fileLength <= 0) {
+                return Progress.indeterminate();
+            }
+            // The compressed bytes read so far, as the reader consumes the file in a single pass
+            return Progress.of(Math.min(1, cis.getCount() / (double) fileLength));
+        }
     }
 
-    private static class SchematicSaveTask implements Callable<Void> {
+    /**
+     * Saves a clipboard to a file.
+     *
+     * <p>The clipboard is {@linkplain Clipboard#retain() retained} until the
+     * save is done, as the session may replace it in the meantime.</p>
+     */
+    static class SchematicSaveTask implements Callable<Void> {
         private final Actor actor;
         private final File file;
         private final ClipboardFormat format;
         private final ClipboardHolder holder;
         private final boolean overwrite;
+        private final AtomicBoolean started = new AtomicBoolean();
 
         SchematicSaveTask(Actor actor, File file, ClipboardFormat format, ClipboardHolder holder, boolean overwrite) {
+            holder.getClipboard().retain();
             this.actor = actor;
             this.file = file;
             this.format = format;
@@ -341,8 +380,31 @@ private static class SchematicSaveTask implements Callable<Void> {
             this.overwrite = overwrite;
         }
 
+        /**
+         * Release the clipboard if the task has not started, so that a task
+         * that never runs does not keep it open.
+         */
+        void releaseIfNotStarted() {
+            if (started.compareAndSet(false, true)) {
+                holder.getClipboard().close();
+            }
+        }
+
         @Override
         public Void call() throws Exception {
+            if (!started.compareAndSet(false, true)) {
+                // Released without running
+                return null;
+            }
+            try {
+                save();
+            } finally {
+                holder.getClipboard().close();
+            }
+            return null;
+        }
+
+        private void save() throws Exception {
             Clipboard clipboard = holder.getClipboard();
             Transform transform = holder.getTransform();
             Clipboard target;
@@ -352,9 +414,14 @@ public Void call() throws Exception {
                 target = clipboard;
             } else {
                 FlattenedClipboardTransform result = FlattenedClipboardTransform.transform(clipboard, transform);
-                target = new BlockArrayClipboard(result.getTransformedRegion());
+                target = ClipboardStorage.createClipboard(result.getTransformedRegion());
                 target.setOrigin(clipboard.getOrigin());
-                Operations.completeLegacy(result.copyTo(target));
+                try {
+                    Operations.completeLegacy(result.copyTo(target));
+                } catch (Exception e) {
+                    target.close();
+                    throw e;
+                }
             }
 
             try (Closer closer = Closer.create()) {
@@ -367,8 +434,11 @@ public Void call() throws Exception {
             } catch (IOException e) {
                 file.delete();
                 throw new CommandException(TextComponent.of(e.getMessage()), e, ImmutableList.of());
+            } finally {
+                if (target != clipboard) {
+                    target.close();
+                }
             }
-            return null;
         }
     }
 
@@ -85,6 +85,7 @@
 import org.enginehub.piston.exception.StopExecutionException;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -472,6 +473,12 @@ public void size(Actor actor, World world, LocalSession session,
 
             BlockVector3 origin = clipboard.getOrigin();
             actor.printInfo(TranslatableComponent.of("worldedit.size.offset", TextComponent.of(origin.toString())));
+
+            long memoryUsage = clipboard.getMemoryUsage();
+            if (memoryUsage >= 0) {
+                String memory = String.format(Locale.ROOT, "%.1f", memoryUsage / (1024.0 * 1024.0));
+                actor.printInfo(TranslatableComponent.of("worldedit.size.memory", TextComponent.of(memory)));
+            }
         } else {
             region = session.getSelection(world);
 
@@ -33,6 +33,7 @@
 import com.sk89q.worldedit.extension.platform.Capability;
 import com.sk89q.worldedit.extension.platform.Platform;
 import com.sk89q.worldedit.extension.platform.PlatformManager;
+import com.sk89q.worldedit.util.concurrency.FairTaskExecutor;
 import com.sk89q.worldedit.util.formatting.component.MessageBox;
 import com.sk89q.worldedit.util.formatting.component.TextComponentProducer;
 import com.sk89q.worldedit.util.formatting.text.TextComponent;
@@ -42,6 +43,9 @@
 import com.sk89q.worldedit.util.report.ConfigReport;
 import com.sk89q.worldedit.util.report.ReportList;
 import com.sk89q.worldedit.util.report.SystemInfoReport;
+import com.sk89q.worldedit.util.task.Task;
+import com.sk89q.worldedit.util.task.TaskStateComparator;
+import com.sk89q.worldedit.util.task.progress.Progress;
 import org.enginehub.piston.annotation.Command;
 import org.enginehub.piston.annotation.CommandContainer;
 import org.enginehub.piston.annotation.param.Arg;
@@ -57,6 +61,8 @@
 import java.time.format.TextStyle;
 import java.time.zone.ZoneRulesException;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 @CommandContainer(superTypes = CommandPermissionsConditionGenerator.Registration.class)
 public class WorldEditCommands {
@@ -139,6 +145,70 @@ public void report(Actor actor,
         }
     }
 
+    @Command(
+        name = "tasks",
+        desc = "List the tasks running in the background"
+    )
+    @CommandPermissions("worldedit.tasks")
+    public void tasks(Actor actor,
+                      @Switch(name = 'c', desc = "Cancel your queued and running tasks")
+                          boolean cancel) {
+        FairTaskExecutor executor = we.getExecutorService() instanceof FairTaskExecutor
+                ? (FairTaskExecutor) we.getExecutorService() : null;
+        if (cancel) {
+            int cancelled = we.getOperationScheduler().cancelAll(actor.getUniqueId());
+            if (executor != null) {
+                cancelled += executor.cancelAll(actor.getUniqueId());
+            }
+            actor.printInfo(TranslatableComponent.of("worldedit.tasks.cancelled", TextComponent.of(cancelled)));
+            return;
+        }
+        if (executor != null) {
+            FairTaskExecutor.Statistics stats = executor.getStatistics();
+            TextComponentProducer producer = new TextComponentProducer();
+            producer.append(TranslatableComponent.of("worldedit.tasks.executor.threads", TextColor.GRAY,
+                    value(stats.getThreads()), value(stats.getMaxThreads()))).newline();
+            producer.append(TranslatableComponent.of("worldedit.tasks.executor.running", TextColor.GRAY,
+                    value(stats.getRunningTasks()))).newline();
+            producer.append(TranslatableComponent.of("worldedit.tasks.executor.queued", TextColor.GRAY,
+                    value(stats.getQueuedTasks()), value(stats.getWaitingOwners()))).newline();
+            producer.append(TranslatableComponent.of("worldedit.tasks.executor.completed", TextColor.GRAY,
+                    value(stats.getCompletedTasks()))).newline();
+            producer.append(TranslatableComponent.of("worldedit.tasks.executor.wait", TextColor.GRAY,
+                    value(stats.getAverageWait(TimeUnit.MILLISECONDS)),
+                    value(stats.getMaxWait(TimeUnit.MILLISECONDS)))).newline();
+            producer.append(TranslatableComponent.of("worldedit.tasks.executor.pending-changes", TextColor.GRAY,
+                    value(we.getOperationScheduler().getPendingOperations(actor.getUniqueId())))).newline();
+            actor.print(new MessageBox("Task Executor", producer, TextColor.GRAY).create());
+        }
+
+        List<Task<?>> tasks = we.getSupervisor().getTasks();
+        if (tasks.isEmpty()) {
+            actor.printInfo(TranslatableComponent.of("worldedit.tasks.none"));
+            return;
+        }
+        tasks.sort(new TaskStateComparator());
+
+        TextComponentProducer producer = new TextComponentProducer();
+        for (Task<?> task : tasks) {
+            Progress progress = task.getProgress();
+            String status = task.getState().name().toLowerCase(Locale.ROOT);
+            if (!progress.isIndeterminate()) {
+                status += ", " + (int) (progress.getProgress() * 100) + "%";
+            }
+            producer.append(
+                    TextComponent.of("* ", TextColor.GRAY)
+                    .append(TextComponent.of(task.getName()))
+                    .append(TextComponent.of(" (" + status + ")", TextColor.GRAY))
+            ).newline();
+        }
+        actor.print(new MessageBox("Tasks", producer, TextColor.GRAY).create());
+    }
+
+    private static TextComponent value(long value) {
+        return TextComponent.of(String.valueOf(value), TextColor.WHITE);
+    }
+
     @Command(
         name = "trace",
         desc = "Toggles trace hook"
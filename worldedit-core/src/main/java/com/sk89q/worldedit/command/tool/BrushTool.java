@@ -28,21 +28,30 @@
 import com.sk89q.worldedit.entity.Player;
 import com.sk89q.worldedit.extension.platform.Actor;
 import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.extent.inventory.BlockBag;
 import com.sk89q.worldedit.function.mask.Mask;
 import com.sk89q.worldedit.function.mask.MaskIntersection;
+import com.sk89q.worldedit.function.pattern.ClipboardPattern;
 import com.sk89q.worldedit.function.pattern.Pattern;
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Builds a shape at the place being looked at.
+ *
+ * <p>Clipboards read by the fill, and brushes that hold resources, are kept
+ * until they are replaced or the tool is closed.</p>
  */
-public class BrushTool implements TraceTool {
+public class BrushTool implements TraceTool, Closeable {
 
     protected static int MAX_RANGE = 500;
     protected int range = -1;
@@ -51,6 +60,7 @@ public class BrushTool implements TraceTool {
     private Brush brush = new SphereBrush();
     @Nullable
     private Pattern material;
+    private List<Clipboard> materialClipboards = Collections.emptyList();
     private double size = 1;
     private String permission;
 
@@ -112,8 +122,12 @@ public void setTraceMask(@Nullable Mask traceMask) {
      * @param permission the permission
      */
     public void setBrush(Brush brush, String permission) {
+        Brush previous = this.brush;
         this.brush = brush;
         this.permission = permission;
+        if (previous != brush) {
+            closeBrush(previous);
+        }
     }
 
     /**
@@ -131,7 +145,17 @@ public Brush getBrush() {
      * @param material the material
      */
     public void setFill(@Nullable Pattern material) {
+        List<Clipboard> previous = this.materialClipboards;
+        // Retain the new clipboards first, in case they are the same ones
+        List<Clipboard> clipboards = ClipboardPattern.getClipboards(material);
+        for (Clipboard clipboard : clipboards) {
+            clipboard.retain();
+        }
         this.material = material;
+        this.materialClipboards = clipboards;
+        for (Clipboard clipboard : previous) {
+            clipboard.close();
+        }
     }
 
     /**
@@ -221,4 +245,25 @@ public boolean actPrimary(Platform server, LocalConfiguration config, Player pla
         return true;
     }
 
+    /**
+     * Release the clipboards of the fill and the resources of the brush.
+     */
+    @Override
+    public void close() {
+        for (Clipboard clipboard : materialClipboards) {
+            clipboard.close();
+        }
+        materialClipboards = Collections.emptyList();
+        closeBrush(brush);
+    }
+
+    private static void closeBrush(Brush brush) {
+        if (brush instanceof Closeable) {
+            try {
+                ((Closeable) brush).close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
 }
@@ -30,7 +30,17 @@
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.session.ClipboardHolder;
 
-public class ClipboardBrush implements Brush {
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pastes a clipboard.
+ *
+ * <p>The clipboard is {@linkplain Clipboard#retain() retained} until the
+ * brush is closed, which happens when its tool is unbound or given another
+ * brush.</p>
+ */
+public class ClipboardBrush implements Brush, Closeable {
 
     private final ClipboardHolder holder;
     private final boolean ignoreAirBlocks;
@@ -38,8 +48,10 @@ public class ClipboardBrush implements Brush {
     private final boolean pasteEntities;
     private final boolean pasteBiomes;
     private final Mask sourceMask;
+    private final AtomicBoolean closed = new AtomicBoolean();
 
     public ClipboardBrush(ClipboardHolder holder, boolean ignoreAirBlocks, boolean usingOrigin) {
+        holder.getClipboard().retain();
         this.holder = holder;
         this.ignoreAirBlocks = ignoreAirBlocks;
         this.usingOrigin = usingOrigin;
@@ -50,6 +62,7 @@ public ClipboardBrush(ClipboardHolder holder, boolean ignoreAirBlocks, boolean u
 
     public ClipboardBrush(ClipboardHolder holder, boolean ignoreAirBlocks, boolean usingOrigin, boolean pasteEntities,
                           boolean pasteBiomes, Mask sourceMask) {
+        holder.getClipboard().retain();
         this.holder = holder;
         this.ignoreAirBlocks = ignoreAirBlocks;
         this.usingOrigin = usingOrigin;
@@ -76,4 +89,14 @@ public void build(EditSession editSession, BlockVector3 position, Pattern patter
         Operations.completeLegacy(operation);
     }
 
+    /**
+     * Release the clipboard. Closing the brush again does nothing.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            holder.getClipboard().close();
+        }
+    }
+
 }
@@ -23,13 +23,7 @@
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.function.pattern.Pattern;
 import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldedit.util.LocatedBlock;
-import com.sk89q.worldedit.util.collection.LocatedBlockList;
-import com.sk89q.worldedit.world.block.BaseBlock;
-import com.sk89q.worldedit.world.block.BlockTypes;
-
-import java.util.LinkedHashSet;
-import java.util.Set;
+import com.sk89q.worldedit.regions.CuboidRegion;
 
 public class GravityBrush implements Brush {
 
@@ -46,60 +40,17 @@ public void build(EditSession editSession, BlockVector3 position, Pattern patter
         double sizeOffset = overrideHeight ? heightOffset : size;
         double yMax = Math.min(position.getY() + sizeOffset, editSession.getWorld().getMaxY());
         double yMin = Math.max(position.getY() - sizeOffset, editSession.getWorld().getMinY());
-        LocatedBlockList column = new LocatedBlockList();
-        Set<BlockVector3> removedBlocks = new LinkedHashSet<>();
-        for (double x = position.getX() - size; x <= position.getX() + size; x++) {
-            for (double z = position.getZ() - size; z <= position.getZ() + size; z++) {
-                /*
-                 * Algorithm:
-                 * 1. Find lowest air block in the selection -> $lowestAir = position
-                 * 2. Move the first non-air block above it down to $lowestAir
-                 * 3. Add 1 to $lowestAir's y-coord.
-                 * 4. If more blocks above current position, repeat from 2
-                 */
-
-                BlockVector3 lowestAir = null;
-                for (double y = yMin; y <= yMax; y++) {
-                    BlockVector3 pt = BlockVector3.at(x, y, z);
-
-                    BaseBlock block = editSession.getFullBlock(pt);
-
-                    if (block.getBlockType().getMaterial().isAir()) {
-                        if (lowestAir == null) {
-                            // we found the lowest air block
-                            lowestAir = pt;
-                        }
-                        continue;
-                    }
-
-                    if (lowestAir == null) {
-                        // no place to move the block to
-                        continue;
-                    }
-
-                    BlockVector3 newPos = lowestAir;
-                    // we know the block above must be air,
-                    // since either this block is being moved into it,
-                    // or there has been more air before this block
-                    lowestAir = lowestAir.add(0, 1, 0);
-
-                    removedBlocks.remove(newPos);
-                    column.add(newPos, block);
-                    removedBlocks.add(pt);
-                }
-
-                for (LocatedBlock block : column) {
-                    editSession.setBlock(block.getLocation(), block.getBlock());
-                }
-
-                for (BlockVector3 removedBlock : removedBlocks) {
-                    editSession.setBlock(removedBlock, BlockTypes.AIR.getDefaultState());
-                }
-
-                column.clear();
-                removedBlocks.clear();
-            }
+        if (yMin > yMax) {
+            return;
         }
+        int minY = (int) Math.floor(yMin);
+        int maxY = minY + (int) Math.floor(yMax - yMin);
+        int minX = (int) Math.floor(position.getX() - size);
+        int minZ = (int) Math.floor(position.getZ() - size);
+        int width = (int) Math.floor(size * 2);
+        CuboidRegion region = new CuboidRegion(
+            BlockVector3.at(minX, minY, minZ), BlockVector3.at(minX + width, maxY, minZ + width));
+        editSession.simulateGravity(region);
     }
 
 }
@@ -26,12 +26,14 @@
 import com.sk89q.worldedit.extension.platform.Actor;
 import com.sk89q.worldedit.internal.command.exception.ExceptionConverter;
 import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import com.sk89q.worldedit.util.concurrency.FairTaskExecutor;
 import com.sk89q.worldedit.util.formatting.component.ErrorFormat;
 import com.sk89q.worldedit.util.formatting.text.Component;
 import com.sk89q.worldedit.util.formatting.text.TextComponent;
 import com.sk89q.worldedit.util.formatting.text.format.TextColor;
 import com.sk89q.worldedit.util.task.FutureForwardingTask;
 import com.sk89q.worldedit.util.task.Supervisor;
+import com.sk89q.worldedit.util.task.progress.ProgressObservable;
 import org.apache.logging.log4j.Logger;
 import org.enginehub.piston.exception.CommandException;
 import org.enginehub.piston.exception.CommandExecutionException;
@@ -69,6 +71,8 @@
     @Nullable
     private ExceptionConverter exceptionConverter;
 
+    private FairTaskExecutor.Priority priority = FairTaskExecutor.Priority.NORMAL;
+
     private AsyncCommandBuilder(Callable<T> callable, Actor sender) {
         checkNotNull(callable);
         checkNotNull(sender);
@@ -96,6 +100,17 @@ public AsyncCommandBuilder<T> sendMessageAfterDelay(Component message) {
         return setDelayMessage(message);
     }
 
+    /**
+     * Set the priority of the task when it is run by a {@link FairTaskExecutor}.
+     *
+     * @param priority the priority
+     * @return this builder
+     */
+    public AsyncCommandBuilder<T> setPriority(FairTaskExecutor.Priority priority) {
+        this.priority = checkNotNull(priority);
+        return this;
+    }
+
     public AsyncCommandBuilder<T> setDelayMessage(Component message) {
         this.delayMessage = checkNotNull(message);
         return this;
@@ -136,7 +151,14 @@ public AsyncCommandBuilder<T> onFailure(@Nullable String message, @Nullable Exce
     }
 
     public ListenableFuture<T> buildAndExec(ListeningExecutorService executor) {
-        final ListenableFuture<T> future = checkNotNull(executor).submit(this::runTask);
+        checkNotNull(executor);
+        final ListenableFuture<T> future;
+        if (executor instanceof FairTaskExecutor) {
+            // Queue the task behind the sender's other tasks rather than everyone's
+            future = ((FairTaskExecutor) executor).submit(sender.getUniqueId(), priority, this::runTask);
+        } else {
+            future = executor.submit(this::runTask);
+        }
         if (delayMessage != null) {
             FutureProgressListener.addProgressListener(
                 future,
@@ -146,7 +168,12 @@ public ListenableFuture<T> buildAndExec(ListeningExecutorService executor) {
             );
         }
         if (supervisor != null && description != null) {
-            supervisor.monitor(FutureForwardingTask.create(future, description, sender));
+            // Callables that track their own progress report it through the supervisor
+            if (callable instanceof ProgressObservable) {
+                supervisor.monitor(FutureForwardingTask.create(future, description, sender, (ProgressObservable) callable));
+            } else {
+                supervisor.monitor(FutureForwardingTask.create(future, description, sender));
+            }
         }
         return future;
     }
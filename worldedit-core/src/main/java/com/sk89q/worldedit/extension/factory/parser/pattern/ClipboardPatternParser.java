@@ -30,6 +30,7 @@
 import com.sk89q.worldedit.internal.registry.InputParser;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.session.ClipboardHolder;
+import com.sk89q.worldedit.session.request.Request;
 import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
 
 import java.util.Locale;
@@ -96,7 +97,12 @@ public Pattern parseFromInput(String input, ParserContext context) throws InputP
             try {
                 ClipboardHolder holder = session.getClipboard();
                 Clipboard clipboard = holder.getClipboard();
-                return new ClipboardPattern(clipboard, offset);
+                ClipboardPattern pattern = new ClipboardPattern(clipboard, offset);
+                if (Request.request().getSession() == session) {
+                    // Release the clipboard once the command is done with it
+                    Request.request().closeOnReset(pattern);
+                }
+                return pattern;
             } catch (EmptyClipboardException e) {
                 throw new InputParseException(TranslatableComponent.of("worldedit.error.empty-clipboard"));
             }
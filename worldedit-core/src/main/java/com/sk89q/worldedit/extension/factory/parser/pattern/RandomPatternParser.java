@@ -29,12 +29,15 @@
 import com.sk89q.worldedit.util.formatting.text.TextComponent;
 import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.regex.Matcher;
 import java.util.stream.Stream;
 
 public class RandomPatternParser extends InputParser<Pattern> {
 
     private final java.util.regex.Pattern regex = java.util.regex.Pattern.compile("[0-9]+(\\.[0-9]*)?%.*");
+    private final java.util.regex.Pattern seedRegex = java.util.regex.Pattern.compile("seed=(-?[0-9]{1,18})");
 
     public RandomPatternParser(WorldEdit worldEdit) {
         super(worldEdit);
@@ -62,13 +65,25 @@ public Stream<String> getSuggestions(String input) {
 
     @Override
     public Pattern parseFromInput(String input, ParserContext context) throws InputParseException {
-        RandomPattern randomPattern = new RandomPattern();
-
         String[] splits = input.split(",", -1);
         List<String> patterns = StringUtil.parseListInQuotes(splits, ',', '[', ']', true);
         if (patterns.size() == 1) {
             return null; // let a 'single'-pattern parser handle it
         }
+
+        // A seed=<number> token makes the pattern the same every time it is used
+        RandomPattern randomPattern = null;
+        for (Iterator<String> it = patterns.iterator(); it.hasNext();) {
+            Matcher matcher = seedRegex.matcher(it.next());
+            if (matcher.matches()) {
+                randomPattern = new RandomPattern(Long.parseLong(matcher.group(1)));
+                it.remove();
+            }
+        }
+        if (randomPattern == null) {
+            randomPattern = new RandomPattern();
+        }
+
         for (String token : patterns) {
             double chance;
             Pattern innerPattern;
@@ -22,6 +22,10 @@
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.IncompleteRegionException;
 import com.sk89q.worldedit.LocalConfiguration;
@@ -108,6 +112,7 @@
 import com.sk89q.worldedit.util.formatting.text.format.TextColor;
 import com.sk89q.worldedit.util.logging.DynamicStreamHandler;
 import com.sk89q.worldedit.util.logging.LogFormat;
+import com.sk89q.worldedit.util.task.FutureForwardingTask;
 import com.sk89q.worldedit.world.World;
 import org.apache.logging.log4j.Logger;
 import org.enginehub.piston.Command;
@@ -134,12 +139,15 @@
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -534,7 +542,7 @@ public void handleCommand(CommandEvent event) {
             if (editSessionOpt.isPresent()) {
                 EditSession editSession = editSessionOpt.get();
                 session.remember(editSession);
-                editSession.close();
+                ListenableFuture<Void> applied = editSession.close(worldEdit.getOperationScheduler(), actor.getUniqueId());
 
                 if (config.profile) {
                     long time = System.currentTimeMillis() - start;
@@ -549,7 +557,16 @@ public void handleCommand(CommandEvent event) {
                     ));
                 }
 
-                worldEdit.flushBlockBag(actor, editSession);
+                if (applied.isDone()) {
+                    try {
+                        Futures.getDone(applied);
+                        worldEdit.flushBlockBag(actor, editSession);
+                    } catch (ExecutionException e) {
+                        handleUnknownException(actor, e.getCause());
+                    }
+                } else {
+                    applyLater(actor, editSession, applied);
+                }
             }
             Request.reset();
         }
@@ -557,6 +574,29 @@ public void handleCommand(CommandEvent event) {
         event.setCancelled(true);
     }
 
+    private void applyLater(Actor actor, EditSession editSession, ListenableFuture<Void> applied) {
+        long start = System.currentTimeMillis();
+        actor.printInfo(TranslatableComponent.of("worldedit.command.applying-later"));
+        worldEdit.getSupervisor().monitor(FutureForwardingTask.create(applied, "Applying changes", actor));
+        Futures.addCallback(applied, new FutureCallback<Void>() {
+            @Override
+            public void onSuccess(@Nullable Void result) {
+                worldEdit.flushBlockBag(actor, editSession);
+                actor.printInfo(TranslatableComponent.of("worldedit.command.applied",
+                        TextComponent.of((System.currentTimeMillis() - start) / 1000.0)));
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                if (t instanceof CancellationException) {
+                    actor.printError(TranslatableComponent.of("worldedit.command.applying-cancelled"));
+                } else {
+                    handleUnknownException(actor, t);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
     private MemoizingValueAccess initializeInjectedValues(Arguments arguments, Actor actor) {
         InjectedValueStore store = MapBackedValueStore.create();
         store.injectValue(Key.of(Actor.class), ValueProvider.constant(actor));
@@ -36,6 +36,9 @@
 /**
  * Buffers changes to an {@link Extent} and allows retrieval of the changed blocks,
  * without modifying the underlying extent.
+ *
+ * <p>The buffer is synchronized, as patterns that use it may be applied from
+ * several threads.</p>
  */
 public class ExtentBuffer extends AbstractBufferingExtent {
 
@@ -66,7 +69,7 @@ public ExtentBuffer(Extent delegate, Mask mask) {
     }
 
     @Override
-    protected BaseBlock getBufferedFullBlock(BlockVector3 position) {
+    protected synchronized BaseBlock getBufferedFullBlock(BlockVector3 position) {
         if (mask.test(position)) {
             return buffer.computeIfAbsent(position, (pos -> getExtent().getFullBlock(pos)));
         }
@@ -74,7 +77,7 @@ protected BaseBlock getBufferedFullBlock(BlockVector3 position) {
     }
 
     @Override
-    public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
+    public synchronized <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
         if (mask.test(location)) {
             buffer.put(location, block.toBaseBlock());
             return true;
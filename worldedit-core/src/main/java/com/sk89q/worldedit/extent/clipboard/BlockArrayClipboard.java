@@ -191,6 +191,23 @@ public boolean setBiome(BlockVector3 position, BiomeType biome) {
         return false;
     }
 
+    @Override
+    public long getMemoryUsage() {
+        long size = arrayMemoryUsage(getDimensions());
+        if (biomes != null) {
+            size += arrayMemoryUsage(getDimensions());
+        }
+        return size;
+    }
+
+    private static long arrayMemoryUsage(BlockVector3 dimensions) {
+        // a reference per element, plus an array header for every nested array
+        long x = dimensions.getBlockX();
+        long y = dimensions.getBlockY();
+        long z = dimensions.getBlockZ();
+        return (16 + 4 * x) + x * (16 + 4 * y) + x * y * (16 + 4 * z);
+    }
+
     @Nullable
     @Override
     public Operation commit() {
@@ -23,10 +23,12 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
 
+import java.io.Closeable;
+
 /**
  * Specifies an object that implements something suitable as a "clipboard."
  */
-public interface Clipboard extends Extent {
+public interface Clipboard extends Extent, Closeable {
 
     /**
      * Get the bounding region of this extent.
@@ -68,4 +70,32 @@ public interface Clipboard extends Extent {
     default boolean hasBiomes() {
         return false;
     }
+
+    /**
+     * Get an estimate of the memory used to store the contents of this
+     * clipboard, in bytes.
+     *
+     * @return the estimated size, or {@code -1} if unknown
+     */
+    default long getMemoryUsage() {
+        return -1;
+    }
+
+    /**
+     * Keep this clipboard open for another user, such as a task or brush
+     * that may still read it after the session has moved on to another
+     * clipboard. Each call must be matched by a call to {@link #close()}.
+     */
+    default void retain() {
+    }
+
+    /**
+     * Release any resources held outside of the heap, such as temporary
+     * files, once every user that {@linkplain #retain() retained} this
+     * clipboard has closed it as well. The clipboard must not be used
+     * by the caller afterwards.
+     */
+    @Override
+    default void close() {
+    }
 }
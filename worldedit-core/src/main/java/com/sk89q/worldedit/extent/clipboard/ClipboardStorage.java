@@ -0,0 +1,117 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard;
+
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import com.sk89q.worldedit.regions.Region;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.Locale;
+import javax.annotation.Nullable;
+
+/**
+ * The ways a {@link Clipboard} created by WorldEdit can store its blocks.
+ */
+public enum ClipboardStorage {
+
+    /**
+     * Stores blocks in a {@link BlockArrayClipboard}.
+     */
+    ARRAY {
+        @Override
+        public Clipboard create(Region region) {
+            return new BlockArrayClipboard(region);
+        }
+    },
+
+    /**
+     * Stores blocks in a {@link PaletteClipboard}.
+     */
+    PALETTE {
+        @Override
+        public Clipboard create(Region region) {
+            return new PaletteClipboard(region);
+        }
+    },
+
+    /**
+     * Stores blocks in a {@link MappedClipboard}, falling back to a
+     * {@link PaletteClipboard} if the backing file cannot be created.
+     */
+    MAPPED {
+        @Override
+        public Clipboard create(Region region) {
+            try {
+                return new MappedClipboard(region, WorldEdit.getInstance().getConfiguration().clipboardMappedCacheSize);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to create a memory-mapped clipboard, keeping it on the heap instead", e);
+                return new PaletteClipboard(region);
+            }
+        }
+    };
+
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+
+    /**
+     * Create an empty clipboard for the given region.
+     *
+     * @param region the bounding region
+     * @return a new clipboard
+     */
+    public abstract Clipboard create(Region region);
+
+    /**
+     * Create an empty clipboard using the storage selected in the
+     * configuration.
+     *
+     * <p>Regions with a larger volume than the configured threshold are
+     * always stored in a {@link MappedClipboard}.</p>
+     *
+     * @param region the bounding region
+     * @return a new clipboard
+     */
+    public static Clipboard createClipboard(Region region) {
+        LocalConfiguration config = WorldEdit.getInstance().getConfiguration();
+        if (config.clipboardMappedThreshold >= 0
+            && region.getBoundingBox().getVolume() > config.clipboardMappedThreshold) {
+            return MAPPED.create(region);
+        }
+        return config.clipboardStorage.create(region);
+    }
+
+    /**
+     * Find a storage by its name, ignoring case.
+     *
+     * @param name the name
+     * @return the storage, or {@code null} if there is none by that name
+     */
+    @Nullable
+    public static ClipboardStorage fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard;
+
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import com.sk89q.worldedit.regions.Region;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A {@link PaletteClipboard} that keeps its block sections in a memory-mapped
+ * temporary file, holding only a bounded number of recently used sections on
+ * the heap.
+ *
+ * <p>Every section has a fixed slot in the file, large enough for its largest
+ * possible encoding. Slots of sections that are never written are never
+ * touched, so the file stays sparse on file systems that support it.</p>
+ *
+ * <p>Access to the sections is synchronized, so the clipboard can be read
+ * from several threads at once, for example by a clipboard pattern.</p>
+ *
+ * <p>The file is released once the creator and every user that
+ * {@linkplain #retain() retained} the clipboard have called
+ * {@link #close()}, after which the clipboard can no longer be used.</p>
+ */
+public class MappedClipboard extends PaletteClipboard {
+
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+    private static final int SLOT_SIZE = PackedSection.getMaxSerializedSize();
+    private static final int SLOTS_PER_MAPPING = Integer.MAX_VALUE / SLOT_SIZE;
+
+    private final FileChannel channel;
+    @Nullable
+    private Path file;
+    private final MappedByteBuffer[] mappings;
+    private final BitSet stored = new BitSet();
+    private final BitSet dirty = new BitSet();
+    private final Map<Integer, PackedSection> cache;
+    private int lastIndex = -1;
+    @Nullable
+    private PackedSection lastSection;
+    private int references = 1;
+    private boolean closed;
+
+    /**
+     * Create a new instance.
+     *
+     * <p>The origin will be placed at the region's lowest minimum point.</p>
+     *
+     * @param region the bounding region
+     * @param cachedSections the maximum number of sections to keep on the heap
+     * @throws IOException if the backing file cannot be created
+     */
+    public MappedClipboard(Region region, int cachedSections) throws IOException {
+        super(region);
+        checkArgument(cachedSections > 0, "cachedSections must be positive");
+
+        Path file = Files.createTempFile("worldedit-clipboard", ".bin");
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.DELETE_ON_CLOSE);
+        try {
+            // the open channel and mappings keep the data reachable
+            Files.delete(file);
+        } catch (IOException e) {
+            // removed when the channel is closed instead
+            this.file = file;
+        }
+        this.mappings = new MappedByteBuffer[(getSectionCount() + SLOTS_PER_MAPPING - 1) / SLOTS_PER_MAPPING];
+        this.cache = new LinkedHashMap<Integer, PackedSection>(cachedSections, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, PackedSection> eldest) {
+                if (size() <= cachedSections) {
+                    return false;
+                }
+                int index = eldest.getKey();
+                writeBack(index, eldest.getValue());
+                if (index == lastIndex) {
+                    lastIndex = -1;
+                    lastSection = null;
+                }
+                return true;
+            }
+        };
+    }
+
+    @Nullable
+    @Override
+    synchronized PackedSection getSection(int index) {
+        checkState(!closed, "clipboard has been closed");
+        if (index == lastIndex) {
+            return lastSection;
+        }
+        PackedSection section = cache.get(index);
+        if (section == null && stored.get(index)) {
+            section = PackedSection.readFrom(slot(index));
+            cache.put(index, section);
+        }
+        lastIndex = index;
+        lastSection = section;
+        return section;
+    }
+
+    @Override
+    synchronized void putSection(int index, PackedSection section) {
+        checkState(!closed, "clipboard has been closed");
+        dirty.set(index);
+        if (index != lastIndex || section != lastSection) {
+            cache.put(index, section);
+            lastIndex = index;
+            lastSection = section;
+        }
+    }
+
+    @Override
+    synchronized long getSectionMemoryUsage() {
+        long size = 0;
+        for (PackedSection section : cache.values()) {
+            size += section.getMemoryUsage();
+        }
+        return size;
+    }
+
+    @Override
+    public synchronized void retain() {
+        checkState(!closed, "clipboard has been closed");
+        references++;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed || --references > 0) {
+            return;
+        }
+        closed = true;
+        cache.clear();
+        lastIndex = -1;
+        lastSection = null;
+        // the mappings are released once they are collected
+        Arrays.fill(mappings, null);
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to close clipboard storage", e);
+        }
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+            file = null;
+        }
+    }
+
+    private void writeBack(int index, PackedSection section) {
+        if (dirty.get(index)) {
+            section.writeTo(slot(index));
+            stored.set(index);
+            dirty.clear(index);
+        }
+    }
+
+    private ByteBuffer slot(int index) {
+        int mappingIndex = index / SLOTS_PER_MAPPING;
+        MappedByteBuffer mapping = mappings[mappingIndex];
+        if (mapping == null) {
+            int slots = Math.min(SLOTS_PER_MAPPING, getSectionCount() - mappingIndex * SLOTS_PER_MAPPING);
+            long position = (long) mappingIndex * SLOTS_PER_MAPPING * SLOT_SIZE;
+            try {
+                mapping = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) slots * SLOT_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map clipboard storage", e);
+            }
+            mappings[mappingIndex] = mapping;
+        }
+        ByteBuffer slot = mapping.duplicate();
+        slot.position((index % SLOTS_PER_MAPPING) * SLOT_SIZE);
+        return slot;
+    }
+
+}
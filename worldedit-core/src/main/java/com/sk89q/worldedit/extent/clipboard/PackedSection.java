@@ -0,0 +1,281 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A 16x16x16 section of palette indices, packed into a {@code long[]} with
+ * the smallest bit width that fits the section's local palette.
+ *
+ * <p>Values are IDs into a palette owned by the clipboard. The section keeps
+ * its own local palette mapping local indices to those IDs, so a section that
+ * only contains a handful of distinct values stays small no matter how large
+ * the clipboard's palette grows. Entries never span two longs.</p>
+ */
+final class PackedSection {
+
+    static final int SIZE_BITS = 4;
+    static final int SIZE = 1 << SIZE_BITS;
+    static final int MASK = SIZE - 1;
+    static final int VOLUME = SIZE * SIZE * SIZE;
+
+    /**
+     * Local palettes larger than this get a reverse lookup map instead of
+     * a linear scan.
+     */
+    private static final int LINEAR_SCAN_LIMIT = 16;
+
+    /**
+     * Get the index of a position within a section. Order (lowest to highest)
+     * is x-z-y.
+     *
+     * @param x the x coordinate, relative to the section
+     * @param y the y coordinate, relative to the section
+     * @param z the z coordinate, relative to the section
+     * @return the index
+     */
+    static int index(int x, int y, int z) {
+        return (x & MASK) | ((z & MASK) << SIZE_BITS) | ((y & MASK) << (SIZE_BITS + SIZE_BITS));
+    }
+
+    private int[] palette;
+    private int paletteSize;
+    private Int2IntOpenHashMap reversePalette;
+    private int bits;
+    private long[] data;
+
+    /**
+     * Create a section where every entry is {@code value}.
+     *
+     * @param value the initial value
+     */
+    PackedSection(int value) {
+        this.palette = new int[] { value };
+        this.paletteSize = 1;
+    }
+
+    private PackedSection(int[] palette, int bits, long[] data) {
+        this.palette = palette;
+        this.paletteSize = palette.length;
+        this.bits = bits;
+        this.data = data;
+        if (paletteSize > LINEAR_SCAN_LIMIT) {
+            buildReversePalette();
+        }
+    }
+
+    int get(int index) {
+        if (bits == 0) {
+            return palette[0];
+        }
+        return palette[readLocal(data, bits, index)];
+    }
+
+    void set(int index, int value) {
+        int local = localIndex(value);
+        if (local < 0) {
+            if (paletteSize == VOLUME) {
+                compact(index);
+            }
+            local = addToPalette(value);
+        }
+        if (bits == 0) {
+            return;
+        }
+        write(data, bits, index, local);
+    }
+
+    /**
+     * Get the largest number of bytes {@link #writeTo(ByteBuffer)} can write.
+     *
+     * @return the maximum serialized size
+     */
+    static int getMaxSerializedSize() {
+        // compaction keeps the local palette at VOLUME entries or fewer
+        int maxBits = 32 - Integer.numberOfLeadingZeros(VOLUME - 1);
+        return 8 + VOLUME * 4 + dataLength(maxBits) * 8;
+    }
+
+    /**
+     * Write this section at the buffer's current position.
+     *
+     * @param buffer the buffer
+     */
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(bits);
+        buffer.putInt(paletteSize);
+        for (int i = 0; i < paletteSize; i++) {
+            buffer.putInt(palette[i]);
+        }
+        if (data != null) {
+            for (long word : data) {
+                buffer.putLong(word);
+            }
+        }
+    }
+
+    /**
+     * Read a section written by {@link #writeTo(ByteBuffer)} from the
+     * buffer's current position.
+     *
+     * @param buffer the buffer
+     * @return the section
+     */
+    static PackedSection readFrom(ByteBuffer buffer) {
+        int bits = buffer.getInt();
+        int[] palette = new int[buffer.getInt()];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = buffer.getInt();
+        }
+        long[] data = null;
+        if (bits != 0) {
+            data = new long[dataLength(bits)];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = buffer.getLong();
+            }
+        }
+        return new PackedSection(palette, bits, data);
+    }
+
+    /**
+     * Estimate the heap used by this section, in bytes.
+     *
+     * @return the estimated size
+     */
+    long getMemoryUsage() {
+        long size = 40 + 16 + palette.length * 4L;
+        if (data != null) {
+            size += 16 + data.length * 8L;
+        }
+        if (reversePalette != null) {
+            size += 48 + reversePalette.size() * 8L * 2;
+        }
+        return size;
+    }
+
+    private int localIndex(int value) {
+        if (reversePalette != null) {
+            return reversePalette.get(value);
+        }
+        for (int i = 0; i < paletteSize; i++) {
+            if (palette[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int addToPalette(int value) {
+        int local = paletteSize;
+        if (local == palette.length) {
+            palette = Arrays.copyOf(palette, palette.length * 2);
+        }
+        palette[local] = value;
+        paletteSize++;
+        if (reversePalette != null) {
+            reversePalette.put(value, local);
+        } else if (paletteSize > LINEAR_SCAN_LIMIT) {
+            buildReversePalette();
+        }
+        int needed = 32 - Integer.numberOfLeadingZeros(paletteSize - 1);
+        if (needed > bits) {
+            resize(needed);
+        }
+        return local;
+    }
+
+    /**
+     * Drop palette entries that are no longer used, so that overwriting
+     * entries many times cannot grow the palette without bound.
+     *
+     * @param skipIndex an index about to be overwritten, whose value is not kept
+     */
+    private void compact(int skipIndex) {
+        int[] remap = new int[paletteSize];
+        Arrays.fill(remap, -1);
+        int[] used = new int[paletteSize];
+        int usedSize = 0;
+        for (int i = 0; i < VOLUME; i++) {
+            if (i == skipIndex) {
+                continue;
+            }
+            int local = readLocal(data, bits, i);
+            if (remap[local] == -1) {
+                remap[local] = usedSize;
+                used[usedSize++] = palette[local];
+            }
+        }
+        int newBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(usedSize));
+        long[] newData = new long[dataLength(newBits)];
+        for (int i = 0; i < VOLUME; i++) {
+            if (i != skipIndex) {
+                write(newData, newBits, i, remap[readLocal(data, bits, i)]);
+            }
+        }
+        palette = used;
+        paletteSize = usedSize;
+        bits = newBits;
+        data = newData;
+        buildReversePalette();
+    }
+
+    private void buildReversePalette() {
+        reversePalette = new Int2IntOpenHashMap(paletteSize * 2);
+        reversePalette.defaultReturnValue(-1);
+        for (int i = 0; i < paletteSize; i++) {
+            reversePalette.put(palette[i], i);
+        }
+    }
+
+    private void resize(int newBits) {
+        long[] newData = new long[dataLength(newBits)];
+        if (bits != 0) {
+            for (int i = 0; i < VOLUME; i++) {
+                write(newData, newBits, i, readLocal(data, bits, i));
+            }
+        }
+        // with bits == 0 every entry is local index 0, which a zeroed array already holds
+        bits = newBits;
+        data = newData;
+    }
+
+    private static int dataLength(int bits) {
+        int perLong = 64 / bits;
+        return (VOLUME + perLong - 1) / perLong;
+    }
+
+    private static int readLocal(long[] data, int bits, int index) {
+        int perLong = 64 / bits;
+        return (int) (data[index / perLong] >>> ((index % perLong) * bits)) & ((1 << bits) - 1);
+    }
+
+    private static void write(long[] data, int bits, int index, int local) {
+        int perLong = 64 / bits;
+        int shift = (index % perLong) * bits;
+        long entryMask = ((1L << bits) - 1) << shift;
+        int slot = index / perLong;
+        data[slot] = (data[slot] & ~entryMask) | (((long) local << shift) & entryMask);
+    }
+
+}
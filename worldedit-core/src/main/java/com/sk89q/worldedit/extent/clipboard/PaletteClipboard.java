@@ -0,0 +1,427 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.biome.BiomeTypes;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Stores block data as palette indices packed into 16x16x16 sections.
+ *
+ * <p>Each block costs only as many bits as its section needs to tell its
+ * distinct states apart, and sections that are entirely air are not
+ * allocated at all. Block entity data is kept in a sparse side map, since
+ * only a small fraction of blocks carry it.</p>
+ */
+public class PaletteClipboard implements Clipboard {
+
+    private static final int AIR_ID = 0;
+    private static final int NO_BIOME_ID = 0;
+
+    private final Region region;
+    private final boolean cuboid;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int width;
+    private final int height;
+    private final int length;
+    private final int sectionsX;
+    private final int sectionsZ;
+    private BlockVector3 origin;
+
+    private final Palette<BlockState> blockPalette = new Palette<>();
+    private final PackedSection[] blockSections;
+    private final Long2ObjectMap<CompoundTag> nbtData = new Long2ObjectOpenHashMap<>();
+
+    private Palette<BiomeType> biomePalette = null;
+    private PackedSection[] biomeSections = null;
+
+    private final List<ClipboardEntity> entities = new ArrayList<>();
+
+    /**
+     * Create a new instance.
+     *
+     * <p>The origin will be placed at the region's lowest minimum point.</p>
+     *
+     * @param region the bounding region
+     */
+    public PaletteClipboard(Region region) {
+        checkNotNull(region);
+        this.region = region.clone();
+        this.cuboid = region instanceof CuboidRegion;
+        this.origin = region.getMinimumPoint();
+
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 dimensions = getDimensions();
+        this.minX = min.getBlockX();
+        this.minY = min.getBlockY();
+        this.minZ = min.getBlockZ();
+        this.width = dimensions.getBlockX();
+        this.height = dimensions.getBlockY();
+        this.length = dimensions.getBlockZ();
+        this.sectionsX = sectionCount(width);
+        this.sectionsZ = sectionCount(length);
+        this.blockSections = new PackedSection[sectionsX * sectionCount(height) * sectionsZ];
+
+        blockPalette.getOrAdd(BlockTypes.AIR.getDefaultState());
+    }
+
+    private static int sectionCount(int blocks) {
+        return (blocks + PackedSection.MASK) >> PackedSection.SIZE_BITS;
+    }
+
+    @Override
+    public Region getRegion() {
+        return region;
+    }
+
+    @Override
+    public BlockVector3 getOrigin() {
+        return origin;
+    }
+
+    @Override
+    public void setOrigin(BlockVector3 origin) {
+        this.origin = origin;
+    }
+
+    @Override
+    public BlockVector3 getDimensions() {
+        return region.getMaximumPoint().subtract(region.getMinimumPoint()).add(1, 1, 1);
+    }
+
+    @Override
+    public BlockVector3 getMinimumPoint() {
+        return region.getMinimumPoint();
+    }
+
+    @Override
+    public BlockVector3 getMaximumPoint() {
+        return region.getMaximumPoint();
+    }
+
+    @Override
+    public List<? extends Entity> getEntities(Region region) {
+        List<Entity> filtered = new ArrayList<>();
+        for (Entity entity : entities) {
+            if (region.contains(entity.getLocation().toVector().toBlockPoint())) {
+                filtered.add(entity);
+            }
+        }
+        return Collections.unmodifiableList(filtered);
+    }
+
+    @Override
+    public List<? extends Entity> getEntities() {
+        return Collections.unmodifiableList(entities);
+    }
+
+    @Nullable
+    @Override
+    public Entity createEntity(Location location, BaseEntity entity) {
+        ClipboardEntity ret = new ClipboardEntity(location, entity);
+        entities.add(ret);
+        return ret;
+    }
+
+    private boolean inBounds(int x, int y, int z) {
+        return x >= 0 && x < width && y >= 0 && y < height && z >= 0 && z < length;
+    }
+
+    private boolean contains(BlockVector3 position, int x, int y, int z) {
+        return inBounds(x, y, z) && (cuboid || region.contains(position));
+    }
+
+    private int sectionIndex(int x, int y, int z) {
+        return (x >> PackedSection.SIZE_BITS)
+            + sectionsX * ((z >> PackedSection.SIZE_BITS) + sectionsZ * (y >> PackedSection.SIZE_BITS));
+    }
+
+    private long blockIndex(int x, int y, int z) {
+        return x + (long) width * (z + (long) length * y);
+    }
+
+    private int getStateId(int x, int y, int z) {
+        PackedSection section = getSection(sectionIndex(x, y, z));
+        return section == null ? AIR_ID : section.get(PackedSection.index(x, y, z));
+    }
+
+    /**
+     * Get the block section at the given index.
+     *
+     * @param index the section index
+     * @return the section, or {@code null} if it is entirely air
+     */
+    @Nullable
+    PackedSection getSection(int index) {
+        return blockSections[index];
+    }
+
+    /**
+     * Store a block section after it has been created or modified.
+     *
+     * @param index the section index
+     * @param section the section
+     */
+    void putSection(int index, PackedSection section) {
+        blockSections[index] = section;
+    }
+
+    /**
+     * Get the number of block sections in this clipboard.
+     *
+     * @return the section count
+     */
+    final int getSectionCount() {
+        return blockSections.length;
+    }
+
+    @Override
+    public BlockState getBlock(BlockVector3 position) {
+        int x = position.getBlockX() - minX;
+        int y = position.getBlockY() - minY;
+        int z = position.getBlockZ() - minZ;
+        if (contains(position, x, y, z)) {
+            return blockPalette.get(getStateId(x, y, z));
+        }
+
+        return BlockTypes.AIR.getDefaultState();
+    }
+
+    @Override
+    public BaseBlock getFullBlock(BlockVector3 position) {
+        int x = position.getBlockX() - minX;
+        int y = position.getBlockY() - minY;
+        int z = position.getBlockZ() - minZ;
+        if (contains(position, x, y, z)) {
+            BlockState state = blockPalette.get(getStateId(x, y, z));
+            if (nbtData.isEmpty()) {
+                return state.toBaseBlock();
+            }
+            return state.toBaseBlock(nbtData.get(blockIndex(x, y, z)));
+        }
+
+        return BlockTypes.AIR.getDefaultState().toBaseBlock();
+    }
+
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B block) throws WorldEditException {
+        int x = position.getBlockX() - minX;
+        int y = position.getBlockY() - minY;
+        int z = position.getBlockZ() - minZ;
+        if (!contains(position, x, y, z)) {
+            return false;
+        }
+
+        int id = blockPalette.getOrAdd(block.toImmutableState());
+        int index = sectionIndex(x, y, z);
+        PackedSection section = getSection(index);
+        if (section == null && id != AIR_ID) {
+            section = new PackedSection(AIR_ID);
+        }
+        if (section != null) {
+            section.set(PackedSection.index(x, y, z), id);
+            putSection(index, section);
+        }
+
+        CompoundTag nbt = block instanceof BaseBlock ? ((BaseBlock) block).getNbtData() : null;
+        if (nbt != null) {
+            nbtData.put(blockIndex(x, y, z), nbt);
+        } else if (!nbtData.isEmpty()) {
+            nbtData.remove(blockIndex(x, y, z));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean hasBiomes() {
+        return biomeSections != null;
+    }
+
+    @Override
+    public BiomeType getBiome(BlockVector3 position) {
+        int x = position.getBlockX() - minX;
+        int y = position.getBlockY() - minY;
+        int z = position.getBlockZ() - minZ;
+        if (biomeSections != null && inBounds(x, y, z)) {
+            PackedSection section = biomeSections[sectionIndex(x, y, z)];
+            if (section != null) {
+                BiomeType biomeType = biomePalette.get(section.get(PackedSection.index(x, y, z)));
+                if (biomeType != null) {
+                    return biomeType;
+                }
+            }
+        }
+
+        return BiomeTypes.OCEAN;
+    }
+
+    @Override
+    public boolean setBiome(BlockVector3 position, BiomeType biome) {
+        int x = position.getBlockX() - minX;
+        int y = position.getBlockY() - minY;
+        int z = position.getBlockZ() - minZ;
+        if (inBounds(x, y, z)) {
+            if (biomeSections == null) {
+                biomePalette = new Palette<>();
+                biomePalette.getOrAdd(null);
+                biomeSections = new PackedSection[blockSections.length];
+            }
+            int index = sectionIndex(x, y, z);
+            PackedSection section = biomeSections[index];
+            if (section == null) {
+                section = new PackedSection(NO_BIOME_ID);
+                biomeSections[index] = section;
+            }
+            section.set(PackedSection.index(x, y, z), biomePalette.getOrAdd(biome));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of distinct block states stored in this clipboard.
+     *
+     * @return the palette size
+     */
+    public int getPaletteSize() {
+        return blockPalette.size();
+    }
+
+    @Override
+    public long getMemoryUsage() {
+        long size = 16L + blockSections.length * 4L + getSectionMemoryUsage()
+            + blockPalette.size() * 24L;
+        size += nbtData.size() * 48L;
+        if (biomeSections != null) {
+            size += 16L + biomeSections.length * 4L + sectionsMemoryUsage(biomeSections);
+        }
+        return size;
+    }
+
+    /**
+     * Estimate the heap used by the block sections, in bytes.
+     *
+     * @return the estimated size
+     */
+    long getSectionMemoryUsage() {
+        return sectionsMemoryUsage(blockSections);
+    }
+
+    private static long sectionsMemoryUsage(PackedSection[] sections) {
+        long size = 0;
+        for (PackedSection section : sections) {
+            if (section != null) {
+                size += section.getMemoryUsage();
+            }
+        }
+        return size;
+    }
+
+    @Nullable
+    @Override
+    public Operation commit() {
+        return null;
+    }
+
+    /**
+     * Maps values to dense IDs and back.
+     */
+    private static final class Palette<T> {
+        private final List<T> values = new ArrayList<>();
+        private final Object2IntMap<T> ids = new Object2IntOpenHashMap<>();
+        @Nullable
+        private T lastValue;
+        private int lastId = -1;
+
+        Palette() {
+            ids.defaultReturnValue(-1);
+        }
+
+        int getOrAdd(@Nullable T value) {
+            if (lastId != -1 && value == lastValue) {
+                return lastId;
+            }
+            int id = ids.getInt(value);
+            if (id == -1) {
+                id = values.size();
+                values.add(value);
+                ids.put(value, id);
+            }
+            lastValue = value;
+            lastId = id;
+            return id;
+        }
+
+        T get(int id) {
+            return values.get(id);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+
+    /**
+     * Stores entity data.
+     */
+    private class ClipboardEntity extends StoredEntity {
+        ClipboardEntity(Location location, BaseEntity entity) {
+            super(location, entity);
+        }
+
+        @Override
+        public boolean remove() {
+            return entities.remove(this);
+        }
+
+        @Nullable
+        @Override
+        public <T> T getFacet(Class<? extends T> cls) {
+            return null;
+        }
+    }
+
+}
@@ -31,8 +31,8 @@
 import com.sk89q.jnbt.Tag;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.entity.BaseEntity;
-import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.ClipboardStorage;
 import com.sk89q.worldedit.extent.clipboard.io.legacycompat.BannerBlockCompatibilityHandler;
 import com.sk89q.worldedit.extent.clipboard.io.legacycompat.BedBlockCompatibilityHandler;
 import com.sk89q.worldedit.extent.clipboard.io.legacycompat.EntityNBTCompatibilityHandler;
@@ -229,7 +229,7 @@ public Clipboard read() throws IOException {
             blockStates.put(vec, newBlock);
         }
 
-        BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
+        Clipboard clipboard = ClipboardStorage.createClipboard(region);
         clipboard.setOrigin(origin);
 
 
@@ -257,7 +257,7 @@ public Clipboard read() throws IOException {
                                         + block + ":" + data + ". This is most likely a bad schematic.");
                             }
                         }
-                    } catch (WorldEditException ignored) { // BlockArrayClipboard won't throw this
+                    } catch (WorldEditException ignored) { // clipboards won't throw this
                     }
                 }
             }
@@ -20,13 +20,14 @@
 package com.sk89q.worldedit.extent.clipboard.io;
 
 import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
 import com.sk89q.jnbt.ByteArrayTag;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.IntArrayTag;
 import com.sk89q.jnbt.IntTag;
 import com.sk89q.jnbt.ListTag;
+import com.sk89q.jnbt.NBTConstants;
 import com.sk89q.jnbt.NBTInputStream;
-import com.sk89q.jnbt.NamedTag;
 import com.sk89q.jnbt.ShortTag;
 import com.sk89q.jnbt.StringTag;
 import com.sk89q.jnbt.Tag;
@@ -37,8 +38,8 @@
 import com.sk89q.worldedit.extension.input.ParserContext;
 import com.sk89q.worldedit.extension.platform.Capability;
 import com.sk89q.worldedit.extension.platform.Platform;
-import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.ClipboardStorage;
 import com.sk89q.worldedit.internal.Constants;
 import com.sk89q.worldedit.internal.util.LogManagerCompat;
 import com.sk89q.worldedit.math.BlockVector3;
@@ -53,15 +54,21 @@
 import com.sk89q.worldedit.world.entity.EntityType;
 import com.sk89q.worldedit.world.entity.EntityTypes;
 import com.sk89q.worldedit.world.storage.NBTConversions;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import org.apache.logging.log4j.Logger;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.OptionalInt;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -71,6 +78,7 @@
 public class SpongeSchematicReader extends NBTSchematicReader {
 
     private static final Logger LOGGER = LogManagerCompat.getLogger();
+    private static final int PARALLEL_FIXUP_THRESHOLD = 64;
     private final NBTInputStream inputStream;
     private DataFixer fixer = null;
     private int schematicVersion = -1;
@@ -88,18 +96,131 @@ public SpongeSchematicReader(NBTInputStream inputStream) {
 
     @Override
     public Clipboard read() throws IOException {
-        CompoundTag schematicTag = getBaseTag();
-        Map<String, Tag> schematic = schematicTag.getValue();
+        readRootTagHeader();
+
+        // Entries are read one at a time, so that the block data can be decoded straight
+        // into the clipboard when everything it depends on has already been read
+        Map<String, Tag> schematic = new HashMap<>();
+        Clipboard clipboard = null;
+        try {
+            int type;
+            while ((type = inputStream.readTagType()) != NBTConstants.TYPE_END) {
+                String name = inputStream.readTagName();
+                if (clipboard == null && type == NBTConstants.TYPE_BYTE_ARRAY && name.equals("BlockData")
+                        && canStreamBlockData(schematic)) {
+                    readSchematicVersion(schematic);
+                    clipboard = createClipboard(schematic);
+                    readBlockData(clipboard, readPalette(schematic), inputStream.openByteArrayPayload());
+                } else {
+                    schematic.put(name, inputStream.readTagPayload(type));
+                }
+            }
+
+            readSchematicVersion(schematic);
+            if (clipboard == null) {
+                // The block data came before the dimensions or palette, so it was buffered as-is
+                clipboard = createClipboard(schematic);
+                byte[] blocks = requireTag(schematic, "BlockData", ByteArrayTag.class).getValue();
+                readBlockData(clipboard, readPalette(schematic), new ByteArrayInputStream(blocks));
+            }
+
+            IntTag paletteMaxTag = getTag(schematic, "PaletteMax", IntTag.class);
+            if (paletteMaxTag != null
+                    && requireTag(schematic, "Palette", CompoundTag.class).getValue().size() != paletteMaxTag.getValue()) {
+                throw new IOException("Block palette size does not match expected size.");
+            }
+            clipboard.setOrigin(readOrigin(clipboard.getMinimumPoint(), schematic));
+            readTileEntities(clipboard, schematic);
+
+            if (schematicVersion == 2) {
+                if (schematic.containsKey("BiomeData")) {
+                    readBiomes(clipboard, schematic);
+                }
+                if (schematic.containsKey("Entities")) {
+                    readEntities(clipboard, schematic);
+                }
+            }
+            return clipboard;
+        } catch (IOException | RuntimeException e) {
+            if (clipboard != null) {
+                clipboard.close();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public OptionalInt getDataVersion() {
+        try {
+            readRootTagHeader();
+            Map<String, Tag> schematic = new HashMap<>();
+            int type;
+            while ((type = inputStream.readTagType()) != NBTConstants.TYPE_END) {
+                String name = inputStream.readTagName();
+                if (type == NBTConstants.TYPE_BYTE_ARRAY) {
+                    ByteStreams.exhaust(inputStream.openByteArrayPayload());
+                    continue;
+                }
+                schematic.put(name, inputStream.readTagPayload(type));
+                IntTag versionTag = getTag(schematic, "Version", IntTag.class);
+                if (versionTag != null && versionTag.getValue() == 1) {
+                    return OptionalInt.of(Constants.DATA_VERSION_MC_1_13_2);
+                }
+                IntTag dataVersionTag = getTag(schematic, "DataVersion", IntTag.class);
+                if (versionTag != null && versionTag.getValue() == 2 && dataVersionTag != null) {
+                    int dataVersion = dataVersionTag.getValue();
+                    if (dataVersion < 0) {
+                        return OptionalInt.empty();
+                    }
+                    return OptionalInt.of(dataVersion);
+                }
+            }
+            return OptionalInt.empty();
+        } catch (IOException e) {
+            return OptionalInt.empty();
+        }
+    }
+
+    private void readRootTagHeader() throws IOException {
+        if (inputStream.readTagType() != NBTConstants.TYPE_COMPOUND) {
+            throw new IOException("Root tag of the schematic is not a compound.");
+        }
+        inputStream.readTagName();
+    }
+
+    /**
+     * Check whether the block data can be decoded as it is read, which needs
+     * the version, dimensions, position and palette to have come before it.
+     *
+     * @param schematic the entries read so far
+     * @return true if the block data can be streamed
+     */
+    private static boolean canStreamBlockData(Map<String, Tag> schematic) {
+        IntTag versionTag = getTag(schematic, "Version", IntTag.class);
+        if (versionTag == null) {
+            return false;
+        }
+        if (versionTag.getValue() == 2 && !schematic.containsKey("DataVersion")) {
+            return false;
+        }
+        return schematic.containsKey("Width") && schematic.containsKey("Height") && schematic.containsKey("Length")
+            && schematic.containsKey("Offset") && schematic.containsKey("Palette");
+    }
+
+    private void readSchematicVersion(Map<String, Tag> schematic) throws IOException {
+        if (schematicVersion != -1) {
+            return;
+        }
+        int version = requireTag(schematic, "Version", IntTag.class).getValue();
 
         final Platform platform = WorldEdit.getInstance().getPlatformManager()
                 .queryCapability(Capability.WORLD_EDITING);
         int liveDataVersion = platform.getDataVersion();
 
-        if (schematicVersion == 1) {
+        if (version == 1) {
             dataVersion = Constants.DATA_VERSION_MC_1_13_2; // this is a relatively safe assumption unless someone imports a schematic from 1.12, e.g. sponge 7.1-
             fixer = platform.getDataFixer();
-            return readVersion1(schematicTag);
-        } else if (schematicVersion == 2) {
+        } else if (version == 2) {
             dataVersion = requireTag(schematic, "DataVersion", IntTag.class).getValue();
             if (dataVersion < 0) {
                 LOGGER.warn("Schematic has an unknown data version ({}). Data may be incompatible.",
@@ -120,53 +241,23 @@ public Clipboard read() throws IOException {
                             dataVersion, liveDataVersion);
                 }
             }
-
-            BlockArrayClipboard clip = readVersion1(schematicTag);
-            return readVersion2(clip, schematicTag);
-        }
-        throw new IOException("This schematic version is currently not supported");
-    }
-
-    @Override
-    public OptionalInt getDataVersion() {
-        try {
-            CompoundTag schematicTag = getBaseTag();
-            Map<String, Tag> schematic = schematicTag.getValue();
-            if (schematicVersion == 1) {
-                return OptionalInt.of(Constants.DATA_VERSION_MC_1_13_2);
-            } else if (schematicVersion == 2) {
-                int dataVersion = requireTag(schematic, "DataVersion", IntTag.class).getValue();
-                if (dataVersion < 0) {
-                    return OptionalInt.empty();
-                }
-                return OptionalInt.of(dataVersion);
-            }
-            return OptionalInt.empty();
-        } catch (IOException e) {
-            return OptionalInt.empty();
+        } else {
+            throw new IOException("This schematic version is currently not supported");
         }
+        schematicVersion = version;
     }
 
-    private CompoundTag getBaseTag() throws IOException {
-        NamedTag rootTag = inputStream.readNamedTag();
-        CompoundTag schematicTag = (CompoundTag) rootTag.getTag();
-
-        // Check
-        Map<String, Tag> schematic = schematicTag.getValue();
-
-        schematicVersion = requireTag(schematic, "Version", IntTag.class).getValue();
-        return schematicTag;
-    }
-
-    private BlockArrayClipboard readVersion1(CompoundTag schematicTag) throws IOException {
-        BlockVector3 origin;
-        Region region;
-        Map<String, Tag> schematic = schematicTag.getValue();
-
+    private Clipboard createClipboard(Map<String, Tag> schematic) throws IOException {
         int width = requireTag(schematic, "Width", ShortTag.class).getValue();
         int height = requireTag(schematic, "Height", ShortTag.class).getValue();
         int length = requireTag(schematic, "Length", ShortTag.class).getValue();
 
+        BlockVector3 min = readOffset(schematic);
+        Region region = new CuboidRegion(min, min.add(width, height, length).subtract(BlockVector3.ONE));
+        return ClipboardStorage.createClipboard(region);
+    }
+
+    private BlockVector3 readOffset(Map<String, Tag> schematic) throws IOException {
         IntArrayTag offsetTag = getTag(schematic, "Offset", IntArrayTag.class);
         int[] offsetParts;
         if (offsetTag != null) {
@@ -178,8 +269,10 @@ private BlockArrayClipboard readVersion1(CompoundTag schematicTag) throws IOExce
             offsetParts = new int[] {0, 0, 0};
         }
 
-        BlockVector3 min = BlockVector3.at(offsetParts[0], offsetParts[1], offsetParts[2]);
+        return BlockVector3.at(offsetParts[0], offsetParts[1], offsetParts[2]);
+    }
 
+    private BlockVector3 readOrigin(BlockVector3 min, Map<String, Tag> schematic) throws IOException {
         CompoundTag metadataTag = getTag(schematic, "Metadata", CompoundTag.class);
         if (metadataTag != null && metadataTag.containsKey("WEOffsetX")) {
             // We appear to have WorldEdit Metadata
@@ -188,129 +281,145 @@ private BlockArrayClipboard readVersion1(CompoundTag schematicTag) throws IOExce
             int offsetY = requireTag(metadata, "WEOffsetY", IntTag.class).getValue();
             int offsetZ = requireTag(metadata, "WEOffsetZ", IntTag.class).getValue();
             BlockVector3 offset = BlockVector3.at(offsetX, offsetY, offsetZ);
-            origin = min.subtract(offset);
-            region = new CuboidRegion(min, min.add(width, height, length).subtract(BlockVector3.ONE));
+            return min.subtract(offset);
         } else {
-            origin = min;
-            region = new CuboidRegion(origin, origin.add(width, height, length).subtract(BlockVector3.ONE));
+            return min;
         }
+    }
 
-        IntTag paletteMaxTag = getTag(schematic, "PaletteMax", IntTag.class);
+    private Int2ObjectMap<BlockState> readPalette(Map<String, Tag> schematic) throws IOException {
         Map<String, Tag> paletteObject = requireTag(schematic, "Palette", CompoundTag.class).getValue();
-        if (paletteMaxTag != null && paletteObject.size() != paletteMaxTag.getValue()) {
-            throw new IOException("Block palette size does not match expected size.");
-        }
-
-        Map<Integer, BlockState> palette = new HashMap<>();
 
         ParserContext parserContext = new ParserContext();
         parserContext.setRestricted(false);
         parserContext.setTryLegacy(false);
         parserContext.setPreferringWildcard(false);
 
-        for (String palettePart : paletteObject.keySet()) {
-            int id = requireTag(paletteObject, palettePart, IntTag.class).getValue();
+        List<Entry<String, Tag>> entries = new ArrayList<>(paletteObject.entrySet());
+        for (Entry<String, Tag> entry : entries) {
+            requireTag(paletteObject, entry.getKey(), IntTag.class);
+        }
+        // Upgrading old states is slow enough to be worth spreading over several threads
+        Stream<Entry<String, Tag>> stream = fixer != null && entries.size() >= PARALLEL_FIXUP_THRESHOLD
+            ? entries.parallelStream()
+            : entries.stream();
+        BlockState[] states = stream.map(entry -> {
+            String palettePart = entry.getKey();
             if (fixer != null) {
                 palettePart = fixer.fixUp(DataFixer.FixTypes.BLOCK_STATE, palettePart, dataVersion);
             }
-            BlockState state;
             try {
-                state = WorldEdit.getInstance().getBlockFactory().parseFromInput(palettePart, parserContext).toImmutableState();
+                return WorldEdit.getInstance().getBlockFactory().parseFromInput(palettePart, parserContext).toImmutableState();
             } catch (InputParseException e) {
                 LOGGER.warn("Invalid BlockState in palette: " + palettePart + ". Block will be replaced with air.");
-                state = BlockTypes.AIR.getDefaultState();
+                return BlockTypes.AIR.getDefaultState();
             }
-            palette.put(id, state);
+        }).toArray(BlockState[]::new);
+
+        Int2ObjectMap<BlockState> palette = new Int2ObjectOpenHashMap<>(states.length);
+        for (int i = 0; i < states.length; i++) {
+            palette.put(((IntTag) entries.get(i).getValue()).getValue(), states[i]);
         }
+        return palette;
+    }
+
+    /**
+     * Decode the block data into the clipboard as it is read.
+     *
+     * @param clipboard the clipboard
+     * @param palette the block palette
+     * @param blocks the varint encoded block data, which is read to its end
+     * @throws IOException if the data is corrupt
+     */
+    private void readBlockData(Clipboard clipboard, Int2ObjectMap<BlockState> palette, InputStream blocks) throws IOException {
+        BlockVector3 min = clipboard.getMinimumPoint();
+        BlockVector3 dimensions = clipboard.getDimensions();
+        int width = dimensions.getBlockX();
+        int length = dimensions.getBlockZ();
+
+        byte[] buffer = new byte[8192];
+        int x = 0;
+        int y = 0;
+        int z = 0;
+        int value = 0;
+        int varintLength = 0;
+        int read;
+        while ((read = blocks.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                byte b = buffer[i];
+                value |= (b & 127) << (varintLength++ * 7);
+                if (varintLength > 5) {
+                    throw new IOException("VarInt too big (probably corrupted data)");
+                }
+                if ((b & 128) == 128) {
+                    continue;
+                }
 
-        byte[] blocks = requireTag(schematic, "BlockData", ByteArrayTag.class).getValue();
+                BlockState state = palette.get(value);
+                try {
+                    clipboard.setBlock(min.add(x, y, z), state);
+                } catch (WorldEditException e) {
+                    throw new IOException("Failed to load a block in the schematic");
+                }
+                value = 0;
+                varintLength = 0;
+                if (++x == width) {
+                    x = 0;
+                    if (++z == length) {
+                        z = 0;
+                        y++;
+                    }
+                }
+            }
+        }
+        if (varintLength != 0) {
+            throw new IOException("Block data ends in the middle of a VarInt (probably corrupted data)");
+        }
+    }
 
-        Map<BlockVector3, Map<String, Tag>> tileEntitiesMap = new HashMap<>();
+    private void readTileEntities(Clipboard clipboard, Map<String, Tag> schematic) throws IOException {
         ListTag tileEntities = getTag(schematic, "BlockEntities", ListTag.class);
         if (tileEntities == null) {
             tileEntities = getTag(schematic, "TileEntities", ListTag.class);
         }
-        if (tileEntities != null) {
-            List<Map<String, Tag>> tileEntityTags = tileEntities.getValue().stream()
-                    .map(tag -> (CompoundTag) tag)
-                    .map(CompoundTag::getValue)
-                    .collect(Collectors.toList());
-
-            for (Map<String, Tag> tileEntity : tileEntityTags) {
-                int[] pos = requireTag(tileEntity, "Pos", IntArrayTag.class).getValue();
-                final BlockVector3 pt = BlockVector3.at(pos[0], pos[1], pos[2]);
-                Map<String, Tag> values = Maps.newHashMap(tileEntity);
-                values.put("x", new IntTag(pt.getBlockX()));
-                values.put("y", new IntTag(pt.getBlockY()));
-                values.put("z", new IntTag(pt.getBlockZ()));
-                values.put("id", values.get("Id"));
-                values.remove("Id");
-                values.remove("Pos");
-                if (fixer != null) {
-                    tileEntity = fixer.fixUp(DataFixer.FixTypes.BLOCK_ENTITY, new CompoundTag(values), dataVersion).getValue();
-                } else {
-                    tileEntity = values;
-                }
-                tileEntitiesMap.put(pt, tileEntity);
-            }
+        if (tileEntities == null) {
+            return;
         }
+        List<Map<String, Tag>> tileEntityTags = tileEntities.getValue().stream()
+                .map(tag -> (CompoundTag) tag)
+                .map(CompoundTag::getValue)
+                .collect(Collectors.toList());
 
-        BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
-        clipboard.setOrigin(origin);
-
-        int index = 0;
-        int i = 0;
-        int value;
-        int varintLength;
-        while (i < blocks.length) {
-            value = 0;
-            varintLength = 0;
-
-            while (true) {
-                value |= (blocks[i] & 127) << (varintLength++ * 7);
-                if (varintLength > 5) {
-                    throw new IOException("VarInt too big (probably corrupted data)");
-                }
-                if ((blocks[i] & 128) != 128) {
-                    i++;
-                    break;
-                }
-                i++;
+        Region region = clipboard.getRegion();
+        BlockVector3 min = clipboard.getMinimumPoint();
+        for (Map<String, Tag> tileEntity : tileEntityTags) {
+            int[] pos = requireTag(tileEntity, "Pos", IntArrayTag.class).getValue();
+            final BlockVector3 pt = BlockVector3.at(pos[0], pos[1], pos[2]);
+            BlockVector3 point = min.add(pt);
+            if (!region.contains(point)) {
+                continue;
+            }
+            Map<String, Tag> values = Maps.newHashMap(tileEntity);
+            values.put("x", new IntTag(pt.getBlockX()));
+            values.put("y", new IntTag(pt.getBlockY()));
+            values.put("z", new IntTag(pt.getBlockZ()));
+            values.put("id", values.get("Id"));
+            values.remove("Id");
+            values.remove("Pos");
+            if (fixer != null) {
+                tileEntity = fixer.fixUp(DataFixer.FixTypes.BLOCK_ENTITY, new CompoundTag(values), dataVersion).getValue();
+            } else {
+                tileEntity = values;
             }
-            // index = (y * length * width) + (z * width) + x
-            int y = index / (width * length);
-            int z = (index % (width * length)) / width;
-            int x = (index % (width * length)) % width;
-            BlockState state = palette.get(value);
-            BlockVector3 pt = BlockVector3.at(x, y, z);
             try {
-                if (tileEntitiesMap.containsKey(pt)) {
-                    clipboard.setBlock(clipboard.getMinimumPoint().add(pt), state.toBaseBlock(new CompoundTag(tileEntitiesMap.get(pt))));
-                } else {
-                    clipboard.setBlock(clipboard.getMinimumPoint().add(pt), state);
-                }
+                clipboard.setBlock(point, clipboard.getBlock(point).toBaseBlock(new CompoundTag(tileEntity)));
             } catch (WorldEditException e) {
                 throw new IOException("Failed to load a block in the schematic");
             }
-
-            index++;
-        }
-
-        return clipboard;
-    }
-
-    private Clipboard readVersion2(BlockArrayClipboard version1, CompoundTag schematicTag) throws IOException {
-        Map<String, Tag> schematic = schematicTag.getValue();
-        if (schematic.containsKey("BiomeData")) {
-            readBiomes(version1, schematic);
-        }
-        if (schematic.containsKey("Entities")) {
-            readEntities(version1, schematic);
         }
-        return version1;
     }
 
-    private void readBiomes(BlockArrayClipboard clipboard, Map<String, Tag> schematic) throws IOException {
+    private void readBiomes(Clipboard clipboard, Map<String, Tag> schematic) throws IOException {
         ByteArrayTag dataTag = requireTag(schematic, "BiomeData", ByteArrayTag.class);
         IntTag maxTag = requireTag(schematic, "BiomePaletteMax", IntTag.class);
         CompoundTag paletteTag = requireTag(schematic, "BiomePalette", CompoundTag.class);
@@ -370,7 +479,7 @@ private void readBiomes(BlockArrayClipboard clipboard, Map<String, Tag> schemati
         }
     }
 
-    private void readEntities(BlockArrayClipboard clipboard, Map<String, Tag> schematic) throws IOException {
+    private void readEntities(Clipboard clipboard, Map<String, Tag> schematic) throws IOException {
         List<Tag> entList = requireTag(schematic, "Entities", ListTag.class).getValue();
         if (entList.isEmpty()) {
             return;
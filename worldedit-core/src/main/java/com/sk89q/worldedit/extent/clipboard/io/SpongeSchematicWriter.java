@@ -27,6 +27,7 @@
 import com.sk89q.jnbt.IntArrayTag;
 import com.sk89q.jnbt.IntTag;
 import com.sk89q.jnbt.ListTag;
+import com.sk89q.jnbt.NBTConstants;
 import com.sk89q.jnbt.NBTOutputStream;
 import com.sk89q.jnbt.ShortTag;
 import com.sk89q.jnbt.StringTag;
@@ -41,11 +42,17 @@
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -76,16 +83,21 @@ public SpongeSchematicWriter(NBTOutputStream outputStream) {
     @Override
     public void write(Clipboard clipboard) throws IOException {
         // For now always write the latest version. Maybe provide support for earlier if more appear.
-        outputStream.writeNamedTag("Schematic", new CompoundTag(write2(clipboard)));
+        outputStream.writeNamedTagHeader("Schematic", NBTConstants.TYPE_COMPOUND);
+        write2(clipboard);
+        outputStream.writeEndTag();
     }
 
     /**
-     * Writes a version 2 schematic file.
+     * Writes the entries of a version 2 schematic file.
+     *
+     * <p>The block data is streamed to the output after the header and
+     * palette, so a reader can decode it without holding it in memory.</p>
      *
      * @param clipboard The clipboard
-     * @return The schematic map
+     * @throws IOException if an I/O error occurs
      */
-    private Map<String, Tag> write2(Clipboard clipboard) {
+    private void write2(Clipboard clipboard) throws IOException {
         Region region = clipboard.getRegion();
         BlockVector3 origin = clipboard.getOrigin();
         BlockVector3 min = region.getMinimumPoint();
@@ -104,7 +116,7 @@ private Map<String, Tag> write2(Clipboard clipboard) {
             throw new IllegalArgumentException("Length of region too large for a .schematic");
         }
 
-        Map<String, Tag> schematic = new HashMap<>();
+        Map<String, Tag> schematic = new LinkedHashMap<>();
         schematic.put("Version", new IntTag(CURRENT_VERSION));
         schematic.put("DataVersion", new IntTag(
                 WorldEdit.getInstance().getPlatformManager().queryCapability(Capability.WORLD_EDITING).getDataVersion()));
@@ -127,12 +139,12 @@ private Map<String, Tag> write2(Clipboard clipboard) {
                 min.getBlockZ(),
         }));
 
-        int paletteMax = 0;
-        Map<String, Integer> palette = new HashMap<>();
-
+        // The first pass builds the palette and measures the block data, so that its
+        // length is known before the second pass writes it straight to the output
+        Object2IntMap<BlockState> palette = new Object2IntLinkedOpenHashMap<>();
+        palette.defaultReturnValue(-1);
         List<CompoundTag> tileEntities = new ArrayList<>();
-
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream(width * height * length);
+        long blockDataLength = 0;
 
         for (int y = 0; y < height; y++) {
             int y0 = min.getBlockY() + y;
@@ -158,32 +170,53 @@ private Map<String, Tag> write2(Clipboard clipboard) {
                         tileEntities.add(new CompoundTag(values));
                     }
 
-                    String blockKey = block.toImmutableState().getAsString();
-                    int blockId;
-                    if (palette.containsKey(blockKey)) {
-                        blockId = palette.get(blockKey);
-                    } else {
-                        blockId = paletteMax;
-                        palette.put(blockKey, blockId);
-                        paletteMax++;
+                    BlockState state = block.toImmutableState();
+                    int blockId = palette.getInt(state);
+                    if (blockId == -1) {
+                        blockId = palette.size();
+                        palette.put(state, blockId);
                     }
-
-                    while ((blockId & -128) != 0) {
-                        buffer.write(blockId & 127 | 128);
-                        blockId >>>= 7;
-                    }
-                    buffer.write(blockId);
+                    blockDataLength += varIntSize(blockId);
                 }
             }
         }
+        if (blockDataLength > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Block data of region too large for a .schematic");
+        }
 
-        schematic.put("PaletteMax", new IntTag(paletteMax));
+        schematic.put("PaletteMax", new IntTag(palette.size()));
 
         Map<String, Tag> paletteTag = new HashMap<>();
-        palette.forEach((key, value) -> paletteTag.put(key, new IntTag(value)));
-
+        for (Object2IntMap.Entry<BlockState> entry : palette.object2IntEntrySet()) {
+            paletteTag.put(entry.getKey().getAsString(), new IntTag(entry.getIntValue()));
+        }
         schematic.put("Palette", new CompoundTag(paletteTag));
-        schematic.put("BlockData", new ByteArrayTag(buffer.toByteArray()));
+
+        for (Map.Entry<String, Tag> entry : schematic.entrySet()) {
+            outputStream.writeNamedTag(entry.getKey(), entry.getValue());
+        }
+        schematic.clear();
+
+        outputStream.writeNamedTagHeader("BlockData", NBTConstants.TYPE_BYTE_ARRAY);
+        try (OutputStream buffer = new BufferedOutputStream(outputStream.openByteArrayPayload((int) blockDataLength))) {
+            for (int y = 0; y < height; y++) {
+                int y0 = min.getBlockY() + y;
+                for (int z = 0; z < length; z++) {
+                    int z0 = min.getBlockZ() + z;
+                    for (int x = 0; x < width; x++) {
+                        int x0 = min.getBlockX() + x;
+                        int blockId = palette.getInt(clipboard.getBlock(BlockVector3.at(x0, y0, z0)));
+
+                        while ((blockId & -128) != 0) {
+                            buffer.write(blockId & 127 | 128);
+                            blockId >>>= 7;
+                        }
+                        buffer.write(blockId);
+                    }
+                }
+            }
+        }
+
         schematic.put("BlockEntities", new ListTag(CompoundTag.class, tileEntities));
 
         // version 2 stuff
@@ -195,7 +228,18 @@ private Map<String, Tag> write2(Clipboard clipboard) {
             writeEntities(clipboard, schematic);
         }
 
-        return schematic;
+        for (Map.Entry<String, Tag> entry : schematic.entrySet()) {
+            outputStream.writeNamedTag(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & -128) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
     }
 
     private void writeBiomes(Clipboard clipboard, Map<String, Tag> schematic) {
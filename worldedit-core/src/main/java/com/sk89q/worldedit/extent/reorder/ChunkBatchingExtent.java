@@ -66,6 +66,15 @@ public boolean commitRequired() {
         return enabled;
     }
 
+    /**
+     * Get whether any blocks are waiting to be set.
+     *
+     * @return true if blocks are buffered
+     */
+    public boolean hasBufferedBlocks() {
+        return !blockMap.isEmpty();
+    }
+
     @Override
     public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) throws WorldEditException {
         if (!enabled) {
@@ -101,6 +110,12 @@ public Operation resume(RunContext run) throws WorldEditException {
                     BlockVector3 position = iterator.next();
                     BaseBlock block = blockMap.get(position);
                     getExtent().setBlock(position, block);
+                    if (!run.shouldContinue()) {
+                        break;
+                    }
+                }
+                if (iterator.hasNext()) {
+                    return this;
                 }
                 blockMap.clear();
                 return null;
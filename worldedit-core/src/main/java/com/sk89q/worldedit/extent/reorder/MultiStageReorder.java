@@ -204,6 +204,20 @@ public boolean commitRequired() {
         return enabled;
     }
 
+    /**
+     * Get whether any blocks are waiting to be set.
+     *
+     * @return true if blocks are buffered
+     */
+    public boolean hasBufferedBlocks() {
+        for (BlockMap<BaseBlock> blocks : stages.values()) {
+            if (!blocks.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Gets the stage priority of the block.
      *
@@ -55,6 +55,9 @@
 public class BlockTransformExtent extends AbstractDelegateExtent {
 
     private final Transform transform;
+    private final StateTransformTable table;
+    @Nullable
+    private volatile StateTransformTable inverseTable;
 
     /**
      * Create a new instance.
@@ -65,6 +68,7 @@ public BlockTransformExtent(Extent extent, Transform transform) {
         super(extent);
         checkNotNull(transform);
         this.transform = transform;
+        this.table = new StateTransformTable(transform);
     }
 
     /**
@@ -83,8 +87,27 @@ public Transform getTransform() {
      * @param reverse true to transform in the opposite direction
      * @return the same block
      */
+    @SuppressWarnings("unchecked")
     private <T extends BlockStateHolder<T>> T transformBlock(T block, boolean reverse) {
-        return transform(block, reverse ? transform.inverse() : transform);
+        StateTransformTable table = reverse ? getInverseTable() : this.table;
+        // Subclasses such as fuzzy states may carry more than the state, so are transformed directly
+        if (block.getClass() == BlockState.class) {
+            return (T) table.apply((BlockState) block);
+        } else if (block.getClass() == BaseBlock.class) {
+            BlockState state = block.toImmutableState();
+            BlockState transformed = table.apply(state);
+            return transformed == state ? block : (T) transformed.toBaseBlock(((BaseBlock) block).getNbtData());
+        }
+        return transform(block, table.getTransform());
+    }
+
+    private StateTransformTable getInverseTable() {
+        StateTransformTable inverseTable = this.inverseTable;
+        if (inverseTable == null) {
+            inverseTable = new StateTransformTable(transform.inverse());
+            this.inverseTable = inverseTable;
+        }
+        return inverseTable;
     }
 
     @Override
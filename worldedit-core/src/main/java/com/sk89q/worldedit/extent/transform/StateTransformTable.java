@@ -0,0 +1,97 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.sk89q.worldedit.extent.transform;
+
+import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
+import com.sk89q.worldedit.math.transform.Transform;
+import com.sk89q.worldedit.world.block.BlockState;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The result of {@link BlockTransformExtent#transform(com.sk89q.worldedit.world.block.BlockStateHolder, Transform)}
+ * for each block state, worked out the first time a state is seen.
+ *
+ * <p>States are looked up by their internal ID where the platform provides
+ * one, and otherwise in a reference map, which compares states by identity.
+ * Looking up a state that has already been seen takes no lock.</p>
+ */
+final class StateTransformTable {
+
+    private final Transform transform;
+    private volatile BlockState[] byId = new BlockState[0];
+    private final Map<BlockState, BlockState> unindexed = new Reference2ObjectOpenHashMap<>();
+
+    /**
+     * Create a new instance.
+     *
+     * @param transform the transform
+     */
+    StateTransformTable(Transform transform) {
+        this.transform = transform;
+    }
+
+    /**
+     * Get the transform.
+     *
+     * @return the transform
+     */
+    Transform getTransform() {
+        return transform;
+    }
+
+    /**
+     * Transform a block state.
+     *
+     * @param state the state
+     * @return the transformed state
+     */
+    BlockState apply(BlockState state) {
+        int id = BlockStateIdAccess.getBlockStateId(state);
+        if (BlockStateIdAccess.isValidInternalId(id)) {
+            BlockState[] byId = this.byId;
+            if (id < byId.length) {
+                BlockState transformed = byId[id];
+                if (transformed != null) {
+                    return transformed;
+                }
+            }
+        }
+        return compute(state, id);
+    }
+
+    private synchronized BlockState compute(BlockState state, int id) {
+        if (!BlockStateIdAccess.isValidInternalId(id)) {
+            return unindexed.computeIfAbsent(state, s -> BlockTransformExtent.transform(s, transform));
+        }
+        BlockState[] byId = this.byId;
+        if (id >= byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(id + 1, byId.length * 2));
+        } else if (byId[id] != null) {
+            return byId[id];
+        }
+        BlockState transformed = BlockTransformExtent.transform(state, transform);
+        byId[id] = transformed;
+        this.byId = byId;
+        return transformed;
+    }
+
+}
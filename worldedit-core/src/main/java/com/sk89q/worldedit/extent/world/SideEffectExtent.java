@@ -103,6 +103,8 @@ protected Operation commitBefore() {
             public Operation resume(RunContext run) throws WorldEditException {
                 if (!dirtyChunks.isEmpty()) {
                     world.fixAfterFastMode(dirtyChunks);
+                    // Don't fix them again if this is resumed
+                    dirtyChunks.clear();
                 }
 
                 if (postEditSimulation) {
@@ -91,4 +91,15 @@ public boolean apply(BlockVector3 position) throws WorldEditException {
         return ret;
     }
 
+    @Override
+    public boolean apply(int x, int y, int z) throws WorldEditException {
+        boolean ret = false;
+        for (RegionFunction function : functions) {
+            if (function.apply(x, y, z)) {
+                ret = true;
+            }
+        }
+        return ret;
+    }
+
 }
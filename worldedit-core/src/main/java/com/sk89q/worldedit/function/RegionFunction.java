@@ -36,4 +36,18 @@ public interface RegionFunction {
      */
     boolean apply(BlockVector3 position) throws WorldEditException;
 
+    /**
+     * Apply the function to the given position. Functions that can do so
+     * without creating a {@link BlockVector3} should override this.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return true if something was changed
+     * @throws WorldEditException thrown on an error
+     */
+    default boolean apply(int x, int y, int z) throws WorldEditException {
+        return apply(BlockVector3.at(x, y, z));
+    }
+
 }
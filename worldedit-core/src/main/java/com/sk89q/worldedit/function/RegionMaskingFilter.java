@@ -53,4 +53,9 @@ public boolean apply(BlockVector3 position) throws WorldEditException {
         return mask.test(position) && function.apply(position);
     }
 
+    @Override
+    public boolean apply(int x, int y, int z) throws WorldEditException {
+        return mask.test(x, y, z) && function.apply(x, y, z);
+    }
+
 }
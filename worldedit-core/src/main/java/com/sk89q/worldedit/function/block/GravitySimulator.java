@@ -0,0 +1,151 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.block;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.function.FlatRegionFunction;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Makes the blocks in each column fall down into the air below them,
+ * between a minimum and maximum Y.
+ *
+ * <p>If a region is given, only the positions of each column that are in
+ * the region take part. Blocks fall past the positions outside of it,
+ * which are left as they are.</p>
+ *
+ * <p>Each column is read once, compacted, and only the blocks that
+ * changed are written back. Instances reuse a buffer and must not be
+ * shared between threads.</p>
+ */
+public class GravitySimulator implements FlatRegionFunction {
+
+    private final Extent extent;
+    private final int minY;
+    @Nullable
+    private final Region region;
+    private final BaseBlock[] column;
+    private final int[] slots;
+    private int affected = 0;
+
+    /**
+     * Create a new instance.
+     *
+     * @param extent the extent to apply gravity in
+     * @param minY the lowest Y that blocks fall to
+     * @param maxY the highest Y that blocks fall from
+     */
+    public GravitySimulator(Extent extent, int minY, int maxY) {
+        this(extent, minY, maxY, null);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param extent the extent to apply gravity in
+     * @param minY the lowest Y that blocks fall to
+     * @param maxY the highest Y that blocks fall from
+     * @param region the region that positions must be in, or null to use every position between minY and maxY
+     */
+    public GravitySimulator(Extent extent, int minY, int maxY, @Nullable Region region) {
+        checkNotNull(extent);
+        checkArgument(minY <= maxY, "minY must be <= maxY");
+        this.extent = extent;
+        this.minY = minY;
+        this.region = region;
+        this.column = new BaseBlock[maxY - minY + 1];
+        this.slots = new int[maxY - minY + 1];
+    }
+
+    /**
+     * Get the number of affected blocks.
+     *
+     * @return the number of affected blocks
+     */
+    public int getAffected() {
+        return affected;
+    }
+
+    @Override
+    public boolean apply(BlockVector2 position) throws WorldEditException {
+        int x = position.getBlockX();
+        int z = position.getBlockZ();
+        BaseBlock[] column = this.column;
+        int[] slots = this.slots;
+
+        // The Y of each position in the column that takes part
+        int count = 0;
+        for (int y = minY; y < minY + column.length; y++) {
+            BlockVector3 location = BlockVector3.at(x, y, z);
+            if (region == null || region.contains(location)) {
+                slots[count] = y;
+                column[count] = extent.getFullBlock(location);
+                count++;
+            }
+        }
+
+        // Move every solid block down to the next free slot, keeping their order
+        int changed = 0;
+        int free = 0;
+        for (int i = 0; i < count; i++) {
+            BaseBlock block = column[i];
+            if (isAir(block)) {
+                continue;
+            }
+            if (i != free) {
+                column[free] = block;
+                if (extent.setBlock(BlockVector3.at(x, slots[free], z), block)) {
+                    changed++;
+                }
+            }
+            free++;
+        }
+
+        // Everything from here up still holds its original block, so only
+        // clear what was not air before
+        BlockState air = BlockTypes.AIR.getDefaultState();
+        for (int i = free; i < count; i++) {
+            if (!isAir(column[i]) && extent.setBlock(BlockVector3.at(x, slots[i], z), air)) {
+                changed++;
+            }
+        }
+        Arrays.fill(column, 0, count, null);
+
+        affected += changed;
+        return changed > 0;
+    }
+
+    private static boolean isAir(BaseBlock block) {
+        return block.getBlockType().getMaterial().isAir();
+    }
+
+}
@@ -29,10 +29,15 @@
 
 /**
  * A mask that tests whether a block matches a given {@link BlockCategory}, or tag.
+ *
+ * <p>The contents of the category are read on the first test, and read
+ * again after the category's cache has been invalidated.</p>
  */
 public class BlockCategoryMask extends AbstractExtentMask {
 
     private final BlockCategory category;
+    @Nullable
+    private volatile VersionedLookup lookup;
 
     public BlockCategoryMask(Extent extent, BlockCategory category) {
         super(extent);
@@ -40,9 +45,24 @@ public BlockCategoryMask(Extent extent, BlockCategory category) {
         this.category = category;
     }
 
+    /**
+     * Get the category that blocks are tested against.
+     *
+     * @return the category
+     */
+    public BlockCategory getCategory() {
+        return category;
+    }
+
     @Override
     public boolean test(BlockVector3 vector) {
-        return category.contains(getExtent().getBlock(vector));
+        VersionedLookup lookup = this.lookup;
+        int version = category.getVersion();
+        if (lookup == null || lookup.version != version) {
+            lookup = new VersionedLookup(version, BlockStateLookup.of(category.getAll(), state -> true));
+            this.lookup = lookup;
+        }
+        return lookup.states.contains(getExtent().getBlock(vector));
     }
 
     @Nullable
@@ -50,4 +70,18 @@ public boolean test(BlockVector3 vector) {
     public Mask2D toMask2D() {
         return null;
     }
+
+    /**
+     * A lookup of the states in the category, and the version of the
+     * category it was built from.
+     */
+    private static final class VersionedLookup {
+        final int version;
+        final BlockStateLookup states;
+
+        VersionedLookup(int version, BlockStateLookup states) {
+            this.version = version;
+            this.states = states;
+        }
+    }
 }
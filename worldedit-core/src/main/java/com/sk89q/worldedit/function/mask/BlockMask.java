@@ -22,12 +22,16 @@
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.world.block.BaseBlock;
-import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -38,10 +42,15 @@
  *
  * <p>This mask checks for both an exact block type and state value match,
  * respecting fuzzy status of the BlockState.</p>
+ *
+ * <p>The states matched by the list are worked out on the first test, so
+ * testing a block costs the same however long the list is.</p>
  */
 public class BlockMask extends AbstractExtentMask {
 
     private final Set<BaseBlock> blocks = new HashSet<>();
+    @Nullable
+    private volatile BlockStateLookup lookup;
 
     /**
      * Create a new block mask.
@@ -73,6 +82,7 @@ public BlockMask(Extent extent, BaseBlock... block) {
     public void add(Collection<BaseBlock> blocks) {
         checkNotNull(blocks);
         this.blocks.addAll(blocks);
+        this.lookup = null;
     }
 
     /**
@@ -87,22 +97,33 @@ public void add(BaseBlock... block) {
     /**
      * Get the list of blocks that are tested with.
      *
-     * @return a list of blocks
+     * @return an unmodifiable view of the list of blocks
      */
     public Collection<BaseBlock> getBlocks() {
-        return blocks;
+        return Collections.unmodifiableSet(blocks);
     }
 
     @Override
     public boolean test(BlockVector3 vector) {
-        BlockState block = getExtent().getBlock(vector);
-        for (BaseBlock testBlock : blocks) {
-            if (testBlock.equalsFuzzy(block)) {
-                return true;
-            }
-        }
+        return getLookup().contains(getExtent().getBlock(vector));
+    }
 
-        return false;
+    private BlockStateLookup getLookup() {
+        BlockStateLookup lookup = this.lookup;
+        if (lookup == null) {
+            Map<BlockType, List<BaseBlock>> byType = blocks.stream()
+                .collect(Collectors.groupingBy(BaseBlock::getBlockType));
+            lookup = BlockStateLookup.of(byType.keySet(), state -> {
+                for (BaseBlock testBlock : byType.get(state.getBlockType())) {
+                    if (testBlock.equalsFuzzy(state)) {
+                        return true;
+                    }
+                }
+                return false;
+            });
+            this.lookup = lookup;
+        }
+        return lookup;
     }
 
     @Nullable
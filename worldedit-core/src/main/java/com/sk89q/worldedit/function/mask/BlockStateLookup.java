@@ -0,0 +1,85 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.mask;
+
+import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+
+import java.util.BitSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A precomputed set of block states, for masks that are tested against
+ * every block they visit.
+ *
+ * <p>States are looked up by their internal ID where the platform provides
+ * one, and by identity otherwise, so a test never compares properties.</p>
+ */
+final class BlockStateLookup {
+
+    /**
+     * Create a lookup of the states of the given types that match a filter.
+     *
+     * @param types the block types to include states of
+     * @param filter the filter that states must match
+     * @return the lookup
+     */
+    static BlockStateLookup of(Iterable<BlockType> types, Predicate<BlockState> filter) {
+        BlockStateLookup lookup = new BlockStateLookup();
+        for (BlockType type : types) {
+            for (BlockState state : type.getAllStates()) {
+                if (!filter.test(state)) {
+                    continue;
+                }
+                int id = BlockStateIdAccess.getBlockStateId(state);
+                if (BlockStateIdAccess.isValidInternalId(id)) {
+                    lookup.ids.set(id);
+                } else {
+                    lookup.unindexed.add(state);
+                }
+            }
+        }
+        return lookup;
+    }
+
+    private final BitSet ids = new BitSet();
+    private final Set<BlockState> unindexed = new ReferenceOpenHashSet<>();
+
+    private BlockStateLookup() {
+    }
+
+    /**
+     * Check whether a state is in the lookup.
+     *
+     * @param state the state
+     * @return true if it is in the lookup
+     */
+    boolean contains(BlockState state) {
+        int id = BlockStateIdAccess.getBlockStateId(state);
+        if (BlockStateIdAccess.isValidInternalId(id) && ids.get(id)) {
+            return true;
+        }
+        return !unindexed.isEmpty() && unindexed.contains(state);
+    }
+
+}
@@ -25,6 +25,7 @@
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import javax.annotation.Nullable;
@@ -41,6 +42,8 @@
 public class BlockTypeMask extends AbstractExtentMask {
 
     private final Set<BlockType> blocks = new HashSet<>();
+    @Nullable
+    private volatile BlockStateLookup lookup;
 
     /**
      * Create a new block mask.
@@ -72,6 +75,7 @@ public BlockTypeMask(Extent extent, BlockType... block) {
     public void add(Collection<BlockType> blocks) {
         checkNotNull(blocks);
         this.blocks.addAll(blocks);
+        this.lookup = null;
     }
 
     /**
@@ -86,15 +90,20 @@ public void add(BlockType... block) {
     /**
      * Get the list of blocks that are tested with.
      *
-     * @return a list of blocks
+     * @return an unmodifiable view of the list of blocks
      */
     public Collection<BlockType> getBlocks() {
-        return blocks;
+        return Collections.unmodifiableSet(blocks);
     }
 
     @Override
     public boolean test(BlockVector3 vector) {
-        return blocks.contains(getExtent().getBlock(vector).getBlockType());
+        BlockStateLookup lookup = this.lookup;
+        if (lookup == null) {
+            lookup = BlockStateLookup.of(blocks, state -> true);
+            this.lookup = lookup;
+        }
+        return lookup.contains(getExtent().getBlock(vector));
     }
 
     @Nullable
@@ -51,6 +51,11 @@ public boolean test(BlockVector3 vector) {
         return vector.getY() >= minY && vector.getY() <= maxY;
     }
 
+    @Override
+    public boolean test(int x, int y, int z) {
+        return y >= minY && y <= maxY;
+    }
+
     @Nullable
     @Override
     public Mask2D toMask2D() {
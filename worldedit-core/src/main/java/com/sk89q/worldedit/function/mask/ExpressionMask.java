@@ -19,10 +19,13 @@
 
 package com.sk89q.worldedit.function.mask;
 
+import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.internal.expression.EvaluationException;
 import com.sk89q.worldedit.internal.expression.Expression;
+import com.sk89q.worldedit.internal.expression.ExpressionEvaluator;
 import com.sk89q.worldedit.internal.expression.ExpressionException;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector3;
 import com.sk89q.worldedit.regions.shape.WorldEditExpressionEnvironment;
 
 import java.util.function.IntSupplier;
@@ -34,12 +37,18 @@
  * A mask that evaluates an expression.
  *
  * <p>Expressions are evaluated as {@code true} if they return a value
- * greater than {@code 0}.</p>
+ * greater than {@code 0}. As an expression keeps its variables between
+ * evaluations, only one thread evaluates it at a time, unless the expression
+ * is {@linkplain Expression#isPure() pure}. Each thread then evaluates it
+ * with its own copy of the variables.</p>
  */
 public class ExpressionMask extends AbstractMask {
 
     private final Expression expression;
     private final IntSupplier timeout;
+    private final ExpressionEvaluator evaluator;
+    @Nullable
+    private final ThreadLocal<ExpressionEvaluator> isolatedEvaluators;
 
     /**
      * Create a new instance.
@@ -64,20 +73,46 @@ public ExpressionMask(Expression expression, @Nullable IntSupplier timeout) {
         checkNotNull(expression);
         this.expression = expression;
         this.timeout = timeout;
+        this.evaluator = expression.createEvaluator(0);
+        this.isolatedEvaluators = expression.isPure()
+            ? ThreadLocal.withInitial(() -> expression.createIsolatedEvaluator(0))
+            : null;
+    }
+
+    /**
+     * Get the expression that is evaluated for each block.
+     *
+     * @return the expression
+     */
+    public Expression getExpression() {
+        return expression;
     }
 
     @Override
     public boolean test(BlockVector3 vector) {
-        try {
+        return test(vector.getBlockX(), vector.getBlockY(), vector.getBlockZ());
+    }
+
+    @Override
+    public boolean test(int x, int y, int z) {
+        if (isolatedEvaluators != null) {
+            // Pure expressions cannot query the world, so they have no use for the current block
+            return evaluate(isolatedEvaluators.get(), x, y, z);
+        }
+        synchronized (expression) {
             if (expression.getEnvironment() instanceof WorldEditExpressionEnvironment) {
-                ((WorldEditExpressionEnvironment) expression.getEnvironment()).setCurrentBlock(vector.toVector3());
-            }
-            if (timeout == null) {
-                return expression.evaluate(vector.getX(), vector.getY(), vector.getZ()) > 0;
-            } else {
-                return expression.evaluate(new double[]{vector.getX(), vector.getY(), vector.getZ()},
-                        timeout.getAsInt()) > 0;
+                ((WorldEditExpressionEnvironment) expression.getEnvironment()).setCurrentBlock(Vector3.at(x, y, z));
             }
+            return evaluate(evaluator, x, y, z);
+        }
+    }
+
+    private boolean evaluate(ExpressionEvaluator evaluator, int x, int y, int z) {
+        evaluator.setTimeout(timeout == null
+            ? WorldEdit.getInstance().getConfiguration().calculationTimeout
+            : timeout.getAsInt());
+        try {
+            return evaluator.evaluate(x, y, z) > 0;
         } catch (EvaluationException e) {
             return false;
         }
@@ -19,8 +19,10 @@
 
 package com.sk89q.worldedit.function.mask;
 
+import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.internal.expression.EvaluationException;
 import com.sk89q.worldedit.internal.expression.Expression;
+import com.sk89q.worldedit.internal.expression.ExpressionEvaluator;
 import com.sk89q.worldedit.internal.expression.ExpressionException;
 import com.sk89q.worldedit.math.BlockVector2;
 
@@ -33,6 +35,7 @@ public class ExpressionMask2D extends AbstractMask2D {
 
     private final Expression expression;
     private final IntSupplier timeout;
+    private final ExpressionEvaluator evaluator;
 
     /**
      * Create a new instance.
@@ -57,16 +60,16 @@ public ExpressionMask2D(Expression expression, @Nullable IntSupplier timeout) {
         checkNotNull(expression);
         this.expression = expression;
         this.timeout = timeout;
+        this.evaluator = expression.createEvaluator(0);
     }
 
     @Override
     public boolean test(BlockVector2 vector) {
+        evaluator.setTimeout(timeout == null
+            ? WorldEdit.getInstance().getConfiguration().calculationTimeout
+            : timeout.getAsInt());
         try {
-            if (timeout != null) {
-                return expression.evaluate(vector.getX(), 0, vector.getZ()) > 0;
-            } else {
-                return expression.evaluate(new double[]{vector.getX(), 0, vector.getZ()}, timeout.getAsInt()) > 0;
-            }
+            return evaluator.evaluate(vector.getX(), 0, vector.getZ()) > 0;
         } catch (EvaluationException e) {
             return false;
         }
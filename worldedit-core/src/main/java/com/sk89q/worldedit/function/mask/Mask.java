@@ -36,6 +36,19 @@ public interface Mask {
      */
     boolean test(BlockVector3 vector);
 
+    /**
+     * Returns true if the criteria is met. Masks that can test a position
+     * without creating a {@link BlockVector3} should override this.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return true if the criteria is met
+     */
+    default boolean test(int x, int y, int z) {
+        return test(BlockVector3.at(x, y, z));
+    }
+
     /**
      * Get the 2D version of this mask if one exists.
      *
@@ -102,6 +102,21 @@ public boolean test(BlockVector3 vector) {
         return true;
     }
 
+    @Override
+    public boolean test(int x, int y, int z) {
+        if (masks.isEmpty()) {
+            return false;
+        }
+
+        for (Mask mask : masks) {
+            if (!mask.test(x, y, z)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     @Nullable
     @Override
     public Mask2D toMask2D() {
@@ -64,6 +64,17 @@ public boolean test(BlockVector3 vector) {
         return false;
     }
 
+    @Override
+    public boolean test(int x, int y, int z) {
+        for (Mask mask : getMasks()) {
+            if (mask.test(x, y, z)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     @Nullable
     @Override
     public Mask2D toMask2D() {
@@ -75,6 +75,11 @@ public boolean test(BlockVector3 vector) {
                 return !mask.test(vector);
             }
 
+            @Override
+            public boolean test(int x, int y, int z) {
+                return !mask.test(x, y, z);
+            }
+
             @Nullable
             @Override
             public Mask2D toMask2D() {
@@ -137,6 +142,11 @@ public boolean test(BlockVector3 vector) {
             return true;
         }
 
+        @Override
+        public boolean test(int x, int y, int z) {
+            return true;
+        }
+
         @Override
         public boolean test(BlockVector2 vector) {
             return true;
@@ -155,6 +165,11 @@ public boolean test(BlockVector3 vector) {
             return false;
         }
 
+        @Override
+        public boolean test(int x, int y, int z) {
+            return false;
+        }
+
         @Override
         public boolean test(BlockVector2 vector) {
             return false;
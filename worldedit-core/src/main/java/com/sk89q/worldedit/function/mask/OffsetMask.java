@@ -93,6 +93,11 @@ public boolean test(BlockVector3 vector) {
         return getMask().test(vector.add(offset));
     }
 
+    @Override
+    public boolean test(int x, int y, int z) {
+        return getMask().test(x + offset.getX(), y + offset.getY(), z + offset.getZ());
+    }
+
     @Nullable
     @Override
     public Mask2D toMask2D() {
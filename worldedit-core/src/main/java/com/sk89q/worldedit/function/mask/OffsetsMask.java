@@ -231,6 +231,26 @@ public boolean test(BlockVector3 vector) {
         return minMatches <= matches && matches <= maxMatches;
     }
 
+    @Override
+    public boolean test(int x, int y, int z) {
+        if (excludeSelf && mask.test(x, y, z)) {
+            return false;
+        }
+
+        int matches = 0;
+
+        for (BlockVector3 offset : offsets) {
+            if (mask.test(x + offset.getX(), y + offset.getY(), z + offset.getZ())) {
+                matches++;
+                if (matches > maxMatches) {
+                    return false;
+                }
+            }
+        }
+
+        return minMatches <= matches && matches <= maxMatches;
+    }
+
     @Nullable
     @Override
     public Mask2D toMask2D() {
@@ -24,6 +24,8 @@
 import com.sk89q.worldedit.history.change.Change;
 import com.sk89q.worldedit.history.changeset.ChangeSet;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Iterator;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -63,13 +65,17 @@ private ChangeSetExecutor(ChangeSet changeSet, Type type, UndoContext context) {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        while (iterator.hasNext()) {
-            Change change = iterator.next();
-            if (type == Type.UNDO) {
-                change.undo(context);
-            } else {
-                change.redo(context);
+        try {
+            while (iterator.hasNext()) {
+                Change change = iterator.next();
+                if (type == Type.UNDO) {
+                    change.undo(context);
+                } else {
+                    change.redo(context);
+                }
             }
+        } finally {
+            closeIterator();
         }
 
         return null;
@@ -77,6 +83,16 @@ public Operation resume(RunContext run) throws WorldEditException {
 
     @Override
     public void cancel() {
+        closeIterator();
+    }
+
+    private void closeIterator() {
+        if (iterator instanceof Closeable) {
+            try {
+                ((Closeable) iterator).close();
+            } catch (IOException ignored) {
+            }
+        }
     }
 
     /**
@@ -0,0 +1,334 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.operation;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.event.platform.ConfigurationLoadEvent;
+import com.sk89q.worldedit.event.platform.PlatformUnreadyEvent;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.util.eventbus.Subscribe;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Runs operations over several server ticks, spending at most a configured
+ * amount of time on them in each tick.
+ *
+ * <p>Every owner (usually the unique ID of an actor) has a queue of
+ * operations that are run in the order they were submitted, and owners take
+ * turns within a tick. If no budget is configured, or the platform cannot
+ * schedule repeating tasks, operations are completed right away on the
+ * submitting thread.</p>
+ *
+ * <p>Operations only yield between ticks if they check
+ * {@link RunContext#shouldContinue()}.</p>
+ */
+public class OperationScheduler {
+
+    private final WorldEdit worldEdit;
+    private final Object lock = new Object();
+    private final Map<Object, Deque<Job>> queues = new LinkedHashMap<>();
+    private long budgetNanos;
+    private int taskId = -1;
+
+    /**
+     * Create a new scheduler.
+     *
+     * @param worldEdit a WorldEdit instance
+     */
+    public OperationScheduler(WorldEdit worldEdit) {
+        this.worldEdit = checkNotNull(worldEdit);
+        worldEdit.getEventBus().register(this);
+    }
+
+    /**
+     * Set the time that may be spent on operations in each tick.
+     *
+     * <p>If the budget is set to 0 while operations are pending, they are
+     * completed in the next tick, or as soon as their owner submits another
+     * operation.</p>
+     *
+     * @param budget the time per tick, or 0 to complete operations right away
+     * @param unit the unit of the budget
+     */
+    public void setBudget(long budget, TimeUnit unit) {
+        synchronized (lock) {
+            budgetNanos = Math.max(0, unit.toNanos(budget));
+        }
+    }
+
+    /**
+     * Run an operation on behalf of an owner once the owner's earlier
+     * operations are done.
+     *
+     * <p>If the owner has nothing else pending, the operation is started
+     * right away and only continued in later ticks if it doesn't fit into a
+     * tick's budget.</p>
+     *
+     * @param owner the owner of the operation
+     * @param operation the operation, or {@code null} to do nothing
+     * @return a future that completes once the operation is done
+     */
+    public ListenableFuture<Void> submit(Object owner, @Nullable Operation operation) {
+        checkNotNull(owner);
+        if (operation == null) {
+            return Futures.immediateFuture(null);
+        }
+        Job job = new Job(operation);
+        boolean behindOthers = false;
+        synchronized (lock) {
+            Deque<Job> queue = queues.get(owner);
+            if (budgetNanos > 0 && isScheduled()) {
+                queue = queues.computeIfAbsent(owner, k -> new ArrayDeque<>());
+                queue.addLast(job);
+                if (queue.size() > 1 || !job.run(new TimedRunContext(budgetNanos, TimeUnit.NANOSECONDS))) {
+                    return job.future;
+                }
+                queues.remove(owner);
+            } else if (queue != null) {
+                // Operations are no longer spread over ticks, but the owner's
+                // earlier operations still go first
+                queue.addLast(job);
+                behindOthers = true;
+            } else {
+                job.run(new RunContext());
+            }
+        }
+        if (behindOthers) {
+            completeAll(owner);
+        } else {
+            job.finish();
+        }
+        return job.future;
+    }
+
+    /**
+     * Complete all pending operations of an owner on the current thread.
+     *
+     * <p>This is needed before the owner's changes can be read back from
+     * the world.</p>
+     *
+     * @param owner the owner
+     */
+    public void completeAll(Object owner) {
+        checkNotNull(owner);
+        Deque<Job> queue;
+        synchronized (lock) {
+            queue = queues.remove(owner);
+            if (queue == null) {
+                return;
+            }
+            queue.forEach(Job::complete);
+        }
+        queue.forEach(Job::finish);
+    }
+
+    /**
+     * Cancel all pending operations of an owner. Changes that were already
+     * made are kept.
+     *
+     * @param owner the owner
+     * @return the number of operations that were cancelled
+     */
+    public int cancelAll(Object owner) {
+        checkNotNull(owner);
+        Deque<Job> queue;
+        synchronized (lock) {
+            queue = queues.remove(owner);
+            if (queue == null) {
+                return 0;
+            }
+            queue.forEach(Job::cancel);
+        }
+        int cancelled = 0;
+        for (Job job : queue) {
+            if (job.future.cancel(false)) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Get the number of operations of an owner that are not done yet.
+     *
+     * @param owner the owner
+     * @return the number of operations
+     */
+    public int getPendingOperations(Object owner) {
+        checkNotNull(owner);
+        synchronized (lock) {
+            Deque<Job> queue = queues.get(owner);
+            return queue == null ? 0 : queue.size();
+        }
+    }
+
+    /**
+     * Continue pending operations until this tick's budget is used up.
+     *
+     * <p>This is called every tick by the platform.</p>
+     */
+    public void tick() {
+        List<Job> finished = new ArrayList<>();
+        synchronized (lock) {
+            if (budgetNanos == 0) {
+                // The budget was removed while operations were pending, so
+                // they would never be continued otherwise
+                for (Deque<Job> queue : queues.values()) {
+                    queue.forEach(Job::complete);
+                    finished.addAll(queue);
+                }
+                queues.clear();
+            }
+            long deadline = System.nanoTime() + budgetNanos;
+            while (!queues.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                // Every owner gets an equal share of what is left, and owners
+                // that finish early leave more time for the others
+                long share = remaining / queues.size();
+                Iterator<Deque<Job>> it = queues.values().iterator();
+                while (it.hasNext()) {
+                    Deque<Job> queue = it.next();
+                    Job job = queue.getFirst();
+                    if (job.future.isCancelled()) {
+                        job.cancel();
+                    } else if (!job.run(new TimedRunContext(share, TimeUnit.NANOSECONDS))) {
+                        continue;
+                    }
+                    queue.removeFirst();
+                    finished.add(job);
+                    if (queue.isEmpty()) {
+                        it.remove();
+                    }
+                }
+            }
+        }
+        finished.forEach(Job::finish);
+    }
+
+    @Subscribe
+    public void onConfigurationLoad(ConfigurationLoadEvent event) {
+        LocalConfiguration config = event.getConfiguration();
+        setBudget(config.operationTickBudget, TimeUnit.MILLISECONDS);
+    }
+
+    @Subscribe
+    public void onPlatformUnready(PlatformUnreadyEvent event) {
+        List<Object> owners;
+        synchronized (lock) {
+            // The repeating task goes away with the platform, so don't leave anything behind
+            taskId = -1;
+            owners = new ArrayList<>(queues.keySet());
+        }
+        owners.forEach(this::completeAll);
+    }
+
+    /**
+     * Make sure {@link #tick()} is called every tick.
+     *
+     * <p>The caller must hold the lock.</p>
+     *
+     * @return true if ticks are available
+     */
+    private boolean isScheduled() {
+        if (taskId == -1) {
+            taskId = worldEdit.getPlatformManager().queryCapability(Capability.GAME_HOOKS).schedule(0, 1, this::tick);
+        }
+        return taskId != -1;
+    }
+
+    /**
+     * An operation and the future for its completion.
+     */
+    private static final class Job {
+        private final SettableFuture<Void> future = SettableFuture.create();
+        @Nullable
+        private Operation operation;
+        @Nullable
+        private Throwable failure;
+
+        private Job(Operation operation) {
+            this.operation = operation;
+        }
+
+        /**
+         * Resume the operation at least once and for as long as the run
+         * allows.
+         *
+         * @param run the run
+         * @return true if the operation is done
+         */
+        private boolean run(RunContext run) {
+            try {
+                do {
+                    operation = operation.resume(run);
+                } while (operation != null && run.shouldContinue());
+            } catch (Throwable t) {
+                operation = null;
+                failure = t;
+            }
+            return operation == null;
+        }
+
+        /**
+         * Run the operation to completion, unless its future was cancelled.
+         */
+        private void complete() {
+            if (future.isCancelled()) {
+                cancel();
+            } else {
+                run(new RunContext());
+            }
+        }
+
+        private void cancel() {
+            if (operation != null) {
+                operation.cancel();
+                operation = null;
+            }
+        }
+
+        private void finish() {
+            if (failure != null) {
+                future.setException(failure);
+            } else {
+                future.set(null);
+            }
+        }
+    }
+
+}
@@ -68,4 +68,9 @@ public BaseBlock applyBlock(BlockVector3 position) {
         return block;
     }
 
+    @Override
+    public BaseBlock applyBlock(int x, int y, int z) {
+        return block;
+    }
+
 }
@@ -17,15 +17,55 @@
  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
  */
 
+
 package com.sk89q.worldedit.function.pattern;
 
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.math.BlockVector3;
 
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
+
 /**
  * A pattern that reads from {@link Clipboard}.
+ *
+ * <p>The clipboard is {@linkplain Clipboard#retain() retained} until the
+ * pattern is closed. Patterns parsed for a command are closed when the
+ * command finishes, and other callers should close the patterns they
+ * create. Anything that keeps a pattern for longer, such as a
+ * tool, should retain the clipboards from
+ * {@link #getClipboards(Pattern)}.</p>
  */
-public class ClipboardPattern extends RepeatingExtentPattern {
+public class ClipboardPattern extends RepeatingExtentPattern implements Closeable {
+
+    /**
+     * Get the clipboards that a pattern reads from, so that something that
+     * keeps the pattern can {@linkplain Clipboard#retain() retain} them.
+     *
+     * @param pattern the pattern, which may be null
+     * @return the clipboards
+     */
+    public static List<Clipboard> getClipboards(@Nullable Pattern pattern) {
+        List<Clipboard> clipboards = new ArrayList<>();
+        collectClipboards(pattern, clipboards);
+        return clipboards;
+    }
+
+    private static void collectClipboards(@Nullable Pattern pattern, List<Clipboard> clipboards) {
+        if (pattern instanceof ClipboardPattern) {
+            clipboards.add(((ClipboardPattern) pattern).clipboard);
+        } else if (pattern instanceof RandomPattern) {
+            for (Pattern child : ((RandomPattern) pattern).getPatterns()) {
+                collectClipboards(child, clipboards);
+            }
+        }
+    }
+
+    private final Clipboard clipboard;
+    private final AtomicBoolean closed = new AtomicBoolean();
 
     /**
      * Create a new clipboard pattern.
@@ -44,5 +84,17 @@ public ClipboardPattern(Clipboard clipboard) {
      */
     public ClipboardPattern(Clipboard clipboard, BlockVector3 offset) {
         super(clipboard, clipboard.getMinimumPoint(), offset);
+        clipboard.retain();
+        this.clipboard = clipboard;
+    }
+
+    /**
+     * Release the clipboard. Closing the pattern again does nothing.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            clipboard.close();
+        }
     }
 }
@@ -58,4 +58,17 @@ default BaseBlock applyBlock(BlockVector3 position) {
 
         return apply(position);
     }
+
+    /**
+     * Return a {@link BaseBlock} for the given position. Patterns that can
+     * do so without creating a {@link BlockVector3} should override this.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return a block
+     */
+    default BaseBlock applyBlock(int x, int y, int z) {
+        return applyBlock(BlockVector3.at(x, y, z));
+    }
 }
@@ -24,18 +24,47 @@
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Uses a random pattern of a weighted list of patterns.
+ *
+ * <p>Patterns are picked in constant time with an alias table, however many
+ * patterns there are. Without a seed, each thread uses its own random number
+ * generator. With a seed, the pick for a position is derived from the seed
+ * and the position alone, so the same seed gives the same result whatever
+ * order the positions are visited in.</p>
  */
 public class RandomPattern extends AbstractPattern {
 
-    private final Random random = new Random();
     private final List<Chance> patterns = new ArrayList<>();
+    private final boolean seeded;
+    private final long seed;
     private double max = 0;
+    @Nullable
+    private volatile AliasTable table;
+
+    /**
+     * Create a new random pattern that picks differently every time.
+     */
+    public RandomPattern() {
+        this.seeded = false;
+        this.seed = 0;
+    }
+
+    /**
+     * Create a new random pattern that always picks the same pattern for a
+     * given position and seed.
+     *
+     * @param seed the seed
+     */
+    public RandomPattern(long seed) {
+        this.seeded = true;
+        this.seed = seed;
+    }
 
     /**
      * Add a pattern to the weight list of patterns.
@@ -50,21 +79,114 @@ public void add(Pattern pattern, double chance) {
         checkNotNull(pattern);
         patterns.add(new Chance(pattern, chance));
         max += chance;
+        table = null;
+    }
+
+    /**
+     * Get the patterns that are picked from.
+     *
+     * @return a list of patterns
+     */
+    public List<Pattern> getPatterns() {
+        List<Pattern> list = new ArrayList<>(patterns.size());
+        for (Chance chance : patterns) {
+            list.add(chance.getPattern());
+        }
+        return list;
     }
 
     @Override
     public BaseBlock applyBlock(BlockVector3 position) {
-        double r = random.nextDouble();
-        double offset = 0;
+        return pick(position.getX(), position.getY(), position.getZ()).applyBlock(position);
+    }
 
-        for (Chance chance : patterns) {
-            if (r <= (offset + chance.getChance()) / max) {
-                return chance.getPattern().applyBlock(position);
+    @Override
+    public BaseBlock applyBlock(int x, int y, int z) {
+        return pick(x, y, z).applyBlock(x, y, z);
+    }
+
+    private Pattern pick(int x, int y, int z) {
+        AliasTable table = this.table;
+        if (table == null) {
+            if (patterns.isEmpty()) {
+                throw new RuntimeException("ProportionalFillPattern");
+            }
+            table = new AliasTable(patterns, max);
+            this.table = table;
+        }
+        double r = seeded ? positionRandom(x, y, z) : ThreadLocalRandom.current().nextDouble();
+        return patterns.get(table.pick(r)).getPattern();
+    }
+
+    /**
+     * Get a number in [0, 1) from the seed and a position.
+     */
+    private double positionRandom(int x, int y, int z) {
+        long hash = seed
+            + x * 0x9E3779B97F4A7C15L
+            + y * 0xC2B2AE3D27D4EB4FL
+            + z * 0x165667B19E3779F9L;
+        // SplitMix64 finalizer
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        hash = hash ^ (hash >>> 31);
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Walker's alias table, built with Vose's method.
+     */
+    private static final class AliasTable {
+        private final double[] probability;
+        private final int[] alias;
+
+        AliasTable(List<Chance> chances, double max) {
+            int size = chances.size();
+            probability = new double[size];
+            alias = new int[size];
+            double[] scaled = new double[size];
+            int[] small = new int[size];
+            int[] large = new int[size];
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int i = 0; i < size; i++) {
+                scaled[i] = chances.get(i).getChance() * size / max;
+                if (scaled[i] < 1) {
+                    small[smallCount++] = i;
+                } else {
+                    large[largeCount++] = i;
+                }
+            }
+            while (smallCount > 0 && largeCount > 0) {
+                int less = small[--smallCount];
+                int more = large[--largeCount];
+                probability[less] = scaled[less];
+                alias[less] = more;
+                scaled[more] = scaled[more] + scaled[less] - 1;
+                if (scaled[more] < 1) {
+                    small[smallCount++] = more;
+                } else {
+                    large[largeCount++] = more;
+                }
+            }
+            // Whatever is left is 1 up to rounding errors
+            while (largeCount > 0) {
+                int index = large[--largeCount];
+                probability[index] = 1;
+                alias[index] = index;
+            }
+            while (smallCount > 0) {
+                int index = small[--smallCount];
+                probability[index] = 1;
+                alias[index] = index;
             }
-            offset += chance.getChance();
         }
 
-        throw new RuntimeException("ProportionalFillPattern");
+        int pick(double r) {
+            double scaled = r * probability.length;
+            int index = Math.min((int) scaled, probability.length - 1);
+            return scaled - index < probability[index] ? index : alias[index];
+        }
     }
 
     private static class Chance {
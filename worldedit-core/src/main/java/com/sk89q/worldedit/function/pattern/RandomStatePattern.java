@@ -25,12 +25,11 @@
 import com.sk89q.worldedit.world.block.FuzzyBlockState;
 
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 public class RandomStatePattern implements Pattern {
 
-    private final Random rand = new Random();
     private final List<BaseBlock> blocks;
 
     public RandomStatePattern(FuzzyBlockState state) {
@@ -40,6 +39,11 @@ public RandomStatePattern(FuzzyBlockState state) {
 
     @Override
     public BaseBlock applyBlock(BlockVector3 position) {
-        return blocks.get(rand.nextInt(blocks.size()));
+        return blocks.get(ThreadLocalRandom.current().nextInt(blocks.size()));
+    }
+
+    @Override
+    public BaseBlock applyBlock(int x, int y, int z) {
+        return blocks.get(ThreadLocalRandom.current().nextInt(blocks.size()));
     }
 }
@@ -26,18 +26,16 @@
 import com.sk89q.worldedit.function.operation.RunContext;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.util.Direction;
+import com.sk89q.worldedit.util.collection.BlockPositionSet;
 import com.sk89q.worldedit.util.formatting.text.Component;
 import com.sk89q.worldedit.util.formatting.text.TextComponent;
 import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
 import com.sk89q.worldedit.util.formatting.text.format.TextColor;
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Queue;
-import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -51,12 +49,17 @@
  * <p>As an abstract implementation, this class can be used to implement
  * functionality that starts at certain points and extends outward from
  * those points.</p>
+ *
+ * <p>Queued and visited positions are kept as primitive coordinates, and a
+ * {@link BlockVector3} is only created for positions that have not been
+ * visited yet.</p>
  */
 public abstract class BreadthFirstSearch implements Operation {
 
     private final RegionFunction function;
-    private final Queue<BlockVector3> queue = new ArrayDeque<>();
-    private final Set<BlockVector3> visited = new HashSet<>();
+    // x, y and z of each queued position, in that order
+    private final IntArrayFIFOQueue queue = new IntArrayFIFOQueue();
+    private final BlockPositionSet visited = new BlockPositionSet();
     private final List<BlockVector3> directions = new ArrayList<>();
     private int affected = 0;
 
@@ -124,9 +127,8 @@ protected void addDiagonal() {
      * @param position the position
      */
     public void visit(BlockVector3 position) {
-        if (!visited.contains(position)) {
-            queue.add(position);
-            visited.add(position);
+        if (visited.add(position)) {
+            enqueue(position.getX(), position.getY(), position.getZ());
         }
     }
 
@@ -134,17 +136,24 @@ public void visit(BlockVector3 position) {
      * Try to visit the given 'to' location.
      *
      * @param from the origin block
-     * @param to the block under question
+     * @param x the x coordinate of the block under question
+     * @param y the y coordinate of the block under question
+     * @param z the z coordinate of the block under question
      */
-    private void visit(BlockVector3 from, BlockVector3 to) {
-        if (!visited.contains(to)) {
-            visited.add(to);
-            if (isVisitable(from, to)) {
-                queue.add(to);
+    private void visit(BlockVector3 from, int x, int y, int z) {
+        if (visited.add(x, y, z)) {
+            if (isVisitable(from, BlockVector3.at(x, y, z))) {
+                enqueue(x, y, z);
             }
         }
     }
 
+    private void enqueue(int x, int y, int z) {
+        queue.enqueue(x);
+        queue.enqueue(y);
+        queue.enqueue(z);
+    }
+
     /**
      * Return whether the given 'to' block should be visited, starting from the
      * 'from' block.
@@ -166,15 +175,19 @@ public int getAffected() {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        BlockVector3 position;
+        BlockVector3[] dirs = directions.toArray(new BlockVector3[0]);
 
-        while ((position = queue.poll()) != null) {
+        while (!queue.isEmpty()) {
+            int x = queue.dequeueInt();
+            int y = queue.dequeueInt();
+            int z = queue.dequeueInt();
+            BlockVector3 position = BlockVector3.at(x, y, z);
             if (function.apply(position)) {
                 affected++;
             }
 
-            for (BlockVector3 dir : directions) {
-                visit(position, position.add(dir));
+            for (BlockVector3 dir : dirs) {
+                visit(position, x + dir.getX(), y + dir.getY(), z + dir.getZ());
             }
         }
 
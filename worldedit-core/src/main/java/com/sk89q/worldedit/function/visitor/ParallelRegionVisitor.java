@@ -0,0 +1,574 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.visitor;
+
+import com.google.common.collect.ImmutableList;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.function.mask.AbstractExtentMask;
+import com.sk89q.worldedit.function.mask.BlockCategoryMask;
+import com.sk89q.worldedit.function.mask.BlockMask;
+import com.sk89q.worldedit.function.mask.BlockTypeMask;
+import com.sk89q.worldedit.function.mask.ExistingBlockMask;
+import com.sk89q.worldedit.function.mask.ExpressionMask;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.mask.MaskIntersection;
+import com.sk89q.worldedit.function.mask.MaskUnion;
+import com.sk89q.worldedit.function.mask.SolidBlockMask;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.RunContext;
+import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.function.pattern.RandomPattern;
+import com.sk89q.worldedit.internal.expression.Expression;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.session.request.Request;
+import com.sk89q.worldedit.session.request.RequestExtent;
+import com.sk89q.worldedit.util.formatting.text.Component;
+import com.sk89q.worldedit.util.formatting.text.TextComponent;
+import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
+import com.sk89q.worldedit.util.formatting.text.format.TextColor;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Replaces the blocks of a region that match a mask with a pattern, testing
+ * the mask and applying the pattern on several threads.
+ *
+ * <p>The region is split into slabs along chunk boundaries. Worker threads
+ * evaluate the mask and pattern for a batch of slabs, and the results are
+ * written to the destination extent on the calling thread, so the extent
+ * chain is never used concurrently. If the mask or pattern reads blocks, the
+ * blocks of the slabs are first copied from the source extent on the calling
+ * thread, and the workers read those copies instead.</p>
+ *
+ * <p>Masks and patterns only see the copies if they read through
+ * {@link #getSnapshot()}. They are shared between the worker threads, so
+ * they must be safe to use concurrently, which
+ * {@link #bindForWorkers(Mask, Extent)} and {@link #isThreadSafe(Pattern)}
+ * check for the masks and patterns that are known to be. If a worker reads a
+ * block that was not copied, or a biome, its slab is redone on the calling
+ * thread once the batch is written.</p>
+ *
+ * <p>The calling thread works through the slabs as well, so a batch
+ * completes even if the executor has no free threads.</p>
+ */
+public class ParallelRegionVisitor implements Operation {
+
+    private static final int SLABS_PER_THREAD = 4;
+
+    private final Region region;
+    private final Extent source;
+    private final Extent destination;
+    @Nullable
+    private final Mask mask;
+    private final Pattern pattern;
+    private final int parallelism;
+    private final ExecutorService executor;
+    private final SnapshotExtent snapshot;
+    private final boolean cuboid;
+    private final boolean capture;
+    private volatile boolean cancelled;
+    private volatile List<Future<?>> helpers = Collections.emptyList();
+    private int affected = 0;
+
+    /**
+     * Create a new instance.
+     *
+     * @param region the region to visit
+     * @param source the extent to copy blocks from
+     * @param destination the extent to write the results to
+     * @param mask the mask that blocks must match, or null to replace every block
+     * @param pattern the pattern that provides the new blocks
+     * @param parallelism the number of threads to use, including the calling thread
+     * @param executor the executor that runs the other threads, which should not be busy with unrelated tasks
+     */
+    public ParallelRegionVisitor(Region region, Extent source, Extent destination, @Nullable Mask mask,
+                                 Pattern pattern, int parallelism, ExecutorService executor) {
+        checkNotNull(region);
+        checkNotNull(source);
+        checkNotNull(destination);
+        checkNotNull(pattern);
+        checkArgument(parallelism > 0, "parallelism must be positive");
+        checkNotNull(executor);
+        this.region = region;
+        this.source = source;
+        this.destination = destination;
+        this.mask = mask;
+        this.pattern = pattern;
+        this.parallelism = parallelism;
+        this.executor = executor;
+        this.snapshot = new SnapshotExtent(source);
+        this.cuboid = region instanceof CuboidRegion;
+        this.capture = readsBlocks(mask) || !isThreadSafe(pattern);
+    }
+
+    /**
+     * Get whether a mask can be tested on several threads at once. Only
+     * masks that are known to keep no state between tests, and that read
+     * blocks through the given extent, are accepted.
+     *
+     * @param mask the mask
+     * @param extent the extent that reads are redirected to the snapshot from
+     * @return true if the mask can be tested by the workers of a visitor
+     * @see #bindForWorkers(Mask, Extent)
+     */
+    public static boolean isThreadSafe(Mask mask, Extent extent) {
+        return bindForWorkers(mask, extent) != null;
+    }
+
+    /**
+     * Get a mask that can be tested on several threads at once, and that
+     * reads blocks through the given extent.
+     *
+     * <p>Masks parsed for commands read through a {@link RequestExtent},
+     * which only finds the edit session on the thread of the command. If it
+     * finds the given extent there, a copy of the mask that reads from the
+     * extent directly is returned. Expression masks are only accepted if
+     * their expression is {@linkplain Expression#isPure() pure}, as other
+     * expressions may query blocks through their own extent.</p>
+     *
+     * @param mask the mask
+     * @param extent the extent that reads are redirected to the snapshot from
+     * @return the mask to give the visitor, or null if the mask cannot be tested by its workers
+     */
+    @Nullable
+    public static Mask bindForWorkers(Mask mask, Extent extent) {
+        checkNotNull(mask);
+        checkNotNull(extent);
+        if (mask instanceof MaskIntersection) {
+            Collection<Mask> children = ((MaskIntersection) mask).getMasks();
+            List<Mask> bound = new ArrayList<>(children.size());
+            boolean rebound = false;
+            for (Mask child : children) {
+                Mask boundChild = bindForWorkers(child, extent);
+                if (boundChild == null) {
+                    return null;
+                }
+                rebound |= boundChild != child;
+                bound.add(boundChild);
+            }
+            if (!rebound) {
+                return mask;
+            }
+            return mask instanceof MaskUnion ? new MaskUnion(bound) : new MaskIntersection(bound);
+        }
+        if (mask instanceof BlockMask || mask instanceof BlockTypeMask || mask instanceof BlockCategoryMask
+                || mask instanceof ExistingBlockMask || mask instanceof SolidBlockMask) {
+            Extent maskExtent = ((AbstractExtentMask) mask).getExtent();
+            if (maskExtent == extent) {
+                return mask;
+            }
+            // A request extent reads from the edit session of the current request, if there is one
+            if (maskExtent instanceof RequestExtent && Request.request().getEditSession() == extent) {
+                return rebind(mask, extent);
+            }
+            return null;
+        }
+        if (mask instanceof ExpressionMask) {
+            return ((ExpressionMask) mask).getExpression().isPure() ? mask : null;
+        }
+        return null;
+    }
+
+    private static Mask rebind(Mask mask, Extent extent) {
+        if (mask instanceof BlockMask) {
+            return new BlockMask(extent, ((BlockMask) mask).getBlocks());
+        } else if (mask instanceof BlockTypeMask) {
+            return new BlockTypeMask(extent, ((BlockTypeMask) mask).getBlocks());
+        } else if (mask instanceof BlockCategoryMask) {
+            return new BlockCategoryMask(extent, ((BlockCategoryMask) mask).getCategory());
+        } else if (mask instanceof ExistingBlockMask) {
+            return new ExistingBlockMask(extent);
+        } else {
+            return new SolidBlockMask(extent);
+        }
+    }
+
+    /**
+     * Get whether a mask may read blocks when it is tested. Masks that are
+     * not known to read nothing are assumed to read.
+     */
+    private static boolean readsBlocks(@Nullable Mask mask) {
+        if (mask == null) {
+            return false;
+        }
+        if (mask instanceof MaskIntersection || mask instanceof MaskUnion) {
+            for (Mask child : ((MaskIntersection) mask).getMasks()) {
+                if (readsBlocks(child)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return !(mask instanceof ExpressionMask) || !((ExpressionMask) mask).getExpression().isPure();
+    }
+
+    /**
+     * Get whether a pattern can be applied on several threads at once. Only
+     * patterns that are known to keep no state between calls, and that read
+     * no blocks, are accepted.
+     *
+     * @param pattern the pattern
+     * @return true if the pattern can be applied by the workers of a visitor
+     */
+    public static boolean isThreadSafe(Pattern pattern) {
+        checkNotNull(pattern);
+        if (pattern instanceof RandomPattern) {
+            for (Pattern child : ((RandomPattern) pattern).getPatterns()) {
+                if (!isThreadSafe(child)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return pattern instanceof BlockStateHolder;
+    }
+
+    /**
+     * Get an extent that reads from the copied blocks on worker threads, and
+     * from the source extent on any other thread.
+     *
+     * @return the snapshot extent
+     */
+    public Extent getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Get the number of affected objects.
+     *
+     * @return the number of affected
+     */
+    public int getAffected() {
+        return affected;
+    }
+
+    @Override
+    public Operation resume(RunContext run) throws WorldEditException {
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        List<Slab> pending = new ArrayList<>();
+        int batchSize = parallelism * SLABS_PER_THREAD;
+        for (int chunkX = min.getBlockX() >> 4; chunkX <= max.getBlockX() >> 4 && !cancelled; chunkX++) {
+            for (int chunkZ = min.getBlockZ() >> 4; chunkZ <= max.getBlockZ() >> 4 && !cancelled; chunkZ++) {
+                pending.add(new Slab(
+                    Math.max(chunkX << 4, min.getBlockX()), min.getBlockY(), Math.max(chunkZ << 4, min.getBlockZ()),
+                    Math.min((chunkX << 4) + 15, max.getBlockX()), max.getBlockY(), Math.min((chunkZ << 4) + 15, max.getBlockZ())
+                ));
+                if (pending.size() == batchSize) {
+                    runBatch(pending);
+                    pending.clear();
+                }
+            }
+        }
+        if (!pending.isEmpty() && !cancelled) {
+            runBatch(pending);
+        }
+        return null;
+    }
+
+    private void runBatch(List<Slab> slabs) throws WorldEditException {
+        if (capture) {
+            for (Slab slab : slabs) {
+                slab.capture(source, cuboid ? null : region);
+            }
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch evaluated = new CountDownLatch(slabs.size());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Runnable work = () -> {
+            int index;
+            while ((index = next.getAndIncrement()) < slabs.size()) {
+                try {
+                    if (failure.get() == null && !cancelled) {
+                        evaluate(slabs.get(index));
+                    }
+                } catch (RuntimeException | Error e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    evaluated.countDown();
+                }
+            }
+        };
+        List<Future<?>> submitted = new CopyOnWriteArrayList<>();
+        this.helpers = submitted;
+        for (int i = 1; i < Math.min(parallelism, slabs.size()) && !cancelled; i++) {
+            try {
+                submitted.add(executor.submit(work));
+            } catch (RejectedExecutionException e) {
+                // The calling thread does the remaining work
+                break;
+            }
+        }
+        work.run();
+        // Helpers that have not started yet have nothing left to do
+        submitted.forEach(helper -> helper.cancel(false));
+        try {
+            evaluated.await();
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for worker threads", e);
+        } finally {
+            this.helpers = Collections.emptyList();
+        }
+        if (cancelled) {
+            return;
+        }
+        Throwable cause = failure.get();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+
+        for (Slab slab : slabs) {
+            if (slab.results == null) {
+                applySerially(slab);
+            } else {
+                write(slab);
+            }
+        }
+    }
+
+    private void evaluate(Slab slab) {
+        BaseBlock[] results = new BaseBlock[slab.volume()];
+        snapshot.current.set(slab);
+        try {
+            int index = 0;
+            for (int y = slab.minY; y <= slab.maxY; y++) {
+                for (int z = slab.minZ; z <= slab.maxZ; z++) {
+                    for (int x = slab.minX; x <= slab.maxX; x++, index++) {
+                        BlockVector3 position = BlockVector3.at(x, y, z);
+                        if ((cuboid || region.contains(position)) && (mask == null || mask.test(position))) {
+                            results[index] = pattern.applyBlock(position);
+                        }
+                    }
+                }
+            }
+            slab.results = results;
+        } catch (SnapshotMissException e) {
+            // Redone on the calling thread
+        } finally {
+            snapshot.current.remove();
+            slab.captured = null;
+        }
+    }
+
+    private void write(Slab slab) throws WorldEditException {
+        BaseBlock[] results = slab.results;
+        slab.results = null;
+        int index = 0;
+        for (int y = slab.minY; y <= slab.maxY; y++) {
+            for (int z = slab.minZ; z <= slab.maxZ; z++) {
+                for (int x = slab.minX; x <= slab.maxX; x++, index++) {
+                    BaseBlock block = results[index];
+                    if (block != null && destination.setBlock(BlockVector3.at(x, y, z), block)) {
+                        affected++;
+                    }
+                }
+            }
+        }
+    }
+
+    private void applySerially(Slab slab) throws WorldEditException {
+        for (int y = slab.minY; y <= slab.maxY; y++) {
+            for (int z = slab.minZ; z <= slab.maxZ; z++) {
+                for (int x = slab.minX; x <= slab.maxX; x++) {
+                    BlockVector3 position = BlockVector3.at(x, y, z);
+                    if ((cuboid || region.contains(position)) && (mask == null || mask.test(position))
+                            && destination.setBlock(position, pattern.applyBlock(position))) {
+                        affected++;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        // Workers stop after their current slab, and nothing more is written
+        helpers.forEach(helper -> helper.cancel(false));
+    }
+
+    @Override
+    public Iterable<Component> getStatusMessages() {
+        return ImmutableList.of(TranslatableComponent.of(
+                "worldedit.operation.affected.block",
+                TextComponent.of(getAffected())
+        ).color(TextColor.LIGHT_PURPLE));
+    }
+
+    /**
+     * A part of the region within a single chunk column.
+     */
+    private static final class Slab {
+        final int minX;
+        final int minY;
+        final int minZ;
+        final int maxX;
+        final int maxY;
+        final int maxZ;
+        final int sizeX;
+        final int sizeY;
+        final int sizeZ;
+        // Null if the blocks were not copied, in which case any read is a miss
+        @Nullable
+        BaseBlock[] captured;
+        @Nullable
+        BaseBlock[] results;
+
+        Slab(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+            this.sizeX = maxX - minX + 1;
+            this.sizeY = maxY - minY + 1;
+            this.sizeZ = maxZ - minZ + 1;
+        }
+
+        int volume() {
+            return sizeX * sizeY * sizeZ;
+        }
+
+        /**
+         * Copy the blocks of this slab.
+         *
+         * @param extent the extent to copy from
+         * @param region the region to copy the blocks of, or null to copy the whole slab
+         */
+        void capture(Extent extent, @Nullable Region region) {
+            BaseBlock[] blocks = new BaseBlock[volume()];
+            int index = 0;
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    for (int x = minX; x <= maxX; x++, index++) {
+                        BlockVector3 position = BlockVector3.at(x, y, z);
+                        if (region == null || region.contains(position)) {
+                            blocks[index] = extent.getFullBlock(position);
+                        }
+                    }
+                }
+            }
+            this.captured = blocks;
+        }
+
+        BaseBlock get(BlockVector3 position) {
+            BaseBlock[] blocks = captured;
+            int x = position.getBlockX() - minX;
+            int y = position.getBlockY() - minY;
+            int z = position.getBlockZ() - minZ;
+            if (blocks == null || x < 0 || x >= sizeX || y < 0 || y >= sizeY || z < 0 || z >= sizeZ) {
+                throw SnapshotMissException.INSTANCE;
+            }
+            BaseBlock block = blocks[(y * sizeZ + z) * sizeX + x];
+            if (block == null) {
+                throw SnapshotMissException.INSTANCE;
+            }
+            return block;
+        }
+    }
+
+    /**
+     * Serves reads from the slab of the current worker thread.
+     */
+    private static final class SnapshotExtent extends AbstractDelegateExtent {
+        private final ThreadLocal<Slab> current = new ThreadLocal<>();
+
+        SnapshotExtent(Extent extent) {
+            super(extent);
+        }
+
+        @Override
+        public BlockState getBlock(BlockVector3 position) {
+            Slab slab = current.get();
+            return slab == null ? super.getBlock(position) : slab.get(position).toImmutableState();
+        }
+
+        @Override
+        public BaseBlock getFullBlock(BlockVector3 position) {
+            Slab slab = current.get();
+            return slab == null ? super.getFullBlock(position) : slab.get(position);
+        }
+
+        @Override
+        public BiomeType getBiome(BlockVector3 position) {
+            if (current.get() != null) {
+                throw SnapshotMissException.INSTANCE;
+            }
+            return super.getBiome(position);
+        }
+
+        @Override
+        public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
+            if (current.get() != null) {
+                throw SnapshotMissException.INSTANCE;
+            }
+            return super.setBlock(location, block);
+        }
+
+        @Override
+        public boolean setBiome(BlockVector3 position, BiomeType biome) {
+            if (current.get() != null) {
+                throw SnapshotMissException.INSTANCE;
+            }
+            return super.setBiome(position, biome);
+        }
+    }
+
+    /**
+     * Thrown on a worker thread when the mask or pattern needs something
+     * that was not copied.
+     */
+    private static final class SnapshotMissException extends RuntimeException {
+        static final SnapshotMissException INSTANCE = new SnapshotMissException();
+
+        private SnapshotMissException() {
+            super(null, null, false, false);
+        }
+    }
+
+}
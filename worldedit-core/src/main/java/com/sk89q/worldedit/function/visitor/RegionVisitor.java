@@ -24,7 +24,6 @@
 import com.sk89q.worldedit.function.RegionFunction;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.RunContext;
-import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.formatting.text.Component;
 import com.sk89q.worldedit.util.formatting.text.TextComponent;
@@ -56,11 +55,11 @@ public int getAffected() {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        for (BlockVector3 pt : region) {
-            if (function.apply(pt)) {
+        region.forEachPosition((x, y, z) -> {
+            if (function.apply(x, y, z)) {
                 affected++;
             }
-        }
+        });
 
         return null;
     }
@@ -54,7 +54,8 @@ public interface ChangeSet {
      * Get a backward directed iterator that can be used for undo.
      *
      * <p>The iterator may return the changes out of order, as long as the final
-     * result after all changes have been applied is correct.</p>
+     * result after all changes have been applied is correct. If it is
+     * {@link java.io.Closeable}, it must be closed once it is no longer used.</p>
      *
      * @return a undo directed iterator
      */
@@ -64,7 +65,8 @@ public interface ChangeSet {
      * Get a forward directed iterator that can be used for redo.
      *
      * <p>The iterator may return the changes out of order, as long as the final
-     * result after all changes have been applied is correct.</p>
+     * result after all changes have been applied is correct. If it is
+     * {@link java.io.Closeable}, it must be closed once it is no longer used.</p>
      *
      * @return a forward directed iterator
      */
@@ -0,0 +1,471 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.history.changeset;
+
+import com.google.common.collect.AbstractIterator;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.extension.input.InputParseException;
+import com.sk89q.worldedit.extension.input.ParserContext;
+import com.sk89q.worldedit.history.change.BiomeChange3D;
+import com.sk89q.worldedit.history.change.BlockChange;
+import com.sk89q.worldedit.history.change.Change;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A read-only {@link ChangeSet} that streams its changes from a compressed
+ * journal file instead of keeping them in memory.
+ *
+ * <p>A journal holds two sections, one for undo and one for redo, so that
+ * both can be read front to back. Each section is deflated separately and
+ * stores positions as deltas from the previous record, with blocks and
+ * biomes written to a palette the first time they are seen.</p>
+ *
+ * <p>Only {@link BlockChange}s and {@link BiomeChange3D}s are journaled;
+ * other changes, such as entity changes, are dropped when writing.</p>
+ */
+public final class JournalHistory implements ChangeSet {
+
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+
+    private static final int MAGIC = 0x57454a4c;
+    private static final int VERSION = 1;
+    private static final int BLOCK = 0;
+    private static final int BIOME = 1;
+
+    /**
+     * Write the changes of a change set to a new journal, replacing any
+     * existing file.
+     *
+     * @param file the journal file
+     * @param worldName the name of the world the changes were made in
+     * @param changeSet the changes
+     * @return the written journal
+     * @throws IOException on I/O error
+     */
+    public static JournalHistory write(Path file, String worldName, ChangeSet changeSet) throws IOException {
+        checkNotNull(file);
+        checkNotNull(worldName);
+        checkNotNull(changeSet);
+
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(0);
+            raf.writeInt(MAGIC);
+            raf.writeInt(VERSION);
+            raf.writeUTF(worldName);
+            long countsPosition = raf.getFilePointer();
+            raf.writeInt(0);
+            raf.writeInt(0);
+            raf.writeLong(0);
+
+            FileChannel channel = raf.getChannel();
+            channel.position(raf.getFilePointer());
+            int undoCount = writeSection(channel, changeSet.backwardIterator(), true);
+            long redoOffset = channel.position();
+            int redoCount = writeSection(channel, changeSet.forwardIterator(), false);
+
+            raf.seek(countsPosition);
+            raf.writeInt(undoCount);
+            raf.writeInt(redoCount);
+            raf.writeLong(redoOffset);
+            return new JournalHistory(file, worldName, undoCount, redoCount, countsPosition + 16, redoOffset);
+        }
+    }
+
+    /**
+     * Open a journal previously written with
+     * {@link #write(Path, String, ChangeSet)}.
+     *
+     * @param file the journal file
+     * @return the journal
+     * @throws IOException on I/O error, or if the file is not a journal
+     */
+    public static JournalHistory read(Path file) throws IOException {
+        checkNotNull(file);
+
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            if (raf.readInt() != MAGIC) {
+                throw new IOException("Not a history journal: " + file);
+            }
+            int version = raf.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported history journal version " + version + ": " + file);
+            }
+            String worldName = raf.readUTF();
+            int undoCount = raf.readInt();
+            int redoCount = raf.readInt();
+            long redoOffset = raf.readLong();
+            return new JournalHistory(file, worldName, undoCount, redoCount, raf.getFilePointer(), redoOffset);
+        }
+    }
+
+    private static int writeSection(FileChannel channel, Iterator<Change> changes, boolean undo) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        DeflaterOutputStream deflated = new DeflaterOutputStream(Channels.newOutputStream(channel), deflater);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(deflated));
+        Object2IntMap<BaseBlock> blockPalette = new Object2IntOpenHashMap<>();
+        blockPalette.defaultReturnValue(-1);
+        Object2IntMap<BiomeType> biomePalette = new Object2IntOpenHashMap<>();
+        biomePalette.defaultReturnValue(-1);
+        BlockVector3 last = BlockVector3.ZERO;
+        int count = 0;
+
+        try {
+            while (changes.hasNext()) {
+                Change change = changes.next();
+                if (change instanceof BlockChange) {
+                    BlockChange blockChange = (BlockChange) change;
+                    BaseBlock block = undo ? blockChange.getPrevious() : blockChange.getCurrent();
+                    out.writeByte(BLOCK);
+                    last = writePosition(out, last, blockChange.getPosition());
+                    int id = blockPalette.getInt(block);
+                    if (id == -1) {
+                        id = blockPalette.size();
+                        blockPalette.put(block, id);
+                        writeVarInt(out, id);
+                        writeBlock(out, block);
+                    } else {
+                        writeVarInt(out, id);
+                    }
+                } else if (change instanceof BiomeChange3D) {
+                    BiomeChange3D biomeChange = (BiomeChange3D) change;
+                    BiomeType biome = undo ? biomeChange.getPrevious() : biomeChange.getCurrent();
+                    out.writeByte(BIOME);
+                    last = writePosition(out, last, biomeChange.getPosition());
+                    int id = biomePalette.getInt(biome);
+                    if (id == -1) {
+                        id = biomePalette.size();
+                        biomePalette.put(biome, id);
+                        writeVarInt(out, id);
+                        out.writeUTF(biome.getId());
+                    } else {
+                        writeVarInt(out, id);
+                    }
+                } else {
+                    continue;
+                }
+                count++;
+            }
+            out.flush();
+            deflated.finish();
+        } finally {
+            deflater.end();
+            if (changes instanceof Closeable) {
+                ((Closeable) changes).close();
+            }
+        }
+        return count;
+    }
+
+    private static void writeBlock(DataOutputStream out, BaseBlock block) throws IOException {
+        out.writeUTF(block.toImmutableState().getAsString());
+        CompoundTag nbt = block.getNbtData();
+        out.writeBoolean(nbt != null);
+        if (nbt != null) {
+            // not closed, as that would close the journal
+            new NBTOutputStream(out).writeNamedTag("", nbt);
+        }
+    }
+
+    private static BlockVector3 writePosition(DataOutputStream out, BlockVector3 last, BlockVector3 position) throws IOException {
+        writeVarInt(out, zigZag(position.getX() - last.getX()));
+        writeVarInt(out, zigZag(position.getY() - last.getY()));
+        writeVarInt(out, zigZag(position.getZ() - last.getZ()));
+        return position;
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 28) {
+                throw new IOException("VarInt too long");
+            }
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private final Path file;
+    private final String worldName;
+    private final int undoCount;
+    private final int redoCount;
+    private final long undoOffset;
+    private final long redoOffset;
+
+    private JournalHistory(Path file, String worldName, int undoCount, int redoCount, long undoOffset, long redoOffset) {
+        this.file = file;
+        this.worldName = worldName;
+        this.undoCount = undoCount;
+        this.redoCount = redoCount;
+        this.undoOffset = undoOffset;
+        this.redoOffset = redoOffset;
+    }
+
+    /**
+     * Get the journal file.
+     *
+     * @return the file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Get the name of the world the changes were made in.
+     *
+     * @return the world name
+     */
+    public String getWorldName() {
+        return worldName;
+    }
+
+    /**
+     * Journals cannot be added to, so this does nothing.
+     *
+     * @param change the change
+     */
+    @Override
+    public void add(Change change) {
+        checkNotNull(change);
+    }
+
+    @Override
+    public boolean isRecordingChanges() {
+        return false;
+    }
+
+    @Override
+    public void setRecordChanges(boolean recordChanges) {
+        checkArgument(!recordChanges, "Journals cannot record changes");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The iterator throws an {@link UncheckedIOException} if the journal
+     * cannot be read. It is {@link Closeable}, and keeps the journal open
+     * until it is closed or all changes have been read.</p>
+     */
+    @Override
+    public Iterator<Change> backwardIterator() {
+        return new SectionIterator(undoOffset, undoCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The iterator throws an {@link UncheckedIOException} if the journal
+     * cannot be read. It is {@link Closeable}, and keeps the journal open
+     * until it is closed or all changes have been read.</p>
+     */
+    @Override
+    public Iterator<Change> forwardIterator() {
+        return new SectionIterator(redoOffset, redoCount);
+    }
+
+    @Override
+    public int size() {
+        return undoCount;
+    }
+
+    /**
+     * Reads the records of one section in order, closing the file once the
+     * last record has been read or the iterator is closed.
+     */
+    private final class SectionIterator extends AbstractIterator<Change> implements Closeable {
+
+        private final long offset;
+        private int remaining;
+        private DataInputStream in;
+        private final List<BaseBlock> blockPalette = new ArrayList<>();
+        private final List<BiomeType> biomePalette = new ArrayList<>();
+        private BlockVector3 last = BlockVector3.ZERO;
+        private ParserContext parserContext;
+
+        private SectionIterator(long offset, int count) {
+            this.offset = offset;
+            this.remaining = count;
+        }
+
+        @Override
+        protected Change computeNext() {
+            try {
+                while (remaining > 0) {
+                    remaining--;
+                    if (in == null) {
+                        open();
+                    }
+                    Change change = readChange();
+                    if (remaining == 0) {
+                        closeQuietly();
+                    }
+                    if (change != null) {
+                        return change;
+                    }
+                }
+                closeQuietly();
+                return endOfData();
+            } catch (IOException e) {
+                closeQuietly();
+                throw new UncheckedIOException("Failed to read history journal " + file, e);
+            }
+        }
+
+        private void open() throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            channel.position(offset);
+            InputStream stream = new InflaterInputStream(Channels.newInputStream(channel));
+            in = new DataInputStream(new BufferedInputStream(stream));
+        }
+
+        private Change readChange() throws IOException {
+            int kind = in.readUnsignedByte();
+            BlockVector3 position = readPosition();
+            int id = readVarInt(in);
+            switch (kind) {
+                case BLOCK:
+                    if (id == blockPalette.size()) {
+                        blockPalette.add(readBlock());
+                    }
+                    BaseBlock block = blockPalette.get(id);
+                    return block == null ? null : new BlockChange(position, block, block);
+                case BIOME:
+                    if (id == biomePalette.size()) {
+                        String biomeId = in.readUTF();
+                        BiomeType biome = BiomeType.REGISTRY.get(biomeId);
+                        if (biome == null) {
+                            LOGGER.warn("Unknown biome {} in history journal {} will be skipped", biomeId, file);
+                        }
+                        biomePalette.add(biome);
+                    }
+                    BiomeType biome = biomePalette.get(id);
+                    return biome == null ? null : new BiomeChange3D(position, biome, biome);
+                default:
+                    throw new IOException("Unknown record type " + kind);
+            }
+        }
+
+        private BlockVector3 readPosition() throws IOException {
+            last = last.add(
+                unZigZag(readVarInt(in)),
+                unZigZag(readVarInt(in)),
+                unZigZag(readVarInt(in))
+            );
+            return last;
+        }
+
+        private BaseBlock readBlock() throws IOException {
+            String stateString = in.readUTF();
+            CompoundTag nbt = null;
+            if (in.readBoolean()) {
+                Tag tag = new NBTInputStream(in).readNamedTag().getTag();
+                if (!(tag instanceof CompoundTag)) {
+                    throw new IOException("Expected a compound tag for block entity data");
+                }
+                nbt = (CompoundTag) tag;
+            }
+            if (parserContext == null) {
+                parserContext = new ParserContext();
+                parserContext.setRestricted(false);
+                parserContext.setTryLegacy(false);
+                parserContext.setPreferringWildcard(false);
+            }
+            BlockState state;
+            try {
+                state = WorldEdit.getInstance().getBlockFactory().parseFromInput(stateString, parserContext).toImmutableState();
+            } catch (InputParseException e) {
+                LOGGER.warn("Unknown block {} in history journal {} will be skipped", stateString, file);
+                return null;
+            }
+            return state.toBaseBlock(nbt);
+        }
+
+        @Override
+        public void close() {
+            remaining = 0;
+            closeQuietly();
+        }
+
+        private void closeQuietly() {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+                in = null;
+            }
+        }
+
+    }
+
+}
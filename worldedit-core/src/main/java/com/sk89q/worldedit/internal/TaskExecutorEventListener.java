@@ -0,0 +1,46 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal;
+
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.event.platform.ConfigurationLoadEvent;
+import com.sk89q.worldedit.util.concurrency.FairTaskExecutor;
+import com.sk89q.worldedit.util.eventbus.Subscribe;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Applies the configured limits to the task executor whenever the
+ * configuration is loaded.
+ */
+public class TaskExecutorEventListener {
+
+    private final FairTaskExecutor executor;
+
+    public TaskExecutorEventListener(FairTaskExecutor executor) {
+        this.executor = checkNotNull(executor);
+    }
+
+    @Subscribe
+    public void onConfigLoad(ConfigurationLoadEvent event) {
+        LocalConfiguration config = event.getConfiguration();
+        executor.setLimits(Math.max(1, config.taskExecutorThreads), Math.max(1, config.taskExecutorQueueSize));
+    }
+}
@@ -19,6 +19,9 @@
 
 package com.sk89q.worldedit.internal.anvil;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonIOException;
@@ -34,17 +37,32 @@
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -53,6 +71,8 @@ public final class ChunkDeleter {
 
     public static final String DELCHUNKS_FILE_NAME = "delete_chunks.json";
     private static final Logger LOGGER = LogManagerCompat.getLogger();
+    private static final int DEFAULT_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final long REPORT_INTERVAL_SECONDS = 10;
 
     private static final Comparator<BlockVector2> chunkSorter = Comparator.comparing(
         pos -> (pos.getBlockX() & 31) + (pos.getBlockZ() & 31) * 32
@@ -86,9 +106,9 @@ public static void runFromFile(Path chunkFile, boolean deleteOnSuccess) {
         LOGGER.info("Found chunk deletions. Proceeding with deletion...");
         long start = System.currentTimeMillis();
         if (chunkDeleter.runDeleter()) {
-            LOGGER.info("Successfully deleted {} matching chunks (out of {}, taking {} ms).",
+            LOGGER.info("Successfully deleted {} matching chunks (out of {}, freeing {} KiB, taking {} ms).",
                     chunkDeleter.getDeletedChunkCount(), chunkDeleter.getDeletionsRequested(),
-                    System.currentTimeMillis() - start);
+                    chunkDeleter.getReclaimedBytes() / 1024, System.currentTimeMillis() - start);
             if (deleteOnSuccess) {
                 boolean deletedFile = false;
                 try {
@@ -118,44 +138,295 @@ private static ChunkDeleter createFromFile(Path chunkFile) throws IOException {
         return new ChunkDeleter(info);
     }
 
+    /**
+     * Work out how many chunks, and how many bytes of region files, a batch
+     * would reclaim, both for each of its predicates and for all of them
+     * together. No files are changed.
+     *
+     * @param chunkBatch the batch
+     * @param threads the number of regions to read at once, or 0 for the default
+     * @return the estimate
+     * @throws IOException if a region file could not be read
+     */
+    public static ChunkDeletionEstimate estimate(ChunkDeletionInfo.ChunkBatch chunkBatch, int threads) throws IOException {
+        List<ChunkDeletionInfo.DeletionPredicate> predicateInfos = chunkBatch.deletionPredicates == null
+            ? Collections.emptyList() : chunkBatch.deletionPredicates;
+        List<BiPredicate<RegionAccess, BlockVector2>> predicates = predicateInfos.stream()
+            .map(ChunkDeleter::createPredicate)
+            .collect(Collectors.toList());
+        Map<Path, Stream<BlockVector2>> regionToChunkList = groupChunks(chunkBatch);
+        // Index 0 holds the chunks matching every predicate, the rest one predicate each
+        AtomicLongArray chunkCounts = new AtomicLongArray(predicates.size() + 1);
+        AtomicLongArray byteCounts = new AtomicLongArray(predicates.size() + 1);
+
+        int regions = 0;
+        ExecutorService executor = createExecutor(threads);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (Map.Entry<Path, Stream<BlockVector2>> entry : regionToChunkList.entrySet()) {
+                futures.add(executor.submit(() -> estimateRegion(entry.getKey(), entry.getValue(), predicates, chunkCounts, byteCounts)));
+            }
+            for (Future<Boolean> future : futures) {
+                try {
+                    if (Uninterruptibles.getUninterruptibly(future)) {
+                        regions++;
+                    }
+                } catch (ExecutionException e) {
+                    Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+                    Throwables.throwIfUnchecked(e.getCause());
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<ChunkDeletionEstimate.PredicateEstimate> predicateEstimates = new ArrayList<>();
+        for (int i = 0; i < predicateInfos.size(); i++) {
+            ChunkDeletionInfo.DeletionPredicate predicate = predicateInfos.get(i);
+            predicateEstimates.add(new ChunkDeletionEstimate.PredicateEstimate(
+                predicate.property + " " + predicate.comparison + " " + predicate.value,
+                chunkCounts.get(i + 1), byteCounts.get(i + 1)));
+        }
+        return new ChunkDeletionEstimate(regions, chunkCounts.get(0), byteCounts.get(0), predicateEstimates);
+    }
+
+    private static boolean estimateRegion(Path regionPath, Stream<BlockVector2> chunks,
+                                          List<BiPredicate<RegionAccess, BlockVector2>> predicates,
+                                          AtomicLongArray chunkCounts, AtomicLongArray byteCounts) throws IOException {
+        if (!Files.exists(regionPath)) {
+            return false;
+        }
+        try (RegionAccess region = new RegionAccess(regionPath, true, true)) {
+            for (Iterator<BlockVector2> iterator = chunks.iterator(); iterator.hasNext();) {
+                BlockVector2 chunk = iterator.next();
+                if (chunk == null) {
+                    break;
+                }
+                int sectors = region.getChunkSize(chunk);
+                if (sectors == 0) {
+                    // Not generated, so there is nothing to reclaim
+                    continue;
+                }
+                long bytes = (long) sectors * RegionAccess.SECTOR_BYTES;
+                boolean matchesAll = true;
+                for (int i = 0; i < predicates.size(); i++) {
+                    if (predicates.get(i).test(region, chunk)) {
+                        chunkCounts.incrementAndGet(i + 1);
+                        byteCounts.addAndGet(i + 1, bytes);
+                    } else {
+                        matchesAll = false;
+                    }
+                }
+                if (matchesAll) {
+                    chunkCounts.incrementAndGet(0);
+                    byteCounts.addAndGet(0, bytes);
+                }
+            }
+        }
+        return true;
+    }
+
+    private static ExecutorService createExecutor(int threads) {
+        return Executors.newFixedThreadPool(threads > 0 ? threads : DEFAULT_THREADS, new ThreadFactoryBuilder()
+            .setNameFormat("WorldEdit Chunk Deleter - %d")
+            .setDaemon(true)
+            .build());
+    }
+
     private final ChunkDeletionInfo chunkDeletionInfo;
-    private final Set<Path> backedUpRegions = new HashSet<>();
-    private boolean shouldPreload;
-    private int debugRate = 100;
-    private int totalChunksDeleted = 0;
+    private final Set<Path> backedUpRegions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean aborted = new AtomicBoolean();
+    private final AtomicInteger totalChunksDeleted = new AtomicInteger();
+    private final AtomicLong bytesReclaimed = new AtomicLong();
     private int deletionsRequested = 0;
 
     private boolean runDeleter() {
-        return chunkDeletionInfo.batches.stream().allMatch(this::runBatch);
+        ExecutorService executor = createExecutor(chunkDeletionInfo.threads);
+        try {
+            for (ChunkDeletionInfo.ChunkBatch batch : chunkDeletionInfo.batches) {
+                if (!runBatch(batch, executor)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
-    private boolean runBatch(ChunkDeletionInfo.ChunkBatch chunkBatch) {
+    private boolean runBatch(ChunkDeletionInfo.ChunkBatch chunkBatch, ExecutorService executor) {
         int chunkCount = chunkBatch.getChunkCount();
         LOGGER.debug("Processing deletion batch with {} chunks.", chunkCount);
         final Map<Path, Stream<BlockVector2>> regionToChunkList = groupChunks(chunkBatch);
         BiPredicate<RegionAccess, BlockVector2> predicate = createPredicates(chunkBatch.deletionPredicates);
-        shouldPreload = chunkBatch.chunks == null;
+        boolean shouldPreload = chunkBatch.chunks == null;
         deletionsRequested += chunkCount;
-        debugRate = chunkCount / 10;
 
-        return regionToChunkList.entrySet().stream().allMatch(entry -> {
-            Path regionPath = entry.getKey();
-            if (!Files.exists(regionPath)) {
-                return true;
+        // Every region is in one entry only, so the regions are worked on independently
+        CompletionService<Boolean> completion = new ExecutorCompletionService<>(executor);
+        for (Map.Entry<Path, Stream<BlockVector2>> entry : regionToChunkList.entrySet()) {
+            completion.submit(() -> processRegion(entry.getKey(), entry.getValue(), predicate,
+                chunkBatch.backup, shouldPreload));
+        }
+        return awaitRegions(completion, regionToChunkList.size());
+    }
+
+    private boolean awaitRegions(CompletionService<Boolean> completion, int regionCount) {
+        long start = System.nanoTime();
+        long lastReport = start;
+        int startChunks = totalChunksDeleted.get();
+        boolean success = true;
+        for (int done = 0; done < regionCount;) {
+            Future<Boolean> future;
+            try {
+                future = completion.poll(REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                aborted.set(true);
+                return false;
             }
-            if (chunkBatch.backup && !backedUpRegions.contains(regionPath)) {
+            if (future != null) {
+                done++;
                 try {
-                    backupRegion(regionPath);
-                } catch (IOException e) {
-                    LOGGER.warn("Error backing up region file: " + regionPath + ". Aborting the process.", e);
-                    return false;
+                    success &= future.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    LOGGER.warn("Error deleting chunks. Aborting the process.", e);
+                    aborted.set(true);
+                    success = false;
                 }
             }
-            return deleteChunks(regionPath, entry.getValue(), predicate);
-        });
+            long now = System.nanoTime();
+            if (now - lastReport >= TimeUnit.SECONDS.toNanos(REPORT_INTERVAL_SECONDS)) {
+                lastReport = now;
+                int chunks = totalChunksDeleted.get() - startChunks;
+                LOGGER.info("Processed {}/{} regions, deleted {} chunks so far ({} chunks/s, {} KiB freed).",
+                    done, regionCount, chunks, chunks * 1_000_000_000L / (now - start), bytesReclaimed.get() / 1024);
+            }
+        }
+        return success;
     }
 
-    private Map<Path, Stream<BlockVector2>> groupChunks(ChunkDeletionInfo.ChunkBatch chunkBatch) {
+    private boolean processRegion(Path regionPath, Stream<BlockVector2> chunks,
+                                  BiPredicate<RegionAccess, BlockVector2> predicate,
+                                  boolean backup, boolean shouldPreload) {
+        if (aborted.get()) {
+            return false;
+        }
+        if (!Files.exists(regionPath)) {
+            return true;
+        }
+        boolean linked = false;
+        if (backup && backedUpRegions.add(regionPath)) {
+            try {
+                linked = backupRegion(regionPath);
+            } catch (IOException e) {
+                LOGGER.warn("Error backing up region file: " + regionPath + ". Aborting the process.", e);
+                aborted.set(true);
+                return false;
+            }
+        }
+        // A linked backup shares its data with the region, so the region has to be replaced rather than changed
+        boolean success = linked
+            ? rewriteChunks(regionPath, chunks, predicate)
+            : deleteChunks(regionPath, chunks, predicate, shouldPreload);
+        if (!success) {
+            aborted.set(true);
+        }
+        return success;
+    }
+
+    /**
+     * Back up a region file, as a hard link where the file system supports
+     * them, or as a copy otherwise.
+     *
+     * @return true if the backup is a hard link
+     */
+    private static boolean backupRegion(Path regionFile) throws IOException {
+        Path backupFile = regionFile.resolveSibling(regionFile.getFileName() + ".bak");
+        Files.deleteIfExists(backupFile);
+        try {
+            Files.createLink(backupFile, regionFile);
+            return true;
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(regionFile, backupFile, StandardCopyOption.REPLACE_EXISTING);
+            return false;
+        }
+    }
+
+    private boolean deleteChunks(Path regionFile, Stream<BlockVector2> chunks,
+                                 BiPredicate<RegionAccess, BlockVector2> deletionPredicate, boolean shouldPreload) {
+        try (RegionAccess region = new RegionAccess(regionFile, shouldPreload)) {
+            for (Iterator<BlockVector2> iterator = chunks.iterator(); iterator.hasNext();) {
+                BlockVector2 chunk = iterator.next();
+                if (chunk == null) {
+                    break;
+                }
+                if (deletionPredicate.test(region, chunk)) {
+                    bytesReclaimed.addAndGet((long) region.getChunkSize(chunk) * RegionAccess.SECTOR_BYTES);
+                    region.deleteChunk(chunk);
+                    totalChunksDeleted.incrementAndGet();
+                } else {
+                    LOGGER.debug("Chunk did not match predicates: " + chunk);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Error deleting chunks from region: " + regionFile + ". Aborting the process.", e);
+            return false;
+        }
+    }
+
+    /**
+     * Delete chunks by writing the rest of the region to a new file, which
+     * then replaces the region. This also gives back the space of the
+     * deleted chunks.
+     */
+    private boolean rewriteChunks(Path regionFile, Stream<BlockVector2> chunks,
+                                  BiPredicate<RegionAccess, BlockVector2> deletionPredicate) {
+        Path tempFile = regionFile.resolveSibling(regionFile.getFileName() + ".tmp");
+        int deletedCount = 0;
+        long deletedBytes = 0;
+        try {
+            try (RegionAccess region = new RegionAccess(regionFile, true, true)) {
+                BitSet deleted = new BitSet(1024);
+                for (Iterator<BlockVector2> iterator = chunks.iterator(); iterator.hasNext();) {
+                    BlockVector2 chunk = iterator.next();
+                    if (chunk == null) {
+                        break;
+                    }
+                    if (deletionPredicate.test(region, chunk)) {
+                        deletedBytes += (long) region.getChunkSize(chunk) * RegionAccess.SECTOR_BYTES;
+                        deleted.set(RegionAccess.indexChunk(chunk));
+                        deletedCount++;
+                    } else {
+                        LOGGER.debug("Chunk did not match predicates: " + chunk);
+                    }
+                }
+                if (deleted.isEmpty()) {
+                    return true;
+                }
+                region.copyTo(tempFile, deleted);
+            }
+            try {
+                Files.move(tempFile, regionFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, regionFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Error deleting chunks from region: " + regionFile + ". Aborting the process.", e);
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+            }
+            return false;
+        }
+        totalChunksDeleted.addAndGet(deletedCount);
+        bytesReclaimed.addAndGet(deletedBytes);
+        return true;
+    }
+
+    private static Map<Path, Stream<BlockVector2>> groupChunks(ChunkDeletionInfo.ChunkBatch chunkBatch) {
         Path worldPath = Paths.get(chunkBatch.worldPath);
         if (chunkBatch.chunks != null) {
             return chunkBatch.chunks.stream()
@@ -203,17 +474,17 @@ private Map<Path, Stream<BlockVector2>> groupChunks(ChunkDeletionInfo.ChunkBatch
         }
     }
 
-    private BiPredicate<RegionAccess, BlockVector2> createPredicates(List<ChunkDeletionInfo.DeletionPredicate> deletionPredicates) {
+    private static BiPredicate<RegionAccess, BlockVector2> createPredicates(List<ChunkDeletionInfo.DeletionPredicate> deletionPredicates) {
         if (deletionPredicates == null) {
             return (r, p) -> true;
         }
         return deletionPredicates.stream()
-                .map(this::createPredicate)
+                .map(ChunkDeleter::createPredicate)
                 .reduce(BiPredicate::and)
                 .orElse((r, p) -> true);
     }
 
-    private BiPredicate<RegionAccess, BlockVector2> createPredicate(ChunkDeletionInfo.DeletionPredicate deletionPredicate) {
+    private static BiPredicate<RegionAccess, BlockVector2> createPredicate(ChunkDeletionInfo.DeletionPredicate deletionPredicate) {
         if ("modification".equals(deletionPredicate.property)) {
             int time;
             try {
@@ -245,45 +516,23 @@ private BiPredicate<RegionAccess, BlockVector2> createPredicate(ChunkDeletionInf
         throw new IllegalStateException("Unexpected property value: " + deletionPredicate.property);
     }
 
-    private void backupRegion(Path regionFile) throws IOException {
-        Path backupFile = regionFile.resolveSibling(regionFile.getFileName() + ".bak");
-        Files.copy(regionFile, backupFile, StandardCopyOption.REPLACE_EXISTING);
-        backedUpRegions.add(backupFile);
-    }
-
-    private boolean deleteChunks(Path regionFile, Stream<BlockVector2> chunks,
-                                 BiPredicate<RegionAccess, BlockVector2> deletionPredicate) {
-        try (RegionAccess region = new RegionAccess(regionFile, shouldPreload)) {
-            for (Iterator<BlockVector2> iterator = chunks.iterator(); iterator.hasNext();) {
-                BlockVector2 chunk = iterator.next();
-                if (chunk == null) {
-                    break;
-                }
-                if (deletionPredicate.test(region, chunk)) {
-                    region.deleteChunk(chunk);
-                    totalChunksDeleted++;
-                    if (debugRate != 0 && totalChunksDeleted % debugRate == 0) {
-                        LOGGER.debug("Deleted {} chunks so far.", totalChunksDeleted);
-                    }
-                } else {
-                    LOGGER.debug("Chunk did not match predicates: " + chunk);
-                }
-            }
-            return true;
-        } catch (IOException e) {
-            LOGGER.warn("Error deleting chunks from region: " + regionFile + ". Aborting the process.", e);
-            return false;
-        }
-    }
-
     public int getDeletedChunkCount() {
-        return totalChunksDeleted;
+        return totalChunksDeleted.get();
     }
 
     public int getDeletionsRequested() {
         return deletionsRequested;
     }
 
+    /**
+     * Get the number of bytes of region files taken by the deleted chunks.
+     *
+     * @return the number of bytes
+     */
+    public long getReclaimedBytes() {
+        return bytesReclaimed.get();
+    }
+
     private static class BlockVector2Adapter extends TypeAdapter<BlockVector2> {
         @Override
         public void write(JsonWriter out, BlockVector2 value) throws IOException {
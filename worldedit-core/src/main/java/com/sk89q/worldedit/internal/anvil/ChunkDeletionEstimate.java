@@ -0,0 +1,107 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.anvil;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Internal class. Subject to changes.
+ *
+ * <p>How many chunks, and how many bytes of region files, a batch of
+ * deletions would reclaim.</p>
+ */
+public class ChunkDeletionEstimate {
+
+    private final int regions;
+    private final long chunks;
+    private final long bytes;
+    private final List<PredicateEstimate> predicates;
+
+    ChunkDeletionEstimate(int regions, long chunks, long bytes, List<PredicateEstimate> predicates) {
+        this.regions = regions;
+        this.chunks = chunks;
+        this.bytes = bytes;
+        this.predicates = ImmutableList.copyOf(predicates);
+    }
+
+    /**
+     * Get the number of region files that were scanned.
+     *
+     * @return the number of regions
+     */
+    public int getRegions() {
+        return regions;
+    }
+
+    /**
+     * Get the number of generated chunks that match all predicates.
+     *
+     * @return the number of chunks
+     */
+    public long getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Get the number of bytes taken by the chunks that match all predicates.
+     *
+     * @return the number of bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Get the chunks matched by each predicate on its own, in the order
+     * of the batch.
+     *
+     * @return the estimate for each predicate
+     */
+    public List<PredicateEstimate> getPredicates() {
+        return predicates;
+    }
+
+    public static class PredicateEstimate {
+
+        private final String description;
+        private final long chunks;
+        private final long bytes;
+
+        PredicateEstimate(String description, long chunks, long bytes) {
+            this.description = description;
+            this.chunks = chunks;
+            this.bytes = bytes;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public long getChunks() {
+            return chunks;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
@@ -29,6 +29,8 @@
 public class ChunkDeletionInfo {
 
     public List<ChunkBatch> batches;
+    // number of regions to work on at once, or 0 for the default
+    public int threads;
 
     public static class ChunkBatch {
         public String worldPath;
@@ -23,13 +23,24 @@
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Internal class. Subject to changes.
  */
 class RegionAccess implements AutoCloseable {
 
+    static final int SECTOR_BYTES = 4096;
+
     private final RandomAccessFile raf;
     private int[] offsets;
     private int[] timestamps;
@@ -39,7 +50,11 @@ class RegionAccess implements AutoCloseable {
     }
 
     RegionAccess(Path file, boolean preload) throws IOException {
-        raf = new RandomAccessFile(file.toFile(), "rw");
+        this(file, preload, false);
+    }
+
+    RegionAccess(Path file, boolean preload, boolean readOnly) throws IOException {
+        raf = new RandomAccessFile(file.toFile(), readOnly ? "r" : "rw");
         if (preload) {
             readHeaders();
         }
@@ -56,7 +71,7 @@ private void readHeaders() throws IOException {
         }
     }
 
-    private static int indexChunk(BlockVector2 pos) {
+    static int indexChunk(BlockVector2 pos) {
         int x = pos.getBlockX() & 31;
         int z = pos.getBlockZ() & 31;
         return x + z * 32;
@@ -94,6 +109,64 @@ void deleteChunk(BlockVector2 pos) throws IOException {
         }
     }
 
+    /**
+     * Write a copy of the region to another file, leaving out some chunks
+     * and packing the rest together. The headers must have been preloaded.
+     *
+     * @param target the file to write
+     * @param deleted the indexes of the chunks to leave out
+     * @throws IOException if the region could not be copied
+     */
+    void copyTo(Path target, BitSet deleted) throws IOException {
+        checkState(offsets != null, "Headers are not loaded");
+        // Copy in the order of the source file, so that it is read sequentially
+        List<Integer> order = new ArrayList<>();
+        for (int idx = 0; idx < 1024; ++idx) {
+            if (offsets[idx] != 0 && !deleted.get(idx)) {
+                order.add(idx);
+            }
+        }
+        order.sort(Comparator.comparingInt(idx -> offsets[idx] >>> 8));
+
+        ByteBuffer header = ByteBuffer.allocate(SECTOR_BYTES * 2);
+        FileChannel in = raf.getChannel();
+        long inSize = in.size();
+        try (FileChannel out = FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int nextSector = 2;
+            out.position((long) nextSector * SECTOR_BYTES);
+            for (int idx : order) {
+                int sectorCount = offsets[idx] & 0xFF;
+                long start = (long) (offsets[idx] >>> 8) * SECTOR_BYTES;
+                if (start < SECTOR_BYTES * 2 || start >= inSize) {
+                    // Points into the header or past the end, so it could not be read anyway
+                    continue;
+                }
+                long length = Math.min((long) sectorCount * SECTOR_BYTES, inSize - start);
+                while (length > 0) {
+                    long copied = in.transferTo(start, length, out);
+                    if (copied <= 0) {
+                        throw new IOException("Region file ended while copying chunk " + idx);
+                    }
+                    start += copied;
+                    length -= copied;
+                }
+                header.putInt(idx * 4, (nextSector << 8) | sectorCount);
+                header.putInt(SECTOR_BYTES + idx * 4, timestamps[idx]);
+                nextSector += sectorCount;
+            }
+            // Keep the file a whole number of sectors long
+            long end = (long) nextSector * SECTOR_BYTES;
+            if (out.size() < end) {
+                out.write(ByteBuffer.allocate(1), end - 1);
+            }
+            out.position(0);
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+        }
+    }
+
     @Override
     public void close() throws IOException {
         raf.close();
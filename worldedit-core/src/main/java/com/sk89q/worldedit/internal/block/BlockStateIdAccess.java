@@ -21,8 +21,8 @@
 
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.registry.BlockRegistry;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.OptionalInt;
 import javax.annotation.Nullable;
@@ -33,12 +33,8 @@ public final class BlockStateIdAccess {
 
     private static final int INVALID_ID = -1;
     private static final int EXPECTED_BLOCK_COUNT = 2 << 13;
-    private static final Int2ObjectOpenHashMap<BlockState> TO_STATE =
-        new Int2ObjectOpenHashMap<>(EXPECTED_BLOCK_COUNT);
-
-    static {
-        TO_STATE.defaultReturnValue(null);
-    }
+    private static BlockState[] toState = new BlockState[EXPECTED_BLOCK_COUNT];
+    private static volatile int generation;
 
     public interface BlockStateInternalId {
         int getInternalId(BlockState blockState);
@@ -69,7 +65,28 @@ public static int getBlockStateId(BlockState holder) {
     }
 
     public static @Nullable BlockState getBlockStateById(int id) {
-        return TO_STATE.get(id);
+        BlockState[] states = toState;
+        return id >= 0 && id < states.length ? states[id] : null;
+    }
+
+    /**
+     * Get the number of internal IDs in use, which is one more than
+     * the highest registered ID.
+     *
+     * @return the size of the internal ID space
+     */
+    public static int size() {
+        return usedIds.length();
+    }
+
+    /**
+     * Get a counter that changes whenever the registered IDs are cleared.
+     * Caches keyed by internal ID must be discarded when it changes.
+     *
+     * @return the current generation
+     */
+    public static int getGeneration() {
+        return generation;
     }
 
     /**
@@ -93,16 +110,22 @@ public static void register(BlockState blockState, int id) {
             "BlockState %s is using the same block ID (%s) as BlockState %s",
             blockState, i, existing);
         blockStateInternalId.setInternalId(blockState, i);
-        TO_STATE.put(i, blockState);
+        if (i >= toState.length) {
+            toState = Arrays.copyOf(toState, Math.max(i + 1, toState.length * 2));
+        }
+        toState[i] = blockState;
         usedIds.set(i);
     }
 
     public static void clear() {
-        for (BlockState value : TO_STATE.values()) {
-            blockStateInternalId.setInternalId(value, invalidId());
+        for (BlockState value : toState) {
+            if (value != null) {
+                blockStateInternalId.setInternalId(value, invalidId());
+            }
         }
-        TO_STATE.clear();
+        Arrays.fill(toState, null);
         usedIds.clear();
+        generation++;
     }
 
     private BlockStateIdAccess() {
@@ -0,0 +1,97 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.block;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.sk89q.worldedit.world.block.BlockState;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Caches the platform representation of each {@link BlockState}, indexed by
+ * its internal ID.
+ *
+ * <p>Entries are converted lazily on first use. States without a valid
+ * internal ID are converted every time. The cache is discarded whenever
+ * the internal IDs are cleared.</p>
+ *
+ * @param <N> the native block state type
+ */
+public final class NativeBlockStateCache<N> {
+
+    private final Function<BlockState, N> converter;
+    private volatile Object[] cache = new Object[0];
+    private volatile int generation = BlockStateIdAccess.getGeneration();
+
+    /**
+     * Create a new cache.
+     *
+     * @param converter converts a block state to the native type
+     */
+    public NativeBlockStateCache(Function<BlockState, N> converter) {
+        this.converter = checkNotNull(converter);
+    }
+
+    /**
+     * Get the native block state for the given state.
+     *
+     * @param state the block state
+     * @return the native block state
+     */
+    @SuppressWarnings("unchecked")
+    public N toNative(BlockState state) {
+        int id = BlockStateIdAccess.getBlockStateId(state);
+        if (!BlockStateIdAccess.isValidInternalId(id)) {
+            return converter.apply(state);
+        }
+        Object[] cache = this.cache;
+        if (generation != BlockStateIdAccess.getGeneration()) {
+            cache = new Object[0];
+            this.cache = cache;
+            generation = BlockStateIdAccess.getGeneration();
+        }
+        if (id < cache.length) {
+            Object cached = cache[id];
+            if (cached != null) {
+                return (N) cached;
+            }
+        } else {
+            cache = Arrays.copyOf(cache, Math.max(id + 1, BlockStateIdAccess.size()));
+            this.cache = cache;
+        }
+        N converted = converter.apply(state);
+        cache[id] = converted;
+        return converted;
+    }
+
+    /**
+     * Get the number of internal IDs the cache has room for.
+     *
+     * @return the capacity
+     */
+    @VisibleForTesting
+    int capacity() {
+        return cache.length;
+    }
+
+}
@@ -20,6 +20,8 @@
 package com.sk89q.worldedit.internal.expression;
 
 import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 import static java.util.Objects.requireNonNull;
 
@@ -33,7 +35,9 @@ public class ExecutionData {
 
     private final SlotTable slots;
     private final Functions functions;
+    @Nullable
     private final Instant deadline;
+    private long deadlineNanos;
 
     public ExecutionData(SlotTable slots, Functions functions, Instant deadline) {
         this.slots = slots;
@@ -41,6 +45,28 @@ public ExecutionData(SlotTable slots, Functions functions, Instant deadline) {
         this.deadline = deadline;
     }
 
+    /**
+     * Create execution data that is reused for many evaluations. The
+     * deadline must be set with {@link #restartDeadline(int)} before each.
+     *
+     * @param slots the slots
+     * @param functions the functions
+     */
+    ExecutionData(SlotTable slots, Functions functions) {
+        this.slots = slots;
+        this.functions = functions;
+        this.deadline = null;
+    }
+
+    /**
+     * Set the deadline of reused execution data to some time from now.
+     *
+     * @param timeout the time until the deadline, in milliseconds
+     */
+    void restartDeadline(int timeout) {
+        deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    }
+
     public SlotTable getSlots() {
         return requireNonNull(slots, "Cannot use variables in a constant");
     }
@@ -50,11 +76,17 @@ public Functions getFunctions() {
     }
 
     public Instant getDeadline() {
+        if (deadline == null) {
+            return Instant.now().plusNanos(deadlineNanos - System.nanoTime());
+        }
         return deadline;
     }
 
     public void checkDeadline() {
-        if (Instant.now().isAfter(deadline)) {
+        boolean passed = deadline == null
+            ? System.nanoTime() - deadlineNanos > 0
+            : Instant.now().isAfter(deadline);
+        if (passed) {
             throw new ExpressionTimeoutException("Calculations exceeded time limit.");
         }
     }
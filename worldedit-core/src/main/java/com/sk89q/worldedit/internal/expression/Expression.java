@@ -36,6 +36,7 @@
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Compiles and evaluates expressions.
@@ -71,6 +72,7 @@ public class Expression {
     private final ExpressionParser.AllStatementsContext root;
     private final Functions functions = Functions.create();
     private final CompiledExpression compiledExpression;
+    private final boolean pure;
 
     public static Expression compile(String expression, String... variableNames) throws ExpressionException {
         return new Expression(expression, variableNames);
@@ -106,7 +108,9 @@ private Expression(String expression, String... variableNames) throws Expression
         } catch (ParseCancellationException e) {
             throw new ParserException(parser.getState(), e);
         }
-        ParseTreeWalker.DEFAULT.walk(new ExpressionValidator(slots.keySet(), functions), root);
+        ExpressionValidator validator = new ExpressionValidator(slots.keySet(), providedSlots, functions);
+        ParseTreeWalker.DEFAULT.walk(validator, root);
+        this.pure = validator.isPure();
         this.compiledExpression = new ExpressionCompiler().compileExpression(root, functions);
     }
 
@@ -133,6 +137,48 @@ public double evaluate(double[] values, int timeout) throws EvaluationException
         return result;
     }
 
+    /**
+     * Create an evaluator for evaluating this expression many times.
+     *
+     * <p>The evaluator shares this expression's variables, so it must not
+     * be used at the same time as {@link #evaluate(double[], int)} or
+     * another evaluator of this expression.</p>
+     *
+     * @param timeout the maximum time for each evaluation, in milliseconds
+     * @return the evaluator
+     */
+    public ExpressionEvaluator createEvaluator(int timeout) {
+        return new ExpressionEvaluator(compiledExpression, slots, functions, providedSlots, timeout);
+    }
+
+    /**
+     * Create an evaluator with its own copy of this expression's variables,
+     * which may be used on a different thread to other evaluators.
+     *
+     * @param timeout the maximum time for each evaluation, in milliseconds
+     * @return the evaluator
+     * @throws IllegalStateException if the expression is not {@linkplain #isPure() pure}
+     */
+    public ExpressionEvaluator createIsolatedEvaluator(int timeout) {
+        checkState(pure, "Only pure expressions can be evaluated in isolation");
+        return new ExpressionEvaluator(compiledExpression, slots.copy(), functions, providedSlots, timeout);
+    }
+
+    /**
+     * Get whether the result of this expression depends only on the values
+     * given for its provided variables.
+     *
+     * <p>A pure expression only assigns to provided variables, and calls no
+     * functions that keep state between evaluations or query the world. It
+     * can therefore be evaluated on several threads at once with
+     * {@linkplain #createIsolatedEvaluator(int) isolated evaluators}.</p>
+     *
+     * @return true if the expression is pure
+     */
+    public boolean isPure() {
+        return pure;
+    }
+
     public void optimize() {
         // TODO optimizing
     }
@@ -0,0 +1,135 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.sk89q.worldedit.internal.expression;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Evaluates an {@link Expression} many times, such as once for each block
+ * of a region.
+ *
+ * <p>The variables that values are provided for are looked up once, when the
+ * evaluator is created, and the execution state is reused between
+ * evaluations. Each evaluation still has its own timeout, as with
+ * {@link Expression#evaluate(double[], int)}.</p>
+ *
+ * <p>An evaluator must only be used by one thread at a time.</p>
+ */
+public final class ExpressionEvaluator {
+
+    private final CompiledExpression compiledExpression;
+    private final SlotTable slots;
+    private final LocalSlot.Variable[] providedSlots;
+    private final ExecutionData executionData;
+    private int timeout;
+
+    ExpressionEvaluator(CompiledExpression compiledExpression, SlotTable slots, Functions functions,
+                        List<String> providedSlots, int timeout) {
+        this.compiledExpression = compiledExpression;
+        this.slots = slots;
+        this.providedSlots = new LocalSlot.Variable[providedSlots.size()];
+        for (int i = 0; i < this.providedSlots.length; i++) {
+            String slotName = providedSlots.get(i);
+            this.providedSlots[i] = slots.getVariable(slotName)
+                .orElseThrow(() -> new IllegalStateException("Provided slot " + slotName + " is not a variable"));
+        }
+        this.executionData = new ExecutionData(slots, functions);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Get the slot table that this evaluator reads and assigns variables in.
+     *
+     * @return the slot table
+     */
+    public SlotTable getSlots() {
+        return slots;
+    }
+
+    /**
+     * Get one of the variables that values are provided for, in the order
+     * they were given when the expression was compiled.
+     *
+     * @param index the index of the variable
+     * @return the variable
+     */
+    public LocalSlot.Variable getProvidedSlot(int index) {
+        return providedSlots[index];
+    }
+
+    /**
+     * Set the maximum time for each evaluation.
+     *
+     * @param timeout the timeout, in milliseconds
+     */
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Evaluate the expression with the current values of its variables.
+     *
+     * @return the result
+     * @throws EvaluationException if the expression could not be evaluated
+     */
+    public double evaluate() throws EvaluationException {
+        executionData.restartDeadline(timeout);
+        // evaluation exceptions are thrown out of this method
+        Double result = compiledExpression.execute(executionData);
+        if (result == null) {
+            throw new EvaluationException(-1, "Expression must result in a value");
+        }
+        return result;
+    }
+
+    /**
+     * Evaluate the expression with three provided values.
+     *
+     * @param first the value of the first provided variable
+     * @param second the value of the second provided variable
+     * @param third the value of the third provided variable
+     * @return the result
+     * @throws EvaluationException if the expression could not be evaluated
+     */
+    public double evaluate(double first, double second, double third) throws EvaluationException {
+        checkArgument(providedSlots.length >= 3, "Expression has fewer than three provided variables");
+        providedSlots[0].setValue(first);
+        providedSlots[1].setValue(second);
+        providedSlots[2].setValue(third);
+        return evaluate();
+    }
+
+    /**
+     * Evaluate the expression with values for the first provided variables.
+     *
+     * @param values the values
+     * @return the result
+     * @throws EvaluationException if the expression could not be evaluated
+     */
+    public double evaluate(double... values) throws EvaluationException {
+        checkArgument(values.length <= providedSlots.length, "Too many values for the provided variables");
+        for (int i = 0; i < values.length; ++i) {
+            providedSlots[i].setValue(values[i]);
+        }
+        return evaluate();
+    }
+
+}
@@ -19,6 +19,7 @@
 
 package com.sk89q.worldedit.internal.expression;
 
+import com.google.common.collect.ImmutableSet;
 import com.sk89q.worldedit.antlr.ExpressionBaseListener;
 import com.sk89q.worldedit.antlr.ExpressionParser;
 
@@ -31,17 +32,52 @@
 
 class ExpressionValidator extends ExpressionBaseListener {
 
+    /**
+     * Functions that keep state between evaluations or read the world.
+     */
+    private static final Set<String> IMPURE_FUNCTIONS = ImmutableSet.of(
+        "megabuf", "gmegabuf", "closest", "gclosest", "query", "queryAbs", "queryRel"
+    );
+
+    /**
+     * Functions that assign to the variables passed as their first two
+     * arguments.
+     */
+    private static final Set<String> ASSIGNING_FUNCTIONS = ImmutableSet.of("rotate", "swap");
+
     private final Set<String> variableNames = new HashSet<>();
+    private final Set<String> providedNames;
     private final Functions functions;
+    private boolean pure = true;
 
     ExpressionValidator(Collection<String> variableNames,
+                        Collection<String> providedNames,
                         Functions functions) {
         this.variableNames.addAll(variableNames);
+        this.providedNames = ImmutableSet.copyOf(providedNames);
         this.functions = functions;
     }
 
+    /**
+     * Get whether the expression only assigns to provided variables and
+     * calls no functions that keep state, so that every evaluation depends
+     * only on the provided values.
+     *
+     * @return true if the expression is pure
+     */
+    boolean isPure() {
+        return pure;
+    }
+
     private void bindVariable(String name) {
         variableNames.add(name);
+        markAssigned(name);
+    }
+
+    private void markAssigned(String name) {
+        if (!providedNames.contains(name)) {
+            pure = false;
+        }
     }
 
     @Override
@@ -54,6 +90,16 @@ public void enterSimpleForStatement(ExpressionParser.SimpleForStatementContext c
         bindVariable(ctx.counter.getText());
     }
 
+    @Override
+    public void enterPreCrementExpr(ExpressionParser.PreCrementExprContext ctx) {
+        markAssigned(ctx.target.getText());
+    }
+
+    @Override
+    public void enterPostCrementExpr(ExpressionParser.PostCrementExprContext ctx) {
+        markAssigned(ctx.target.getText());
+    }
+
     @Override
     public void enterIdExpr(ExpressionParser.IdExprContext ctx) {
         String text = ctx.source.getText();
@@ -64,5 +110,13 @@ public void enterIdExpr(ExpressionParser.IdExprContext ctx) {
     @Override
     public void enterFunctionCall(ExpressionParser.FunctionCallContext ctx) {
         resolveFunction(functions, ctx);
+        String name = ctx.name.getText();
+        if (IMPURE_FUNCTIONS.contains(name)) {
+            pure = false;
+        } else if (ASSIGNING_FUNCTIONS.contains(name)) {
+            for (int i = 0; i < Math.min(2, ctx.args.size()); i++) {
+                markAssigned(ctx.args.get(i).getText());
+            }
+        }
     }
 }
@@ -56,6 +56,23 @@ public Optional<LocalSlot.Variable> getVariable(String name) {
             .map(LocalSlot.Variable.class::cast);
     }
 
+    /**
+     * Create a copy of this table. Variables are copied with their current
+     * values, so that setting them in one table does not affect the other.
+     *
+     * @return the copy
+     */
+    public SlotTable copy() {
+        SlotTable copy = new SlotTable();
+        for (Map.Entry<String, LocalSlot> entry : slots.entrySet()) {
+            LocalSlot slot = entry.getValue();
+            copy.slots.put(entry.getKey(), slot instanceof LocalSlot.Variable
+                ? new LocalSlot.Variable(slot.getValue())
+                : slot);
+        }
+        return copy;
+    }
+
     public OptionalDouble getSlotValue(String name) {
         LocalSlot slot = slots.get(name);
         return slot == null ? OptionalDouble.empty() : OptionalDouble.of(slot.getValue());
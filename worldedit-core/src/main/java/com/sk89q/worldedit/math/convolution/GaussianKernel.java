@@ -31,19 +31,21 @@ public class GaussianKernel extends Kernel {
      * @param sigma controls 'flatness'
      */
     public GaussianKernel(int radius, double sigma) {
-        super(radius * 2 + 1, radius * 2 + 1, createKernel(radius, sigma));
+        super(createRow(radius, sigma, Math.PI * 2 * sigma * sigma), createRow(radius, sigma, 1));
     }
 
-    private static float[] createKernel(int radius, double sigma) {
+    /**
+     * Create the weights along one axis. The weight of a cell is the
+     * product of its row's and its column's, as
+     * {@code exp(-(x * x + y * y) / s) = exp(-x * x / s) * exp(-y * y / s)}.
+     */
+    private static float[] createRow(int radius, double sigma, double constant) {
         int diameter = radius * 2 + 1;
-        float[] data = new float[diameter * diameter];
+        float[] data = new float[diameter];
 
         double sigma22 = 2 * sigma * sigma;
-        double constant = Math.PI * sigma22;
-        for (int y = -radius; y <= radius; ++y) {
-            for (int x = -radius; x <= radius; ++x) {
-                data[(y + radius) * diameter + x + radius] = (float) (Math.exp(-(x * x + y * y) / sigma22) / constant);
-            }
+        for (int x = -radius; x <= radius; ++x) {
+            data[x + radius] = (float) (Math.exp(-(x * x) / sigma22) / constant);
         }
 
         return data;
@@ -68,11 +68,7 @@ public HeightMap(EditSession session, Region region, @Nullable Mask mask) {
 
         // Store current heightmap data
         data = new int[width * height];
-        for (int z = 0; z < height; ++z) {
-            for (int x = 0; x < width; ++x) {
-                data[z * width + x] = session.getHighestTerrainBlock(x + minX, z + minZ, minY, maxY, mask);
-            }
-        }
+        session.getHighestTerrainBlocks(minX, minZ, width, height, minY, maxY, mask, data);
     }
 
     /**
@@ -86,14 +82,7 @@ public HeightMap(EditSession session, Region region, @Nullable Mask mask) {
     public int applyFilter(HeightMapFilter filter, int iterations) throws MaxChangedBlocksException {
         checkNotNull(filter);
 
-        int[] newData = new int[data.length];
-        System.arraycopy(data, 0, newData, 0, data.length);
-
-        for (int i = 0; i < iterations; ++i) {
-            newData = filter.filter(newData, width, height);
-        }
-
-        return apply(newData);
+        return apply(filter.filter(data, width, height, iterations));
     }
 
     /**
@@ -19,6 +19,13 @@
 
 package com.sk89q.worldedit.math.convolution;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -28,6 +35,12 @@
  */
 public class HeightMapFilter {
 
+    /**
+     * The number of cells above which rows are filtered on several threads.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int ROWS_PER_TASK = 16;
+
     private Kernel kernel;
 
     /**
@@ -80,18 +93,155 @@ public void setKernel(Kernel kernel) {
      * @return the modified height map
      */
     public int[] filter(int[] inData, int width, int height) {
+        return filter(inData, width, height, 1);
+    }
+
+    /**
+     * Filter with a 2D kernel several times, feeding the result of each
+     * pass into the next.
+     *
+     * @param inData the data, which is left unchanged
+     * @param width the width
+     * @param height the height
+     * @param iterations the number of times to filter
+     *
+     * @return the modified height map
+     */
+    public int[] filter(int[] inData, int width, int height, int iterations) {
         checkNotNull(inData);
+        checkArgument(iterations >= 0, "iterations must not be negative");
 
-        int index = 0;
-        float[] matrix = kernel.getKernelData(null);
+        int[] data = inData.clone();
+        if (iterations == 0) {
+            return data;
+        }
         int[] outData = new int[inData.length];
+        float[] rowData = kernel.isSeparable() ? new float[width * height] : null;
 
+        for (int i = 0; i < iterations; ++i) {
+            filter(data, outData, width, height, rowData);
+            int[] swap = data;
+            data = outData;
+            outData = swap;
+        }
+        return data;
+    }
+
+    private void filter(int[] inData, int[] outData, int width, int height, @Nullable float[] rowData) {
+        if (rowData != null) {
+            float[] row = kernel.getRowData(null);
+            float[] column = kernel.getColumnData(null);
+            int kox = kernel.getXOrigin();
+            int koy = kernel.getYOrigin();
+            forEachRows(width, height, (start, end) -> filterRows(inData, rowData, width, start, end, row, kox));
+            forEachRows(width, height, (start, end) -> filterColumns(rowData, outData, width, height, start, end, column, koy));
+        } else {
+            float[] matrix = kernel.getKernelData(null);
+            forEachRows(width, height, (start, end) -> filter2D(inData, outData, width, height, start, end, matrix));
+        }
+    }
+
+    /**
+     * Run a pass over every row, splitting the rows between the threads of
+     * the common pool if there are enough cells.
+     */
+    private static void forEachRows(int width, int height, RowRange pass) {
+        if ((long) width * height < PARALLEL_THRESHOLD) {
+            pass.apply(0, height);
+            return;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int start = 0; start < height; start += ROWS_PER_TASK) {
+            int taskStart = start;
+            int taskEnd = Math.min(height, start + ROWS_PER_TASK);
+            tasks.add(ForkJoinTask.adapt(() -> pass.apply(taskStart, taskEnd)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    /**
+     * Apply the weights along the width to some rows.
+     */
+    private static void filterRows(int[] inData, float[] outData, int width, int startY, int endY,
+                                   float[] row, int kox) {
+        int kw = row.length;
+        // Columns where every offset is inside the data, so nothing needs clamping
+        int innerStart = Math.min(width, kox);
+        int innerEnd = Math.max(innerStart, width - (kw - 1 - kox));
+        for (int y = startY; y < endY; ++y) {
+            int offset = y * width;
+            for (int x = 0; x < innerStart; ++x) {
+                outData[offset + x] = sumClamped(inData, offset, width, x, row, kox);
+            }
+            for (int x = innerStart; x < innerEnd; ++x) {
+                float z = 0;
+                int first = offset + x - kox;
+                for (int kx = 0; kx < kw; ++kx) {
+                    z += row[kx] * inData[first + kx];
+                }
+                outData[offset + x] = z;
+            }
+            for (int x = innerEnd; x < width; ++x) {
+                outData[offset + x] = sumClamped(inData, offset, width, x, row, kox);
+            }
+        }
+    }
+
+    private static float sumClamped(int[] inData, int offset, int width, int x, float[] row, int kox) {
+        float z = 0;
+        for (int kx = 0; kx < row.length; ++kx) {
+            int offsetX = x + kx - kox;
+            // Clamp coordinates inside data
+            if (offsetX < 0 || offsetX >= width) {
+                offsetX = x;
+            }
+            z += row[kx] * inData[offset + offsetX];
+        }
+        return z;
+    }
+
+    /**
+     * Apply the weights along the height to some rows of the output of
+     * {@link #filterRows(int[], float[], int, int, int, float[], int)}.
+     */
+    private static void filterColumns(float[] inData, int[] outData, int width, int height, int startY, int endY,
+                                      float[] column, int koy) {
+        float[] sums = new float[width];
+        for (int y = startY; y < endY; ++y) {
+            Arrays.fill(sums, 0);
+            for (int ky = 0; ky < column.length; ++ky) {
+                float f = column[ky];
+                if (f == 0) {
+                    continue;
+                }
+                int offsetY = y + ky - koy;
+                // Clamp coordinates inside data
+                if (offsetY < 0 || offsetY >= height) {
+                    offsetY = y;
+                }
+                offsetY *= width;
+                for (int x = 0; x < width; ++x) {
+                    sums[x] += f * inData[offsetY + x];
+                }
+            }
+            int offset = y * width;
+            for (int x = 0; x < width; ++x) {
+                outData[offset + x] = (int) (sums[x] + 0.5);
+            }
+        }
+    }
+
+    /**
+     * Apply a kernel that is not separable to some rows.
+     */
+    private void filter2D(int[] inData, int[] outData, int width, int height, int startY, int endY, float[] matrix) {
         int kh = kernel.getHeight();
         int kw = kernel.getWidth();
         int kox = kernel.getXOrigin();
         int koy = kernel.getYOrigin();
 
-        for (int y = 0; y < height; ++y) {
+        int index = startY * width;
+        for (int y = startY; y < endY; ++y) {
             for (int x = 0; x < width; ++x) {
                 float z = 0;
 
@@ -123,7 +273,13 @@ public int[] filter(int[] inData, int width, int height) {
                 outData[index++] = (int) (z + 0.5);
             }
         }
-        return outData;
+    }
+
+    @FunctionalInterface
+    private interface RowRange {
+
+        void apply(int startY, int endY);
+
     }
 
 }
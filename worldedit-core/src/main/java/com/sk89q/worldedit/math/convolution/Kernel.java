@@ -19,6 +19,10 @@
 
 package com.sk89q.worldedit.math.convolution;
 
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkState;
+
 /*
  * This class was originally part of the JDK, java.awt.image.Kernel,
  * and has been modified to not load the entire AWT toolkit, since
@@ -32,6 +36,10 @@ public class Kernel {
     private final int xOrigin;
     private final int yOrigin;
     private final float[] data;
+    @Nullable
+    private final float[] rowData;
+    @Nullable
+    private final float[] columnData;
 
     public Kernel(int width, int height, float[] data) {
         this.width = width;
@@ -44,6 +52,31 @@ public Kernel(int width, int height, float[] data) {
         }
         this.data = new float[len];
         System.arraycopy(data, 0, this.data, 0, len);
+        this.rowData = null;
+        this.columnData = null;
+    }
+
+    /**
+     * Create a kernel where each weight is the product of the weight of its
+     * row and the weight of its column. Such a kernel can be applied as two
+     * one-dimensional passes.
+     *
+     * @param rowData the weight of each column within a row, along the width
+     * @param columnData the weight of each row, along the height
+     */
+    protected Kernel(float[] rowData, float[] columnData) {
+        this.width = rowData.length;
+        this.height = columnData.length;
+        this.xOrigin = (width - 1) >> 1;
+        this.yOrigin = (height - 1) >> 1;
+        this.rowData = rowData.clone();
+        this.columnData = columnData.clone();
+        this.data = new float[width * height];
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                this.data[y * width + x] = rowData[x] * columnData[y];
+            }
+        }
     }
 
     public final int getXOrigin() {
@@ -72,4 +105,48 @@ public final float[] getKernelData(float[] data) {
         return data;
     }
 
+    /**
+     * Get whether this kernel is the product of a row and a column of
+     * weights.
+     *
+     * @return true if {@link #getRowData(float[])} and {@link #getColumnData(float[])} may be used
+     */
+    public final boolean isSeparable() {
+        return rowData != null;
+    }
+
+    /**
+     * Get the weights along the width of a separable kernel.
+     *
+     * @param data an array to copy the weights into, or null to create one
+     * @return the weights
+     * @throws IllegalStateException if the kernel is not separable
+     */
+    public final float[] getRowData(@Nullable float[] data) {
+        checkState(rowData != null, "Kernel is not separable");
+        return copy(rowData, data);
+    }
+
+    /**
+     * Get the weights along the height of a separable kernel.
+     *
+     * @param data an array to copy the weights into, or null to create one
+     * @return the weights
+     * @throws IllegalStateException if the kernel is not separable
+     */
+    public final float[] getColumnData(@Nullable float[] data) {
+        checkState(columnData != null, "Kernel is not separable");
+        return copy(columnData, data);
+    }
+
+    private static float[] copy(float[] source, @Nullable float[] data) {
+        if (data == null) {
+            return source.clone();
+        } else if (data.length < source.length) {
+            throw new IllegalArgumentException("Data array too small (should be " + source.length + " but is " + data.length + " )");
+        }
+        System.arraycopy(source, 0, data, 0, source.length);
+        return data;
+    }
+
 }
@@ -27,14 +27,14 @@
 public class LinearKernel extends Kernel {
 
     public LinearKernel(int radius) {
-        super(radius * 2 + 1, radius * 2 + 1, createKernel(radius));
+        super(createRow(radius), createRow(radius));
     }
 
-    private static float[] createKernel(int radius) {
+    private static float[] createRow(int radius) {
         int diameter = radius * 2 + 1;
-        float[] data = new float[diameter * diameter];
+        float[] data = new float[diameter];
 
-        Arrays.fill(data, 1.0f / data.length);
+        Arrays.fill(data, 1.0f / diameter);
 
         return data;
     }
@@ -364,6 +364,19 @@ public BlockVector3 next() {
         };
     }
 
+    @Override
+    public <E extends Exception> void forEachPosition(BlockPositionConsumer<E> consumer) throws E {
+        BlockVector3 min = getMinimumPoint();
+        BlockVector3 max = getMaximumPoint();
+        for (int y = min.getBlockY(); y <= max.getBlockY(); y++) {
+            for (int z = min.getBlockZ(); z <= max.getBlockZ(); z++) {
+                for (int x = min.getBlockX(); x <= max.getBlockX(); x++) {
+                    consumer.accept(x, y, z);
+                }
+            }
+        }
+    }
+
     @Override
     public Iterable<BlockVector2> asFlatRegion() {
         return () -> new Iterator<BlockVector2>() {
@@ -26,7 +26,6 @@
 import com.sk89q.worldedit.math.Vector3;
 import com.sk89q.worldedit.math.geom.Polygons;
 import com.sk89q.worldedit.regions.iterator.FlatRegion3DIterator;
-import com.sk89q.worldedit.regions.iterator.FlatRegionIterator;
 import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
 import com.sk89q.worldedit.world.World;
 
@@ -47,6 +46,9 @@ public class CylinderRegion extends AbstractRegion implements FlatRegion {
     private int minY;
     private int maxY;
     private boolean hasY = false;
+    private RowSpans spans;
+    private BlockVector2 spansCenter;
+    private Vector2 spansRadius;
 
     /**
      * Construct the region.
@@ -284,7 +286,54 @@ public boolean contains(BlockVector3 position) {
             return false;
         }
 
-        return position.toBlockVector2().subtract(center).toVector2().divide(radius).lengthSq() <= 1;
+        return containsColumn(position.getBlockX(), position.getBlockZ());
+    }
+
+    private boolean containsColumn(int x, int z) {
+        double normalX = (double) (x - center.getBlockX()) / radius.getX();
+        double normalZ = (double) (z - center.getBlockZ()) / radius.getZ();
+        return normalX * normalX + normalZ * normalZ <= 1;
+    }
+
+    /**
+     * Get the columns of the cylinder that are within its bounding box,
+     * computing them if the center or radius have changed.
+     *
+     * @return the columns
+     */
+    private RowSpans getSpans() {
+        RowSpans spans = this.spans;
+        if (spans == null || !center.equals(spansCenter) || !radius.equals(spansRadius)) {
+            spans = createSpans();
+            this.spans = spans;
+            this.spansCenter = center;
+            this.spansRadius = radius;
+        }
+        return spans;
+    }
+
+    private RowSpans createSpans() {
+        BlockVector3 min = getMinimumPoint();
+        BlockVector3 max = getMaximumPoint();
+        int centerX = center.getBlockX();
+        int[][] rows = new int[max.getBlockZ() - min.getBlockZ() + 1][];
+        for (int z = min.getBlockZ(); z <= max.getBlockZ(); z++) {
+            int reach = -1;
+            if (containsColumn(centerX, z)) {
+                // Start from the exact answer and correct for rounding, as each row is one run around the center
+                double normalZ = (double) (z - center.getBlockZ()) / radius.getZ();
+                reach = (int) (radius.getX() * Math.sqrt(Math.max(0, 1 - normalZ * normalZ)));
+                while (reach > 0 && !containsColumn(centerX + reach, z)) {
+                    reach--;
+                }
+                while (containsColumn(centerX + reach + 1, z)) {
+                    reach++;
+                }
+            }
+            rows[z - min.getBlockZ()] = RowSpans.row(
+                Math.max(centerX - reach, min.getBlockX()), Math.min(centerX + reach, max.getBlockX()));
+        }
+        return new RowSpans(min.getBlockZ(), rows);
     }
 
 
@@ -318,7 +367,12 @@ public Iterator<BlockVector3> iterator() {
 
     @Override
     public Iterable<BlockVector2> asFlatRegion() {
-        return () -> new FlatRegionIterator(CylinderRegion.this);
+        return () -> getSpans().iterator();
+    }
+
+    @Override
+    public <E extends Exception> void forEachPosition(BlockPositionConsumer<E> consumer) throws E {
+        getSpans().forEach(minY, maxY, consumer);
     }
 
     @Override
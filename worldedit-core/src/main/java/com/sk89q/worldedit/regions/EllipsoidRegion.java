@@ -29,6 +29,8 @@
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -46,6 +48,15 @@ public class EllipsoidRegion extends AbstractRegion {
      */
     private Vector3 radius;
 
+    /**
+     * Stores the run of X within the bounding box for each Y and Z, by Z
+     * and then Y, and the shape they were computed for.
+     */
+    private int[][] rows;
+    private BlockVector3 rowsMin;
+    private BlockVector3 rowsCenter;
+    private Vector3 rowsRadius;
+
     /**
      * Construct a new instance of this ellipsoid region.
      *
@@ -210,7 +221,115 @@ public Set<BlockVector2> getChunks() {
 
     @Override
     public boolean contains(BlockVector3 position) {
-        return position.subtract(center).toVector3().divide(radius).lengthSq() <= 1;
+        return contains(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    private boolean contains(int x, int y, int z) {
+        double normalX = (double) (x - center.getBlockX()) / radius.getX();
+        double normalY = (double) (y - center.getBlockY()) / radius.getY();
+        double normalZ = (double) (z - center.getBlockZ()) / radius.getZ();
+        return normalX * normalX + normalY * normalY + normalZ * normalZ <= 1;
+    }
+
+    private int[][] getRows() {
+        int[][] rows = this.rows;
+        if (rows == null || !center.equals(rowsCenter) || !radius.equals(rowsRadius)) {
+            rows = createRows();
+            this.rows = rows;
+            this.rowsMin = getMinimumPoint();
+            this.rowsCenter = center;
+            this.rowsRadius = radius;
+        }
+        return rows;
+    }
+
+    private int[][] createRows() {
+        BlockVector3 min = getMinimumPoint();
+        BlockVector3 max = getMaximumPoint();
+        int height = max.getBlockY() - min.getBlockY() + 1;
+        int centerX = center.getBlockX();
+        int[][] rows = new int[(max.getBlockZ() - min.getBlockZ() + 1) * height][];
+        for (int z = min.getBlockZ(); z <= max.getBlockZ(); z++) {
+            double normalZ = (double) (z - center.getBlockZ()) / radius.getZ();
+            for (int y = min.getBlockY(); y <= max.getBlockY(); y++) {
+                int reach = -1;
+                if (contains(centerX, y, z)) {
+                    // Start from the exact answer and correct for rounding, as each row is one run around the center
+                    double normalY = (double) (y - center.getBlockY()) / radius.getY();
+                    reach = (int) (radius.getX() * Math.sqrt(Math.max(0, 1 - normalY * normalY - normalZ * normalZ)));
+                    while (reach > 0 && !contains(centerX + reach, y, z)) {
+                        reach--;
+                    }
+                    while (contains(centerX + reach + 1, y, z)) {
+                        reach++;
+                    }
+                }
+                rows[(z - min.getBlockZ()) * height + (y - min.getBlockY())] = RowSpans.row(
+                    Math.max(centerX - reach, min.getBlockX()), Math.min(centerX + reach, max.getBlockX()));
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public <E extends Exception> void forEachPosition(BlockPositionConsumer<E> consumer) throws E {
+        int[][] rows = getRows();
+        BlockVector3 min = rowsMin;
+        int height = getMaximumPoint().getBlockY() - min.getBlockY() + 1;
+        for (int index = 0; index < rows.length; index++) {
+            int[] row = rows[index];
+            if (row.length == 0) {
+                continue;
+            }
+            int y = min.getBlockY() + index % height;
+            int z = min.getBlockZ() + index / height;
+            for (int x = row[0]; x <= row[1]; x++) {
+                consumer.accept(x, y, z);
+            }
+        }
+    }
+
+    @Override
+    public Iterator<BlockVector3> iterator() {
+        int[][] rows = getRows();
+        BlockVector3 min = rowsMin;
+        int height = getMaximumPoint().getBlockY() - min.getBlockY() + 1;
+        return new Iterator<BlockVector3>() {
+            private int index = -1;
+            private int nextX;
+
+            {
+                advanceRow();
+            }
+
+            private void advanceRow() {
+                while (++index < rows.length) {
+                    if (rows[index].length > 0) {
+                        nextX = rows[index][0];
+                        return;
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return index < rows.length;
+            }
+
+            @Override
+            public BlockVector3 next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                BlockVector3 answer = BlockVector3.at(nextX, min.getBlockY() + index % height, min.getBlockZ() + index / height);
+                if (nextX < rows[index][1]) {
+                    nextX++;
+                } else {
+                    advanceRow();
+                }
+                return answer;
+            }
+        };
     }
 
     /**
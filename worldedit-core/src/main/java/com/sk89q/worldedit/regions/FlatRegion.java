@@ -43,4 +43,17 @@ public interface FlatRegion extends Region {
      * @return a flat region iterable
      */
     Iterable<BlockVector2> asFlatRegion();
+
+    @Override
+    default <E extends Exception> void forEachPosition(BlockPositionConsumer<E> consumer) throws E {
+        int minY = getMinimumY();
+        int maxY = getMaximumY();
+        for (BlockVector2 column : asFlatRegion()) {
+            int x = column.getBlockX();
+            int z = column.getBlockZ();
+            for (int y = minY; y <= maxY; y++) {
+                consumer.accept(x, y, z);
+            }
+        }
+    }
 }
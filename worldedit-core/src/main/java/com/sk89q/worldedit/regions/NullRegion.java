@@ -123,6 +123,10 @@ public List<BlockVector2> polygonize(int maxPoints) {
         return Collections.emptyList();
     }
 
+    @Override
+    public <E extends Exception> void forEachPosition(BlockPositionConsumer<E> consumer) {
+    }
+
     @Override
     public Iterator<BlockVector3> iterator() {
         return new Iterator<BlockVector3>() {
@@ -32,18 +32,24 @@
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import javax.annotation.Nullable;
 
 /**
  * Represents a 2D polygonal region.
  */
 public class Polygonal2DRegion extends AbstractRegion implements FlatRegion {
 
+    // Beyond these, computing the columns up front costs more than testing each position
+    private static final int MAX_SPAN_ROWS = 1 << 14;
+    private static final long MAX_SPAN_EDGE_TESTS = 1 << 22;
+
     private List<BlockVector2> points;
     private BlockVector2 min;
     private BlockVector2 max;
     private int minY;
     private int maxY;
     private boolean hasY = false;
+    private RowSpans spans;
 
     /**
      * Construct the region.
@@ -103,6 +109,7 @@ public List<BlockVector2> getPoints() {
      * called after points have been changed.
      */
     protected void recalculate() {
+        spans = null;
         if (points.isEmpty()) {
             min = BlockVector2.ZERO;
             minY = 0;
@@ -207,6 +214,36 @@ public BlockVector3 getMaximumPoint() {
         return max.toBlockVector3(maxY);
     }
 
+    /**
+     * Get the columns of the polygon, computing them if the points have
+     * changed.
+     *
+     * <p>Each row tests every edge, so the columns are not computed for
+     * polygons that are very long or have very many points.</p>
+     *
+     * @return the columns, or null if the polygon is too large for them
+     */
+    @Nullable
+    private RowSpans getSpans() {
+        RowSpans spans = this.spans;
+        if (spans == null) {
+            long rows = (long) max.getBlockZ() - min.getBlockZ() + 1;
+            if (rows > MAX_SPAN_ROWS || rows * points.size() > MAX_SPAN_EDGE_TESTS) {
+                return null;
+            }
+            spans = RowSpans.ofPolygon(points, min.getBlockZ(), max.getBlockZ());
+            this.spans = spans;
+        }
+        return spans;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The area of the polygon is taken from its points, rounded down,
+     * rather than counted from the columns it contains, so it does not
+     * depend on whether the columns were computed.</p>
+     */
     @Override
     public long getVolume() {
         long area = 0;
@@ -293,7 +330,12 @@ public void shift(BlockVector3 change) throws RegionOperationException {
 
     @Override
     public boolean contains(BlockVector3 position) {
-        return contains(points, minY, maxY, position);
+        int y = position.getBlockY();
+        RowSpans spans = getSpans();
+        if (spans == null) {
+            return contains(points, minY, maxY, position);
+        }
+        return y >= minY && y <= maxY && spans.contains(position.getBlockX(), position.getBlockZ());
     }
 
     /**
@@ -406,7 +448,20 @@ public Iterator<BlockVector3> iterator() {
 
     @Override
     public Iterable<BlockVector2> asFlatRegion() {
-        return () -> new FlatRegionIterator(Polygonal2DRegion.this);
+        return () -> {
+            RowSpans spans = getSpans();
+            return spans != null ? spans.iterator() : new FlatRegionIterator(this);
+        };
+    }
+
+    @Override
+    public <E extends Exception> void forEachPosition(BlockPositionConsumer<E> consumer) throws E {
+        RowSpans spans = getSpans();
+        if (spans != null) {
+            spans.forEach(minY, maxY, consumer);
+        } else {
+            FlatRegion.super.forEachPosition(consumer);
+        }
     }
 
     /**
@@ -148,6 +148,21 @@ default long getVolume() {
      */
     boolean contains(BlockVector3 position);
 
+    /**
+     * Pass every position in the region to a consumer, in the same order
+     * as {@link #iterator()}. Regions that can walk their positions without
+     * creating a {@link BlockVector3} for each should override this.
+     *
+     * @param consumer the consumer
+     * @param <E> the type of exception the consumer may throw
+     * @throws E if the consumer throws
+     */
+    default <E extends Exception> void forEachPosition(BlockPositionConsumer<E> consumer) throws E {
+        for (BlockVector3 position : this) {
+            consumer.accept(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+        }
+    }
+
     /**
      * Get a list of chunks.
      *
@@ -0,0 +1,312 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.regions;
+
+import com.sk89q.worldedit.math.BlockVector2;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The columns of a flat shape, stored for each Z row as sorted, inclusive
+ * runs of X.
+ */
+final class RowSpans implements Iterable<BlockVector2> {
+
+    private static final int[] EMPTY_ROW = new int[0];
+
+    /**
+     * Compute the spans of a polygon, matching
+     * {@link Polygonal2DRegion#contains(List, int, int, com.sk89q.worldedit.math.BlockVector3)}
+     * for every column.
+     *
+     * @param points the points of the polygon
+     * @param minZ the smallest Z of the points
+     * @param maxZ the largest Z of the points
+     * @return the spans
+     */
+    static RowSpans ofPolygon(List<BlockVector2> points, int minZ, int maxZ) {
+        int[][] rows = new int[maxZ - minZ + 1][];
+        int count = points.size();
+        if (count < 3) {
+            Arrays.fill(rows, EMPTY_ROW);
+            return new RowSpans(minZ, rows);
+        }
+        int[] xs = new int[count];
+        int[] zs = new int[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = points.get(i).getBlockX();
+            zs[i] = points.get(i).getBlockZ();
+        }
+        // Runs where the crossing count is flipped, and runs that are on an edge or corner
+        long[] flips = new long[count * 2];
+        long[] solids = new long[count * 4];
+        for (int z = minZ; z <= maxZ; z++) {
+            int flipCount = 0;
+            int solidCount = 0;
+            int xOld = xs[count - 1];
+            int zOld = zs[count - 1];
+            for (int i = 0; i < count; i++) {
+                int xNew = xs[i];
+                int zNew = zs[i];
+                if (zNew == z) {
+                    solids[solidCount++] = xNew;
+                    solids[solidCount++] = xNew;
+                }
+                int x1;
+                int z1;
+                int x2;
+                int z2;
+                if (xNew > xOld) {
+                    x1 = xOld;
+                    x2 = xNew;
+                    z1 = zOld;
+                    z2 = zNew;
+                } else {
+                    x1 = xNew;
+                    x2 = xOld;
+                    z1 = zNew;
+                    z2 = zOld;
+                }
+                xOld = xNew;
+                zOld = zNew;
+
+                boolean inZRange = Math.min(z1, z2) <= z && z <= Math.max(z1, z2);
+                long dx = (long) x2 - x1;
+                long dz = (long) z2 - z1;
+                // The cross product at a column x is a - dz * (x - x1)
+                long a = ((long) z - z1) * dx;
+                if (dx == 0) {
+                    if (inZRange) {
+                        solids[solidCount++] = x1;
+                        solids[solidCount++] = x1;
+                    }
+                    continue;
+                }
+                if (dz == 0) {
+                    if (a == 0) {
+                        solids[solidCount++] = x1;
+                        solids[solidCount++] = x2;
+                    } else if (a < 0) {
+                        flips[flipCount++] = x1 + 1L;
+                        flips[flipCount++] = x2;
+                    }
+                    continue;
+                }
+                if (a % dz == 0) {
+                    long onEdge = x1 + a / dz;
+                    if (x1 <= onEdge && onEdge <= x2 && inZRange) {
+                        solids[solidCount++] = onEdge;
+                        solids[solidCount++] = onEdge;
+                    }
+                }
+                // Flipped where the cross product is negative, leaving out x1
+                long lo = x1 + 1L;
+                long hi = x2;
+                if (dz > 0) {
+                    lo = Math.max(lo, x1 + Math.floorDiv(a, dz) + 1);
+                } else {
+                    hi = Math.min(hi, x1 - Math.floorDiv(-a, dz) - 1);
+                }
+                if (lo <= hi) {
+                    flips[flipCount++] = lo;
+                    flips[flipCount++] = hi;
+                }
+            }
+            rows[z - minZ] = toRow(flips, flipCount, solids, solidCount);
+        }
+        return new RowSpans(minZ, rows);
+    }
+
+    /**
+     * Combine the runs where the crossing count is odd with the runs that
+     * are always inside.
+     */
+    private static int[] toRow(long[] flips, int flipCount, long[] solids, int solidCount) {
+        long[] events = new long[flipCount];
+        for (int i = 0; i < flipCount; i += 2) {
+            events[i] = flips[i];
+            events[i + 1] = flips[i + 1] + 1;
+        }
+        Arrays.sort(events);
+        long[] runs = new long[flipCount + solidCount];
+        int runCount = 0;
+        for (int i = 0; i + 1 < flipCount; i += 2) {
+            // Parity is odd between every other pair of events
+            if (events[i] < events[i + 1]) {
+                runs[runCount++] = events[i];
+                runs[runCount++] = events[i + 1] - 1;
+            }
+        }
+        System.arraycopy(solids, 0, runs, runCount, solidCount);
+        runCount += solidCount;
+        return mergeRuns(runs, runCount);
+    }
+
+    private static int[] mergeRuns(long[] runs, int runCount) {
+        if (runCount == 0) {
+            return EMPTY_ROW;
+        }
+        Integer[] order = new Integer[runCount / 2];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i * 2;
+        }
+        Arrays.sort(order, (first, second) -> Long.compare(runs[first], runs[second]));
+        int[] merged = new int[runCount];
+        int mergedCount = 0;
+        for (int index : order) {
+            long start = runs[index];
+            long end = runs[index + 1];
+            if (mergedCount > 0 && start <= merged[mergedCount - 1] + 1L) {
+                merged[mergedCount - 1] = (int) Math.max(merged[mergedCount - 1], end);
+            } else {
+                merged[mergedCount++] = (int) start;
+                merged[mergedCount++] = (int) end;
+            }
+        }
+        return Arrays.copyOf(merged, mergedCount);
+    }
+
+    private final int minZ;
+    private final int[][] rows;
+
+    /**
+     * Create a new instance.
+     *
+     * @param minZ the Z of the first row
+     * @param rows the inclusive start and end of each run, for each row
+     */
+    RowSpans(int minZ, int[][] rows) {
+        this.minZ = minZ;
+        this.rows = rows;
+    }
+
+    /**
+     * Create a row holding a single run, or no runs if it is empty.
+     *
+     * @param start the first X
+     * @param end the last X
+     * @return the row
+     */
+    static int[] row(int start, int end) {
+        return start <= end ? new int[] { start, end } : EMPTY_ROW;
+    }
+
+    /**
+     * Check whether a column is in the shape.
+     *
+     * @param x the X coordinate
+     * @param z the Z coordinate
+     * @return true if it is in the shape
+     */
+    boolean contains(int x, int z) {
+        int index = z - minZ;
+        if (index < 0 || index >= rows.length) {
+            return false;
+        }
+        int[] row = rows[index];
+        // Find the last run starting at or before x
+        int low = 0;
+        int high = row.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (row[mid * 2] <= x) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high >= 0 && x <= row[high * 2 + 1];
+    }
+
+    /**
+     * Pass every position of the shape between two heights to a consumer,
+     * by row, then by X, then by Y.
+     *
+     * @param minY the minimum Y
+     * @param maxY the maximum Y
+     * @param consumer the consumer
+     * @param <E> the type of exception the consumer may throw
+     * @throws E if the consumer throws
+     */
+    <E extends Exception> void forEach(int minY, int maxY, BlockPositionConsumer<E> consumer) throws E {
+        for (int index = 0; index < rows.length; index++) {
+            int z = minZ + index;
+            int[] row = rows[index];
+            for (int i = 0; i < row.length; i += 2) {
+                for (int x = row[i]; x <= row[i + 1]; x++) {
+                    for (int y = minY; y <= maxY; y++) {
+                        consumer.accept(x, y, z);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public Iterator<BlockVector2> iterator() {
+        return new Iterator<BlockVector2>() {
+            private int index = -1;
+            private int run;
+            private int nextX;
+            private int[] row = EMPTY_ROW;
+
+            {
+                advanceRow();
+            }
+
+            private void advanceRow() {
+                while (++index < rows.length) {
+                    row = rows[index];
+                    if (row.length > 0) {
+                        run = 0;
+                        nextX = row[0];
+                        return;
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return index < rows.length;
+            }
+
+            @Override
+            public BlockVector2 next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                BlockVector2 answer = BlockVector2.at(nextX, minZ + index);
+                if (nextX < row[run + 1]) {
+                    nextX++;
+                } else if (run + 2 < row.length) {
+                    run += 2;
+                    nextX = row[run];
+                } else {
+                    advanceRow();
+                }
+                return answer;
+            }
+        };
+    }
+
+}
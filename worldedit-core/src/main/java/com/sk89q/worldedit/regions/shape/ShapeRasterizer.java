@@ -0,0 +1,251 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.regions.shape;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.BlockPositionConsumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Rasterises shapes that are mirrored around their center on the X and Z
+ * axes into runs of X for each row.
+ *
+ * <p>Every row stores an outer and an inner reach from the center. The row
+ * covers the X offsets whose distance from the center is greater than the
+ * inner reach and at most the outer reach, so a filled row has an inner
+ * reach of -1, and a hollow shell is the difference between a row and the
+ * interior of its neighbours.</p>
+ */
+public final class ShapeRasterizer {
+
+    /**
+     * Rasterise an ellipsoid. The radii are used as given, so callers
+     * that want blocks to be included by their centers should add 0.5.
+     *
+     * @param radiusX the radius on the X axis
+     * @param radiusY the radius on the Y axis
+     * @param radiusZ the radius on the Z axis
+     * @param filled false to only include the outer shell
+     * @return the rasterised shape
+     */
+    public static ShapeRasterizer ellipsoid(double radiusX, double radiusY, double radiusZ, boolean filled) {
+        checkArgument(radiusX > 0 && radiusY > 0 && radiusZ > 0, "radii must be positive");
+        double invRadiusX = 1 / radiusX;
+        double invRadiusY = 1 / radiusY;
+        double invRadiusZ = 1 / radiusZ;
+        int layers = (int) Math.ceil(radiusY) + 1;
+        int rows = (int) Math.ceil(radiusZ) + 1;
+
+        // One more layer and row than needed, so that the last ones can look at their neighbours
+        int[][] reach = new int[layers + 1][rows + 1];
+        for (int y = 0; y <= layers; y++) {
+            for (int z = 0; z <= rows; z++) {
+                reach[y][z] = ellipseReach(radiusX, invRadiusX, y * invRadiusY, z * invRadiusZ);
+            }
+        }
+
+        int[][] outer = new int[layers][rows];
+        int[][] inner = new int[layers][rows];
+        for (int y = 0; y < layers; y++) {
+            for (int z = 0; z < rows; z++) {
+                outer[y][z] = reach[y][z];
+                inner[y][z] = filled || reach[y][z] < 0
+                    ? -1
+                    : Math.min(reach[y][z] - 1, Math.min(reach[y + 1][z], reach[y][z + 1]));
+            }
+        }
+        return new ShapeRasterizer(outer, inner, true, 1);
+    }
+
+    /**
+     * Rasterise an elliptical cylinder that extends upwards from the center.
+     * The radii are used as given, so callers that want blocks to be
+     * included by their centers should add 0.5.
+     *
+     * @param radiusX the radius on the X axis
+     * @param radiusZ the radius on the Z axis
+     * @param height the number of layers, at least 1
+     * @param filled false to only include the walls
+     * @return the rasterised shape
+     */
+    public static ShapeRasterizer cylinder(double radiusX, double radiusZ, int height, boolean filled) {
+        checkArgument(radiusX > 0 && radiusZ > 0, "radii must be positive");
+        checkArgument(height > 0, "height must be positive");
+        double invRadiusX = 1 / radiusX;
+        double invRadiusZ = 1 / radiusZ;
+        int rows = (int) Math.ceil(radiusZ) + 1;
+
+        int[] reach = new int[rows + 1];
+        for (int z = 0; z <= rows; z++) {
+            reach[z] = ellipseReach(radiusX, invRadiusX, 0, z * invRadiusZ);
+        }
+
+        int[][] outer = new int[1][rows];
+        int[][] inner = new int[1][rows];
+        for (int z = 0; z < rows; z++) {
+            outer[0][z] = reach[z];
+            inner[0][z] = filled || reach[z] < 0 ? -1 : Math.min(reach[z] - 1, reach[z + 1]);
+        }
+        return new ShapeRasterizer(outer, inner, false, height);
+    }
+
+    /**
+     * Rasterise a square pyramid that rises from the center, with a base
+     * that reaches {@code size - 1} blocks from the center.
+     *
+     * @param size the size of the pyramid
+     * @param filled false to only include the faces
+     * @return the rasterised shape
+     */
+    public static ShapeRasterizer pyramid(int size, boolean filled) {
+        checkArgument(size > 0, "size must be positive");
+        int[][] outer = new int[size][size];
+        int[][] inner = new int[size][size];
+        for (int y = 0; y < size; y++) {
+            int layerReach = size - y - 1;
+            for (int z = 0; z < size; z++) {
+                if (z > layerReach) {
+                    outer[y][z] = -1;
+                    inner[y][z] = -1;
+                } else {
+                    outer[y][z] = layerReach;
+                    inner[y][z] = filled || z == layerReach ? -1 : layerReach - 1;
+                }
+            }
+        }
+        return new ShapeRasterizer(outer, inner, false, 1);
+    }
+
+    /**
+     * Find the largest X offset that is inside a unit ellipse, given the
+     * normalised Y and Z, or -1 if the row is empty.
+     */
+    private static int ellipseReach(double radiusX, double invRadiusX, double yn, double zn) {
+        if (!insideEllipse(0, yn, zn)) {
+            return -1;
+        }
+        // Start from the exact answer and correct for rounding against the per-block test
+        int x = (int) (radiusX * Math.sqrt(Math.max(0, 1 - yn * yn - zn * zn)));
+        while (x > 0 && !insideEllipse(x * invRadiusX, yn, zn)) {
+            x--;
+        }
+        while (insideEllipse((x + 1) * invRadiusX, yn, zn)) {
+            x++;
+        }
+        return x;
+    }
+
+    private static boolean insideEllipse(double xn, double yn, double zn) {
+        return xn * xn + yn * yn + zn * zn <= 1;
+    }
+
+    private final int[][] outer;
+    private final int[][] inner;
+    private final boolean mirrorY;
+    private final int repeatY;
+
+    /**
+     * Create a new instance.
+     *
+     * @param outer the outer reach of each row, by layer and then Z offset
+     * @param inner the inner reach of each row, by layer and then Z offset
+     * @param mirrorY true if the layers are mirrored below the center
+     * @param repeatY the number of times each layer is repeated upwards
+     */
+    private ShapeRasterizer(int[][] outer, int[][] inner, boolean mirrorY, int repeatY) {
+        this.outer = outer;
+        this.inner = inner;
+        this.mirrorY = mirrorY;
+        this.repeatY = repeatY;
+    }
+
+    /**
+     * Get the number of blocks in the shape.
+     *
+     * @return the number of blocks
+     */
+    public long getVolume() {
+        long volume = 0;
+        for (int layer = 0; layer < outer.length; layer++) {
+            long layerVolume = 0;
+            for (int z = 0; z < outer[layer].length; z++) {
+                long row = rowLength(outer[layer][z], inner[layer][z]);
+                layerVolume += z == 0 ? row : row * 2;
+            }
+            volume += mirrorY && layer > 0 ? layerVolume * 2 : layerVolume;
+        }
+        return volume * repeatY;
+    }
+
+    private static long rowLength(int outer, int inner) {
+        if (outer < 0) {
+            return 0;
+        }
+        return inner < 0 ? outer * 2L + 1 : (outer - inner) * 2L;
+    }
+
+    /**
+     * Pass every position in the shape to a consumer, visiting each block
+     * once. Positions are ordered by Y, then Z, then ascending X.
+     *
+     * @param center the center of the shape
+     * @param consumer the consumer
+     * @param <E> the type of exception the consumer may throw
+     * @throws E if the consumer throws
+     */
+    public <E extends Exception> void forEachPosition(BlockVector3 center, BlockPositionConsumer<E> consumer) throws E {
+        checkNotNull(center);
+        checkNotNull(consumer);
+        int centerX = center.getBlockX();
+        int centerY = center.getBlockY();
+        int centerZ = center.getBlockZ();
+        int layers = outer.length;
+        int minY = mirrorY ? -(layers - 1) : 0;
+        int maxY = layers * repeatY - 1;
+        for (int y = minY; y <= maxY; y++) {
+            int layer = mirrorY ? Math.abs(y) : y / repeatY;
+            int[] layerOuter = outer[layer];
+            int[] layerInner = inner[layer];
+            int rows = layerOuter.length;
+            for (int z = -(rows - 1); z < rows; z++) {
+                int rowOuter = layerOuter[Math.abs(z)];
+                if (rowOuter < 0) {
+                    continue;
+                }
+                int rowInner = layerInner[Math.abs(z)];
+                if (rowInner < 0) {
+                    for (int x = -rowOuter; x <= rowOuter; x++) {
+                        consumer.accept(centerX + x, centerY + y, centerZ + z);
+                    }
+                } else {
+                    for (int x = -rowOuter; x < -rowInner; x++) {
+                        consumer.accept(centerX + x, centerY + y, centerZ + z);
+                    }
+                    for (int x = rowInner + 1; x <= rowOuter; x++) {
+                        consumer.accept(centerX + x, centerY + y, centerZ + z);
+                    }
+                }
+            }
+        }
+    }
+
+}
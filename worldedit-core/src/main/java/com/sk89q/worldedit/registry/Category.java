@@ -26,6 +26,7 @@
     private final Set<T> set = new HashSet<>();
     protected final String id;
     private boolean empty = true;
+    private volatile int version;
 
     protected Category(final String id) {
         this.id = id;
@@ -58,6 +59,17 @@ public boolean contains(final T object) {
     public void invalidateCache() {
         this.set.clear();
         this.empty = true;
+        this.version++;
+    }
+
+    /**
+     * Get a number that changes each time the cache is invalidated, so that
+     * anything built from {@link #getAll()} can tell when to rebuild.
+     *
+     * @return the version of the contents
+     */
+    public final int getVersion() {
+        return this.version;
     }
 
     @Override
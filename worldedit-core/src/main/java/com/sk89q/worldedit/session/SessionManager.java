@@ -172,6 +172,10 @@ public synchronized LocalSession get(SessionOwner owner) {
             Request.request().setSession(session);
 
             session.setConfiguration(config);
+            if (config.historyJournal && sessionKey.isPersistent()) {
+                session.setHistoryDirectory(config.getWorkingDirectoryPath()
+                    .resolve("history").resolve(getKey(sessionKey).toString()));
+            }
             session.setBlockChangeLimit(config.defaultChangeLimit);
             session.setTimeout(config.calculationTimeout);
             try {
@@ -305,7 +309,10 @@ protected UUID getKey(SessionKey key) {
      */
     public synchronized void remove(SessionOwner owner) {
         checkNotNull(owner);
-        sessions.remove(getKey(owner));
+        SessionHolder holder = sessions.remove(getKey(owner));
+        if (holder != null) {
+            holder.session.setClipboard(null);
+        }
     }
 
     /**
@@ -314,6 +321,7 @@ public synchronized void remove(SessionOwner owner) {
     public synchronized void unload() {
         clear();
         timer.cancel();
+        LocalSession.shutdownJournalExecutor();
     }
 
     /**
@@ -321,6 +329,9 @@ public synchronized void unload() {
      */
     public synchronized void clear() {
         saveChangedSessions();
+        for (SessionHolder holder : sessions.values()) {
+            holder.session.setClipboard(null);
+        }
         sessions.clear();
     }
 
@@ -344,6 +355,7 @@ private synchronized void saveChangedSessions() {
                     }
 
                     it.remove();
+                    stored.session.setClipboard(null);
                 }
             }
         }
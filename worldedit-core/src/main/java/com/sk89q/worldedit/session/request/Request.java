@@ -23,6 +23,10 @@
 import com.sk89q.worldedit.LocalSession;
 import com.sk89q.worldedit.world.World;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.Nullable;
 
 /**
@@ -35,6 +39,7 @@ public final class Request {
     private @Nullable World world;
     private @Nullable LocalSession session;
     private @Nullable EditSession editSession;
+    private final List<Closeable> closeables = new ArrayList<>();
     private boolean valid;
 
     private Request() {
@@ -94,6 +99,16 @@ public void setEditSession(@Nullable EditSession editSession) {
         this.editSession = editSession;
     }
 
+    /**
+     * Close something when this request is reset, such as a resource held
+     * by a pattern that was parsed for the request.
+     *
+     * @param closeable the thing to close
+     */
+    public void closeOnReset(Closeable closeable) {
+        closeables.add(closeable);
+    }
+
     /**
      * Get the current request, which is specific to the current thread.
      *
@@ -107,8 +122,15 @@ public static Request request() {
      * Reset the current request and clear all fields.
      */
     public static void reset() {
-        request().invalidate();
+        Request request = request();
+        request.invalidate();
         threadLocal.remove();
+        for (Closeable closeable : request.closeables) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
     }
 
     /**
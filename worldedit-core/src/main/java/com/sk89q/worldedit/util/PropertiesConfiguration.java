@@ -125,8 +125,16 @@ public void load() {
         scriptTimeout = getInt("scripting-timeout", scriptTimeout);
         calculationTimeout = getInt("calculation-timeout", calculationTimeout);
         maxCalculationTimeout = getInt("max-calculation-timeout", maxCalculationTimeout);
+        parallelEditThreads = Math.max(0, getInt("parallel-edit-threads", parallelEditThreads));
+        parallelEditMinVolume = Math.max(0, getInt("parallel-edit-min-volume", parallelEditMinVolume));
+        taskExecutorThreads = Math.max(1, getInt("task-executor-threads", taskExecutorThreads));
+        taskExecutorQueueSize = Math.max(1, getInt("task-executor-max-queued-per-player", taskExecutorQueueSize));
+        operationTickBudget = Math.max(0, getInt("task-executor-ms-per-tick", operationTickBudget));
         saveDir = getString("schematic-save-dir", saveDir);
         scriptsDir = getString("craftscript-dir", scriptsDir);
+        setClipboardStorageName(getString("clipboard-storage", clipboardStorage.name().toLowerCase(Locale.ROOT)));
+        clipboardMappedThreshold = Math.max(-1, getInt("clipboard-mapped-threshold", clipboardMappedThreshold));
+        clipboardMappedCacheSize = Math.max(1, getInt("clipboard-mapped-cache-sections", clipboardMappedCacheSize));
         butcherDefaultRadius = getInt("butcher-default-radius", butcherDefaultRadius);
         butcherMaxRadius = getInt("butcher-max-radius", butcherMaxRadius);
         allowSymlinks = getBool("allow-symbolic-links", allowSymlinks);
@@ -135,10 +143,14 @@ public void load() {
         setDefaultLocaleName(getString("default-locale", defaultLocaleName));
 
         LocalSession.MAX_HISTORY_SIZE = Math.max(15, getInt("history-size", 15));
+        historyJournal = getBool("history-journal", historyJournal);
+        historyHotSize = Math.max(0, getInt("history-journal-hot-size", historyHotSize));
 
         String snapshotsDir = getString("snapshots-dir", "");
         boolean experimentalSnapshots = getBool("snapshots-experimental", false);
         initializeSnapshotConfiguration(snapshotsDir, experimentalSnapshots);
+        snapshotRestoreThreads = Math.max(0, getInt("snapshots-restore-threads", snapshotRestoreThreads));
+        snapshotRestoreBufferedChunks = Math.max(1, getInt("snapshots-restore-buffered-chunks", snapshotRestoreBufferedChunks));
 
         path.getParentFile().mkdirs();
         try (OutputStream output = new FileOutputStream(path)) {
@@ -110,11 +110,24 @@ public void load() {
         calculationTimeout = config.getInt("calculation.timeout", calculationTimeout);
         maxCalculationTimeout = config.getInt("calculation.max-timeout", maxCalculationTimeout);
 
+        parallelEditThreads = Math.max(0, config.getInt("parallel-edits.threads", parallelEditThreads));
+        parallelEditMinVolume = Math.max(0, config.getInt("parallel-edits.min-volume", parallelEditMinVolume));
+
+        taskExecutorThreads = Math.max(1, config.getInt("task-executor.threads", taskExecutorThreads));
+        taskExecutorQueueSize = Math.max(1, config.getInt("task-executor.max-queued-per-player", taskExecutorQueueSize));
+        operationTickBudget = Math.max(0, config.getInt("task-executor.ms-per-tick", operationTickBudget));
+
         saveDir = config.getString("saving.dir", saveDir);
 
+        setClipboardStorageName(config.getString("clipboard.storage", clipboardStorage.name().toLowerCase(Locale.ROOT)));
+        clipboardMappedThreshold = Math.max(-1, config.getInt("clipboard.mapped-threshold", clipboardMappedThreshold));
+        clipboardMappedCacheSize = Math.max(1, config.getInt("clipboard.mapped-cache-sections", clipboardMappedCacheSize));
+
         allowSymlinks = config.getBoolean("files.allow-symbolic-links", false);
         LocalSession.MAX_HISTORY_SIZE = Math.max(0, config.getInt("history.size", 15));
         SessionManager.EXPIRATION_GRACE = config.getInt("history.expiration", 10) * 60 * 1000;
+        historyJournal = config.getBoolean("history.journal.enabled", historyJournal);
+        historyHotSize = Math.max(0, config.getInt("history.journal.hot-size", historyHotSize));
 
         showHelpInfo = config.getBoolean("show-help-on-first-use", true);
         serverSideCUI = config.getBoolean("server-side-cui", true);
@@ -122,6 +135,8 @@ public void load() {
         String snapshotsDir = config.getString("snapshots.directory", "");
         boolean experimentalSnapshots = config.getBoolean("snapshots.experimental", false);
         initializeSnapshotConfiguration(snapshotsDir, experimentalSnapshots);
+        snapshotRestoreThreads = Math.max(0, config.getInt("snapshots.restore-threads", snapshotRestoreThreads));
+        snapshotRestoreBufferedChunks = Math.max(1, config.getInt("snapshots.restore-buffered-chunks", snapshotRestoreBufferedChunks));
 
         String type = config.getString("shell-save-type", "").trim();
         shellSaveType = type.isEmpty() ? null : type;
@@ -0,0 +1,162 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import static com.sk89q.worldedit.math.BitMath.mask;
+
+/**
+ * A set of block positions, stored as one bit per block in 16x16x16
+ * sections.
+ *
+ * <p>Positions can be added and queried by their coordinates, so that large
+ * sets such as those built by a flood fill do not need an object per
+ * position. X and Z must fit in 26 bits and Y in 24 bits.</p>
+ */
+public final class BlockPositionSet {
+
+    /*
+     * Section key stores 22 bits x + z and 20 bits y, which covers
+     * 26 bits of x + z and 24 bits of y once the inner bits are added.
+     * Inner index stores 4 bits each.
+     * Order (lowest to highest) is x-z-y.
+     */
+
+    private static final long BITS_22 = mask(22);
+    private static final long BITS_20 = mask(20);
+    private static final int BITS_4 = mask(4);
+    private static final int SECTION_LONGS = (16 * 16 * 16) / 64;
+
+    private static long toSectionKey(int x, int y, int z) {
+        return ((x >> 4) & BITS_22)
+            | (((z >> 4) & BITS_22) << 22)
+            | (((y >> 4) & BITS_20) << (22 + 22));
+    }
+
+    private static int toInnerIndex(int x, int y, int z) {
+        return (x & BITS_4)
+            | ((z & BITS_4) << 4)
+            | ((y & BITS_4) << (4 + 4));
+    }
+
+    private final Long2ObjectMap<long[]> sections = new Long2ObjectOpenHashMap<>();
+    private long lastKey;
+    private long[] lastSection;
+    private int size;
+
+    /**
+     * Add a position to the set.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return true if the position was not already in the set
+     */
+    public boolean add(int x, int y, int z) {
+        long key = toSectionKey(x, y, z);
+        long[] section = getSection(key);
+        if (section == null) {
+            section = new long[SECTION_LONGS];
+            sections.put(key, section);
+            lastKey = key;
+            lastSection = section;
+        }
+        int index = toInnerIndex(x, y, z);
+        long bit = 1L << index;
+        long word = section[index >>> 6];
+        if ((word & bit) != 0) {
+            return false;
+        }
+        section[index >>> 6] = word | bit;
+        size++;
+        return true;
+    }
+
+    /**
+     * Add a position to the set.
+     *
+     * @param position the position
+     * @return true if the position was not already in the set
+     */
+    public boolean add(BlockVector3 position) {
+        return add(position.getX(), position.getY(), position.getZ());
+    }
+
+    /**
+     * Check whether a position is in the set.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return true if the position is in the set
+     */
+    public boolean contains(int x, int y, int z) {
+        long[] section = getSection(toSectionKey(x, y, z));
+        if (section == null) {
+            return false;
+        }
+        int index = toInnerIndex(x, y, z);
+        return (section[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Check whether a position is in the set.
+     *
+     * @param position the position
+     * @return true if the position is in the set
+     */
+    public boolean contains(BlockVector3 position) {
+        return contains(position.getX(), position.getY(), position.getZ());
+    }
+
+    /**
+     * Get the number of positions in the set.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove all positions from the set.
+     */
+    public void clear() {
+        sections.clear();
+        lastSection = null;
+        size = 0;
+    }
+
+    private long[] getSection(long key) {
+        if (lastSection != null && lastKey == key) {
+            return lastSection;
+        }
+        long[] section = sections.get(key);
+        if (section != null) {
+            lastKey = key;
+            lastSection = section;
+        }
+        return section;
+    }
+
+}
@@ -0,0 +1,643 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.concurrency;
+
+import com.google.common.util.concurrent.ExecutionList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An executor that shares a bounded number of worker threads fairly
+ * between the owners of the tasks submitted to it.
+ *
+ * <p>Every owner (usually the unique ID of an actor) has its own queue.
+ * Workers take tasks from the owners in turn, so an owner that submits many
+ * long tasks cannot hold up the work of everyone else. Queued tasks with a
+ * higher {@link Priority} are taken first, both within an owner's queue and
+ * when picking the next owner. Only the number of tasks queued per owner is
+ * bounded.</p>
+ *
+ * <p>The tasks of an owner are run one at a time, so a task never runs
+ * alongside an earlier task of the same owner. Tasks submitted through the
+ * methods of {@link ListeningExecutorService} belong to a shared owner, have
+ * {@link Priority#NORMAL} priority and are independent of each other, so
+ * several of them may run at once.</p>
+ */
+public class FairTaskExecutor extends AbstractExecutorService implements ListeningExecutorService {
+
+    /**
+     * The priority of a task.
+     */
+    public enum Priority {
+        LOW,
+        NORMAL,
+        HIGH
+    }
+
+    private static final Object SHARED_OWNER = new Object();
+    private static final long KEEP_ALIVE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private static final Comparator<Entry<?>> ENTRY_ORDER = Comparator
+            .comparing((Entry<?> entry) -> entry.priority).reversed()
+            .thenComparingLong(entry -> entry.sequence);
+
+    private final ThreadFactory threadFactory;
+    private final Object lock = new Object();
+    private final Map<Object, OwnerQueue> queues = new HashMap<>();
+    private final ArrayDeque<OwnerQueue> turns = new ArrayDeque<>();
+    private final Set<Thread> workers = new HashSet<>();
+    private int maxThreads;
+    private int maxQueuedPerOwner;
+    private int idleWorkers;
+    private int queuedTasks;
+    private int runningTasks;
+    private long sequence;
+    private boolean shutdown;
+
+    private long startedTasks;
+    private long completedTasks;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    /**
+     * Create a new executor.
+     *
+     * @param maxThreads the maximum number of worker threads
+     * @param maxQueuedPerOwner the number of tasks an owner can have queued before new submissions are rejected
+     * @param threadFormat thread name formatter
+     */
+    public FairTaskExecutor(int maxThreads, int maxQueuedPerOwner, String threadFormat) {
+        checkNotNull(threadFormat);
+        this.threadFactory = new ThreadFactoryBuilder().setNameFormat(threadFormat).build();
+        setLimits(maxThreads, maxQueuedPerOwner);
+    }
+
+    /**
+     * Change the limits of this executor.
+     *
+     * <p>If the number of threads is lowered, surplus workers stop after
+     * finishing their current task. Tasks that are already queued are never
+     * rejected.</p>
+     *
+     * @param maxThreads the maximum number of worker threads
+     * @param maxQueuedPerOwner the number of tasks an owner can have queued before new submissions are rejected
+     */
+    public void setLimits(int maxThreads, int maxQueuedPerOwner) {
+        checkArgument(maxThreads >= 1, "maxThreads must be at least 1");
+        checkArgument(maxQueuedPerOwner >= 1, "maxQueuedPerOwner must be at least 1");
+        synchronized (lock) {
+            this.maxThreads = maxThreads;
+            this.maxQueuedPerOwner = maxQueuedPerOwner;
+            while (queuedTasks > idleWorkers && workers.size() < maxThreads) {
+                startWorker();
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Submit a task on behalf of an owner.
+     *
+     * @param owner the owner of the task
+     * @param priority the priority of the task
+     * @param task the task
+     * @param <T> the type returned by the task
+     * @return a future for the result of the task
+     * @throws RejectedExecutionException if the executor was shut down or the owner has too many queued tasks
+     */
+    public <T> ListenableFuture<T> submit(Object owner, Priority priority, Callable<T> task) {
+        Entry<T> entry = new Entry<>(checkNotNull(owner), checkNotNull(priority), checkNotNull(task));
+        enqueue(entry);
+        return entry;
+    }
+
+    /**
+     * Submit a task on behalf of an owner.
+     *
+     * @param owner the owner of the task
+     * @param priority the priority of the task
+     * @param task the task
+     * @return a future that completes when the task has run
+     * @throws RejectedExecutionException if the executor was shut down or the owner has too many queued tasks
+     */
+    public ListenableFuture<?> submit(Object owner, Priority priority, Runnable task) {
+        Entry<Object> entry = new Entry<>(checkNotNull(owner), checkNotNull(priority), checkNotNull(task), null);
+        enqueue(entry);
+        return entry;
+    }
+
+    /**
+     * Cancel every queued and running task of an owner.
+     *
+     * @param owner the owner
+     * @return the number of tasks that were cancelled
+     */
+    public int cancelAll(Object owner) {
+        checkNotNull(owner);
+        List<Entry<?>> entries = new ArrayList<>();
+        synchronized (lock) {
+            OwnerQueue queue = queues.get(owner);
+            if (queue == null) {
+                return 0;
+            }
+            entries.addAll(queue.queued);
+            entries.addAll(queue.running);
+        }
+        int cancelled = 0;
+        for (Entry<?> entry : entries) {
+            if (entry.cancel(true)) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Get the number of tasks an owner has queued, not counting running tasks.
+     *
+     * @param owner the owner
+     * @return the number of queued tasks
+     */
+    public int getQueuedTasks(Object owner) {
+        checkNotNull(owner);
+        synchronized (lock) {
+            OwnerQueue queue = queues.get(owner);
+            return queue == null ? 0 : queue.queued.size();
+        }
+    }
+
+    /**
+     * Get a snapshot of the state of this executor.
+     *
+     * @return the statistics
+     */
+    public Statistics getStatistics() {
+        synchronized (lock) {
+            int waitingOwners = 0;
+            for (OwnerQueue queue : queues.values()) {
+                if (!queue.queued.isEmpty()) {
+                    waitingOwners++;
+                }
+            }
+            return new Statistics(workers.size(), maxThreads, runningTasks, queuedTasks, waitingOwners,
+                    completedTasks, startedTasks == 0 ? 0 : totalWaitNanos / startedTasks, maxWaitNanos);
+        }
+    }
+
+    /**
+     * Test whether the given future is a task of a {@code FairTaskExecutor}
+     * that is still waiting for a worker.
+     *
+     * @param future the future
+     * @return true if the task is queued
+     */
+    public static boolean isQueued(Future<?> future) {
+        return future instanceof Entry && ((Entry<?>) future).queue != null;
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        return new Entry<>(SHARED_OWNER, Priority.NORMAL, runnable, value);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        return new Entry<>(SHARED_OWNER, Priority.NORMAL, callable);
+    }
+
+    @Override
+    public ListenableFuture<?> submit(Runnable task) {
+        return (ListenableFuture<?>) super.submit(task);
+    }
+
+    @Override
+    public <T> ListenableFuture<T> submit(Runnable task, T result) {
+        return (ListenableFuture<T>) super.submit(task, result);
+    }
+
+    @Override
+    public <T> ListenableFuture<T> submit(Callable<T> task) {
+        return (ListenableFuture<T>) super.submit(task);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        checkNotNull(command);
+        enqueue(command instanceof Entry ? (Entry<?>) command : new Entry<>(SHARED_OWNER, Priority.NORMAL, command, null));
+    }
+
+    @Override
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> pending = new ArrayList<>();
+        synchronized (lock) {
+            shutdown = true;
+            for (OwnerQueue queue : queues.values()) {
+                Entry<?> entry;
+                while ((entry = queue.queued.poll()) != null) {
+                    entry.queue = null;
+                    pending.add(entry);
+                }
+            }
+            turns.clear();
+            queuedTasks = 0;
+            queues.values().removeIf(OwnerQueue::isEmpty);
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+            lock.notifyAll();
+        }
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        synchronized (lock) {
+            return shutdown;
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        synchronized (lock) {
+            return shutdown && workers.isEmpty() && queuedTasks == 0;
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (lock) {
+            while (!(shutdown && workers.isEmpty() && queuedTasks == 0)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+            return true;
+        }
+    }
+
+    private void enqueue(Entry<?> entry) {
+        synchronized (lock) {
+            if (shutdown) {
+                throw new RejectedExecutionException("The executor has been shut down");
+            }
+            OwnerQueue queue = queues.computeIfAbsent(entry.owner, OwnerQueue::new);
+            if (queue.queued.size() >= maxQueuedPerOwner) {
+                if (queue.isEmpty()) {
+                    queues.remove(entry.owner);
+                }
+                throw new RejectedExecutionException("Too many tasks are queued for " + entry.owner);
+            }
+            boolean waiting = queue.isWaiting();
+            entry.sequence = sequence++;
+            entry.queue = queue;
+            entry.submitted = System.nanoTime();
+            queue.queued.add(entry);
+            queuedTasks++;
+            if (!waiting && queue.isWaiting()) {
+                turns.addLast(queue);
+            }
+            if (idleWorkers > 0) {
+                lock.notifyAll();
+            } else if (workers.size() < maxThreads) {
+                startWorker();
+            }
+        }
+    }
+
+    /**
+     * Remove a cancelled entry from its queue if it has not been started.
+     *
+     * @param entry the entry
+     */
+    private void dequeue(Entry<?> entry) {
+        synchronized (lock) {
+            OwnerQueue queue = entry.queue;
+            if (queue == null) {
+                return;
+            }
+            entry.queue = null;
+            queue.queued.remove(entry);
+            queuedTasks--;
+            if (!queue.isWaiting()) {
+                turns.remove(queue);
+            }
+            if (queue.isEmpty()) {
+                queues.remove(queue.owner);
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Take the next entry to run. The owner whose first task has the highest
+     * priority goes next, and owners with equal priorities take turns.
+     *
+     * <p>Unless the entry belongs to the shared owner, its owner does not get
+     * another turn until the entry has finished running. The caller must hold
+     * the lock and start the entry.</p>
+     *
+     * @return the entry, or null if nothing is queued
+     */
+    private Entry<?> poll() {
+        OwnerQueue next = null;
+        for (OwnerQueue queue : turns) {
+            if (next == null || queue.queued.peek().priority.compareTo(next.queued.peek().priority) > 0) {
+                next = queue;
+            }
+        }
+        if (next == null) {
+            return null;
+        }
+        turns.remove(next);
+        Entry<?> entry = next.queued.poll();
+        next.running.add(entry);
+        runningTasks++;
+        if (next.isWaiting()) {
+            turns.addLast(next);
+        }
+        entry.queue = null;
+        queuedTasks--;
+        return entry;
+    }
+
+    private void startWorker() {
+        Thread thread = threadFactory.newThread(this::work);
+        workers.add(thread);
+        thread.start();
+    }
+
+    private void work() {
+        Thread self = Thread.currentThread();
+        while (true) {
+            Entry<?> entry = null;
+            OwnerQueue queue;
+            synchronized (lock) {
+                long idleSince = System.nanoTime();
+                while (workers.size() <= maxThreads) {
+                    entry = poll();
+                    // Queued tasks may be waiting for an earlier task of their owner, so stay until they have run
+                    if (entry != null || (shutdown && queuedTasks == 0)) {
+                        break;
+                    }
+                    long remaining = KEEP_ALIVE_NANOS - (System.nanoTime() - idleSince);
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    idleWorkers++;
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                    } catch (InterruptedException ignored) {
+                        // Checked again at the top of the loop
+                    } finally {
+                        idleWorkers--;
+                    }
+                }
+                if (entry == null) {
+                    workers.remove(self);
+                    lock.notifyAll();
+                    return;
+                }
+                long wait = System.nanoTime() - entry.submitted;
+                startedTasks++;
+                totalWaitNanos += wait;
+                maxWaitNanos = Math.max(maxWaitNanos, wait);
+                queue = queues.get(entry.owner);
+            }
+            try {
+                entry.run();
+            } finally {
+                // Don't let an interrupt from cancelling this task leak into the next one
+                Thread.interrupted();
+                synchronized (lock) {
+                    boolean waiting = queue.isWaiting();
+                    queue.running.remove(entry);
+                    if (queue.isEmpty()) {
+                        queues.remove(queue.owner);
+                    } else if (!waiting && queue.isWaiting()) {
+                        // The owner's next task can start now that this one is done
+                        turns.addLast(queue);
+                        lock.notifyAll();
+                    }
+                    runningTasks--;
+                    completedTasks++;
+                }
+            }
+        }
+    }
+
+    /**
+     * The tasks of a single owner.
+     */
+    private static final class OwnerQueue {
+        private final Object owner;
+        private final PriorityQueue<Entry<?>> queued = new PriorityQueue<>(ENTRY_ORDER);
+        private final Set<Entry<?>> running = new HashSet<>();
+
+        private OwnerQueue(Object owner) {
+            this.owner = owner;
+        }
+
+        private boolean isEmpty() {
+            return queued.isEmpty() && running.isEmpty();
+        }
+
+        /**
+         * Test whether a task of this owner can be started now.
+         *
+         * @return true if the owner should be in the turns
+         */
+        private boolean isWaiting() {
+            return !queued.isEmpty() && (running.isEmpty() || owner == SHARED_OWNER);
+        }
+    }
+
+    /**
+     * A queued task.
+     */
+    private final class Entry<T> extends FutureTask<T> implements ListenableFuture<T> {
+        private final ExecutionList listeners = new ExecutionList();
+        private final Object owner;
+        private final Priority priority;
+        // Guarded by the lock of the executor; the queue is null unless this entry is queued
+        private long sequence;
+        private long submitted;
+        private volatile OwnerQueue queue;
+
+        private Entry(Object owner, Priority priority, Callable<T> callable) {
+            super(callable);
+            this.owner = owner;
+            this.priority = priority;
+        }
+
+        private Entry(Object owner, Priority priority, Runnable runnable, T value) {
+            super(runnable, value);
+            this.owner = owner;
+            this.priority = priority;
+        }
+
+        @Override
+        public void addListener(Runnable listener, Executor executor) {
+            listeners.add(listener, executor);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                dequeue(this);
+            }
+            listeners.execute();
+        }
+    }
+
+    /**
+     * A snapshot of the state of a {@link FairTaskExecutor}.
+     */
+    public static final class Statistics {
+        private final int threads;
+        private final int maxThreads;
+        private final int runningTasks;
+        private final int queuedTasks;
+        private final int waitingOwners;
+        private final long completedTasks;
+        private final long averageWaitNanos;
+        private final long maxWaitNanos;
+
+        private Statistics(int threads, int maxThreads, int runningTasks, int queuedTasks, int waitingOwners,
+                           long completedTasks, long averageWaitNanos, long maxWaitNanos) {
+            this.threads = threads;
+            this.maxThreads = maxThreads;
+            this.runningTasks = runningTasks;
+            this.queuedTasks = queuedTasks;
+            this.waitingOwners = waitingOwners;
+            this.completedTasks = completedTasks;
+            this.averageWaitNanos = averageWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        /**
+         * Get the number of worker threads that are alive.
+         *
+         * @return the number of threads
+         */
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * Get the maximum number of worker threads.
+         *
+         * @return the maximum number of threads
+         */
+        public int getMaxThreads() {
+            return maxThreads;
+        }
+
+        /**
+         * Get the number of tasks being run.
+         *
+         * @return the number of running tasks
+         */
+        public int getRunningTasks() {
+            return runningTasks;
+        }
+
+        /**
+         * Get the number of tasks waiting for a worker.
+         *
+         * @return the queue depth
+         */
+        public int getQueuedTasks() {
+            return queuedTasks;
+        }
+
+        /**
+         * Get the number of owners that have tasks waiting for a worker.
+         *
+         * @return the number of owners
+         */
+        public int getWaitingOwners() {
+            return waitingOwners;
+        }
+
+        /**
+         * Get the number of tasks that have been run.
+         *
+         * @return the number of tasks
+         */
+        public long getCompletedTasks() {
+            return completedTasks;
+        }
+
+        /**
+         * Get the average time tasks spent queued before they were started.
+         *
+         * @param unit the unit of the result
+         * @return the average wait
+         */
+        public long getAverageWait(TimeUnit unit) {
+            return unit.convert(averageWaitNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Get the longest time a task spent queued before it was started.
+         *
+         * @param unit the unit of the result
+         * @return the longest wait
+         */
+        public long getMaxWait(TimeUnit unit) {
+            return unit.convert(maxWaitNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+}
@@ -20,7 +20,9 @@
 package com.sk89q.worldedit.util.task;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import com.sk89q.worldedit.util.concurrency.FairTaskExecutor;
 import com.sk89q.worldedit.util.task.progress.Progress;
+import com.sk89q.worldedit.util.task.progress.ProgressObservable;
 
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
@@ -33,9 +35,10 @@
 /**
  * A task that wraps a {@code ListenableFuture}.
  *
- * <p>{@link Task.State#SCHEDULED} is never returned because it is not possible
- * to test whether the future has "started," so {@link Task.State#RUNNING} is
- * returned in its place.</p>
+ * <p>{@link Task.State#SCHEDULED} is only returned for futures of a
+ * {@link FairTaskExecutor} that are still queued. For other futures it is not
+ * possible to test whether the future has "started," so
+ * {@link Task.State#RUNNING} is returned in its place.</p>
  *
  * <p>Use {@link #create(ListenableFuture, String, Object)} to create a new
  * instance.</p>
@@ -45,11 +48,14 @@
 public class FutureForwardingTask<V> extends AbstractTask<V> {
 
     private final ListenableFuture<V> future;
+    @Nullable
+    private final ProgressObservable progress;
 
-    private FutureForwardingTask(ListenableFuture<V> future, String name, @Nullable Object owner) {
+    private FutureForwardingTask(ListenableFuture<V> future, String name, @Nullable Object owner, @Nullable ProgressObservable progress) {
         super(name, owner);
         checkNotNull(future);
         this.future = future;
+        this.progress = progress;
     }
 
     @Override
@@ -95,6 +101,8 @@ public State getState() {
             } catch (ExecutionException e) {
                 return State.FAILED;
             }
+        } else if (FairTaskExecutor.isQueued(future)) {
+            return State.SCHEDULED;
         } else {
             return State.RUNNING;
         }
@@ -102,7 +110,10 @@ public State getState() {
 
     @Override
     public Progress getProgress() {
-        return Progress.indeterminate();
+        if (isDone()) {
+            return Progress.completed();
+        }
+        return progress != null ? progress.getProgress() : Progress.indeterminate();
     }
 
     /**
@@ -115,7 +126,23 @@ public Progress getProgress() {
      * @return a new instance
      */
     public static <V> FutureForwardingTask<V> create(ListenableFuture<V> future, String name, @Nullable Object owner) {
-        return new FutureForwardingTask<>(future, name, owner);
+        return new FutureForwardingTask<>(future, name, owner, null);
+    }
+
+    /**
+     * Create a new instance that reports the progress of the given observable
+     * until the future completes.
+     *
+     * @param future the future
+     * @param name the name of the task
+     * @param owner the owner of the task, or {@code null}
+     * @param progress the source of the progress of the work done by the future
+     * @param <V> the type returned by the future
+     * @return a new instance
+     */
+    public static <V> FutureForwardingTask<V> create(ListenableFuture<V> future, String name, @Nullable Object owner, ProgressObservable progress) {
+        checkNotNull(progress);
+        return new FutureForwardingTask<>(future, name, owner, progress);
     }
 
 }
@@ -44,6 +44,7 @@
 import com.sk89q.worldedit.world.weather.WeatherType;
 
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Set;
 import javax.annotation.Nullable;
 
@@ -82,6 +83,25 @@ public interface World extends Extent, Keyed {
      */
     int getMaxY();
 
+    /**
+     * Get, for each column in a rectangle, a height above which there are
+     * no movement-blocking blocks.
+     *
+     * <p>Heights may be too high, but must never be lower than the highest
+     * movement-blocking block of the column. Implementations should override
+     * this to answer from the heightmaps that the platform already keeps.
+     * The default implementation gives {@link #getMaxY()} for every column.</p>
+     *
+     * @param minX the X coordinate of the first column
+     * @param minZ the Z coordinate of the first column
+     * @param width the number of columns along the X axis
+     * @param length the number of columns along the Z axis
+     * @param heights the array to fill, indexed by {@code z * width + x} from the first column
+     */
+    default void getMovementBlockerHeights(int minX, int minZ, int width, int length, int[] heights) {
+        Arrays.fill(heights, 0, width * length, getMaxY());
+    }
+
     /**
      * Create a mask that matches all liquids.
      *
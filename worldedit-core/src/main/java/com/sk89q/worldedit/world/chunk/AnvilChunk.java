@@ -236,7 +236,7 @@ private void populateTileEntities() throws DataException {
      * @throws DataException thrown if there is a data error
      */
     @Nullable
-    private CompoundTag getBlockTileEntity(BlockVector3 position) throws DataException {
+    private synchronized CompoundTag getBlockTileEntity(BlockVector3 position) throws DataException {
         if (tileEntities == null) {
             populateTileEntities();
         }
@@ -140,7 +140,7 @@ private void populateTileEntities() throws DataException {
      * @return a tag
      * @throws DataException if there is an error getting the chunk data
      */
-    private CompoundTag getBlockTileEntity(BlockVector3 position) throws DataException {
+    private synchronized CompoundTag getBlockTileEntity(BlockVector3 position) throws DataException {
         if (tileEntities == null) {
             populateTileEntities();
         }
@@ -20,30 +20,43 @@
 package com.sk89q.worldedit.world.snapshot;
 
 import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.LocalConfiguration;
 import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.chunk.Chunk;
+import com.sk89q.worldedit.world.storage.ChunkPrefetcher;
 import com.sk89q.worldedit.world.storage.ChunkStore;
+import com.sk89q.worldedit.world.storage.McRegionChunkStore;
 import com.sk89q.worldedit.world.storage.MissingChunkException;
+import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A snapshot restore operation.
  */
 public class SnapshotRestore {
 
-    private final Map<BlockVector2, ArrayList<BlockVector3>> neededChunks = new LinkedHashMap<>();
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final Map<BlockVector2, BitSet> neededChunks = new LinkedHashMap<>();
     private final ChunkStore chunkStore;
     private final EditSession editSession;
+    private final int minY;
     private ArrayList<BlockVector2> missingChunks;
     private ArrayList<BlockVector2> errorChunks;
     private String lastErrorMessage;
@@ -58,6 +71,7 @@ public class SnapshotRestore {
     public SnapshotRestore(ChunkStore chunkStore, EditSession editSession, Region region) {
         this.chunkStore = chunkStore;
         this.editSession = editSession;
+        this.minY = region.getMinimumPoint().getBlockY();
 
         if (region instanceof CuboidRegion) {
             findNeededCuboidChunks(region);
@@ -106,13 +120,19 @@ private void checkAndAddBlock(BlockVector3 pos) {
         }
 
         BlockVector2 chunkPos = ChunkStore.toChunk(pos);
+        neededChunks.computeIfAbsent(chunkPos, k -> new BitSet()).set(toIndex(pos));
+    }
 
-        // Unidentified chunk
-        if (!neededChunks.containsKey(chunkPos)) {
-            neededChunks.put(chunkPos, new ArrayList<>());
-        }
-
-        neededChunks.get(chunkPos).add(pos);
+    /**
+     * Get the index of a position within its chunk. Positions are ordered by
+     * Y, then Z, then X, so that restoring them in order fills one chunk
+     * section at a time.
+     *
+     * @param pos the position
+     * @return the index
+     */
+    private int toIndex(BlockVector3 pos) {
+        return ((pos.getBlockY() - minY) << 8) | ((pos.getBlockZ() & 15) << 4) | (pos.getBlockX() & 15);
     }
 
     /**
@@ -134,30 +154,81 @@ public void restore() throws MaxChangedBlocksException {
         missingChunks = new ArrayList<>();
         errorChunks = new ArrayList<>();
 
-        // Now let's start restoring!
-        for (Map.Entry<BlockVector2, ArrayList<BlockVector3>> entry : neededChunks.entrySet()) {
-            BlockVector2 chunkPos = entry.getKey();
-            Chunk chunk;
-
-            try {
-                chunk = chunkStore.getChunk(chunkPos, editSession.getWorld());
-                // Good, the chunk could be at least loaded
-
-                // Now just copy blocks!
-                for (BlockVector3 pos : entry.getValue()) {
-                    try {
-                        editSession.setBlock(pos, chunk.getBlock(pos));
-                    } catch (DataException e) {
-                        // this is a workaround: just ignore for now
+        LocalConfiguration config = WorldEdit.getInstance().getConfiguration();
+        int threads = config.snapshotRestoreThreads == 0
+            ? Runtime.getRuntime().availableProcessors()
+            : config.snapshotRestoreThreads;
+        World world = editSession.getWorld();
+        ChunkPrefetcher.ChunkTagReader reader;
+        if (chunkStore instanceof McRegionChunkStore) {
+            // Region stores keep their open regions behind their own lock and read chunks concurrently
+            reader = position -> chunkStore.getChunkTag(position, world);
+        } else {
+            // Other stores keep their open file in a field, so reads are done one at a time
+            reader = position -> {
+                synchronized (chunkStore) {
+                    return chunkStore.getChunkTag(position, world);
+                }
+            };
+        }
+        long readNanos = 0;
+        long decodeNanos = 0;
+        long applyNanos = 0;
+        int chunksDone = 0;
+        long lastReport = System.nanoTime();
+
+        // Now let's start restoring! Workers read and decode chunks ahead while this thread copies the blocks
+        try (ChunkPrefetcher prefetcher = new ChunkPrefetcher(neededChunks.keySet(), reader,
+            position -> chunkStore.getChunkCacheKey(world, position), threads, config.snapshotRestoreBufferedChunks)) {
+            while (prefetcher.hasNext()) {
+                ChunkPrefetcher.LoadedChunk loaded = prefetcher.next();
+                BlockVector2 chunkPos = loaded.getPosition();
+                readNanos += loaded.getReadNanos();
+                decodeNanos += loaded.getDecodeNanos();
+                long applyStart = System.nanoTime();
+
+                try {
+                    Chunk chunk = loaded.getChunk();
+                    // Good, the chunk could be at least loaded
+
+                    // Now just copy blocks!
+                    BitSet positions = neededChunks.get(chunkPos);
+                    int baseX = chunkPos.getBlockX() << 4;
+                    int baseZ = chunkPos.getBlockZ() << 4;
+                    for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+                        BlockVector3 pos = BlockVector3.at(baseX + (i & 15), minY + (i >> 8), baseZ + ((i >> 4) & 15));
+                        try {
+                            editSession.setBlock(pos, chunk.getBlock(pos));
+                        } catch (DataException e) {
+                            // this is a workaround: just ignore for now
+                        }
                     }
+                } catch (MissingChunkException me) {
+                    missingChunks.add(chunkPos);
+                } catch (IOException | DataException me) {
+                    errorChunks.add(chunkPos);
+                    lastErrorMessage = me.getMessage();
+                }
+
+                long now = System.nanoTime();
+                applyNanos += now - applyStart;
+                chunksDone++;
+                if (now - lastReport >= REPORT_INTERVAL_NANOS) {
+                    lastReport = now;
+                    LOGGER.info(formatProgress(chunksDone, readNanos, decodeNanos, applyNanos));
                 }
-            } catch (MissingChunkException me) {
-                missingChunks.add(chunkPos);
-            } catch (IOException | DataException me) {
-                errorChunks.add(chunkPos);
-                lastErrorMessage = me.getMessage();
             }
         }
+        LOGGER.debug(formatProgress(chunksDone, readNanos, decodeNanos, applyNanos));
+    }
+
+    private String formatProgress(int chunksDone, long readNanos, long decodeNanos, long applyNanos) {
+        // Reading and decoding happen on several workers at once, so their times are summed over the workers
+        return String.format("Snapshot restore: %d/%d chunks done (%d missing, %d failed); "
+                + "reading %d ms, decoding %d ms, applying %d ms",
+            chunksDone, neededChunks.size(), missingChunks.size(), errorChunks.size(),
+            TimeUnit.NANOSECONDS.toMillis(readNanos), TimeUnit.NANOSECONDS.toMillis(decodeNanos),
+            TimeUnit.NANOSECONDS.toMillis(applyNanos));
     }
 
     /**
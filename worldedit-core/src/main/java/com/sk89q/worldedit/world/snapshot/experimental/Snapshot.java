@@ -27,6 +27,7 @@
 
 import java.io.Closeable;
 import java.io.IOException;
+import javax.annotation.Nullable;
 
 /**
  * Represents a world snapshot.
@@ -54,6 +55,19 @@ default Chunk getChunk(BlockVector3 position) throws DataException, IOException
         return ChunkStoreHelper.getChunk(getChunkTag(position));
     }
 
+    /**
+     * Get a key for the data a chunk is read from. Snapshots that return
+     * equal keys share decoded chunks through a cache, so the key should
+     * change if the data does.
+     *
+     * @param position the position of the chunk
+     * @return the key, or {@code null} if the chunk should not be cached
+     */
+    @Nullable
+    default Object getChunkCacheKey(BlockVector3 position) {
+        return null;
+    }
+
     /**
      * Close this snapshot. This releases the IO handles used to load chunk information.
      */
@@ -19,6 +19,7 @@
 
 package com.sk89q.worldedit.world.snapshot.experimental.fs;
 
+import com.google.common.collect.ImmutableList;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
@@ -28,14 +29,17 @@
 import com.sk89q.worldedit.world.snapshot.experimental.SnapshotInfo;
 import com.sk89q.worldedit.world.storage.ChunkStoreHelper;
 import com.sk89q.worldedit.world.storage.LegacyChunkStore;
+import com.sk89q.worldedit.world.storage.MappedMcRegionReader;
 import com.sk89q.worldedit.world.storage.McRegionChunkStore;
-import com.sk89q.worldedit.world.storage.McRegionReader;
 import com.sk89q.worldedit.world.storage.MissingChunkException;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
@@ -92,10 +96,18 @@ private static Object getRegionFolder(Path folder) throws IOException {
         return NOT_FOUND_TOKEN;
     }
 
+    private static final int CACHED_REGIONS = 16;
+
     private final SnapshotInfo info;
     private final Path folder;
     private final AtomicReference<Object> regionFolder = new AtomicReference<>();
     private final @Nullable Closer closeCallback;
+    private final Map<Path, MappedMcRegionReader> regions = new LinkedHashMap<Path, MappedMcRegionReader>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, MappedMcRegionReader> eldest) {
+            return size() > CACHED_REGIONS;
+        }
+    };
 
     public FolderSnapshot(SnapshotInfo info, Path folder, @Nullable Closer closeCallback) {
         this.info = info;
@@ -128,6 +140,54 @@ private Optional<Path> getRegionFolder() throws IOException {
         return regFolder == NOT_FOUND_TOKEN ? Optional.empty() : Optional.of((Path) regFolder);
     }
 
+    /**
+     * Get the region file holding a chunk.
+     *
+     * @param regFolder the region folder
+     * @param pos the chunk position
+     * @return the region file, or {@code null} if there is none
+     */
+    @Nullable
+    private static Path getRegionFile(Path regFolder, BlockVector2 pos) {
+        Path regionFile = regFolder.resolve(McRegionChunkStore.getFilename(pos));
+        if (!Files.exists(regionFile)) {
+            // Try mcr as well
+            regionFile = regionFile.resolveSibling(
+                regionFile.getFileName().toString().replace(".mca", ".mcr")
+            );
+            if (!Files.exists(regionFile)) {
+                return null;
+            }
+        }
+        return regionFile;
+    }
+
+    /**
+     * Get the reader for a region file, opening it if it is not one of the
+     * recently used ones.
+     *
+     * @param regionFile the region file
+     * @return the reader
+     * @throws IOException if the file cannot be read
+     */
+    private MappedMcRegionReader getRegionReader(Path regionFile) throws IOException {
+        synchronized (regions) {
+            MappedMcRegionReader reader = regions.get(regionFile);
+            if (reader == null) {
+                if (regionFile.getFileSystem() == FileSystems.getDefault()) {
+                    reader = MappedMcRegionReader.open(regionFile);
+                } else {
+                    // Files in archives can't be mapped, so read them into memory
+                    try (InputStream stream = Files.newInputStream(regionFile)) {
+                        reader = MappedMcRegionReader.read(stream);
+                    }
+                }
+                regions.put(regionFile, reader);
+            }
+            return reader;
+        }
+    }
+
     @Override
     public CompoundTag getChunkTag(BlockVector3 position) throws DataException, IOException {
         BlockVector2 pos = position.toBlockVector2();
@@ -141,24 +201,39 @@ public CompoundTag getChunkTag(BlockVector3 position) throws DataException, IOEx
                 new GZIPInputStream(Files.newInputStream(chunkFile))
             );
         }
-        Path regionFile = regFolder.get().resolve(McRegionChunkStore.getFilename(pos));
-        if (!Files.exists(regionFile)) {
-            // Try mcr as well
-            regionFile = regionFile.resolveSibling(
-                regionFile.getFileName().toString().replace(".mca", ".mcr")
-            );
-            if (!Files.exists(regionFile)) {
-                throw new MissingChunkException();
-            }
+        Path regionFile = getRegionFile(regFolder.get(), pos);
+        if (regionFile == null) {
+            throw new MissingChunkException();
         }
-        try (InputStream stream = Files.newInputStream(regionFile)) {
-            McRegionReader regionReader = new McRegionReader(stream);
-            return ChunkStoreHelper.readCompoundTag(() -> regionReader.getChunkInputStream(pos));
+        MappedMcRegionReader regionReader = getRegionReader(regionFile);
+        return ChunkStoreHelper.readCompoundTag(() -> regionReader.getChunkInputStream(pos));
+    }
+
+    @Override
+    @Nullable
+    public Object getChunkCacheKey(BlockVector3 position) {
+        try {
+            Optional<Path> regFolder = getRegionFolder();
+            if (!regFolder.isPresent()) {
+                return null;
+            }
+            Path regionFile = getRegionFile(regFolder.get(), position.toBlockVector2());
+            if (regionFile == null) {
+                return null;
+            }
+            // The URI includes the archive for files inside one
+            return ImmutableList.of(regionFile.toUri().toString(),
+                Files.getLastModifiedTime(regionFile).toMillis(), Files.size(regionFile));
+        } catch (IOException e) {
+            return null;
         }
     }
 
     @Override
     public void close() throws IOException {
+        synchronized (regions) {
+            regions.clear();
+        }
         if (closeCallback != null) {
             closeCallback.close();
         }
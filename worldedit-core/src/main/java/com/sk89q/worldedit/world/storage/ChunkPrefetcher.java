@@ -0,0 +1,261 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.storage;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.chunk.Chunk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads and decodes chunks ahead of their use on a pool of worker threads.
+ *
+ * <p>Chunks are handed out by {@link #next()} in the order of the positions
+ * given, while the workers load the chunks after them. No more than a fixed
+ * number of chunks are loaded or waiting at any one time, which bounds the
+ * memory used.</p>
+ */
+public final class ChunkPrefetcher implements Closeable {
+
+    /**
+     * Reads the tag of a chunk. This may be called from several threads at
+     * once.
+     */
+    @FunctionalInterface
+    public interface ChunkTagReader {
+
+        CompoundTag read(BlockVector2 position) throws DataException, IOException;
+
+    }
+
+    private final Iterator<BlockVector2> positions;
+    private final ChunkTagReader reader;
+    @Nullable
+    private final Function<BlockVector2, Object> cacheKeys;
+    private final int bufferedChunks;
+    private final ExecutorService workers;
+    private final Queue<Future<LoadedChunk>> pending = new ArrayDeque<>();
+
+    /**
+     * Create a new instance and start loading the first chunks.
+     *
+     * @param positions the positions of the chunks, in the order to hand them out
+     * @param reader reads the tag of a chunk
+     * @param threads the number of worker threads
+     * @param bufferedChunks the most chunks to be loading or waiting at once
+     */
+    public ChunkPrefetcher(Iterable<BlockVector2> positions, ChunkTagReader reader, int threads, int bufferedChunks) {
+        this(positions, reader, null, threads, bufferedChunks);
+    }
+
+    /**
+     * Create a new instance and start loading the first chunks. Chunks are
+     * shared through the cache used by {@link ChunkStore#getChunk} when a
+     * function for keys is given.
+     *
+     * @param positions the positions of the chunks, in the order to hand them out
+     * @param reader reads the tag of a chunk
+     * @param cacheKeys gives the key from {@link ChunkStore#getChunkCacheKey(com.sk89q.worldedit.world.World, BlockVector2)}
+     *                  for a position, or {@code null} to not use the cache
+     * @param threads the number of worker threads
+     * @param bufferedChunks the most chunks to be loading or waiting at once
+     */
+    public ChunkPrefetcher(Iterable<BlockVector2> positions, ChunkTagReader reader,
+                           @Nullable Function<BlockVector2, Object> cacheKeys, int threads, int bufferedChunks) {
+        checkNotNull(positions);
+        checkNotNull(reader);
+        checkArgument(threads >= 1, "threads must be at least 1");
+        checkArgument(bufferedChunks >= 1, "bufferedChunks must be at least 1");
+        this.positions = positions.iterator();
+        this.reader = reader;
+        this.cacheKeys = cacheKeys;
+        this.bufferedChunks = bufferedChunks;
+        this.workers = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+            .setNameFormat("worldedit-chunk-prefetch-%d")
+            .setDaemon(true)
+            .build());
+        fill();
+    }
+
+    private void fill() {
+        while (pending.size() < bufferedChunks && positions.hasNext()) {
+            BlockVector2 position = positions.next();
+            pending.add(workers.submit(() -> load(position)));
+        }
+    }
+
+    private LoadedChunk load(BlockVector2 position) {
+        long start = System.nanoTime();
+        Object cacheKey = cacheKeys == null ? null : cacheKeys.apply(position);
+        if (cacheKey != null) {
+            Chunk cached = ChunkStore.getCachedChunk(cacheKey, position);
+            if (cached != null) {
+                return new LoadedChunk(position, cached, null, System.nanoTime() - start, 0);
+            }
+        }
+        CompoundTag tag;
+        try {
+            tag = reader.read(position);
+        } catch (DataException | IOException e) {
+            return new LoadedChunk(position, null, e, System.nanoTime() - start, 0);
+        }
+        long read = System.nanoTime();
+        try {
+            Chunk chunk = ChunkStoreHelper.getChunk(tag);
+            if (cacheKey != null) {
+                ChunkStore.cacheChunk(cacheKey, position, chunk);
+            }
+            return new LoadedChunk(position, chunk, null, read - start, System.nanoTime() - read);
+        } catch (DataException e) {
+            return new LoadedChunk(position, null, e, read - start, System.nanoTime() - read);
+        }
+    }
+
+    /**
+     * Check whether there are more chunks to hand out.
+     *
+     * @return true if there are more chunks
+     */
+    public boolean hasNext() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Wait for the next chunk to be loaded, and start loading another.
+     *
+     * @return the loaded chunk, which may hold an error instead
+     */
+    public LoadedChunk next() {
+        Future<LoadedChunk> future = pending.poll();
+        if (future == null) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return Uninterruptibles.getUninterruptibly(future);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            fill();
+        }
+    }
+
+    /**
+     * Stop loading chunks. Chunks that are being loaded are discarded.
+     */
+    @Override
+    public void close() {
+        for (Future<LoadedChunk> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+        workers.shutdownNow();
+    }
+
+    /**
+     * The result of loading a chunk.
+     */
+    public static final class LoadedChunk {
+
+        private final BlockVector2 position;
+        @Nullable
+        private final Chunk chunk;
+        @Nullable
+        private final Exception error;
+        private final long readNanos;
+        private final long decodeNanos;
+
+        private LoadedChunk(BlockVector2 position, @Nullable Chunk chunk, @Nullable Exception error, long readNanos, long decodeNanos) {
+            this.position = position;
+            this.chunk = chunk;
+            this.error = error;
+            this.readNanos = readNanos;
+            this.decodeNanos = decodeNanos;
+        }
+
+        /**
+         * Get the position of the chunk.
+         *
+         * @return the position
+         */
+        public BlockVector2 getPosition() {
+            return position;
+        }
+
+        /**
+         * Get the chunk, or throw the error that stopped it from loading.
+         *
+         * @return the chunk
+         * @throws DataException if the chunk could not be read or decoded
+         * @throws IOException if the chunk could not be read
+         */
+        public Chunk getChunk() throws DataException, IOException {
+            if (error instanceof DataException) {
+                throw (DataException) error;
+            } else if (error instanceof IOException) {
+                throw (IOException) error;
+            }
+            return checkNotNull(chunk);
+        }
+
+        /**
+         * Get the time spent reading and inflating the tag of the chunk.
+         *
+         * @return the time in nanoseconds
+         */
+        public long getReadNanos() {
+            return readNanos;
+        }
+
+        /**
+         * Get the time spent decoding the tag into a chunk.
+         *
+         * @return the time in nanoseconds
+         */
+        public long getDecodeNanos() {
+            return decodeNanos;
+        }
+
+    }
+
+}
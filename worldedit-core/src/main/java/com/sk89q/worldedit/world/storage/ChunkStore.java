@@ -19,6 +19,9 @@
 
 package com.sk89q.worldedit.world.storage;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
@@ -28,6 +31,8 @@
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.List;
+import javax.annotation.Nullable;
 
 /**
  * Represents chunk storage mechanisms.
@@ -54,6 +59,24 @@ public abstract class ChunkStore implements Closeable {
      */
     public static final int CHUNK_SHIFTS_Y = 8;
 
+    /**
+     * Decoded chunks shared between all stores, keyed by the store's
+     * {@link #getChunkCacheKey(World, BlockVector2)} and the chunk position.
+     */
+    private static final Cache<List<Object>, Chunk> CHUNK_CACHE = CacheBuilder.newBuilder()
+        .maximumSize(256)
+        .softValues()
+        .build();
+
+    @Nullable
+    static Chunk getCachedChunk(Object cacheKey, BlockVector2 position) {
+        return CHUNK_CACHE.getIfPresent(ImmutableList.of(cacheKey, position));
+    }
+
+    static void cacheChunk(Object cacheKey, BlockVector2 position, Chunk chunk) {
+        CHUNK_CACHE.put(ImmutableList.of(cacheKey, position), chunk);
+    }
+
     /**
      * Convert a position to a 3D-chunk. Y is counted in steps of 256.
      *
@@ -94,8 +117,46 @@ public static BlockVector2 toChunk(BlockVector3 position) {
      * @throws IOException thrown on I/O error
      */
     public Chunk getChunk(BlockVector2 position, World world) throws DataException, IOException {
+        Object cacheKey = getChunkCacheKey(world, position);
+        if (cacheKey != null) {
+            Chunk chunk = getCachedChunk(cacheKey, position);
+            if (chunk != null) {
+                return chunk;
+            }
+        }
         CompoundTag rootTag = getChunkTag(position, world);
-        return ChunkStoreHelper.getChunk(rootTag);
+        Chunk chunk = ChunkStoreHelper.getChunk(rootTag);
+        if (cacheKey != null) {
+            cacheChunk(cacheKey, position, chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * Get a key for the data this store reads for a world. Stores that
+     * return equal keys share decoded chunks through a cache, so the key
+     * should change if the underlying data does.
+     *
+     * @param world the world
+     * @return the key, or {@code null} if chunks should not be cached
+     */
+    @Nullable
+    public Object getChunkCacheKey(World world) {
+        return null;
+    }
+
+    /**
+     * Get a key for the data this store reads a chunk from. By default this
+     * is the key from {@link #getChunkCacheKey(World)}. Stores that can
+     * tell when the data for a single chunk changes should override this.
+     *
+     * @param world the world
+     * @param position the position of the chunk
+     * @return the key, or {@code null} if the chunk should not be cached
+     */
+    @Nullable
+    public Object getChunkCacheKey(World world, BlockVector2 position) {
+        return getChunkCacheKey(world);
     }
 
     @Override
@@ -19,7 +19,10 @@
 
 package com.sk89q.worldedit.world.storage;
 
+import com.google.common.collect.ImmutableList;
+import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.World;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -27,6 +30,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 
 public class FileMcRegionChunkStore extends McRegionChunkStore {
 
@@ -44,6 +48,25 @@ public FileMcRegionChunkStore(File path) {
 
     @Override
     protected InputStream getInputStream(String name, String world) throws IOException, DataException {
+        try {
+            return new FileInputStream(getRegionFile(name));
+        } catch (FileNotFoundException e) {
+            throw new MissingChunkException();
+        }
+    }
+
+    @Override
+    protected MappedMcRegionReader openRegion(String name, String worldName) throws DataException, IOException {
+        File file;
+        try {
+            file = getRegionFile(name);
+        } catch (FileNotFoundException e) {
+            throw new MissingChunkException();
+        }
+        return MappedMcRegionReader.open(file.toPath());
+    }
+
+    private File getRegionFile(String name) throws FileNotFoundException {
         Pattern ext = Pattern.compile(".*\\.mc[ra]$"); // allow either file extension, both work the same
         File file = null;
         File[] files = new File(path, "region").listFiles();
@@ -61,14 +84,24 @@ protected InputStream getInputStream(String name, String world) throws IOExcepti
             }
         }
 
-        try {
-            if (file == null) {
-                throw new FileNotFoundException();
+        if (file == null) {
+            throw new FileNotFoundException();
+        }
+        return file;
+    }
+
+    @Override
+    @Nullable
+    public Object getChunkCacheKey(World world, BlockVector2 position) {
+        // The directory only changes when region files are added or removed, so check the file itself
+        File file = new File(new File(path, "region"), getFilename(position));
+        if (!file.isFile()) {
+            file = new File(file.getParentFile(), file.getName().replaceFirst("mca$", "mcr"));
+            if (!file.isFile()) {
+                return null;
             }
-            return new FileInputStream(file);
-        } catch (FileNotFoundException e) {
-            throw new MissingChunkException();
         }
+        return ImmutableList.of(file.getAbsolutePath(), file.lastModified(), file.length());
     }
 
     @Override
@@ -0,0 +1,175 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.storage;
+
+import com.google.common.io.ByteStreams;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.world.DataException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reader for a MCRegion file that can read its chunks in any order.
+ *
+ * <p>Unlike {@link McRegionReader}, the whole file is either memory mapped
+ * or read into memory up front, and the header is parsed once. Chunks can
+ * then be read by many threads at once.</p>
+ */
+public final class MappedMcRegionReader {
+
+    private static final int VERSION_GZIP = 1;
+    private static final int VERSION_DEFLATE = 2;
+    private static final int SECTOR_BYTES = 4096;
+    private static final int SECTOR_INTS = SECTOR_BYTES / 4;
+
+    /**
+     * Memory map a region file.
+     *
+     * @param path the path to the file
+     * @return the reader
+     * @throws IOException if the file cannot be mapped or its header is missing
+     */
+    public static MappedMcRegionReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid once the channel is closed
+            return new MappedMcRegionReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Read a whole region file from a stream into memory, such as one
+     * inside a ZIP file. The stream is not closed.
+     *
+     * @param stream the stream
+     * @return the reader
+     * @throws IOException if the stream cannot be read or the header is missing
+     */
+    public static MappedMcRegionReader read(InputStream stream) throws IOException {
+        return new MappedMcRegionReader(ByteBuffer.wrap(ByteStreams.toByteArray(stream)));
+    }
+
+    private final ByteBuffer buffer;
+    private final int[] offsets = new int[SECTOR_INTS];
+    private final int[] timestamps = new int[SECTOR_INTS];
+
+    private MappedMcRegionReader(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < SECTOR_BYTES) {
+            throw new IOException("MCRegion file is too short to have a header");
+        }
+        this.buffer = buffer;
+        for (int i = 0; i < SECTOR_INTS; i++) {
+            offsets[i] = buffer.getInt(i * 4);
+        }
+        // Older files may stop before the timestamps
+        if (buffer.capacity() >= SECTOR_BYTES * 2) {
+            for (int i = 0; i < SECTOR_INTS; i++) {
+                timestamps[i] = buffer.getInt(SECTOR_BYTES + i * 4);
+            }
+        }
+    }
+
+    /**
+     * Gets the uncompressed data input stream for a chunk.
+     *
+     * @param position chunk position
+     * @return an input stream
+     * @throws IOException if there is an error getting the chunk data
+     * @throws DataException if there is an error getting the chunk data
+     */
+    public InputStream getChunkInputStream(BlockVector2 position) throws IOException, DataException {
+        int x = position.getBlockX() & 31;
+        int z = position.getBlockZ() & 31;
+
+        int offset = offsets[x + z * 32];
+
+        // The chunk hasn't been generated
+        if (offset == 0) {
+            throw new DataException("The chunk at " + x + "," + z + " is not generated");
+        }
+
+        int sectorNumber = offset >>> 8;
+        int numSectors = offset & 0xFF;
+
+        long start = (long) sectorNumber * SECTOR_BYTES;
+        if (start + McRegionReader.CHUNK_HEADER_SIZE > buffer.capacity()) {
+            throw new DataException("MCRegion file does not contain "
+                    + x + "," + z + " in full");
+        }
+        int length = buffer.getInt((int) start);
+
+        if (length < 1 || length > SECTOR_BYTES * numSectors) {
+            throw new DataException("MCRegion chunk at "
+                    + x + "," + z + " has an invalid length of " + length);
+        }
+        if (start + 4 + length > buffer.capacity()) {
+            throw new DataException("MCRegion file does not contain "
+                    + x + "," + z + " in full");
+        }
+
+        byte version = buffer.get((int) start + 4);
+        if (version != VERSION_GZIP && version != VERSION_DEFLATE) {
+            throw new DataException("MCRegion chunk at "
+                    + x + "," + z + " has an unsupported version of " + version);
+        }
+
+        // Copy through a duplicate, as the position of a shared buffer is not safe to move
+        byte[] data = new byte[length - 1];
+        ByteBuffer chunkBuffer = buffer.duplicate();
+        chunkBuffer.position((int) start + McRegionReader.CHUNK_HEADER_SIZE);
+        chunkBuffer.get(data);
+
+        if (version == VERSION_GZIP) {
+            return new GZIPInputStream(new ByteArrayInputStream(data));
+        } else {
+            return new InflaterInputStream(new ByteArrayInputStream(data));
+        }
+    }
+
+    /**
+     * Returns whether the file contains a chunk.
+     *
+     * @param x the X coordinate
+     * @param z the Z coordinate
+     * @return true if the chunk is in the file
+     */
+    public boolean hasChunk(int x, int z) {
+        return offsets[(x & 31) + (z & 31) * 32] != 0;
+    }
+
+    /**
+     * Get the time at which a chunk was last saved.
+     *
+     * @param x the X coordinate
+     * @param z the Z coordinate
+     * @return the time in seconds since the epoch, or 0 if not known
+     */
+    public int getTimestamp(int x, int z) {
+        return timestamps[(x & 31) + (z & 31) * 32];
+    }
+
+}
@@ -26,11 +26,21 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public abstract class McRegionChunkStore extends ChunkStore {
 
+    private static final int CACHED_REGIONS = 16;
+
     protected String curFilename = null;
     protected McRegionReader cachedReader = null;
+    private final Map<String, MappedMcRegionReader> regions = new LinkedHashMap<String, MappedMcRegionReader>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MappedMcRegionReader> eldest) {
+            return size() > CACHED_REGIONS;
+        }
+    };
 
     /**
      * Get the filename of a region file.
@@ -63,13 +73,49 @@ protected McRegionReader getReader(BlockVector2 pos, String worldname) throws Da
         return cachedReader;
     }
 
+    /**
+     * Get the reader for the region file holding a chunk, opening it if it
+     * is not one of the recently used ones.
+     *
+     * @param pos chunk position
+     * @param worldName the world name
+     * @return the reader
+     * @throws DataException if there is an error getting the region data
+     * @throws IOException if there is an error getting the region data
+     */
+    protected MappedMcRegionReader getRegionReader(BlockVector2 pos, String worldName) throws DataException, IOException {
+        String filename = getFilename(pos);
+        // Opening is done under the lock too, as the stores' input streams are not thread safe
+        synchronized (regions) {
+            MappedMcRegionReader reader = regions.get(filename);
+            if (reader == null) {
+                reader = openRegion(filename, worldName);
+                regions.put(filename, reader);
+            }
+            return reader;
+        }
+    }
+
+    /**
+     * Open a region file for random access. By default the file is read
+     * into memory from {@link #getInputStream(String, String)}.
+     *
+     * @param name the name of the region file
+     * @param worldName the world name
+     * @return the reader
+     * @throws DataException if there is an error getting the region data
+     * @throws IOException if there is an error getting the region data
+     */
+    protected MappedMcRegionReader openRegion(String name, String worldName) throws DataException, IOException {
+        try (InputStream stream = getInputStream(name, worldName)) {
+            return MappedMcRegionReader.read(stream);
+        }
+    }
+
     @Override
     public CompoundTag getChunkTag(BlockVector2 position, World world) throws DataException, IOException {
-        return ChunkStoreHelper.readCompoundTag(() -> {
-            McRegionReader reader = getReader(position, world.getName());
-
-            return reader.getChunkInputStream(position);
-        });
+        MappedMcRegionReader reader = getRegionReader(position, world.getName());
+        return ChunkStoreHelper.readCompoundTag(() -> reader.getChunkInputStream(position));
     }
 
     /**
@@ -84,6 +130,9 @@ public CompoundTag getChunkTag(BlockVector2 position, World world) throws DataEx
 
     @Override
     public void close() throws IOException {
+        synchronized (regions) {
+            regions.clear();
+        }
         if (cachedReader != null) {
             cachedReader.close();
         }
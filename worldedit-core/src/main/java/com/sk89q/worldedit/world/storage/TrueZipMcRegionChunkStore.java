@@ -22,12 +22,14 @@
 package com.sk89q.worldedit.world.storage;
 
 import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.World;
 import de.schlichtherle.util.zip.ZipEntry;
 import de.schlichtherle.util.zip.ZipFile;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.regex.Pattern;
 import java.util.zip.ZipException;
@@ -41,6 +43,7 @@ public class TrueZipMcRegionChunkStore extends McRegionChunkStore {
     protected File zipFile;
     protected ZipFile zip;
     protected String folder;
+    private final String requestedFolder;
 
     /**
      * Create an instance. The folder argument lets you choose a folder or
@@ -55,6 +58,7 @@ public class TrueZipMcRegionChunkStore extends McRegionChunkStore {
     public TrueZipMcRegionChunkStore(File zipFile, String folder) throws IOException, ZipException {
         this.zipFile = zipFile;
         this.folder = folder;
+        this.requestedFolder = folder;
 
         zip = new ZipFile(zipFile);
     }
@@ -69,6 +73,7 @@ public TrueZipMcRegionChunkStore(File zipFile, String folder) throws IOException
      */
     public TrueZipMcRegionChunkStore(File zipFile) throws IOException, ZipException {
         this.zipFile = zipFile;
+        this.requestedFolder = null;
 
         zip = new ZipFile(zipFile);
     }
@@ -153,6 +158,11 @@ private ZipEntry getEntry(String file) {
         return zip.getEntry(file.replace("/", "\\"));
     }
 
+    @Override
+    public Object getChunkCacheKey(World world) {
+        return Arrays.asList(zipFile.getAbsolutePath(), zipFile.lastModified(), requestedFolder, world.getName());
+    }
+
     @Override
     public void close() throws IOException {
         zip.close();
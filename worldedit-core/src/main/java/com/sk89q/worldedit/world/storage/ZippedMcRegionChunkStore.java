@@ -22,10 +22,12 @@
 package com.sk89q.worldedit.world.storage;
 
 import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.World;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
@@ -40,6 +42,7 @@ public class ZippedMcRegionChunkStore extends McRegionChunkStore {
     protected File zipFile;
     protected ZipFile zip;
     protected String folder;
+    private final String requestedFolder;
 
     /**
      * Create an instance. The folder argument lets you choose a folder or
@@ -54,6 +57,7 @@ public class ZippedMcRegionChunkStore extends McRegionChunkStore {
     public ZippedMcRegionChunkStore(File zipFile, String folder) throws IOException, ZipException {
         this.zipFile = zipFile;
         this.folder = folder;
+        this.requestedFolder = folder;
 
         zip = new ZipFile(zipFile);
     }
@@ -68,6 +72,7 @@ public ZippedMcRegionChunkStore(File zipFile, String folder) throws IOException,
      */
     public ZippedMcRegionChunkStore(File zipFile) throws IOException, ZipException {
         this.zipFile = zipFile;
+        this.requestedFolder = null;
 
         zip = new ZipFile(zipFile);
     }
@@ -141,6 +146,11 @@ private ZipEntry getEntry(String file) {
         return zip.getEntry(file.replace("/", "\\"));
     }
 
+    @Override
+    public Object getChunkCacheKey(World world) {
+        return Arrays.asList(zipFile.getAbsolutePath(), zipFile.lastModified(), requestedFolder, world.getName());
+    }
+
     @Override
     public void close() throws IOException {
         zip.close();
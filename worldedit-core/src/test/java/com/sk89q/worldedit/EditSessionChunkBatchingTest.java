@@ -0,0 +1,118 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.SideEffectSet;
+import com.sk89q.worldedit.util.eventbus.EventBus;
+import com.sk89q.worldedit.util.test.MockedPlatform;
+import com.sk89q.worldedit.util.test.TestBlockTypes;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("An edit session that batches chunks")
+class EditSessionChunkBatchingTest {
+
+    @RegisterExtension
+    static final MockedPlatform PLATFORM = MockedPlatform.create();
+
+    private static BlockState air;
+    private static BlockState stone;
+
+    private final Set<BlockVector3> set = new HashSet<>();
+    private World world;
+
+    @BeforeAll
+    static void registerTypes() {
+        air = TestBlockTypes.getOrRegister("minecraft:air").getDefaultState();
+        stone = TestBlockTypes.getOrRegister("minecraft:stone").getDefaultState();
+    }
+
+    @BeforeEach
+    void setUp() throws WorldEditException {
+        world = mock(World.class);
+        when(world.getMaxY()).thenReturn(255);
+        when(world.getBlock(any(BlockVector3.class))).thenReturn(air);
+        when(world.setBlock(any(BlockVector3.class), any(), any(SideEffectSet.class))).thenAnswer(invocation -> {
+            set.add(invocation.getArgument(0));
+            return true;
+        });
+    }
+
+    private EditSession createEditSession() {
+        EditSession editSession = new EditSession(new EventBus(), world, -1, null, null, false);
+        editSession.enableStandardMode();
+        return editSession;
+    }
+
+    private Set<BlockVector3> setStone(EditSession editSession, int chunks, int blocksPerChunk)
+            throws WorldEditException {
+        Set<BlockVector3> positions = new HashSet<>();
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            for (int i = 0; i < blocksPerChunk; i++) {
+                BlockVector3 position = BlockVector3.at(chunk * 16 + i % 16, 10 + i / 256, (i / 16) % 16);
+                editSession.setBlock(position, stone);
+                positions.add(position);
+            }
+        }
+        return positions;
+    }
+
+    @Test
+    @DisplayName("sets every block when it is closed")
+    void setsEveryBlock() throws WorldEditException {
+        EditSession editSession = createEditSession();
+        Set<BlockVector3> positions = setStone(editSession, 3, 40);
+        assertEquals(0, set.size());
+
+        editSession.close();
+        assertEquals(positions, set);
+    }
+
+    @Test
+    @DisplayName("applies side effects with the old states while simulating them after the edit")
+    void postEditSimulation() throws WorldEditException {
+        EditSession editSession = createEditSession();
+        editSession.setReorderMode(EditSession.ReorderMode.FAST);
+        Set<BlockVector3> positions = setStone(editSession, 2, 100);
+
+        editSession.close();
+        assertEquals(positions, set);
+        for (BlockVector3 position : positions) {
+            verify(world).applySideEffects(eq(position), eq(air), any(SideEffectSet.class));
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit;
+
+import com.sk89q.worldedit.function.mask.BlockTypeMask;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.eventbus.EventBus;
+import com.sk89q.worldedit.util.test.MockedPlatform;
+import com.sk89q.worldedit.util.test.TestBlockTypes;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.registry.BlockMaterial;
+import com.sk89q.worldedit.world.registry.BlockRegistry;
+import com.sk89q.worldedit.world.registry.BundledBlockRegistry;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("The highest terrain blocks of an edit session")
+class EditSessionTerrainHeightTest {
+
+    @RegisterExtension
+    static final MockedPlatform PLATFORM = MockedPlatform.withRegistries(new BundledRegistries() {
+        @Override
+        public BlockRegistry getBlockRegistry() {
+            return new BundledBlockRegistry() {
+                @Override
+                public BlockMaterial getMaterial(BlockType blockType) {
+                    return blockType == solidType ? SOLID : EMPTY;
+                }
+            };
+        }
+    });
+
+    private static final BlockMaterial SOLID = mock(BlockMaterial.class);
+    private static final BlockMaterial EMPTY = mock(BlockMaterial.class);
+    private static final int WIDTH = 7;
+    private static final int LENGTH = 5;
+    private static final int MIN_X = -3;
+    private static final int MIN_Z = 10;
+    private static BlockType solidType;
+    private static BlockType emptyType;
+
+    @BeforeAll
+    static void registerTypes() {
+        when(SOLID.isMovementBlocker()).thenReturn(true);
+
+        // Types of their own, so no other test has worked out their materials first
+        solidType = TestBlockTypes.getOrRegister("worldedit:terrain_height_solid");
+        emptyType = TestBlockTypes.getOrRegister("worldedit:terrain_height_empty");
+    }
+
+    private static int terrainHeight(int x, int z) {
+        return Math.floorMod(x * 7 + z * 3, 20) + 5;
+    }
+
+    /**
+     * Create a world with solid blocks up to the terrain height of each
+     * column, which reports heights a little above the terrain and counts
+     * any reads above those heights.
+     */
+    private static World createWorld(AtomicInteger readsAboveHeights) {
+        World world = mock(World.class);
+        when(world.getMaxY()).thenReturn(255);
+        BlockState solid = solidType.getDefaultState();
+        BlockState empty = emptyType.getDefaultState();
+        when(world.getBlock(any(BlockVector3.class))).thenAnswer(invocation -> {
+            BlockVector3 position = invocation.getArgument(0);
+            int x = position.getBlockX();
+            int z = position.getBlockZ();
+            if (position.getBlockY() > terrainHeight(x, z) + Math.floorMod(x, 3)) {
+                readsAboveHeights.incrementAndGet();
+            }
+            return position.getBlockY() <= terrainHeight(x, z) ? solid : empty;
+        });
+        doAnswer(invocation -> {
+            int minX = invocation.getArgument(0);
+            int minZ = invocation.getArgument(1);
+            int width = invocation.getArgument(2);
+            int length = invocation.getArgument(3);
+            int[] heights = invocation.getArgument(4);
+            for (int z = 0; z < length; z++) {
+                for (int x = 0; x < width; x++) {
+                    // Heights may be too high, but never too low
+                    heights[z * width + x] = terrainHeight(minX + x, minZ + z) + Math.floorMod(minX + x, 3);
+                }
+            }
+            return null;
+        }).when(world).getMovementBlockerHeights(anyInt(), anyInt(), anyInt(), anyInt(), any(int[].class));
+        return world;
+    }
+
+    @Test
+    @DisplayName("start scanning below the heights known by the world")
+    void usesWorldHeights() {
+        AtomicInteger readsAboveHeights = new AtomicInteger();
+        World world = createWorld(readsAboveHeights);
+        EditSession editSession = new EditSession(new EventBus(), world, -1, null, null, false);
+
+        int[] heights = new int[WIDTH * LENGTH];
+        editSession.getHighestTerrainBlocks(MIN_X, MIN_Z, WIDTH, LENGTH, 0, 200, null, heights);
+
+        assertEquals(0, readsAboveHeights.get());
+        verify(world).getMovementBlockerHeights(MIN_X, MIN_Z, WIDTH, LENGTH, heights);
+        for (int z = 0; z < LENGTH; z++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(terrainHeight(MIN_X + x, MIN_Z + z), heights[z * WIDTH + x]);
+                assertEquals(editSession.getHighestTerrainBlock(MIN_X + x, MIN_Z + z, 0, 200),
+                    heights[z * WIDTH + x]);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("scan from the top when a mask is given")
+    void ignoresWorldHeightsWithMask() {
+        AtomicInteger readsAboveHeights = new AtomicInteger();
+        World world = createWorld(readsAboveHeights);
+        EditSession editSession = new EditSession(new EventBus(), world, -1, null, null, false);
+
+        int[] heights = new int[WIDTH * LENGTH];
+        editSession.getHighestTerrainBlocks(MIN_X, MIN_Z, WIDTH, LENGTH, 0, 200,
+            new BlockTypeMask(editSession, solidType), heights);
+
+        verify(world, never()).getMovementBlockerHeights(anyInt(), anyInt(), anyInt(), anyInt(), any(int[].class));
+        for (int z = 0; z < LENGTH; z++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(terrainHeight(MIN_X + x, MIN_Z + z), heights[z * WIDTH + x]);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("scan from the top while blocks are buffered")
+    void ignoresWorldHeightsWhileBuffering() throws WorldEditException {
+        World world = createWorld(new AtomicInteger());
+        EditSession editSession = new EditSession(new EventBus(), world, -1, null, null, false);
+        editSession.enableStandardMode();
+        BlockVector3 raised = BlockVector3.at(MIN_X + 2, 100, MIN_Z + 1);
+        editSession.setBlock(raised, solidType.getDefaultState());
+
+        int[] heights = new int[WIDTH * LENGTH];
+        editSession.getHighestTerrainBlocks(MIN_X, MIN_Z, WIDTH, LENGTH, 0, 200, null, heights);
+
+        verify(world, never()).getMovementBlockerHeights(anyInt(), anyInt(), anyInt(), anyInt(), any(int[].class));
+        assertEquals(100, heights[WIDTH + 2]);
+        assertEquals(terrainHeight(MIN_X, MIN_Z), heights[0]);
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.command;
+
+import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.extension.platform.Actor;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.MappedClipboard;
+import com.sk89q.worldedit.extent.clipboard.io.BuiltInClipboardFormat;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.session.ClipboardHolder;
+import com.sk89q.worldedit.util.test.MockedPlatform;
+import com.sk89q.worldedit.util.test.TestBlockTypes;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("A schematic save task")
+class SchematicSaveTaskTest {
+
+    @RegisterExtension
+    static final MockedPlatform PLATFORM = MockedPlatform.create().withConfiguration().withDataVersion(2586);
+
+    private static BlockState stone;
+
+    @BeforeAll
+    static void registerTypes() {
+        TestBlockTypes.getOrRegister("minecraft:air");
+        stone = TestBlockTypes.getOrRegister("minecraft:stone").getDefaultState();
+    }
+
+    private static SchematicCommands.SchematicSaveTask createTask(File file, ClipboardHolder holder) {
+        Actor actor = mock(Actor.class);
+        when(actor.getName()).thenReturn("Tester");
+        return new SchematicCommands.SchematicSaveTask(actor, file, BuiltInClipboardFormat.SPONGE_SCHEMATIC, holder, false);
+    }
+
+    @Test
+    @DisplayName("saves its clipboard after the session replaces it")
+    void replacedWhileSaving(@TempDir Path directory) throws Exception {
+        CuboidRegion region = new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(31, 15, 31));
+        MappedClipboard first = new MappedClipboard(region, 2);
+        first.setBlock(BlockVector3.at(3, 4, 5), stone);
+
+        LocalSession session = new LocalSession();
+        session.setClipboard(new ClipboardHolder(first));
+        File file = directory.resolve("first.schem").toFile();
+        SchematicCommands.SchematicSaveTask task = createTask(file, session.getClipboard());
+
+        session.setClipboard(new ClipboardHolder(new MappedClipboard(region, 2)));
+        assertEquals(stone, first.getBlock(BlockVector3.at(3, 4, 5)));
+
+        task.call();
+        assertThrows(IllegalStateException.class, () -> first.getBlock(BlockVector3.ZERO));
+        try (ClipboardReader reader = BuiltInClipboardFormat.SPONGE_SCHEMATIC.getReader(new FileInputStream(file))) {
+            Clipboard saved = reader.read();
+            assertEquals(stone, saved.getBlock(BlockVector3.at(3, 4, 5)));
+        }
+        session.setClipboard(null);
+    }
+
+    @Test
+    @DisplayName("releases its clipboard if it never runs")
+    void releasedWhenNotStarted(@TempDir Path directory) throws Exception {
+        CuboidRegion region = new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(15, 15, 15));
+        MappedClipboard clipboard = new MappedClipboard(region, 2);
+        File file = directory.resolve("never.schem").toFile();
+        SchematicCommands.SchematicSaveTask task = createTask(file, new ClipboardHolder(clipboard));
+
+        clipboard.close();
+        clipboard.getBlock(BlockVector3.ZERO);
+        task.releaseIfNotStarted();
+        assertThrows(IllegalStateException.class, () -> clipboard.getBlock(BlockVector3.ZERO));
+
+        // Running afterwards does nothing, and does not release it again
+        task.call();
+        assertFalse(file.exists());
+    }
+}
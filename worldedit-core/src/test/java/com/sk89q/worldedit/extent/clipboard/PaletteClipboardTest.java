@@ -0,0 +1,319 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.command.tool.BrushTool;
+import com.sk89q.worldedit.command.tool.brush.ClipboardBrush;
+import com.sk89q.worldedit.command.tool.brush.SphereBrush;
+import com.sk89q.worldedit.function.pattern.ClipboardPattern;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector2;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.CylinderRegion;
+import com.sk89q.worldedit.session.ClipboardHolder;
+import com.sk89q.worldedit.session.request.Request;
+import com.sk89q.worldedit.util.test.MockedPlatform;
+import com.sk89q.worldedit.util.test.TestBlockTypes;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.biome.BiomeTypes;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A palette clipboard")
+class PaletteClipboardTest {
+
+    @RegisterExtension
+    static final MockedPlatform PLATFORM = MockedPlatform.create();
+
+    private static BlockType airType;
+    private static BlockType stoneType;
+    private static final List<BlockType> COLOURED_TYPES = new ArrayList<>();
+    private static BlockType chestType;
+
+    @BeforeAll
+    static void registerTypes() {
+        airType = TestBlockTypes.getOrRegister("minecraft:air");
+        stoneType = TestBlockTypes.getOrRegister("minecraft:stone");
+        for (String colour : new String[] {
+            "white", "orange", "magenta", "light_blue", "yellow", "lime", "pink", "gray",
+            "light_gray", "cyan", "purple", "blue", "brown", "green", "red", "black"
+        }) {
+            COLOURED_TYPES.add(TestBlockTypes.getOrRegister("minecraft:" + colour + "_wool"));
+            COLOURED_TYPES.add(TestBlockTypes.getOrRegister("minecraft:" + colour + "_concrete"));
+        }
+        chestType = TestBlockTypes.getOrRegister("minecraft:chest");
+    }
+
+    private final BlockState air = airType.getDefaultState();
+    private final BlockState stone = stoneType.getDefaultState();
+
+    @Test
+    @DisplayName("returns air for unset positions")
+    void unsetIsAir() {
+        PaletteClipboard clipboard = new PaletteClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(20, 20, 20)));
+        assertEquals(air, clipboard.getBlock(BlockVector3.at(5, 5, 5)));
+        assertEquals(air, clipboard.getBlock(BlockVector3.at(100, 5, 5)));
+        assertEquals(1, clipboard.getPaletteSize());
+    }
+
+    @Test
+    @DisplayName("stores and returns many distinct states")
+    void manyStates() throws WorldEditException {
+        BlockVector3 min = BlockVector3.at(-7, 3, 12);
+        CuboidRegion region = new CuboidRegion(min, min.add(39, 21, 33));
+        PaletteClipboard clipboard = new PaletteClipboard(region);
+        List<BlockState> states = COLOURED_TYPES.stream().map(BlockType::getDefaultState).collect(Collectors.toList());
+
+        Random random = new Random(42);
+        BlockState[][][] expected = new BlockState[40][22][34];
+        for (int x = 0; x < 40; x++) {
+            for (int y = 0; y < 22; y++) {
+                for (int z = 0; z < 34; z++) {
+                    BlockState state = random.nextInt(4) == 0 ? air : states.get(random.nextInt(states.size()));
+                    expected[x][y][z] = state;
+                    assertTrue(clipboard.setBlock(min.add(x, y, z), state));
+                }
+            }
+        }
+        for (int x = 0; x < 40; x++) {
+            for (int y = 0; y < 22; y++) {
+                for (int z = 0; z < 34; z++) {
+                    assertEquals(expected[x][y][z], clipboard.getBlock(min.add(x, y, z)));
+                }
+            }
+        }
+        assertFalse(clipboard.setBlock(min.subtract(1, 0, 0), stone));
+    }
+
+    @Test
+    @DisplayName("keeps its contents when memory-mapped with a small cache")
+    void mappedRoundTrip() throws Exception {
+        BlockVector3 min = BlockVector3.at(5, -4, -30);
+        CuboidRegion region = new CuboidRegion(min, min.add(47, 35, 47));
+        PaletteClipboard clipboard = new MappedClipboard(region, 2);
+        List<BlockState> states = COLOURED_TYPES.stream().map(BlockType::getDefaultState).collect(Collectors.toList());
+
+        Random random = new Random(7);
+        BlockState[][][] expected = new BlockState[48][36][48];
+        for (int y = 0; y < 36; y++) {
+            for (int z = 0; z < 48; z++) {
+                for (int x = 0; x < 48; x++) {
+                    BlockState state = random.nextInt(3) == 0 ? air : states.get(random.nextInt(states.size()));
+                    expected[x][y][z] = state;
+                    assertTrue(clipboard.setBlock(min.add(x, y, z), state));
+                }
+            }
+        }
+        for (int x = 0; x < 48; x++) {
+            for (int z = 0; z < 48; z++) {
+                for (int y = 0; y < 36; y++) {
+                    assertEquals(expected[x][y][z], clipboard.getBlock(min.add(x, y, z)));
+                }
+            }
+        }
+        clipboard.close();
+    }
+
+    @Test
+    @DisplayName("releases its storage when the session's clipboard is replaced")
+    void mappedClosedWhenReplaced() throws Exception {
+        CuboidRegion region = new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(31, 15, 31));
+        MappedClipboard first = new MappedClipboard(region, 2);
+        MappedClipboard second = new MappedClipboard(region, 2);
+        first.setBlock(BlockVector3.ZERO, stone);
+        second.setBlock(BlockVector3.ZERO, stone);
+
+        LocalSession session = new LocalSession();
+        ClipboardHolder holder = new ClipboardHolder(first);
+        session.setClipboard(holder);
+        session.setClipboard(holder);
+        assertEquals(stone, first.getBlock(BlockVector3.ZERO));
+
+        session.setClipboard(new ClipboardHolder(second));
+        assertThrows(IllegalStateException.class, () -> first.getBlock(BlockVector3.ZERO));
+        assertEquals(stone, second.getBlock(BlockVector3.ZERO));
+
+        session.setClipboard(null);
+        assertThrows(IllegalStateException.class, () -> second.getBlock(BlockVector3.ZERO));
+        // closing again does nothing
+        second.close();
+    }
+
+    @Test
+    @DisplayName("stays open while it is retained")
+    void mappedRetained() throws Exception {
+        CuboidRegion region = new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(15, 15, 15));
+        MappedClipboard clipboard = new MappedClipboard(region, 2);
+        clipboard.setBlock(BlockVector3.ZERO, stone);
+
+        clipboard.retain();
+        clipboard.retain();
+        clipboard.close();
+        clipboard.close();
+        assertEquals(stone, clipboard.getBlock(BlockVector3.ZERO));
+
+        clipboard.close();
+        assertThrows(IllegalStateException.class, () -> clipboard.getBlock(BlockVector3.ZERO));
+        assertThrows(IllegalStateException.class, clipboard::retain);
+    }
+
+    @Test
+    @DisplayName("stays open while a brush tool uses it")
+    void mappedRetainedByBrushTool() throws Exception {
+        CuboidRegion region = new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(15, 15, 15));
+        MappedClipboard brushClipboard = new MappedClipboard(region, 2);
+        MappedClipboard fillClipboard = new MappedClipboard(region, 2);
+        brushClipboard.setBlock(BlockVector3.ZERO, stone);
+        fillClipboard.setBlock(BlockVector3.ZERO, stone);
+
+        BrushTool tool = new BrushTool("worldedit.brush.clipboard");
+        tool.setBrush(new ClipboardBrush(new ClipboardHolder(brushClipboard), false, false), "worldedit.brush.clipboard");
+        try (ClipboardPattern pattern = new ClipboardPattern(fillClipboard)) {
+            tool.setFill(pattern);
+        }
+        // The session lets go of both
+        brushClipboard.close();
+        fillClipboard.close();
+        assertEquals(stone, brushClipboard.getBlock(BlockVector3.ZERO));
+        assertEquals(stone, fillClipboard.getBlock(BlockVector3.ZERO));
+
+        tool.setBrush(new SphereBrush(), "worldedit.brush.sphere");
+        assertThrows(IllegalStateException.class, () -> brushClipboard.getBlock(BlockVector3.ZERO));
+        assertEquals(stone, fillClipboard.getBlock(BlockVector3.ZERO));
+
+        tool.close();
+        assertThrows(IllegalStateException.class, () -> fillClipboard.getBlock(BlockVector3.ZERO));
+    }
+
+    @Test
+    @DisplayName("stays open until the command that parsed a pattern for it ends")
+    void mappedRetainedByRequest() throws Exception {
+        CuboidRegion region = new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(15, 15, 15));
+        MappedClipboard clipboard = new MappedClipboard(region, 2);
+        clipboard.setBlock(BlockVector3.ZERO, stone);
+
+        Request.reset();
+        Request.request().closeOnReset(new ClipboardPattern(clipboard));
+        clipboard.close();
+        assertEquals(stone, clipboard.getBlock(BlockVector3.ZERO));
+
+        Request.reset();
+        assertThrows(IllegalStateException.class, () -> clipboard.getBlock(BlockVector3.ZERO));
+    }
+
+    @Test
+    @DisplayName("bounds section palettes when entries are overwritten")
+    void sectionCompaction() {
+        PackedSection section = new PackedSection(0);
+        int target = PackedSection.index(1, 2, 3);
+        for (int value = 1; value <= PackedSection.VOLUME * 2; value++) {
+            section.set(target, value);
+        }
+        assertEquals(PackedSection.VOLUME * 2, section.get(target));
+        assertEquals(0, section.get(PackedSection.index(3, 2, 1)));
+
+        ByteBuffer buffer = ByteBuffer.allocate(PackedSection.getMaxSerializedSize());
+        section.writeTo(buffer);
+        buffer.flip();
+        PackedSection read = PackedSection.readFrom(buffer);
+        assertEquals(PackedSection.VOLUME * 2, read.get(target));
+        assertEquals(0, read.get(PackedSection.index(3, 2, 1)));
+    }
+
+    @Test
+    @DisplayName("keeps block entity data for its position only")
+    void blockEntityData() throws WorldEditException {
+        PaletteClipboard clipboard = new PaletteClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(15, 15, 15)));
+        BlockState chest = chestType.getDefaultState();
+        CompoundTag tag = new CompoundTag(ImmutableMap.of("CustomName", new StringTag("Loot")));
+        BlockVector3 position = BlockVector3.at(3, 4, 5);
+
+        clipboard.setBlock(position, chest.toBaseBlock(tag));
+        BaseBlock read = clipboard.getFullBlock(position);
+        assertEquals(chest, read.toImmutableState());
+        assertEquals(tag, read.getNbtData());
+        assertNull(clipboard.getFullBlock(BlockVector3.at(3, 4, 6)).getNbtData());
+
+        clipboard.setBlock(position, stone);
+        assertNull(clipboard.getFullBlock(position).getNbtData());
+    }
+
+    @Test
+    @DisplayName("honours the shape of non-cuboid regions")
+    void nonCuboidRegion() throws WorldEditException {
+        CylinderRegion region = new CylinderRegion(BlockVector3.at(8, 0, 8), Vector2.at(5, 5), 0, 4);
+        PaletteClipboard clipboard = new PaletteClipboard(region);
+        assertTrue(clipboard.setBlock(BlockVector3.at(8, 2, 8), stone));
+        assertFalse(clipboard.setBlock(BlockVector3.at(3, 2, 3), stone));
+        assertEquals(stone, clipboard.getBlock(BlockVector3.at(8, 2, 8)));
+        assertEquals(air, clipboard.getBlock(BlockVector3.at(3, 2, 3)));
+    }
+
+    @Test
+    @DisplayName("stores biomes separately from blocks")
+    void biomes() {
+        PaletteClipboard clipboard = new PaletteClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(31, 3, 31)));
+        assertFalse(clipboard.hasBiomes());
+        BiomeType plains = new BiomeType("minecraft:plains");
+        assertTrue(clipboard.setBiome(BlockVector3.at(17, 1, 2), plains));
+        assertTrue(clipboard.hasBiomes());
+        assertEquals(plains, clipboard.getBiome(BlockVector3.at(17, 1, 2)));
+        assertEquals(BiomeTypes.OCEAN, clipboard.getBiome(BlockVector3.at(17, 1, 3)));
+    }
+
+    @Test
+    @DisplayName("uses less memory than a block array for sparse contents")
+    void memoryUsage() throws WorldEditException {
+        CuboidRegion region = new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(127, 63, 127));
+        PaletteClipboard palette = new PaletteClipboard(region);
+        BlockArrayClipboard array = new BlockArrayClipboard(region);
+        for (int x = 0; x < 128; x++) {
+            for (int z = 0; z < 128; z++) {
+                palette.setBlock(BlockVector3.at(x, 0, z), stone);
+                array.setBlock(BlockVector3.at(x, 0, z), stone);
+            }
+        }
+        assertTrue(palette.getMemoryUsage() > 0);
+        assertTrue(palette.getMemoryUsage() * 10 < array.getMemoryUsage());
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard.io;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.ByteArrayTag;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.IntArrayTag;
+import com.sk89q.jnbt.IntTag;
+import com.sk89q.jnbt.ListTag;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.jnbt.ShortTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.util.test.MockedPlatform;
+import com.sk89q.worldedit.util.test.TestBlockTypes;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("A Sponge schematic")
+class SpongeSchematicTest {
+
+    @RegisterExtension
+    static final MockedPlatform PLATFORM = MockedPlatform.create().withConfiguration().withDataVersion(2586);
+
+    private static final List<BlockType> TYPES = new ArrayList<>();
+    private static BlockType chestType;
+
+    @BeforeAll
+    static void registerTypes() {
+        TestBlockTypes.getOrRegister("minecraft:air");
+        // Enough types for palette IDs to need more than one byte
+        for (int i = 0; i < 200; i++) {
+            TYPES.add(TestBlockTypes.getOrRegister("minecraft:test_" + i));
+        }
+        chestType = TestBlockTypes.getOrRegister("minecraft:chest");
+    }
+
+    private static Clipboard createClipboard() throws WorldEditException {
+        CuboidRegion region = new CuboidRegion(BlockVector3.at(-5, 10, 3), BlockVector3.at(4, 13, 12));
+        Clipboard clipboard = new BlockArrayClipboard(region);
+        clipboard.setOrigin(BlockVector3.at(1, 20, 2));
+        int i = 0;
+        for (BlockVector3 pos : region) {
+            clipboard.setBlock(pos, TYPES.get(i++ % TYPES.size()).getDefaultState());
+        }
+        clipboard.setBlock(BlockVector3.at(0, 11, 7), chestType.getDefaultState().toBaseBlock(
+            new CompoundTag(ImmutableMap.of("CustomName", new StringTag("Loot")))));
+        return clipboard;
+    }
+
+    private static Clipboard read(byte[] data) throws IOException {
+        try (ClipboardReader reader = BuiltInClipboardFormat.SPONGE_SCHEMATIC.getReader(new ByteArrayInputStream(data))) {
+            return reader.read();
+        }
+    }
+
+    private static void assertSameContents(Clipboard expected, Clipboard actual) {
+        assertEquals(expected.getRegion().getMinimumPoint(), actual.getRegion().getMinimumPoint());
+        assertEquals(expected.getRegion().getMaximumPoint(), actual.getRegion().getMaximumPoint());
+        assertEquals(expected.getOrigin(), actual.getOrigin());
+        for (BlockVector3 pos : expected.getRegion()) {
+            BaseBlock expectedBlock = expected.getFullBlock(pos);
+            BaseBlock actualBlock = actual.getFullBlock(pos);
+            assertEquals(expectedBlock.toImmutableState(), actualBlock.toImmutableState(), pos.toString());
+            CompoundTag expectedNbt = expectedBlock.getNbtData();
+            CompoundTag actualNbt = actualBlock.getNbtData();
+            assertEquals(expectedNbt == null ? null : expectedNbt.getString("CustomName"),
+                actualNbt == null ? null : actualNbt.getString("CustomName"), pos.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("reads back what was written")
+    void roundTrip() throws Exception {
+        Clipboard clipboard = createClipboard();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ClipboardWriter writer = BuiltInClipboardFormat.SPONGE_SCHEMATIC.getWriter(out)) {
+            writer.write(clipboard);
+        }
+
+        assertSameContents(clipboard, read(out.toByteArray()));
+        try (ClipboardReader reader = BuiltInClipboardFormat.SPONGE_SCHEMATIC.getReader(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(OptionalInt.of(2586), reader.getDataVersion());
+        }
+    }
+
+    @Test
+    @DisplayName("reads block data that comes before the palette and dimensions")
+    void blockDataFirst() throws Exception {
+        Clipboard clipboard = createClipboard();
+        CuboidRegion region = clipboard.getRegion().getBoundingBox();
+        BlockVector3 min = region.getMinimumPoint();
+
+        Map<String, Tag> palette = new LinkedHashMap<>();
+        ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+        for (int y = 0; y < region.getHeight(); y++) {
+            for (int z = 0; z < region.getLength(); z++) {
+                for (int x = 0; x < region.getWidth(); x++) {
+                    String key = clipboard.getBlock(min.add(x, y, z)).getAsString();
+                    Tag idTag = palette.computeIfAbsent(key, k -> new IntTag(palette.size()));
+                    int id = ((IntTag) idTag).getValue();
+                    while ((id & -128) != 0) {
+                        blocks.write(id & 127 | 128);
+                        id >>>= 7;
+                    }
+                    blocks.write(id);
+                }
+            }
+        }
+
+        Map<String, Tag> schematic = new LinkedHashMap<>();
+        schematic.put("BlockData", new ByteArrayTag(blocks.toByteArray()));
+        schematic.put("BlockEntities", new ListTag(CompoundTag.class, Collections.singletonList(new CompoundTag(ImmutableMap.of(
+            "Id", new StringTag("minecraft:chest"),
+            "Pos", new IntArrayTag(new int[] { 5, 1, 4 }),
+            "CustomName", new StringTag("Loot")
+        )))));
+        schematic.put("Palette", new CompoundTag(palette));
+        schematic.put("Width", new ShortTag((short) region.getWidth()));
+        schematic.put("Height", new ShortTag((short) region.getHeight()));
+        schematic.put("Length", new ShortTag((short) region.getLength()));
+        schematic.put("Offset", new IntArrayTag(new int[] { min.getX(), min.getY(), min.getZ() }));
+        BlockVector3 offset = min.subtract(clipboard.getOrigin());
+        schematic.put("Metadata", new CompoundTag(ImmutableMap.of(
+            "WEOffsetX", new IntTag(offset.getX()),
+            "WEOffsetY", new IntTag(offset.getY()),
+            "WEOffsetZ", new IntTag(offset.getZ())
+        )));
+        schematic.put("DataVersion", new IntTag(2586));
+        schematic.put("Version", new IntTag(2));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NBTOutputStream nbt = new NBTOutputStream(new GZIPOutputStream(out))) {
+            nbt.writeNamedTag("Schematic", new CompoundTag(schematic));
+        }
+
+        assertSameContents(clipboard, read(out.toByteArray()));
+    }
+
+}
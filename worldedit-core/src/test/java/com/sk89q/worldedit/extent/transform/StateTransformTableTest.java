@@ -0,0 +1,170 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.transform;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
+import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.math.transform.AffineTransform;
+import com.sk89q.worldedit.math.transform.Transform;
+import com.sk89q.worldedit.registry.state.DirectionalProperty;
+import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.util.Direction;
+import com.sk89q.worldedit.util.test.MockedPlatform;
+import com.sk89q.worldedit.util.test.TestBlockTypes;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.registry.BlockRegistry;
+import com.sk89q.worldedit.world.registry.BundledBlockRegistry;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A state transform table")
+class StateTransformTableTest {
+
+    @RegisterExtension
+    static final MockedPlatform PLATFORM = MockedPlatform.withRegistries(new BundledRegistries() {
+        @Override
+        public BlockRegistry getBlockRegistry() {
+            return new BundledBlockRegistry() {
+                @Override
+                public Map<String, ? extends Property<?>> getProperties(BlockType blockType) {
+                    return blockType.getId().equals("worldedit:transform_table_facing")
+                        ? ImmutableMap.of("facing", new DirectionalProperty("facing",
+                            ImmutableList.of(Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST)))
+                        : ImmutableMap.of();
+                }
+            };
+        }
+    });
+
+    private static final Transform ROTATION = new AffineTransform().rotateY(90);
+    private static BlockType facingType;
+
+    @BeforeAll
+    static void registerTypes() {
+        facingType = TestBlockTypes.getOrRegister("worldedit:transform_table_facing");
+
+        // North and east get IDs far enough apart that the table has to grow, south and west get none
+        BlockStateIdAccess.register(facing(Direction.NORTH), 40);
+        BlockStateIdAccess.register(facing(Direction.EAST), 9000);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        BlockStateIdAccess.clear();
+    }
+
+    private static BlockState facing(Direction direction) {
+        Property<Direction> property = facingType.getProperty("facing");
+        return facingType.getDefaultState().with(property, direction);
+    }
+
+    /**
+     * Counts how often the transform is used, which it only is while a
+     * state is being transformed for the first time.
+     */
+    private static final class CountingTransform implements Transform {
+        private int applied;
+
+        @Override
+        public boolean isIdentity() {
+            return false;
+        }
+
+        @Override
+        public Vector3 apply(Vector3 input) {
+            applied++;
+            return ROTATION.apply(input);
+        }
+
+        @Override
+        public Transform inverse() {
+            return ROTATION.inverse();
+        }
+
+        @Override
+        public Transform combine(Transform other) {
+            return ROTATION.combine(other);
+        }
+    }
+
+    @Test
+    @DisplayName("fills the entry for a state with an ID the first time it is seen")
+    void fillsIndexedStatesLazily() {
+        CountingTransform transform = new CountingTransform();
+        StateTransformTable table = new StateTransformTable(transform);
+        BlockState north = facing(Direction.NORTH);
+        BlockState east = facing(Direction.EAST);
+        assertTrue(BlockStateIdAccess.isValidInternalId(BlockStateIdAccess.getBlockStateId(north)));
+
+        BlockState rotatedNorth = table.apply(north);
+        assertEquals(BlockTransformExtent.transform(north, ROTATION), rotatedNorth);
+        assertNotEquals(north, rotatedNorth);
+        int applied = transform.applied;
+        assertTrue(applied > 0);
+        assertSame(rotatedNorth, table.apply(north));
+        assertEquals(applied, transform.applied);
+
+        // A higher ID grows the table without losing the entries already filled
+        BlockState rotatedEast = table.apply(east);
+        assertEquals(BlockTransformExtent.transform(east, ROTATION), rotatedEast);
+        applied = transform.applied;
+        assertSame(rotatedNorth, table.apply(north));
+        assertSame(rotatedEast, table.apply(east));
+        assertEquals(applied, transform.applied);
+    }
+
+    @Test
+    @DisplayName("keeps states without an ID in a reference map")
+    void fallsBackForUnindexedStates() {
+        CountingTransform transform = new CountingTransform();
+        StateTransformTable table = new StateTransformTable(transform);
+        BlockState south = facing(Direction.SOUTH);
+        BlockState west = facing(Direction.WEST);
+        assertFalse(BlockStateIdAccess.isValidInternalId(BlockStateIdAccess.getBlockStateId(south)));
+
+        BlockState rotatedSouth = table.apply(south);
+        assertEquals(BlockTransformExtent.transform(south, ROTATION), rotatedSouth);
+        int applied = transform.applied;
+        assertTrue(applied > 0);
+        assertSame(rotatedSouth, table.apply(south));
+        assertEquals(applied, transform.applied);
+
+        BlockState rotatedWest = table.apply(west);
+        assertEquals(BlockTransformExtent.transform(west, ROTATION), rotatedWest);
+        assertNotEquals(rotatedSouth, rotatedWest);
+        assertTrue(transform.applied > applied);
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent.world;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.SideEffectSet;
+import com.sk89q.worldedit.util.test.MockedPlatform;
+import com.sk89q.worldedit.util.test.TestBlockTypes;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("A side effect extent")
+class SideEffectExtentTest {
+
+    @RegisterExtension
+    static final MockedPlatform PLATFORM = MockedPlatform.create();
+
+    private static BlockState air;
+    private static BlockState stone;
+
+    private World world;
+    private SideEffectExtent extent;
+
+    @BeforeAll
+    static void registerTypes() {
+        air = TestBlockTypes.getOrRegister("minecraft:air").getDefaultState();
+        stone = TestBlockTypes.getOrRegister("minecraft:stone").getDefaultState();
+    }
+
+    @BeforeEach
+    void setUp() {
+        world = mock(World.class);
+        extent = new SideEffectExtent(world);
+        extent.setSideEffectSet(SideEffectSet.none());
+    }
+
+    @Test
+    @DisplayName("returns whether the world changed the block")
+    void returnsChanged() throws WorldEditException {
+        BlockVector3 changed = BlockVector3.at(1, 2, 3);
+        BlockVector3 unchanged = BlockVector3.at(2, 2, 3);
+        when(world.setBlock(changed, stone, SideEffectSet.none())).thenReturn(true);
+        when(world.setBlock(unchanged, stone, SideEffectSet.none())).thenReturn(false);
+
+        assertTrue(extent.setBlock(changed, stone));
+        assertFalse(extent.setBlock(unchanged, stone));
+        assertFalse(extent.commitRequired());
+    }
+
+    @Test
+    @DisplayName("applies side effects on commit while simulating them after the edit")
+    void postEditSimulation() throws WorldEditException {
+        when(world.getBlock(any(BlockVector3.class))).thenReturn(air);
+        extent.setPostEditSimulationEnabled(true);
+        BlockVector3 position = BlockVector3.at(0, 0, 0);
+        extent.setBlock(position, stone);
+        assertTrue(extent.commitRequired());
+
+        Operation commit = extent.commit();
+        assertNotNull(commit);
+        Operations.complete(commit);
+        verify(world).applySideEffects(position, air, SideEffectSet.none());
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.function.block;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.regions.RegionIntersection;
+import com.sk89q.worldedit.util.test.MockedPlatform;
+import com.sk89q.worldedit.util.test.TestBlockTypes;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A gravity simulator")
+class GravitySimulatorTest {
+
+    @RegisterExtension
+    static final MockedPlatform PLATFORM = MockedPlatform.create();
+
+    private static BlockState air;
+    private static BlockState stone;
+    private static BlockState dirt;
+    private static BlockState granite;
+    private static BlockState cobblestone;
+
+    @BeforeAll
+    static void registerTypes() {
+        air = TestBlockTypes.getOrRegister("minecraft:air").getDefaultState();
+        stone = TestBlockTypes.getOrRegister("minecraft:stone").getDefaultState();
+        dirt = TestBlockTypes.getOrRegister("minecraft:dirt").getDefaultState();
+        granite = TestBlockTypes.getOrRegister("minecraft:granite").getDefaultState();
+        cobblestone = TestBlockTypes.getOrRegister("minecraft:cobblestone").getDefaultState();
+    }
+
+    @Test
+    @DisplayName("drops blocks into the air below them")
+    void settlesColumn() throws WorldEditException {
+        BlockArrayClipboard clipboard = new BlockArrayClipboard(
+            new CuboidRegion(BlockVector3.at(0, 0, 0), BlockVector3.at(1, 7, 0)));
+        List<BlockState> falling = Arrays.asList(stone, air, dirt, air, granite, air, cobblestone, air);
+        List<BlockState> settled = Arrays.asList(stone, stone, air, air, air, air, air, air);
+        for (int y = 0; y < 8; y++) {
+            clipboard.setBlock(BlockVector3.at(0, y, 0), falling.get(y));
+            clipboard.setBlock(BlockVector3.at(1, y, 0), settled.get(y));
+        }
+
+        List<BlockVector3> written = new ArrayList<>();
+        AbstractDelegateExtent recording = new AbstractDelegateExtent(clipboard) {
+            @Override
+            public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) throws WorldEditException {
+                written.add(location);
+                return super.setBlock(location, block);
+            }
+        };
+        GravitySimulator gravity = new GravitySimulator(recording, 0, 7);
+
+        assertTrue(gravity.apply(BlockVector2.at(0, 0)));
+        List<BlockState> column = new ArrayList<>();
+        for (int y = 0; y < 8; y++) {
+            column.add(clipboard.getBlock(BlockVector3.at(0, y, 0)));
+        }
+        // The blocks keep their order
+        assertEquals(Arrays.asList(stone, dirt, granite, cobblestone, air, air, air, air), column);
+        // Three blocks moved down, and only the two that were left behind are cleared
+        assertEquals(Arrays.asList(
+            BlockVector3.at(0, 1, 0), BlockVector3.at(0, 2, 0), BlockVector3.at(0, 3, 0),
+            BlockVector3.at(0, 4, 0), BlockVector3.at(0, 6, 0)
+        ), written);
+        assertEquals(5, gravity.getAffected());
+
+        // A column that has already settled is left alone
+        written.clear();
+        assertFalse(gravity.apply(BlockVector2.at(1, 0)));
+        assertTrue(written.isEmpty());
+        assertEquals(5, gravity.getAffected());
+    }
+
+    @Test
+    @DisplayName("only moves blocks between positions in the region")
+    void staysInRegion() throws WorldEditException {
+        BlockArrayClipboard clipboard = new BlockArrayClipboard(
+            new CuboidRegion(BlockVector3.at(0, 0, 0), BlockVector3.at(0, 7, 0)));
+        List<BlockState> falling = Arrays.asList(air, air, stone, dirt, air, granite, air, cobblestone);
+        for (int y = 0; y < 8; y++) {
+            clipboard.setBlock(BlockVector3.at(0, y, 0), falling.get(y));
+        }
+        Region region = new RegionIntersection(
+            new CuboidRegion(BlockVector3.at(0, 0, 0), BlockVector3.at(0, 2, 0)),
+            new CuboidRegion(BlockVector3.at(0, 5, 0), BlockVector3.at(0, 7, 0)));
+        GravitySimulator gravity = new GravitySimulator(clipboard, 0, 7, region);
+
+        assertTrue(gravity.apply(BlockVector2.at(0, 0)));
+        List<BlockState> column = new ArrayList<>();
+        for (int y = 0; y < 8; y++) {
+            column.add(clipboard.getBlock(BlockVector3.at(0, y, 0)));
+        }
+        // The blocks at Y 3 and 4 are outside the region, and are fallen past
+        assertEquals(Arrays.asList(stone, granite, cobblestone, dirt, air, air, air, air), column);
+    }
+
+}
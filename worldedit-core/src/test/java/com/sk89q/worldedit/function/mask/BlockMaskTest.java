@@ -0,0 +1,193 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.mask;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.NullExtent;
+import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.registry.state.EnumProperty;
+import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.util.test.MockedPlatform;
+import com.sk89q.worldedit.util.test.TestBlockTypes;
+import com.sk89q.worldedit.world.block.BlockCategory;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.block.FuzzyBlockState;
+import com.sk89q.worldedit.world.registry.BlockRegistry;
+import com.sk89q.worldedit.world.registry.BundledBlockRegistry;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Block masks")
+class BlockMaskTest {
+
+    @RegisterExtension
+    static final MockedPlatform PLATFORM = MockedPlatform.withRegistries(new BundledRegistries() {
+        @Override
+        public BlockRegistry getBlockRegistry() {
+            return new BundledBlockRegistry() {
+                @Override
+                public Map<String, ? extends Property<?>> getProperties(BlockType blockType) {
+                    return blockType.getId().equals("minecraft:oak_log")
+                        ? ImmutableMap.of("axis", new EnumProperty("axis", ImmutableList.of("x", "y", "z")))
+                        : ImmutableMap.of();
+                }
+            };
+        }
+    });
+
+    private static BlockType stoneType;
+    private static BlockType dirtType;
+    private static BlockType logType;
+
+    @BeforeAll
+    static void registerTypes() {
+        stoneType = TestBlockTypes.getOrRegister("minecraft:stone");
+        dirtType = TestBlockTypes.getOrRegister("minecraft:dirt");
+        logType = TestBlockTypes.getOrRegister("minecraft:oak_log");
+
+        // Give the logs internal IDs, leaving the other states to be matched by identity
+        int id = 0;
+        for (BlockState state : logType.getAllStates()) {
+            BlockStateIdAccess.register(state, id++);
+        }
+    }
+
+    @AfterAll
+    static void tearDown() {
+        BlockStateIdAccess.clear();
+    }
+
+    /**
+     * An extent with the same block everywhere.
+     */
+    private static final class SingleBlockExtent extends AbstractDelegateExtent {
+        private BlockState block;
+
+        SingleBlockExtent() {
+            super(new NullExtent());
+        }
+
+        @Override
+        public BlockState getBlock(BlockVector3 position) {
+            return block;
+        }
+    }
+
+    private static boolean matches(Mask mask, SingleBlockExtent extent, BlockState block) {
+        extent.block = block;
+        return mask.test(BlockVector3.ZERO);
+    }
+
+    private static BlockState log(String axis) {
+        Property<String> property = logType.getProperty("axis");
+        return logType.getDefaultState().with(property, axis);
+    }
+
+    @Test
+    @DisplayName("match exact states, fuzzy states and types")
+    void blockMask() {
+        Property<String> axis = logType.getProperty("axis");
+        SingleBlockExtent extent = new SingleBlockExtent();
+        BlockMask mask = new BlockMask(extent,
+            log("x").toBaseBlock(),
+            FuzzyBlockState.builder().type(logType).withProperty(axis, "y").build().toBaseBlock(),
+            stoneType.getFuzzyMatcher().toBaseBlock()
+        );
+
+        assertTrue(matches(mask, extent, log("x")));
+        assertTrue(matches(mask, extent, log("y")));
+        assertFalse(matches(mask, extent, log("z")));
+        assertTrue(matches(mask, extent, stoneType.getDefaultState()));
+        assertFalse(matches(mask, extent, dirtType.getDefaultState()));
+
+        mask.add(dirtType.getDefaultState().toBaseBlock());
+        assertTrue(matches(mask, extent, dirtType.getDefaultState()));
+    }
+
+    @Test
+    @DisplayName("match every state of a type")
+    void blockTypeMask() {
+        SingleBlockExtent extent = new SingleBlockExtent();
+        BlockTypeMask mask = new BlockTypeMask(extent, logType);
+
+        assertEquals(3, logType.getAllStates().size());
+        for (BlockState state : logType.getAllStates()) {
+            assertTrue(matches(mask, extent, state));
+        }
+        assertFalse(matches(mask, extent, stoneType.getDefaultState()));
+
+        mask.add(stoneType);
+        assertTrue(matches(mask, extent, stoneType.getDefaultState()));
+    }
+
+    @Test
+    @DisplayName("match every state of the types in a category")
+    void blockCategoryMask() {
+        SingleBlockExtent extent = new SingleBlockExtent();
+        BlockCategoryMask mask = new BlockCategoryMask(extent, new BlockCategory("minecraft:logs") {
+            @Override
+            protected Set<BlockType> load() {
+                return ImmutableSet.of(logType, dirtType);
+            }
+        });
+
+        assertTrue(matches(mask, extent, log("z")));
+        assertTrue(matches(mask, extent, dirtType.getDefaultState()));
+        assertFalse(matches(mask, extent, stoneType.getDefaultState()));
+    }
+
+    @Test
+    @DisplayName("match the new contents of a category once its cache is invalidated")
+    void invalidatedCategory() {
+        SingleBlockExtent extent = new SingleBlockExtent();
+        Set<BlockType> contents = new HashSet<>(ImmutableSet.of(logType));
+        BlockCategory category = new BlockCategory("minecraft:logs") {
+            @Override
+            protected Set<BlockType> load() {
+                return contents;
+            }
+        };
+        BlockCategoryMask mask = new BlockCategoryMask(extent, category);
+        assertTrue(matches(mask, extent, log("x")));
+        assertFalse(matches(mask, extent, stoneType.getDefaultState()));
+
+        contents.add(stoneType);
+        category.invalidateCache();
+        assertTrue(matches(mask, extent, stoneType.getDefaultState()));
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.function.operation;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.util.test.MockedPlatform;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("An operation scheduler")
+class OperationSchedulerTest {
+
+    // Scheduling the repeating task succeeds, but the tests call tick() themselves
+    @RegisterExtension
+    static final MockedPlatform PLATFORM = MockedPlatform.create();
+
+    private final List<String> resumed = new ArrayList<>();
+    private OperationScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new OperationScheduler(WorldEdit.getInstance());
+    }
+
+    @AfterEach
+    void tearDown() {
+        WorldEdit.getInstance().getEventBus().unregister(scheduler);
+    }
+
+    @Test
+    @DisplayName("runs the operations of an owner in order")
+    void perOwnerOrder() {
+        // Every step overruns the budget, so each tick resumes one operation once
+        scheduler.setBudget(1, TimeUnit.MILLISECONDS);
+        CountingOperation first = new CountingOperation("a1", 2, 2);
+        CountingOperation second = new CountingOperation("a2", 1, 2);
+        ListenableFuture<Void> firstDone = scheduler.submit("a", first);
+        ListenableFuture<Void> secondDone = scheduler.submit("a", second);
+        assertEquals(1, first.resumes);
+        assertEquals(0, second.resumes);
+        assertEquals(2, scheduler.getPendingOperations("a"));
+
+        scheduler.tick();
+        assertTrue(firstDone.isDone());
+        assertFalse(secondDone.isDone());
+        assertEquals(1, scheduler.getPendingOperations("a"));
+
+        scheduler.tick();
+        assertTrue(secondDone.isDone());
+        assertEquals(0, scheduler.getPendingOperations("a"));
+        assertEquals(Arrays.asList("a1", "a1", "a2"), resumed);
+    }
+
+    @Test
+    @DisplayName("completes an owner's operations on request")
+    void completeAll() {
+        scheduler.setBudget(1, TimeUnit.MILLISECONDS);
+        CountingOperation first = new CountingOperation("a1", 3, 2);
+        CountingOperation second = new CountingOperation("a2", 2, 2);
+        ListenableFuture<Void> firstDone = scheduler.submit("a", first);
+        ListenableFuture<Void> secondDone = scheduler.submit("a", second);
+
+        scheduler.completeAll("a");
+        assertTrue(firstDone.isDone());
+        assertTrue(secondDone.isDone());
+        assertEquals(0, scheduler.getPendingOperations("a"));
+        assertEquals(Arrays.asList("a1", "a1", "a1", "a2", "a2"), resumed);
+    }
+
+    @Test
+    @DisplayName("cancels an owner's operations")
+    void cancelAll() {
+        scheduler.setBudget(1, TimeUnit.MILLISECONDS);
+        CountingOperation first = new CountingOperation("a1", 3, 2);
+        CountingOperation second = new CountingOperation("a2", 1, 2);
+        CountingOperation other = new CountingOperation("b1", 2, 2);
+        ListenableFuture<Void> firstDone = scheduler.submit("a", first);
+        ListenableFuture<Void> secondDone = scheduler.submit("a", second);
+        scheduler.submit("b", other);
+
+        assertEquals(2, scheduler.cancelAll("a"));
+        assertTrue(firstDone.isCancelled());
+        assertTrue(secondDone.isCancelled());
+        assertTrue(first.cancelled);
+        assertTrue(second.cancelled);
+        assertEquals(0, scheduler.getPendingOperations("a"));
+
+        scheduler.tick();
+        assertEquals(1, first.resumes);
+        assertEquals(0, second.resumes);
+        assertEquals(2, other.resumes);
+        assertFalse(other.cancelled);
+    }
+
+    @Test
+    @DisplayName("shares the budget of a tick between owners")
+    void budgetSplit() {
+        scheduler.setBudget(100, TimeUnit.MILLISECONDS);
+        CountingOperation first = new CountingOperation("a1", 100, 30);
+        CountingOperation second = new CountingOperation("b1", 100, 30);
+        scheduler.submit("a", first);
+        scheduler.submit("b", second);
+        int firstBefore = first.resumes;
+        int secondBefore = second.resumes;
+
+        scheduler.tick();
+        // Each owner gets half the budget, and two 30ms steps don't fit into that
+        assertTrue(first.resumes - firstBefore <= 2, "the first owner used more than its share");
+        assertTrue(second.resumes - secondBefore >= 1, "the second owner was not resumed");
+        scheduler.cancelAll("a");
+        scheduler.cancelAll("b");
+    }
+
+    @Test
+    @DisplayName("completes pending operations once the budget is removed")
+    void zeroBudget() {
+        scheduler.setBudget(1, TimeUnit.MILLISECONDS);
+        CountingOperation first = new CountingOperation("a1", 3, 2);
+        CountingOperation other = new CountingOperation("b1", 3, 2);
+        ListenableFuture<Void> firstDone = scheduler.submit("a", first);
+        ListenableFuture<Void> otherDone = scheduler.submit("b", other);
+
+        scheduler.setBudget(0, TimeUnit.MILLISECONDS);
+        // A new operation still has to wait for the owner's earlier ones
+        CountingOperation second = new CountingOperation("a2", 1, 2);
+        ListenableFuture<Void> secondDone = scheduler.submit("a", second);
+        assertTrue(firstDone.isDone());
+        assertTrue(secondDone.isDone());
+        assertEquals(Arrays.asList("a1", "b1", "a1", "a1", "a2"), resumed);
+
+        assertFalse(otherDone.isDone());
+        scheduler.tick();
+        assertTrue(otherDone.isDone());
+        assertEquals(3, other.resumes);
+        assertEquals(0, scheduler.getPendingOperations("b"));
+    }
+
+    /**
+     * An operation that takes a fixed time for each of a number of steps and
+     * records its resumes.
+     */
+    private final class CountingOperation implements Operation {
+        private final String name;
+        private final int steps;
+        private final long stepMillis;
+        private int resumes;
+        private boolean cancelled;
+
+        private CountingOperation(String name, int steps, long stepMillis) {
+            this.name = name;
+            this.steps = steps;
+            this.stepMillis = stepMillis;
+        }
+
+        @Override
+        public Operation resume(RunContext run) {
+            resumes++;
+            resumed.add(name);
+            sleepUninterruptibly(stepMillis, TimeUnit.MILLISECONDS);
+            return resumes < steps ? this : null;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+}
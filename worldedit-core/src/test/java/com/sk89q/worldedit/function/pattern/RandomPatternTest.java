@@ -0,0 +1,102 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.pattern;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@DisplayName("A random pattern")
+class RandomPatternTest {
+
+    private static final double[] WEIGHTS = { 30, 20, 0.5, 10, 39.5, 0 };
+    private static final int SAMPLES = 200_000;
+
+    /**
+     * Records which pattern was picked last, returning no block.
+     */
+    private static final class Recorder {
+        private int last;
+
+        Recorder(RandomPattern randomPattern) {
+            for (int i = 0; i < WEIGHTS.length; i++) {
+                int index = i;
+                randomPattern.add(new AbstractPattern() {
+                    @Override
+                    public BaseBlock applyBlock(BlockVector3 position) {
+                        last = index;
+                        return null;
+                    }
+                }, WEIGHTS[i]);
+            }
+        }
+    }
+
+    private static int[] sample(RandomPattern pattern, Recorder recorder) {
+        int[] counts = new int[WEIGHTS.length];
+        for (int i = 0; i < SAMPLES; i++) {
+            pattern.applyBlock(BlockVector3.at(i % 100, i / 10000, (i / 100) % 100));
+            counts[recorder.last]++;
+        }
+        return counts;
+    }
+
+    @Test
+    @DisplayName("picks patterns in proportion to their chance")
+    void distribution() {
+        for (RandomPattern pattern : new RandomPattern[] { new RandomPattern(), new RandomPattern(42) }) {
+            Recorder recorder = new Recorder(pattern);
+            int[] counts = sample(pattern, recorder);
+            for (int i = 0; i < WEIGHTS.length; i++) {
+                assertEquals(WEIGHTS[i] / 100, counts[i] / (double) SAMPLES, 0.01, "pattern " + i);
+            }
+            assertEquals(0, counts[WEIGHTS.length - 1]);
+        }
+    }
+
+    @Test
+    @DisplayName("picks the same patterns for the same seed, however the position is given")
+    void seeded() {
+        RandomPattern first = new RandomPattern(1234);
+        Recorder firstRecorder = new Recorder(first);
+        RandomPattern second = new RandomPattern(1234);
+        Recorder secondRecorder = new Recorder(second);
+        RandomPattern other = new RandomPattern(4321);
+        Recorder otherRecorder = new Recorder(other);
+
+        int differences = 0;
+        for (int x = 0; x < 1000; x++) {
+            BlockVector3 position = BlockVector3.at(x, 64, -x);
+            first.applyBlock(position);
+            second.applyBlock(x, 64, -x);
+            other.applyBlock(position);
+            assertEquals(firstRecorder.last, secondRecorder.last);
+            if (firstRecorder.last != otherRecorder.last) {
+                differences++;
+            }
+        }
+        assertNotEquals(0, differences);
+    }
+
+}
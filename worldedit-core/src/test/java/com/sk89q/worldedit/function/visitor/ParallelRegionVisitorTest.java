@@ -0,0 +1,332 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.visitor;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extension.input.InputParseException;
+import com.sk89q.worldedit.extension.input.ParserContext;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.function.RegionMaskingFilter;
+import com.sk89q.worldedit.function.block.BlockReplace;
+import com.sk89q.worldedit.function.mask.BlockMask;
+import com.sk89q.worldedit.function.mask.BlockTypeMask;
+import com.sk89q.worldedit.function.mask.ExistingBlockMask;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.mask.MaskIntersection;
+import com.sk89q.worldedit.function.mask.MaskUnion;
+import com.sk89q.worldedit.function.mask.Masks;
+import com.sk89q.worldedit.function.mask.OffsetMask;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.function.pattern.RandomPattern;
+import com.sk89q.worldedit.function.pattern.RepeatingExtentPattern;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector2;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.CylinderRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.session.request.Request;
+import com.sk89q.worldedit.session.request.RequestExtent;
+import com.sk89q.worldedit.util.test.MockedPlatform;
+import com.sk89q.worldedit.util.test.TestBlockTypes;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("A parallel region visitor")
+class ParallelRegionVisitorTest {
+
+    @RegisterExtension
+    static final MockedPlatform PLATFORM = MockedPlatform.create().withConfiguration();
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(3);
+    private static BlockType airType;
+    private static BlockType stoneType;
+    private static BlockType dirtType;
+    private static BlockType glassType;
+
+    @BeforeAll
+    static void registerTypes() {
+        airType = TestBlockTypes.getOrRegister("minecraft:air");
+        stoneType = TestBlockTypes.getOrRegister("minecraft:stone");
+        dirtType = TestBlockTypes.getOrRegister("minecraft:dirt");
+        glassType = TestBlockTypes.getOrRegister("minecraft:glass");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        EXECUTOR.shutdown();
+    }
+
+    /**
+     * Reads from another extent while {@link #redirect} is set, as an edit
+     * session does while a parallel visitor runs.
+     */
+    private static final class RedirectingExtent extends AbstractDelegateExtent {
+        @Nullable
+        volatile Extent redirect;
+
+        RedirectingExtent(Extent extent) {
+            super(extent);
+        }
+
+        @Override
+        public BlockState getBlock(BlockVector3 position) {
+            Extent extent = redirect;
+            return extent != null ? extent.getBlock(position) : super.getBlock(position);
+        }
+
+        @Override
+        public BaseBlock getFullBlock(BlockVector3 position) {
+            Extent extent = redirect;
+            return extent != null ? extent.getFullBlock(position) : super.getFullBlock(position);
+        }
+    }
+
+    private static BlockArrayClipboard createWorld() throws WorldEditException {
+        BlockArrayClipboard world = new BlockArrayClipboard(
+            new CuboidRegion(BlockVector3.at(-40, 0, -40), BlockVector3.at(40, 40, 40)));
+        BlockState[] states = {
+            airType.getDefaultState(), stoneType.getDefaultState(), dirtType.getDefaultState()
+        };
+        Random random = new Random(7);
+        for (BlockVector3 position : world.getRegion()) {
+            world.setBlock(position, states[random.nextInt(states.length)]);
+        }
+        return world;
+    }
+
+    private static void assertSameBlocks(BlockArrayClipboard expected, BlockArrayClipboard actual) {
+        for (BlockVector3 position : expected.getRegion()) {
+            assertEquals(expected.getBlock(position), actual.getBlock(position), position::toString);
+        }
+    }
+
+    private static void assertSameAsSerial(Region region, Function<Extent, Mask> mask,
+                                           Function<Extent, Pattern> pattern) throws WorldEditException {
+        assertSameAsSerial(region, mask, pattern, EXECUTOR);
+    }
+
+    private static void assertSameAsSerial(Region region, Function<Extent, Mask> mask,
+                                           Function<Extent, Pattern> pattern,
+                                           ExecutorService executor) throws WorldEditException {
+        BlockArrayClipboard expected = createWorld();
+        RegionVisitor serial = new RegionVisitor(region,
+            new RegionMaskingFilter(mask.apply(expected), new BlockReplace(expected, pattern.apply(expected))));
+        Operations.complete(serial);
+
+        BlockArrayClipboard actual = createWorld();
+        RedirectingExtent extent = new RedirectingExtent(actual);
+        ParallelRegionVisitor parallel = new ParallelRegionVisitor(region, actual, actual,
+            mask.apply(extent), pattern.apply(extent), 4, executor);
+        extent.redirect = parallel.getSnapshot();
+        Operations.complete(parallel);
+        extent.redirect = null;
+
+        assertEquals(serial.getAffected(), parallel.getAffected());
+        assertSameBlocks(expected, actual);
+    }
+
+    @Test
+    @DisplayName("replaces the same blocks as a serial visitor")
+    void sameAsSerial() throws WorldEditException {
+        assertSameAsSerial(
+            new CuboidRegion(BlockVector3.at(-37, 2, -30), BlockVector3.at(35, 30, 33)),
+            extent -> new BlockTypeMask(extent, stoneType),
+            extent -> glassType.getDefaultState()
+        );
+    }
+
+    @Test
+    @DisplayName("only visits blocks inside a non-cuboid region")
+    void nonCuboidRegion() throws WorldEditException {
+        assertSameAsSerial(
+            new CylinderRegion(BlockVector3.at(3, 5, -2), Vector2.at(30, 25), 5, 30),
+            extent -> new BlockTypeMask(extent, airType),
+            // Reads a neighbour that was not copied, which is never changed to or from dirt
+            extent -> new Pattern() {
+                @Override
+                public BaseBlock applyBlock(BlockVector3 position) {
+                    BlockType neighbour = extent.getBlock(position.add(1, 1, 1)).getBlockType();
+                    return (neighbour == dirtType ? glassType : stoneType).getDefaultState().toBaseBlock();
+                }
+            }
+        );
+    }
+
+    @Test
+    @DisplayName("redoes slabs on the calling thread when reading outside the copied blocks")
+    void readsOutsideSnapshot() throws WorldEditException {
+        assertSameAsSerial(
+            new CuboidRegion(BlockVector3.at(-20, 0, -20), BlockVector3.at(20, 20, 20)),
+            extent -> new OffsetMask(new BlockTypeMask(extent, dirtType), BlockVector3.at(0, 5, 0)),
+            extent -> glassType.getDefaultState()
+        );
+    }
+
+    @Test
+    @DisplayName("does all the work on the calling thread if the executor refuses tasks")
+    void rejectedByExecutor() throws WorldEditException {
+        ExecutorService rejecting = mock(ExecutorService.class);
+        when(rejecting.submit(any(Runnable.class))).thenThrow(new RejectedExecutionException());
+        assertSameAsSerial(
+            new CuboidRegion(BlockVector3.at(-37, 2, -30), BlockVector3.at(35, 30, 33)),
+            extent -> new BlockTypeMask(extent, stoneType),
+            extent -> glassType.getDefaultState(),
+            rejecting
+        );
+    }
+
+    @Test
+    @DisplayName("does not copy blocks if neither the mask nor the pattern reads them")
+    void noCopyWithoutReads() throws WorldEditException {
+        BlockArrayClipboard world = createWorld();
+        AtomicInteger reads = new AtomicInteger();
+        Extent source = new AbstractDelegateExtent(world) {
+            @Override
+            public BaseBlock getFullBlock(BlockVector3 position) {
+                reads.incrementAndGet();
+                return super.getFullBlock(position);
+            }
+        };
+        Region region = new CuboidRegion(BlockVector3.at(-37, 2, -30), BlockVector3.at(35, 30, 33));
+        ParallelRegionVisitor visitor = new ParallelRegionVisitor(region, source, world, null,
+            glassType.getDefaultState(), 4, EXECUTOR);
+        Operations.complete(visitor);
+
+        assertEquals(0, reads.get());
+        assertEquals(region.getVolume(), visitor.getAffected());
+        for (BlockVector3 position : region) {
+            assertEquals(glassType, world.getBlock(position).getBlockType());
+        }
+    }
+
+    @Test
+    @DisplayName("stops once it is cancelled")
+    void cancel() throws WorldEditException {
+        BlockArrayClipboard world = createWorld();
+        AtomicReference<ParallelRegionVisitor> visitor = new AtomicReference<>();
+        Mask cancelling = new BlockTypeMask(world, stoneType) {
+            @Override
+            public boolean test(BlockVector3 vector) {
+                visitor.get().cancel();
+                return super.test(vector);
+            }
+        };
+        visitor.set(new ParallelRegionVisitor(
+            new CuboidRegion(BlockVector3.at(-37, 2, -30), BlockVector3.at(35, 30, 33)), world, world,
+            cancelling, glassType.getDefaultState(), 4, EXECUTOR));
+        Operations.complete(visitor.get());
+
+        assertEquals(0, visitor.get().getAffected());
+        assertSameBlocks(createWorld(), world);
+    }
+
+    @Test
+    @DisplayName("only accepts masks and patterns that are known to be stateless")
+    void threadSafety() {
+        Extent extent = new BlockArrayClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.ZERO));
+        Extent other = new BlockArrayClipboard(new CuboidRegion(BlockVector3.ZERO, BlockVector3.ZERO));
+        Mask typeMask = new BlockTypeMask(extent, stoneType);
+
+        assertTrue(ParallelRegionVisitor.isThreadSafe(typeMask, extent));
+        assertTrue(ParallelRegionVisitor.isThreadSafe(
+            new MaskUnion(typeMask, new ExistingBlockMask(extent)), extent));
+        assertFalse(ParallelRegionVisitor.isThreadSafe(typeMask, other));
+        assertFalse(ParallelRegionVisitor.isThreadSafe(
+            new MaskIntersection(typeMask, new OffsetMask(typeMask, BlockVector3.UNIT_Y)), extent));
+        assertFalse(ParallelRegionVisitor.isThreadSafe(Masks.negate(typeMask), extent));
+
+        RandomPattern random = new RandomPattern();
+        random.add(stoneType.getDefaultState(), 1);
+        random.add(dirtType.getDefaultState().toBaseBlock(), 1);
+        assertTrue(ParallelRegionVisitor.isThreadSafe(random));
+        random.add(new RepeatingExtentPattern(extent, BlockVector3.ZERO, BlockVector3.ONE), 1);
+        assertFalse(ParallelRegionVisitor.isThreadSafe(random));
+    }
+
+    @Test
+    @DisplayName("binds masks parsed for commands to the edit session of the request")
+    void parsedMasks() throws InputParseException {
+        EditSession editSession = WorldEdit.getInstance().newEditSessionBuilder().world(mock(World.class)).build();
+        ParserContext context = new ParserContext();
+        context.setExtent(new RequestExtent());
+        context.setRestricted(false);
+        Mask mask = WorldEdit.getInstance().getMaskFactory().parseFromInput("minecraft:stone =y<10", context);
+        Mask impure = WorldEdit.getInstance().getMaskFactory().parseFromInput("=a=y;a<10", context);
+
+        // Without a request, the parsed masks do not read from the edit session
+        assertNull(ParallelRegionVisitor.bindForWorkers(mask, editSession));
+
+        Request.request().setEditSession(editSession);
+        try {
+            Mask bound = ParallelRegionVisitor.bindForWorkers(mask, editSession);
+            assertNotNull(bound);
+            Collection<Mask> children = ((MaskIntersection) bound).getMasks();
+            assertEquals(2, children.size());
+            for (Mask child : children) {
+                if (child instanceof BlockMask) {
+                    BlockMask blockMask = (BlockMask) child;
+                    assertSame(editSession, blockMask.getExtent());
+                    assertEquals(1, blockMask.getBlocks().size());
+                    assertEquals(stoneType, blockMask.getBlocks().iterator().next().getBlockType());
+                } else {
+                    // The pure expression reads no blocks, so it is kept as it is
+                    assertTrue(((MaskIntersection) mask).getMasks().contains(child));
+                }
+            }
+
+            assertNull(ParallelRegionVisitor.bindForWorkers(impure, editSession));
+        } finally {
+            Request.reset();
+        }
+    }
+
+}
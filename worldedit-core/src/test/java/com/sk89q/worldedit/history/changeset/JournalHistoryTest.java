@@ -0,0 +1,148 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.history.changeset;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.worldedit.history.change.BiomeChange3D;
+import com.sk89q.worldedit.history.change.BlockChange;
+import com.sk89q.worldedit.history.change.Change;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.test.MockedPlatform;
+import com.sk89q.worldedit.util.test.TestBlockTypes;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A history journal")
+class JournalHistoryTest {
+
+    @RegisterExtension
+    static final MockedPlatform PLATFORM = MockedPlatform.create().withConfiguration();
+
+    private static BlockType airType;
+    private static BlockType stoneType;
+    private static BlockType chestType;
+
+    @BeforeAll
+    static void registerTypes() {
+        airType = TestBlockTypes.getOrRegister("minecraft:air");
+        stoneType = TestBlockTypes.getOrRegister("minecraft:stone");
+        chestType = TestBlockTypes.getOrRegister("minecraft:chest");
+    }
+
+    private static BiomeType registerBiome(String id) {
+        BiomeType type = BiomeType.REGISTRY.get(id);
+        if (type == null) {
+            type = new BiomeType(id);
+            BiomeType.REGISTRY.register(id, type);
+        }
+        return type;
+    }
+
+    /**
+     * Apply changes to a map of positions to strings, offsetting biomes so
+     * they do not clash with blocks. Tags are compared by their contents, as
+     * they are not equal to copies of themselves.
+     */
+    private static Map<BlockVector3, String> replay(Iterator<Change> changes, boolean undo) {
+        Map<BlockVector3, String> world = new HashMap<>();
+        while (changes.hasNext()) {
+            Change change = changes.next();
+            if (change instanceof BlockChange) {
+                BlockChange blockChange = (BlockChange) change;
+                BaseBlock block = undo ? blockChange.getPrevious() : blockChange.getCurrent();
+                CompoundTag nbt = block.getNbtData();
+                world.put(blockChange.getPosition(), block.getAsString() + (nbt == null ? "" : nbt.getString("CustomName")));
+            } else {
+                BiomeChange3D biomeChange = (BiomeChange3D) change;
+                world.put(biomeChange.getPosition().add(0, 1000, 0), (undo ? biomeChange.getPrevious() : biomeChange.getCurrent()).getId());
+            }
+        }
+        return world;
+    }
+
+    @Test
+    @DisplayName("undoes and redoes the same changes as the change set it was written from")
+    void roundTrip(@TempDir Path directory) throws IOException {
+        BaseBlock air = airType.getDefaultState().toBaseBlock();
+        BaseBlock stone = stoneType.getDefaultState().toBaseBlock();
+        BaseBlock chest = chestType.getDefaultState().toBaseBlock(
+            new CompoundTag(ImmutableMap.of("CustomName", new StringTag("Loot"))));
+        BiomeType plains = registerBiome("minecraft:plains");
+        BiomeType desert = registerBiome("minecraft:desert");
+
+        BlockOptimizedHistory changeSet = new BlockOptimizedHistory();
+        for (int x = -40; x < 40; x++) {
+            changeSet.add(new BlockChange(BlockVector3.at(x, 64, x * 3), air, stone));
+        }
+        changeSet.add(new BlockChange(BlockVector3.at(5, 64, 15), stone, chest));
+        changeSet.add(new BlockChange(BlockVector3.at(-100000, 0, 100000), chest, air));
+        changeSet.add(new BiomeChange3D(BlockVector3.at(1, 2, 3), plains, desert));
+
+        Path file = directory.resolve("0.journal");
+        JournalHistory.write(file, "world", changeSet);
+        JournalHistory journal = JournalHistory.read(file);
+
+        assertEquals("world", journal.getWorldName());
+        assertFalse(journal.isRecordingChanges());
+        assertEquals(changeSet.size(), journal.size());
+        assertEquals(replay(changeSet.backwardIterator(), true), replay(journal.backwardIterator(), true));
+        assertEquals(replay(changeSet.forwardIterator(), false), replay(journal.forwardIterator(), false));
+        assertEquals("minecraft:chestLoot", replay(journal.backwardIterator(), true).get(BlockVector3.at(-100000, 0, 100000)));
+    }
+
+    @Test
+    @DisplayName("stops reading once its iterator is closed")
+    void closedIterator(@TempDir Path directory) throws IOException {
+        BaseBlock air = airType.getDefaultState().toBaseBlock();
+        BaseBlock stone = stoneType.getDefaultState().toBaseBlock();
+        BlockOptimizedHistory changeSet = new BlockOptimizedHistory();
+        for (int x = 0; x < 10; x++) {
+            changeSet.add(new BlockChange(BlockVector3.at(x, 64, 0), air, stone));
+        }
+        Path file = directory.resolve("0.journal");
+        JournalHistory journal = JournalHistory.write(file, "world", changeSet);
+
+        Iterator<Change> changes = journal.forwardIterator();
+        assertTrue(changes instanceof Closeable);
+        changes.next();
+        ((Closeable) changes).close();
+        assertFalse(changes.hasNext());
+    }
+
+}
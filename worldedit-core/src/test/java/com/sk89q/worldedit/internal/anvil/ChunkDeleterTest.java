@@ -0,0 +1,152 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.anvil;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.storage.MappedMcRegionReader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A chunk deleter")
+class ChunkDeleterTest {
+
+    private static final int SECTOR = RegionAccess.SECTOR_BYTES;
+
+    /**
+     * Write a region file with chunk x,0 holding the bytes {@code x}
+     * repeated, saved at time {@code 100 * x}. Chunk 1 takes two sectors.
+     */
+    private static Path createRegion(Path worldDir) throws IOException {
+        ByteBuffer region = ByteBuffer.allocate(SECTOR * 6);
+        int sector = 2;
+        for (int x = 0; x < 3; x++) {
+            int sectors = x == 1 ? 2 : 1;
+            byte[] data = compress(payload(x));
+            region.putInt(x * 4, (sector << 8) | sectors);
+            region.putInt(SECTOR + x * 4, 100 * x);
+            region.putInt(sector * SECTOR, data.length + 1);
+            region.put(sector * SECTOR + 4, (byte) 2);
+            region.position(sector * SECTOR + 5);
+            region.put(data);
+            sector += sectors;
+        }
+        Path regionDir = Files.createDirectories(worldDir.resolve("region"));
+        Path file = regionDir.resolve("r.0.0.mca");
+        Files.write(file, region.array());
+        return file;
+    }
+
+    private static byte[] payload(int x) {
+        byte[] payload = new byte[50];
+        Arrays.fill(payload, (byte) x);
+        return payload;
+    }
+
+    private static byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] readChunk(MappedMcRegionReader reader, int x) throws IOException, DataException {
+        try (InputStream in = reader.getChunkInputStream(BlockVector2.at(x, 0))) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    private static ChunkDeletionInfo.ChunkBatch createBatch(Path worldDir) {
+        ChunkDeletionInfo.ChunkBatch batch = new ChunkDeletionInfo.ChunkBatch();
+        batch.worldPath = worldDir.toString();
+        batch.backup = true;
+        batch.minChunk = BlockVector2.at(0, 0);
+        batch.maxChunk = BlockVector2.at(40, 0);
+        ChunkDeletionInfo.DeletionPredicate predicate = new ChunkDeletionInfo.DeletionPredicate();
+        predicate.property = "modification";
+        predicate.comparison = "<";
+        predicate.value = "150";
+        batch.deletionPredicates = ImmutableList.of(predicate);
+        return batch;
+    }
+
+    @Test
+    @DisplayName("estimates the chunks and bytes a batch would delete")
+    void estimate(@TempDir Path worldDir) throws IOException {
+        Path region = createRegion(worldDir);
+        byte[] before = Files.readAllBytes(region);
+
+        ChunkDeletionEstimate estimate = ChunkDeleter.estimate(createBatch(worldDir), 2);
+
+        assertEquals(1, estimate.getRegions());
+        assertEquals(2, estimate.getChunks());
+        assertEquals(3 * SECTOR, estimate.getBytes());
+        assertEquals(1, estimate.getPredicates().size());
+        assertEquals("modification < 150", estimate.getPredicates().get(0).getDescription());
+        assertEquals(2, estimate.getPredicates().get(0).getChunks());
+        assertArrayEquals(before, Files.readAllBytes(region));
+    }
+
+    @Test
+    @DisplayName("deletes matching chunks and keeps the backup intact")
+    void delete(@TempDir Path worldDir) throws IOException, DataException {
+        Path region = createRegion(worldDir);
+        byte[] before = Files.readAllBytes(region);
+        ChunkDeletionInfo info = new ChunkDeletionInfo();
+        info.batches = new ArrayList<>();
+        info.batches.add(createBatch(worldDir));
+        info.threads = 2;
+        Path chunkFile = worldDir.resolve(ChunkDeleter.DELCHUNKS_FILE_NAME);
+        ChunkDeleter.writeInfo(info, chunkFile);
+
+        ChunkDeleter.runFromFile(chunkFile, true);
+
+        assertFalse(Files.exists(chunkFile));
+        assertArrayEquals(before, Files.readAllBytes(region.resolveSibling("r.0.0.mca.bak")));
+        MappedMcRegionReader reader = MappedMcRegionReader.read(new ByteArrayInputStream(Files.readAllBytes(region)));
+        assertFalse(reader.hasChunk(0, 0));
+        assertFalse(reader.hasChunk(1, 0));
+        assertTrue(reader.hasChunk(2, 0));
+        assertEquals(200, reader.getTimestamp(2, 0));
+        assertArrayEquals(payload(2), readChunk(reader, 2));
+        assertEquals(3 * SECTOR, Files.size(region));
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.internal.block;
+
+import com.sk89q.worldedit.util.test.MockedPlatform;
+import com.sk89q.worldedit.util.test.TestBlockTypes;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@DisplayName("A native block state cache")
+// The tests register and clear the global internal IDs
+@Execution(ExecutionMode.SAME_THREAD)
+class NativeBlockStateCacheTest {
+
+    @RegisterExtension
+    static final MockedPlatform PLATFORM = MockedPlatform.create();
+
+    private static BlockState first;
+    private static BlockState second;
+    private static BlockState third;
+
+    private final List<BlockState> converted = new ArrayList<>();
+    private final NativeBlockStateCache<String> cache = new NativeBlockStateCache<>(state -> {
+        converted.add(state);
+        return "native " + state.getAsString();
+    });
+
+    @BeforeAll
+    static void registerTypes() {
+        first = TestBlockTypes.getOrRegister("worldedit:native_cache_first").getDefaultState();
+        second = TestBlockTypes.getOrRegister("worldedit:native_cache_second").getDefaultState();
+        third = TestBlockTypes.getOrRegister("worldedit:native_cache_third").getDefaultState();
+    }
+
+    @AfterEach
+    void clearIds() {
+        BlockStateIdAccess.clear();
+    }
+
+    @Test
+    @DisplayName("converts each indexed state once and grows to fit new IDs")
+    void growth() {
+        BlockStateIdAccess.register(first, 3);
+        assertEquals(0, cache.capacity());
+        assertEquals("native worldedit:native_cache_first", cache.toNative(first));
+        assertEquals(Math.max(4, BlockStateIdAccess.size()), cache.capacity());
+        assertEquals("native worldedit:native_cache_first", cache.toNative(first));
+        assertEquals(Collections.singletonList(first), converted);
+
+        BlockStateIdAccess.register(second, 200);
+        cache.toNative(second);
+        assertEquals(Math.max(201, BlockStateIdAccess.size()), cache.capacity());
+
+        // A lower ID fits into the grown cache
+        int capacity = cache.capacity();
+        BlockStateIdAccess.register(third, 100);
+        cache.toNative(third);
+        assertEquals(capacity, cache.capacity());
+
+        // Growing kept the earlier entries
+        cache.toNative(first);
+        cache.toNative(second);
+        assertEquals(Arrays.asList(first, second, third), converted);
+    }
+
+    @Test
+    @DisplayName("converts states without an ID every time")
+    void unindexed() {
+        cache.toNative(first);
+        cache.toNative(first);
+        assertEquals(Arrays.asList(first, first), converted);
+        assertEquals(0, cache.capacity());
+    }
+
+    @Test
+    @DisplayName("is discarded when the IDs are cleared")
+    void generationReset() {
+        BlockStateIdAccess.register(first, 3);
+        cache.toNative(first);
+        int generation = BlockStateIdAccess.getGeneration();
+
+        BlockStateIdAccess.clear();
+        assertNotEquals(generation, BlockStateIdAccess.getGeneration());
+        // The ID that belonged to the first state must not return its native state
+        BlockStateIdAccess.register(second, 3);
+        assertEquals("native worldedit:native_cache_second", cache.toNative(second));
+        assertEquals(Arrays.asList(first, second), converted);
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.sk89q.worldedit.internal.expression;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("An expression evaluator")
+class ExpressionEvaluatorTest extends BaseExpressionTest {
+
+    @Test
+    @DisplayName("gives the same results as evaluating the expression")
+    void matchesEvaluate() throws ExpressionException {
+        Expression expression = Expression.compile("x * x + y - z", "x", "y", "z");
+        ExpressionEvaluator evaluator = expression.createEvaluator(1_000);
+        for (int i = -5; i <= 5; i++) {
+            assertEquals(expression.evaluate(i, i * 2, 3), evaluator.evaluate(i, i * 2, 3), 0);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "x + y", "x = y * 2; z", "rotate(x, z, pi)", "for (x = 0, 3) { y = y + x; } y" })
+    @DisplayName("treats expressions that only assign provided variables as pure")
+    void pure(String source) throws ExpressionException {
+        assertTrue(Expression.compile(source, "x", "y", "z").isPure());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "a = x; a", "megabuf(x, 1)", "gmegabuf(x)", "++a", "query(x, y, z, y, z)" })
+    @DisplayName("treats expressions that keep other state as impure")
+    void impure(String source) throws ExpressionException {
+        assertFalse(Expression.compile(source, "x", "y", "z").isPure());
+    }
+
+    @Test
+    @DisplayName("keeps the variables of isolated evaluators apart")
+    void isolated() throws ExpressionException {
+        Expression expression = Expression.compile("x = x * 2", "x", "y", "z");
+        ExpressionEvaluator first = expression.createIsolatedEvaluator(1_000);
+        ExpressionEvaluator second = expression.createIsolatedEvaluator(1_000);
+        first.evaluate(1, 0, 0);
+        second.evaluate(5, 0, 0);
+        assertEquals(2, first.getProvidedSlot(0).getValue(), 0);
+        assertEquals(10, second.getProvidedSlot(0).getValue(), 0);
+        assertEquals(0, readSlot(expression, "x"), 0);
+    }
+
+    @Test
+    @DisplayName("cannot isolate impure expressions")
+    void isolatedImpure() throws ExpressionException {
+        Expression expression = Expression.compile("megabuf(x, y)", "x", "y", "z");
+        assertThrows(IllegalStateException.class, () -> expression.createIsolatedEvaluator(1_000));
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.math.convolution;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A height map filter")
+class HeightMapFilterTest {
+
+    private static int[] createHeights(int width, int height) {
+        Random random = new Random(width * 31L + height);
+        int[] data = new int[width * height];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = 40 + random.nextInt(60);
+        }
+        return data;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 7, 40, 300 })
+    @DisplayName("gives the same heights in two passes as with the full kernel")
+    void separableMatchesFull(int size) {
+        Kernel kernel = new GaussianKernel(5, 1.0);
+        Kernel full = new Kernel(kernel.getWidth(), kernel.getHeight(), kernel.getKernelData(null));
+        int[] data = createHeights(size, size + 3);
+        int[] expected = new HeightMapFilter(full).filter(data, size, size + 3, 3);
+        int[] actual = new HeightMapFilter(kernel).filter(data, size, size + 3, 3);
+        // The sums are added in a different order, so rounding may differ by one
+        for (int i = 0; i < expected.length; i++) {
+            assertTrue(Math.abs(expected[i] - actual[i]) <= 1, () -> "heights differ too much");
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 4 })
+    @DisplayName("filters repeatedly without changing its input")
+    void repeatsFilter(int iterations) {
+        HeightMapFilter filter = new HeightMapFilter(new LinearKernel(2));
+        int[] data = createHeights(30, 20);
+        int[] original = data.clone();
+        int[] expected = data;
+        for (int i = 0; i < iterations; i++) {
+            expected = filter.filter(expected, 30, 20);
+        }
+        assertArrayEquals(expected, filter.filter(data, 30, 20, iterations));
+        assertArrayEquals(original, data);
+    }
+
+}
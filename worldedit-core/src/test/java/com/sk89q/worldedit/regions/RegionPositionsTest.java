@@ -0,0 +1,130 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.regions;
+
+import com.google.common.collect.ImmutableList;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector2;
+import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.regions.iterator.FlatRegion3DIterator;
+import com.sk89q.worldedit.regions.iterator.FlatRegionIterator;
+import com.sk89q.worldedit.regions.iterator.RegionIterator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Walking the positions of a region")
+class RegionPositionsTest {
+
+    static Stream<Region> regions() {
+        return Stream.of(
+            new CuboidRegion(BlockVector3.at(-3, 10, 5), BlockVector3.at(4, 14, -2)),
+            new CylinderRegion(BlockVector3.at(2, 0, -7), Vector2.at(4.5, 3), 0, 6),
+            new Polygonal2DRegion(null, ImmutableList.of(
+                BlockVector2.at(0, 0), BlockVector2.at(12, 3), BlockVector2.at(5, 11), BlockVector2.at(-4, 6)), 3, 5),
+            new EllipsoidRegion(BlockVector3.at(1, 20, 1), Vector3.at(5, 3.5, 4)),
+            new NullRegion()
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("regions")
+    @DisplayName("visits the same positions in the same order as the iterator")
+    void matchesIterator(Region region) {
+        List<BlockVector3> expected = new ArrayList<>();
+        region.forEach(expected::add);
+        List<BlockVector3> actual = new ArrayList<>();
+        region.forEachPosition((x, y, z) -> actual.add(BlockVector3.at(x, y, z)));
+        assertEquals(expected, actual);
+    }
+
+    @ParameterizedTest
+    @MethodSource("regions")
+    @DisplayName("visits the same positions as a scan of the bounding box")
+    void matchesScan(Region region) {
+        Iterator<BlockVector3> scan = region instanceof FlatRegion
+            ? new FlatRegion3DIterator((FlatRegion) region, new FlatRegionIterator(region))
+            : new RegionIterator(region);
+        Set<BlockVector3> expected = new HashSet<>();
+        scan.forEachRemaining(expected::add);
+        Set<BlockVector3> actual = new HashSet<>();
+        region.forEach(actual::add);
+        assertEquals(expected, actual);
+        if (region instanceof CuboidRegion) {
+            assertEquals(expected.size(), region.getVolume());
+        }
+    }
+
+    @Test
+    @DisplayName("tests polygon columns the same way as the crossing test")
+    void polygonContains() {
+        Random random = new Random(42);
+        for (int attempt = 0; attempt < 200; attempt++) {
+            List<BlockVector2> points = new ArrayList<>();
+            int count = 3 + random.nextInt(8);
+            for (int i = 0; i < count; i++) {
+                points.add(BlockVector2.at(random.nextInt(41) - 20, random.nextInt(41) - 20));
+            }
+            Polygonal2DRegion region = new Polygonal2DRegion(null, points, 0, 0);
+            for (int x = -22; x <= 22; x++) {
+                for (int z = -22; z <= 22; z++) {
+                    BlockVector3 position = BlockVector3.at(x, 0, z);
+                    assertEquals(Polygonal2DRegion.contains(points, 0, 0, position), region.contains(position),
+                        () -> points + " at " + position);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("falls back to the crossing test for very long polygons")
+    void longPolygon() {
+        List<BlockVector2> points = ImmutableList.of(
+            BlockVector2.at(0, 0), BlockVector2.at(2, 100_000), BlockVector2.at(4, 0));
+        Polygonal2DRegion region = new Polygonal2DRegion(null, points, 0, 0);
+        // The same area from the points as for polygons whose columns are cached
+        assertEquals(200_000, region.getVolume());
+        Random random = new Random(42);
+        for (int attempt = 0; attempt < 10_000; attempt++) {
+            BlockVector3 position = BlockVector3.at(random.nextInt(7) - 1, 0, random.nextInt(100_003) - 1);
+            assertEquals(Polygonal2DRegion.contains(points, 0, 0, position), region.contains(position),
+                () -> "at " + position);
+        }
+
+        List<BlockVector3> expected = new ArrayList<>();
+        region.forEach(expected::add);
+        List<BlockVector3> actual = new ArrayList<>();
+        region.forEachPosition((x, y, z) -> actual.add(BlockVector3.at(x, y, z)));
+        assertEquals(expected, actual);
+    }
+
+}
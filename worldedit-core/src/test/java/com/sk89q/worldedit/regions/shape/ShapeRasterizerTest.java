@@ -0,0 +1,153 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.regions.shape;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("A shape rasterizer")
+class ShapeRasterizerTest {
+
+    private static final BlockVector3 CENTER = BlockVector3.at(3, 64, -5);
+
+    private static List<BlockVector3> positions(ShapeRasterizer shape) {
+        List<BlockVector3> positions = new ArrayList<>();
+        shape.forEachPosition(CENTER, (x, y, z) -> positions.add(BlockVector3.at(x, y, z)));
+        return positions;
+    }
+
+    private static void assertShape(Set<BlockVector3> expected, ShapeRasterizer shape) {
+        List<BlockVector3> actual = positions(shape);
+        assertEquals(actual.size(), new HashSet<>(actual).size(), "a position was visited twice");
+        assertEquals(expected, new HashSet<>(actual));
+        assertEquals(actual.size(), shape.getVolume());
+    }
+
+    private static void addMirrored(Set<BlockVector3> positions, int x, int y, int z, boolean mirrorY) {
+        for (int sx : new int[] { x, -x }) {
+            for (int sz : new int[] { z, -z }) {
+                positions.add(CENTER.add(sx, y, sz));
+                if (mirrorY) {
+                    positions.add(CENTER.add(sx, -y, sz));
+                }
+            }
+        }
+    }
+
+    private static boolean inside(double x, double y, double z) {
+        return x * x + y * y + z * z <= 1;
+    }
+
+    @ParameterizedTest(name = "radii {0}, {1}, {2}, filled {3}")
+    @CsvSource({
+        "0.5, 0.5, 0.5, true",
+        "5.5, 5.5, 5.5, true",
+        "5.5, 5.5, 5.5, false",
+        "8.5, 3.5, 12.5, false",
+        "20.5, 20.5, 20.5, false",
+    })
+    @DisplayName("matches a per-block ellipsoid test")
+    void ellipsoid(double radiusX, double radiusY, double radiusZ, boolean filled) {
+        double invRadiusX = 1 / radiusX;
+        double invRadiusY = 1 / radiusY;
+        double invRadiusZ = 1 / radiusZ;
+        Set<BlockVector3> expected = new HashSet<>();
+        for (int x = 0; x <= Math.ceil(radiusX); x++) {
+            for (int y = 0; y <= Math.ceil(radiusY); y++) {
+                for (int z = 0; z <= Math.ceil(radiusZ); z++) {
+                    double xn = x * invRadiusX;
+                    double yn = y * invRadiusY;
+                    double zn = z * invRadiusZ;
+                    if (!inside(xn, yn, zn)) {
+                        continue;
+                    }
+                    if (!filled && inside((x + 1) * invRadiusX, yn, zn)
+                        && inside(xn, (y + 1) * invRadiusY, zn) && inside(xn, yn, (z + 1) * invRadiusZ)) {
+                        continue;
+                    }
+                    addMirrored(expected, x, y, z, true);
+                }
+            }
+        }
+        assertShape(expected, ShapeRasterizer.ellipsoid(radiusX, radiusY, radiusZ, filled));
+    }
+
+    @ParameterizedTest(name = "radii {0}, {1}, height {2}, filled {3}")
+    @CsvSource({
+        "0.5, 0.5, 1, true",
+        "6.5, 6.5, 3, true",
+        "6.5, 6.5, 3, false",
+        "10.5, 4.5, 2, false",
+    })
+    @DisplayName("matches a per-block cylinder test")
+    void cylinder(double radiusX, double radiusZ, int height, boolean filled) {
+        double invRadiusX = 1 / radiusX;
+        double invRadiusZ = 1 / radiusZ;
+        Set<BlockVector3> expected = new HashSet<>();
+        for (int x = 0; x <= Math.ceil(radiusX); x++) {
+            for (int z = 0; z <= Math.ceil(radiusZ); z++) {
+                double xn = x * invRadiusX;
+                double zn = z * invRadiusZ;
+                if (!inside(xn, 0, zn)) {
+                    continue;
+                }
+                if (!filled && inside((x + 1) * invRadiusX, 0, zn) && inside(xn, 0, (z + 1) * invRadiusZ)) {
+                    continue;
+                }
+                for (int y = 0; y < height; y++) {
+                    addMirrored(expected, x, y, z, false);
+                }
+            }
+        }
+        assertShape(expected, ShapeRasterizer.cylinder(radiusX, radiusZ, height, filled));
+    }
+
+    @ParameterizedTest(name = "size {0}, filled {1}")
+    @CsvSource({
+        "1, true",
+        "6, true",
+        "6, false",
+    })
+    @DisplayName("matches a per-block pyramid test")
+    void pyramid(int size, boolean filled) {
+        Set<BlockVector3> expected = new HashSet<>();
+        for (int y = 0; y < size; y++) {
+            int reach = size - y - 1;
+            for (int x = 0; x <= reach; x++) {
+                for (int z = 0; z <= reach; z++) {
+                    if (filled || x == reach || z == reach) {
+                        addMirrored(expected, x, y, z, false);
+                    }
+                }
+            }
+        }
+        assertShape(expected, ShapeRasterizer.pyramid(size, filled));
+    }
+
+}
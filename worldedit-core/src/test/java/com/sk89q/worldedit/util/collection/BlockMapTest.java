@@ -27,11 +27,10 @@
 import com.sk89q.worldedit.extension.platform.PlatformManager;
 import com.sk89q.worldedit.extension.platform.Preference;
 import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldedit.registry.Registry;
+import com.sk89q.worldedit.util.test.TestBlockTypes;
 import com.sk89q.worldedit.util.test.VariedVectorGenerator;
 import com.sk89q.worldedit.util.test.VariedVectors;
 import com.sk89q.worldedit.world.block.BaseBlock;
-import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.block.BlockTypes;
 import com.sk89q.worldedit.world.registry.BundledRegistries;
 import org.junit.jupiter.api.AfterAll;
@@ -44,7 +43,6 @@
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import java.lang.reflect.Field;
 import java.util.AbstractMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -85,20 +83,13 @@ static void setupFakePlatform() {
         platformManager.register(MOCKED_PLATFORM);
         WorldEdit.getInstance().getEventBus().post(new PlatformsRegisteredEvent());
 
-        registerBlock("minecraft:air");
-        registerBlock("minecraft:oak_wood");
+        TestBlockTypes.getOrRegister("minecraft:air");
+        TestBlockTypes.getOrRegister("minecraft:oak_wood");
     }
 
     @AfterAll
-    static void tearDownFakePlatform() throws Exception {
+    static void tearDownFakePlatform() {
         WorldEdit.getInstance().getPlatformManager().unregister(MOCKED_PLATFORM);
-        Field map = Registry.class.getDeclaredField("map");
-        map.setAccessible(true);
-        ((Map<?, ?>) map.get(BlockType.REGISTRY)).clear();
-    }
-
-    private static void registerBlock(String id) {
-        BlockType.REGISTRY.register(id, new BlockType(id));
     }
 
     @Mock
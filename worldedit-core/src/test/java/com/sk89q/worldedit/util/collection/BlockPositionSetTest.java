@@ -0,0 +1,72 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.test.VariedVectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A block position set")
+class BlockPositionSetTest {
+
+    private final BlockPositionSet set = new BlockPositionSet();
+
+    @VariedVectors.Test(capToVanilla = true)
+    @DisplayName("contains a position after it is added, and only once")
+    void containsAfterAdd(BlockVector3 vec) {
+        assertFalse(set.contains(vec));
+        assertTrue(set.add(vec));
+        assertTrue(set.contains(vec));
+        assertFalse(set.add(vec));
+        assertEquals(1, set.size());
+    }
+
+    @VariedVectors.Test(capToVanilla = true, provideNonMatching = true)
+    @DisplayName("does not contain other positions after one is added")
+    void doesNotContainOthers(BlockVector3 vec, BlockVector3 other) {
+        set.add(vec);
+        assertFalse(set.contains(other));
+    }
+
+    @Test
+    @DisplayName("keeps neighbouring positions apart across section borders")
+    void sectionBorders() {
+        for (int x = -17; x <= 17; x++) {
+            for (int y = -17; y <= 17; y++) {
+                assertTrue(set.add(x, y, 0));
+            }
+        }
+        assertEquals(35 * 35, set.size());
+        assertTrue(set.contains(-17, 16, 0));
+        assertFalse(set.contains(-17, 16, 1));
+        assertFalse(set.contains(-17, 16, -1));
+        assertFalse(set.contains(18, 0, 0));
+
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.contains(0, 0, 0));
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.concurrency;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A fair task executor")
+class FairTaskExecutorTest {
+
+    private final List<String> order = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch release = new CountDownLatch(1);
+    private FairTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        executor = new FairTaskExecutor(1, 3, "Test Executor - %s");
+        CountDownLatch started = new CountDownLatch(1);
+        // Keep the only worker busy until the test has queued its tasks
+        executor.submit("blocker", FairTaskExecutor.Priority.NORMAL, () -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    private ListenableFuture<?> submit(String owner, FairTaskExecutor.Priority priority, String name) {
+        return executor.submit(owner, priority, () -> order.add(name));
+    }
+
+    private void runQueued() throws InterruptedException {
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("lets owners take turns")
+    void roundRobin() throws InterruptedException {
+        submit("a", FairTaskExecutor.Priority.NORMAL, "a1");
+        submit("a", FairTaskExecutor.Priority.NORMAL, "a2");
+        submit("a", FairTaskExecutor.Priority.NORMAL, "a3");
+        submit("b", FairTaskExecutor.Priority.NORMAL, "b1");
+        submit("b", FairTaskExecutor.Priority.NORMAL, "b2");
+        runQueued();
+        assertEquals(Arrays.asList("a1", "b1", "a2", "b2", "a3"), order);
+    }
+
+    @Test
+    @DisplayName("runs tasks with a higher priority first")
+    void priorities() throws InterruptedException {
+        submit("a", FairTaskExecutor.Priority.NORMAL, "a1");
+        submit("a", FairTaskExecutor.Priority.HIGH, "a2");
+        submit("b", FairTaskExecutor.Priority.LOW, "b1");
+        submit("c", FairTaskExecutor.Priority.NORMAL, "c1");
+        runQueued();
+        assertEquals(Arrays.asList("a2", "c1", "a1", "b1"), order);
+    }
+
+    @Test
+    @DisplayName("limits the number of tasks queued per owner")
+    void queueLimit() {
+        submit("a", FairTaskExecutor.Priority.NORMAL, "a1");
+        submit("a", FairTaskExecutor.Priority.NORMAL, "a2");
+        submit("a", FairTaskExecutor.Priority.NORMAL, "a3");
+        assertThrows(RejectedExecutionException.class, () -> submit("a", FairTaskExecutor.Priority.NORMAL, "a4"));
+        submit("b", FairTaskExecutor.Priority.NORMAL, "b1");
+        assertEquals(3, executor.getQueuedTasks("a"));
+        assertEquals(4, executor.getStatistics().getQueuedTasks());
+        assertEquals(2, executor.getStatistics().getWaitingOwners());
+    }
+
+    @Test
+    @DisplayName("drops cancelled tasks from the queue")
+    void cancel() throws InterruptedException {
+        ListenableFuture<?> a1 = submit("a", FairTaskExecutor.Priority.NORMAL, "a1");
+        submit("a", FairTaskExecutor.Priority.NORMAL, "a2");
+        submit("b", FairTaskExecutor.Priority.NORMAL, "b1");
+        assertTrue(FairTaskExecutor.isQueued(a1));
+        assertTrue(a1.cancel(false));
+        assertFalse(FairTaskExecutor.isQueued(a1));
+        assertEquals(2, executor.getStatistics().getQueuedTasks());
+        assertEquals(1, executor.cancelAll("b"));
+        assertEquals(1, executor.getStatistics().getQueuedTasks());
+        runQueued();
+        assertEquals(Collections.singletonList("a2"), order);
+    }
+
+    @Test
+    @DisplayName("runs the tasks of an owner one at a time")
+    void oneTaskPerOwner() throws Exception {
+        executor.setLimits(3, 3);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch finishFirst = new CountDownLatch(1);
+        executor.submit("a", FairTaskExecutor.Priority.NORMAL, () -> {
+            firstStarted.countDown();
+            finishFirst.await();
+            order.add("a1");
+            return null;
+        });
+        ListenableFuture<?> a2 = submit("a", FairTaskExecutor.Priority.NORMAL, "a2");
+        ListenableFuture<?> b1 = submit("b", FairTaskExecutor.Priority.NORMAL, "b1");
+        assertTrue(firstStarted.await(10, TimeUnit.SECONDS));
+        b1.get(10, TimeUnit.SECONDS);
+        // A worker is free, but a2 has to wait for a1
+        assertTrue(FairTaskExecutor.isQueued(a2));
+        assertEquals(1, executor.getStatistics().getWaitingOwners());
+        finishFirst.countDown();
+        a2.get(10, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("b1", "a1", "a2"), order);
+    }
+
+    @Test
+    @DisplayName("runs tasks without an owner concurrently")
+    void sharedTasksConcurrent() throws Exception {
+        executor.setLimits(3, 3);
+        CountDownLatch running = new CountDownLatch(2);
+        Callable<Object> task = () -> {
+            running.countDown();
+            // Only finishes if the other task is running at the same time
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+            return null;
+        };
+        ListenableFuture<?> first = executor.submit(task);
+        ListenableFuture<?> second = executor.submit(task);
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+    }
+
+}
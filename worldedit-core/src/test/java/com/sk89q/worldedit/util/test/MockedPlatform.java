@@ -0,0 +1,125 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.test;
+
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.event.platform.PlatformsRegisteredEvent;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+import com.sk89q.worldedit.world.registry.Registries;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Registers a mocked platform with every capability for the tests of a class.
+ *
+ * <p>Use it from a static {@link org.junit.jupiter.api.extension.RegisterExtension}
+ * field. The platform is registered before the {@code @BeforeAll} methods of
+ * the class run, and unregistered after its {@code @AfterAll} methods.</p>
+ */
+public final class MockedPlatform implements BeforeAllCallback, AfterAllCallback {
+
+    /**
+     * Create a platform with the bundled registries.
+     *
+     * @return the platform
+     */
+    public static MockedPlatform create() {
+        return withRegistries(new BundledRegistries() {
+        });
+    }
+
+    /**
+     * Create a platform with the given registries.
+     *
+     * @param registries the registries
+     * @return the platform
+     */
+    public static MockedPlatform withRegistries(Registries registries) {
+        return new MockedPlatform(registries);
+    }
+
+    private final Platform platform = mock(Platform.class);
+
+    private MockedPlatform(Registries registries) {
+        when(platform.getRegistries()).thenReturn(registries);
+        when(platform.getCapabilities()).thenReturn(
+            Stream.of(Capability.values())
+                .collect(Collectors.toMap(Function.identity(), __ -> Preference.NORMAL))
+        );
+    }
+
+    /**
+     * Give the platform a default configuration.
+     *
+     * @return this platform
+     */
+    public MockedPlatform withConfiguration() {
+        when(platform.getConfiguration()).thenReturn(new LocalConfiguration() {
+            @Override
+            public void load() {
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Give the platform a data version.
+     *
+     * @param dataVersion the data version
+     * @return this platform
+     */
+    public MockedPlatform withDataVersion(int dataVersion) {
+        when(platform.getDataVersion()).thenReturn(dataVersion);
+        return this;
+    }
+
+    /**
+     * Get the mocked platform.
+     *
+     * @return the platform
+     */
+    public Platform getPlatform() {
+        return platform;
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        WorldEdit.getInstance().getPlatformManager().register(platform);
+        WorldEdit.getInstance().getEventBus().post(new PlatformsRegisteredEvent());
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        WorldEdit.getInstance().getPlatformManager().unregister(platform);
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.test;
+
+import com.sk89q.worldedit.world.block.BlockType;
+
+/**
+ * Registers block types for tests.
+ *
+ * <p>Types are shared by every test class in the JVM and are never removed,
+ * as {@link com.sk89q.worldedit.world.block.BlockTypes} keeps the instances
+ * it saw first.</p>
+ */
+public final class TestBlockTypes {
+
+    /**
+     * Get the block type with the given ID, registering it if needed.
+     *
+     * @param id the ID of the block type
+     * @return the block type
+     */
+    public static synchronized BlockType getOrRegister(String id) {
+        BlockType existing = BlockType.REGISTRY.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        return BlockType.REGISTRY.register(id, new BlockType(id));
+    }
+
+    private TestBlockTypes() {
+    }
+
+}
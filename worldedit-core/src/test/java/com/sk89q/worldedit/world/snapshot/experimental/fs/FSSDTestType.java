@@ -46,6 +46,7 @@
 import static com.sk89q.worldedit.world.snapshot.experimental.fs.FileSystemSnapshotDatabaseTest.WORLD_BETA;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.DynamicContainer.dynamicContainer;
 import static org.junit.jupiter.api.DynamicTest.dynamicTest;
 
@@ -275,6 +276,12 @@ private static void assertValidSnapshot(ZonedDateTime time,
         // MCR file
         BlockVector3 offsetChunkPos = CHUNK_POS.add(32, 0, 32);
         assertEquals(CHUNK_TAG.toString(), snapshot.getChunkTag(offsetChunkPos).toString());
+        // Again, from the region that is already open
+        assertEquals(CHUNK_TAG.toString(), snapshot.getChunkTag(CHUNK_POS).toString());
+        assertEquals(snapshot.getChunkCacheKey(CHUNK_POS), snapshot.getChunkCacheKey(CHUNK_POS));
+        if (snapshot.getChunkCacheKey(CHUNK_POS) != null) {
+            assertNotEquals(snapshot.getChunkCacheKey(CHUNK_POS), snapshot.getChunkCacheKey(offsetChunkPos));
+        }
     }
 
     abstract List<? extends DynamicNode> getTests(FSSDContext context) throws IOException;
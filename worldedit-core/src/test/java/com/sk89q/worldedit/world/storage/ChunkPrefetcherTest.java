@@ -0,0 +1,74 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.storage;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.math.BlockVector2;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A chunk prefetcher")
+class ChunkPrefetcherTest {
+
+    @Test
+    @DisplayName("hands out chunks in order with their errors, without loading too far ahead")
+    void ordered() {
+        List<BlockVector2> positions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            positions.add(BlockVector2.at(i, -i));
+        }
+        AtomicInteger reads = new AtomicInteger();
+        ChunkPrefetcher.ChunkTagReader reader = position -> {
+            reads.incrementAndGet();
+            if (position.getBlockX() % 2 == 0) {
+                throw new MissingChunkException();
+            }
+            // Missing the Level tag, so this fails to decode
+            return new CompoundTag(ImmutableMap.of());
+        };
+
+        try (ChunkPrefetcher prefetcher = new ChunkPrefetcher(positions, reader, 4, 8)) {
+            for (BlockVector2 position : positions) {
+                assertTrue(prefetcher.hasNext());
+                assertTrue(reads.get() <= position.getBlockX() + 8);
+                ChunkPrefetcher.LoadedChunk loaded = prefetcher.next();
+                assertEquals(position, loaded.getPosition());
+                if (position.getBlockX() % 2 == 0) {
+                    assertThrows(MissingChunkException.class, loaded::getChunk);
+                } else {
+                    assertThrows(ChunkStoreException.class, loaded::getChunk);
+                }
+            }
+            assertFalse(prefetcher.hasNext());
+        }
+        assertEquals(positions.size(), reads.get());
+    }
+
+}
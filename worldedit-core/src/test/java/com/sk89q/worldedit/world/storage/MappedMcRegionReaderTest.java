@@ -0,0 +1,105 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.storage;
+
+import com.google.common.io.ByteStreams;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.world.DataException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A mapped MCRegion reader")
+class MappedMcRegionReaderTest {
+
+    private static final byte[] PAYLOAD = "chunk data".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Build a region file holding {@link #PAYLOAD} for chunk 3,5 in the
+     * third sector.
+     */
+    private static byte[] createRegion() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed)) {
+            out.write(PAYLOAD);
+        }
+        ByteBuffer region = ByteBuffer.allocate(4096 * 3);
+        int index = 3 + 5 * 32;
+        region.putInt(index * 4, (2 << 8) | 1);
+        region.putInt(4096 + index * 4, 1234);
+        region.putInt(4096 * 2, compressed.size() + 1);
+        region.put(4096 * 2 + 4, (byte) 2);
+        region.position(4096 * 2 + 5);
+        region.put(compressed.toByteArray());
+        return region.array();
+    }
+
+    private static void assertReads(MappedMcRegionReader reader) throws IOException, DataException {
+        assertTrue(reader.hasChunk(3, 5));
+        assertFalse(reader.hasChunk(5, 3));
+        assertEquals(1234, reader.getTimestamp(35, 37));
+        try (InputStream in = reader.getChunkInputStream(BlockVector2.at(-29, 5))) {
+            assertArrayEquals(PAYLOAD, ByteStreams.toByteArray(in));
+        }
+        assertThrows(DataException.class, () -> reader.getChunkInputStream(BlockVector2.at(5, 3)));
+    }
+
+    @Test
+    @DisplayName("reads chunks from a mapped file")
+    void mapped(@TempDir Path directory) throws IOException, DataException {
+        Path file = directory.resolve("r.0.0.mca");
+        Files.write(file, createRegion());
+        assertReads(MappedMcRegionReader.open(file));
+    }
+
+    @Test
+    @DisplayName("reads chunks from a stream")
+    void stream() throws IOException, DataException {
+        assertReads(MappedMcRegionReader.read(new ByteArrayInputStream(createRegion())));
+    }
+
+    @Test
+    @DisplayName("rejects chunks that run past the end of the file")
+    void truncated() throws IOException {
+        byte[] region = createRegion();
+        byte[] truncated = new byte[4096 * 2 + 8];
+        System.arraycopy(region, 0, truncated, 0, truncated.length);
+        MappedMcRegionReader reader = MappedMcRegionReader.read(new ByteArrayInputStream(truncated));
+        assertThrows(DataException.class, () -> reader.getChunkInputStream(BlockVector2.at(3, 5)));
+        assertThrows(IOException.class, () -> MappedMcRegionReader.read(new ByteArrayInputStream(new byte[100])));
+    }
+
+}
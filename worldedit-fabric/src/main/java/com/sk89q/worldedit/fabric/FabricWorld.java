@@ -85,6 +85,7 @@
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.registry.DynamicRegistryManager;
 import net.minecraft.util.registry.RegistryKey;
+import net.minecraft.world.Heightmap;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldProperties;
 import net.minecraft.world.biome.source.BiomeAccessType;
@@ -573,6 +574,24 @@ public int getMaxY() {
         return getWorld().getHeight() - 1;
     }
 
+    @Override
+    public void getMovementBlockerHeights(int minX, int minZ, int width, int length, int[] heights) {
+        World world = getWorld();
+        int maxX = minX + width - 1;
+        int maxZ = minZ + length - 1;
+        // Motion-blocking heights also count fluids, so they are never below a movement blocker
+        for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+            for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+                Chunk chunk = world.getChunk(chunkX, chunkZ);
+                for (int z = Math.max(minZ, chunkZ << 4); z <= Math.min(maxZ, (chunkZ << 4) + 15); z++) {
+                    for (int x = Math.max(minX, chunkX << 4); x <= Math.min(maxX, (chunkX << 4) + 15); x++) {
+                        heights[(z - minZ) * width + (x - minX)] = chunk.sampleHeightmap(Heightmap.Type.MOTION_BLOCKING, x, z);
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public BlockVector3 getSpawnPosition() {
         WorldProperties worldProps = getWorld().getLevelProperties();
@@ -92,6 +92,7 @@
 import net.minecraft.world.chunk.AbstractChunkProvider;
 import net.minecraft.world.chunk.ChunkStatus;
 import net.minecraft.world.chunk.IChunk;
+import net.minecraft.world.gen.Heightmap;
 import net.minecraft.world.gen.feature.ConfiguredFeature;
 import net.minecraft.world.gen.feature.Features;
 import net.minecraft.world.gen.settings.DimensionGeneratorSettings;
@@ -584,6 +585,24 @@ public int getMaxY() {
         return getWorld().getHeight() - 1;
     }
 
+    @Override
+    public void getMovementBlockerHeights(int minX, int minZ, int width, int length, int[] heights) {
+        World world = getWorld();
+        int maxX = minX + width - 1;
+        int maxZ = minZ + length - 1;
+        // Motion-blocking heights also count fluids, so they are never below a movement blocker
+        for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+            for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+                IChunk chunk = world.getChunk(chunkX, chunkZ);
+                for (int z = Math.max(minZ, chunkZ << 4); z <= Math.min(maxZ, (chunkZ << 4) + 15); z++) {
+                    for (int x = Math.max(minX, chunkX << 4); x <= Math.min(maxX, (chunkX << 4) + 15); x++) {
+                        heights[(z - minZ) * width + (x - minX)] = chunk.getTopBlockY(Heightmap.Type.MOTION_BLOCKING, x, z);
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public BlockVector3 getSpawnPosition() {
         IWorldInfo worldInfo = getWorld().getWorldInfo();
@@ -115,11 +115,24 @@ public void load() {
         scriptTimeout = node.getNode("scripting", "timeout").getInt(scriptTimeout);
         scriptsDir = node.getNode("scripting", "dir").getString(scriptsDir);
 
+        parallelEditThreads = Math.max(0, node.getNode("parallel-edits", "threads").getInt(parallelEditThreads));
+        parallelEditMinVolume = Math.max(0, node.getNode("parallel-edits", "min-volume").getInt(parallelEditMinVolume));
+
+        taskExecutorThreads = Math.max(1, node.getNode("task-executor", "threads").getInt(taskExecutorThreads));
+        taskExecutorQueueSize = Math.max(1, node.getNode("task-executor", "max-queued-per-player").getInt(taskExecutorQueueSize));
+        operationTickBudget = Math.max(0, node.getNode("task-executor", "ms-per-tick").getInt(operationTickBudget));
+
         saveDir = node.getNode("saving", "dir").getString(saveDir);
 
+        setClipboardStorageName(node.getNode("clipboard", "storage").getString(clipboardStorage.name().toLowerCase(Locale.ROOT)));
+        clipboardMappedThreshold = Math.max(-1, node.getNode("clipboard", "mapped-threshold").getInt(clipboardMappedThreshold));
+        clipboardMappedCacheSize = Math.max(1, node.getNode("clipboard", "mapped-cache-sections").getInt(clipboardMappedCacheSize));
+
         allowSymlinks = node.getNode("files", "allow-symbolic-links").getBoolean(false);
         LocalSession.MAX_HISTORY_SIZE = Math.max(0, node.getNode("history", "size").getInt(15));
         SessionManager.EXPIRATION_GRACE = node.getNode("history", "expiration").getInt(10) * 60 * 1000;
+        historyJournal = node.getNode("history", "journal", "enabled").getBoolean(historyJournal);
+        historyHotSize = Math.max(0, node.getNode("history", "journal", "hot-size").getInt(historyHotSize));
 
         showHelpInfo = node.getNode("show-help-on-first-use").getBoolean(true);
         serverSideCUI = node.getNode("server-side-cui").getBoolean(true);
@@ -127,6 +140,8 @@ public void load() {
         String snapshotsDir = node.getNode("snapshots", "directory").getString("");
         boolean experimentalSnapshots = node.getNode("snapshots", "experimental").getBoolean(false);
         initializeSnapshotConfiguration(snapshotsDir, experimentalSnapshots);
+        snapshotRestoreThreads = Math.max(0, node.getNode("snapshots", "restore-threads").getInt(snapshotRestoreThreads));
+        snapshotRestoreBufferedChunks = Math.max(1, node.getNode("snapshots", "restore-buffered-chunks").getInt(snapshotRestoreBufferedChunks));
 
         String type = node.getNode("shell-save-type").getString("").trim();
         shellSaveType = type.equals("") ? null : type;